@@ -98,8 +98,8 @@ public abstract class BasePlugin extends JavaPlugin implements Communicable {
     }
 
     /**
-     * The {@link BasePlugin} implementation calls
-     * {@link JavaPlugin#saveDefaultConfig()}
+     * The {@link BasePlugin} implementation starts the {@link Throwables}
+     * reporter and calls {@link JavaPlugin#saveDefaultConfig()}
      * and {@link PluginConfig#registerAll()}. Use <b>super.onEnable()</b> to do
      * automatic config saving and commands and listeners registration.
      *
@@ -111,6 +111,7 @@ public abstract class BasePlugin extends JavaPlugin implements Communicable {
      */
     @Override
     public void onEnable() {
+        Throwables.start();
         saveDefaultConfig();
         URL url = getVariablesURL();
         try {
@@ -124,8 +125,9 @@ public abstract class BasePlugin extends JavaPlugin implements Communicable {
     }
 
     /**
-     * The {@link BasePlugin} implementation just closes its
-     * {@link ExecutorService}s.
+     * The {@link BasePlugin} implementation closes its
+     * {@link ExecutorService}s, then stops and flushes the {@link Throwables}
+     * reporter.
      * This method do not closes the {@link EntityManagerFactory} if the subclass
      * overrides
      * {@link #createEntityManagerFactory()} to provide one. It is you
@@ -152,6 +154,13 @@ public abstract class BasePlugin extends JavaPlugin implements Communicable {
         shutdownExecutorService(cached);
         shutdownExecutorService(virtual);
         singles.forEach(this::shutdownExecutorService);
+        messager.flush();
+        try {
+            Throwables.stop(TimeUnit.SECONDS.toMillis(executorShutdownTimeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Throwables.flush();
     }
 
     /**
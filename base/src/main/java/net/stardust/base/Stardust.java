@@ -15,6 +15,7 @@ import org.bukkit.entity.Player;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -339,13 +340,13 @@ public final class Stardust {
      * </p>
      *
      * <p>
-     * The pages are obtained from a {@link Stream} of elements, collecting them
-     * into a
-     * {@link BatchList} and passing a default value as the batch size
-     * ({@link Stardust#DEFAULT_PAGE_SIZE}).
-     * Each batch of the batch list is considered a page; then this method gets the
-     * page (batch)
-     * requested by the caller using the <b>page</b> parameter. Finally, it converts
+     * The pages are obtained from a {@link Stream} of elements, split in
+     * batches of a default size ({@link Stardust#DEFAULT_PAGE_SIZE}).
+     * The stream is consumed only once and only the batch requested by the
+     * caller through the <b>page</b> parameter is kept, while the others are
+     * just counted, so a lazy stream such as
+     * {@link net.stardust.base.database.crud.Crud#stream()} is listed in
+     * constant memory. Finally, it converts
      * every
      * element of the type T in the batch to a {@link Component} using the function
      * parameter,
@@ -399,15 +400,21 @@ public final class Stardust {
             messager.message(sender, Component.translatable("pageable.negative-page", NamedTextColor.RED));
             return;
         }
-        BatchList<T> batchList = elements.collect(BatchList.collector(DEFAULT_PAGE_SIZE));
-        List<T> batch;
-        try {
-            batch = batchList.getBatch(index);
-        } catch (IndexOutOfBoundsException e) {
+        long first = (long) index * DEFAULT_PAGE_SIZE;
+        long[] total = new long[1];
+        List<T> batch = new ArrayList<>(DEFAULT_PAGE_SIZE);
+        elements.sequential().forEach(element -> {
+            long position = total[0]++;
+            if (position >= first && position < first + DEFAULT_PAGE_SIZE) {
+                batch.add(element);
+            }
+        });
+        if (batch.isEmpty()) {
             messager.message(sender, Component.translatable("pageable.greater-page", NamedTextColor.RED));
             return;
         }
-        Component pages = Component.text("(p. " + page + "/" + batchList.getTotalBatches() + ")", NamedTextColor.GOLD);
+        long totalPages = (total[0] + DEFAULT_PAGE_SIZE - 1) / DEFAULT_PAGE_SIZE;
+        Component pages = Component.text("(p. " + page + "/" + totalPages + ")", NamedTextColor.GOLD);
         Component header = Component.translatable("pageable.list." + pageableListKey, NamedTextColor.GOLD, pages);
         messager.message(sender, header);
         StardustThreads.run(() -> {
@@ -0,0 +1,279 @@
+package net.stardust.base.command;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+
+import net.stardust.base.command.MethodCommandScanner.MethodScanException;
+
+/**
+ * A {@link CommandEntry} method compiled by {@link MethodCommandScanner}:
+ * the parser and the tab completer of each parameter and a
+ * {@link MethodHandle} to call the method are built once, when the command
+ * class is scanned, so running the entry does no reflection.
+ *
+ * @see MethodCommandScanner
+ * @see CommandEntry
+ *
+ * @author Sergio Luis
+ */
+public final class CommandEndpoint {
+
+    private final Method method;
+    private final CommandEntry entry;
+    private final Set<Class<? extends CommandSender>> types;
+    private final int depth;
+    private final Function<String, ?>[] parsers;
+    private final Completer[] completers;
+    private final boolean finalString;
+    private final MethodHandle invoker;
+
+    CommandEndpoint(Method method, int depth) {
+        this.method = method;
+        this.depth = depth;
+        entry = method.getAnnotation(CommandEntry.class);
+        types = Set.of(entry.types());
+
+        Class<?>[] params = method.getParameterTypes();
+        parsers = parsers(params);
+        completers = Stream.of(method.getParameters()).map(CommandEndpoint::completer).toArray(Completer[]::new);
+        finalString = params.length > 0 && params[params.length - 1] == String.class;
+
+        invoker = invoker(method);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<String, ?>[] parsers(Class<?>[] params) {
+        Function<String, ?>[] parsers = new Function[params.length];
+        for (int i = 0; i < params.length; i++) {
+            parsers[i] = parser(params[i]);
+        }
+        return parsers;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Function<String, ?> parser(Class<?> param) {
+        if (param == byte.class || param == Byte.class) return Byte::parseByte;
+        if (param == short.class || param == Short.class) return Short::parseShort;
+        if (param == int.class || param == Integer.class) return Integer::parseInt;
+        if (param == long.class || param == Long.class) return Long::parseLong;
+        if (param == float.class || param == Float.class) return arg -> Float.parseFloat(arg.replace(',', '.'));
+        if (param == double.class || param == Double.class) return arg -> Double.parseDouble(arg.replace(',', '.'));
+        if (param == char.class || param == Character.class) {
+            return arg -> {
+                if (arg.length() != 1) throw new IllegalArgumentException("String length != 1 for char parsing");
+                return arg.charAt(0);
+            };
+        }
+        if (param == boolean.class || param == Boolean.class) {
+            return arg -> switch (arg.toLowerCase()) {
+                case "true" -> true;
+                case "false" -> false;
+                default -> throw new IllegalArgumentException("Not a boolean value");
+            };
+        }
+        if (param == BigInteger.class) return BigInteger::new;
+        if (param == BigDecimal.class) return arg -> new BigDecimal(arg.replace(',', '.'));
+        if (param.isEnum()) {
+            Class<? extends Enum> type = (Class<? extends Enum>) param;
+            return arg -> Enum.valueOf(type, arg.toUpperCase());
+        }
+        if (param == String.class) return Function.identity();
+        // Should never get here, the scanner only allows the types above
+        throw new MethodScanException("Param class is not one of the presets: " + param.getName());
+    }
+
+    /**
+     * Returns the completer of the parameter, or null if it is not
+     * completed.
+     */
+    private static Completer completer(Parameter parameter) {
+        Completion completion = parameter.getAnnotation(Completion.class);
+        if (completion != null) {
+            CompletionSource source = CompletionSource.named(completion.value());
+            if (!completion.perSender()) {
+                return (sender, prefix, into, limit) -> source.complete(prefix, into, limit);
+            }
+            return (sender, prefix, into, limit) -> {
+                if (sender instanceof Entity entity) {
+                    source.of(entity.getUniqueId()).complete(prefix, into, limit);
+                }
+            };
+        }
+        Class<?> type = parameter.getType();
+        String[] values = null;
+        if (type == boolean.class || type == Boolean.class) {
+            values = new String[] { "false", "true" };
+        } else if (type.isEnum()) {
+            values = Stream.of(type.getEnumConstants()).map(constant -> ((Enum<?>) constant).name().toLowerCase())
+                    .sorted().toArray(String[]::new);
+        }
+        if (values == null) {
+            return null;
+        }
+        String[] sorted = values;
+        return (sender, prefix, into, limit) -> CompletionSource.complete(sorted, prefix, into, limit);
+    }
+
+    /**
+     * Adapts the method to (Object, Object[])Object, spreading the array
+     * as the arguments.
+     */
+    private static MethodHandle invoker(Method method) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle;
+            try {
+                handle = lookup.unreflect(method);
+            } catch (IllegalAccessException e) {
+                // public method of a class not accessible from here, like a nested private class
+                method.setAccessible(true);
+                handle = lookup.unreflect(method);
+            }
+            return handle.asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new MethodScanException("Could not access method " + MethodCommandScanner.methodToString(method)
+                    + " in class " + method.getDeclaringClass().getName(), e);
+        }
+    }
+
+    /**
+     * Returns whether the entry can take the given amount of arguments
+     * after its subcommands.
+     */
+    boolean accepts(int arguments) {
+        return parsers.length == arguments || finalString && parsers.length < arguments;
+    }
+
+    /**
+     * Parses the arguments after the subcommands of the entry. The words
+     * left after the other parameters are joined into the final String, if
+     * there is one.
+     *
+     * @param args the whole command line, subcommands included.
+     * @return the parsed arguments, or null if they do not fit the
+     *         parameters.
+     */
+    Object[] parse(String[] args) {
+        int len = parsers.length;
+        int arguments = args.length - depth;
+        if (!accepts(arguments) || len < arguments && entry.oneWordFinalString()) {
+            return null;
+        }
+        Object[] values = new Object[len];
+        int parsed = len < arguments ? len - 1 : len;
+        for (int i = 0; i < parsed; i++) {
+            try {
+                values[i] = parsers[i].apply(args[depth + i]);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        if (parsed < len) {
+            values[len - 1] = String.join(" ", Arrays.copyOfRange(args, depth + len - 1, args.length));
+        }
+        return values;
+    }
+
+    /**
+     * Adds the completions of the last word of the command line, if the
+     * parameter at its position is completed and the words before it
+     * parse as the parameters before it.
+     *
+     * @param args the whole command line, subcommands included.
+     */
+    void complete(CommandSender sender, String[] args, String prefix, List<String> into, int limit) {
+        int position = args.length - 1 - depth;
+        if (position < 0 || position >= completers.length || completers[position] == null) {
+            return;
+        }
+        for (int i = 0; i < position; i++) {
+            try {
+                parsers[i].apply(args[depth + i]);
+            } catch (RuntimeException e) {
+                return;
+            }
+        }
+        completers[position].complete(sender, prefix, into, limit);
+    }
+
+    /**
+     * Returns whether the sender can run this entry, as checked by
+     * {@link StardustCommand} before running it.
+     *
+     * @param sender the sender.
+     * @param op     whether the sender is op.
+     * @return true if the sender can run this entry.
+     */
+    public boolean allows(CommandSender sender, boolean op) {
+        return (!entry.opOnly() || op) && StardustCommand.canExecute(types, sender.getClass());
+    }
+
+    /**
+     * Calls the method on the command object.
+     *
+     * @param command the command object.
+     * @param values  the parsed arguments.
+     * @throws Throwable anything thrown by the method.
+     */
+    public void invoke(Object command, Object[] values) throws Throwable {
+        Object ignored = invoker.invokeExact(command, values);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public CommandEntry getEntry() {
+        return entry;
+    }
+
+    /**
+     * Returns the sender types allowed by {@link CommandEntry#types()}.
+     *
+     * @return an unmodifiable set of the sender types.
+     */
+    public Set<Class<? extends CommandSender>> getTypes() {
+        return types;
+    }
+
+    /**
+     * Returns whether the last parameter is a String, which takes every
+     * word left if there are more words than parameters.
+     *
+     * @return true if the last parameter is a String.
+     */
+    public boolean hasFinalString() {
+        return finalString;
+    }
+
+    /**
+     * Returns the amount of subcommands of the entry.
+     *
+     * @return the amount of subcommands.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    @FunctionalInterface
+    private interface Completer {
+
+        void complete(CommandSender sender, String prefix, List<String> into, int limit);
+
+    }
+
+}
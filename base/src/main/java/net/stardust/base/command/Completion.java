@@ -0,0 +1,38 @@
+package net.stardust.base.command;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the {@link CompletionSource} whose values are suggested by tab
+ * completion for a parameter of a {@link CommandEntry}. Parameters of
+ * boolean and enum types are completed with their values without this
+ * annotation; other parameters without it are not completed.
+ *
+ * @see CompletionSource
+ * @see CommandEntry
+ * @author Sergio Luis
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Completion {
+
+	/**
+	 * The name of the source, as in {@link CompletionSource#named(String)}.
+	 *
+	 * @return the name of the source
+	 */
+	String value();
+
+	/**
+	 * Whether the values come from the set of the sender in the source,
+	 * as in {@link CompletionSource#of(java.util.UUID)}, instead of the
+	 * source itself. Senders that are not entities are not completed.
+	 *
+	 * @return true if the values belong to each sender, false otherwise
+	 */
+	boolean perSender() default false;
+
+}
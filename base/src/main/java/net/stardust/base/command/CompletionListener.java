@@ -0,0 +1,97 @@
+package net.stardust.base.command;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+
+/**
+ * Answers the tab completion of the {@link StardustCommand}s of the plugin
+ * in {@link AsyncTabCompleteEvent}, off the main thread, so completing a
+ * command never waits for a tick. Commands are completed with the sources
+ * of their {@link Completion} parameters and with their subcommands, and
+ * completions of other commands are left to the server.
+ *
+ * <p>
+ * This listener also keeps the {@link CompletionSource#PLAYERS} source with
+ * the names of the online players and discards the values of the players
+ * leaving from the per sender sources.
+ * </p>
+ *
+ * @see StardustCommand#complete(org.bukkit.command.CommandSender, String[])
+ *
+ * @author Sergio Luis
+ */
+public class CompletionListener implements Listener {
+
+    private static final Map<String, StardustCommand<?>> COMMANDS = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the listener, adding the players already online to the
+     * {@link CompletionSource#PLAYERS} source.
+     */
+    public CompletionListener() {
+        CompletionSource players = CompletionSource.named(CompletionSource.PLAYERS);
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            players.add(player.getName());
+        }
+    }
+
+    /**
+     * Makes the command completed by this listener under its name, its
+     * aliases and its name prefixed by the plugin.
+     *
+     * @param command  the Bukkit command.
+     * @param executor the executor of the command.
+     */
+    public static void register(PluginCommand command, StardustCommand<?> executor) {
+        String name = command.getName().toLowerCase();
+        COMMANDS.put(name, executor);
+        COMMANDS.put(command.getPlugin().getName().toLowerCase() + ":" + name, executor);
+        for (String alias : command.getAliases()) {
+            COMMANDS.put(alias.toLowerCase(), executor);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onTabComplete(AsyncTabCompleteEvent event) {
+        if (event.isHandled() || !event.isCommand()) {
+            return;
+        }
+        String buffer = event.getBuffer();
+        int start = buffer.startsWith("/") ? 1 : 0;
+        int space = buffer.indexOf(' ', start);
+        if (space < 0) {
+            return;
+        }
+        StardustCommand<?> command = COMMANDS.get(buffer.substring(start, space).toLowerCase());
+        if (command != null) {
+            List<String> completions = command.complete(event.getSender(), buffer.substring(space + 1).split(" ", -1));
+            event.setCompletions(completions);
+            event.setHandled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        CompletionSource.named(CompletionSource.PLAYERS).add(event.getPlayer().getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        Player player = event.getPlayer();
+        CompletionSource.named(CompletionSource.PLAYERS).remove(player.getName());
+        CompletionSource.forgetAll(player.getUniqueId());
+    }
+
+}
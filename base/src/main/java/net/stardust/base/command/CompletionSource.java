@@ -0,0 +1,162 @@
+package net.stardust.base.command;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A named set of values suggested by tab completion for parameters
+ * annotated with {@link Completion}, like the names of the online players
+ * or of the minigames. The set is kept sorted ignoring case, so completing
+ * a prefix only visits the values starting with it, and values are added
+ * and removed as they change instead of being listed on every completion.
+ *
+ * <p>
+ * A source can also hold a set for each sender, for values that belong to
+ * a player, like their homes. Sources are created on first use and live as
+ * long as the plugin. This class is thread-safe.
+ * </p>
+ *
+ * @see Completion
+ *
+ * @author Sergio Luis
+ */
+public final class CompletionSource {
+
+    /**
+     * The source of the names of the online players, kept by
+     * {@link CompletionListener}.
+     */
+    public static final String PLAYERS = "players";
+
+    private static final Map<String, CompletionSource> SOURCES = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final NavigableMap<String, String> values;
+    private final Map<UUID, CompletionSource> senders;
+
+    private CompletionSource(String name) {
+        this.name = name;
+        values = new ConcurrentSkipListMap<>();
+        senders = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the source with the given name, creating it if needed.
+     *
+     * @param name the name of the source.
+     * @return the source.
+     * @throws NullPointerException if name is null.
+     */
+    public static CompletionSource named(String name) {
+        return SOURCES.computeIfAbsent(Objects.requireNonNull(name, "name"), CompletionSource::new);
+    }
+
+    /**
+     * Returns the set of values of a sender, creating it if needed.
+     *
+     * @param sender the unique id of the sender.
+     * @return the source of the sender.
+     * @throws NullPointerException if sender is null.
+     */
+    public CompletionSource of(UUID sender) {
+        return senders.computeIfAbsent(Objects.requireNonNull(sender, "sender"), id -> new CompletionSource(name));
+    }
+
+    /**
+     * Discards the set of values of a sender.
+     *
+     * @param sender the unique id of the sender.
+     */
+    public void forget(UUID sender) {
+        senders.remove(sender);
+    }
+
+    /**
+     * Discards the set of values of a sender in every source.
+     *
+     * @param sender the unique id of the sender.
+     */
+    public static void forgetAll(UUID sender) {
+        SOURCES.values().forEach(source -> source.forget(sender));
+    }
+
+    /**
+     * Adds a value, replacing any value equal to it ignoring case.
+     *
+     * @param value the value.
+     * @throws NullPointerException if value is null.
+     */
+    public void add(String value) {
+        values.put(value.toLowerCase(), value);
+    }
+
+    /**
+     * Removes the value, or any value equal to it ignoring case.
+     *
+     * @param value the value.
+     */
+    public void remove(String value) {
+        values.remove(value.toLowerCase());
+    }
+
+    /**
+     * Replaces all values.
+     *
+     * @param values the new values.
+     */
+    public void set(Collection<String> values) {
+        this.values.clear();
+        values.forEach(this::add);
+    }
+
+    public void clear() {
+        values.clear();
+    }
+
+    public boolean contains(String value) {
+        return values.containsKey(value.toLowerCase());
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Adds the values starting with the prefix to the collection, in
+     * order, until it has the given size.
+     *
+     * @param prefix the prefix, in lower case.
+     * @param into   the collection receiving the values.
+     * @param limit  the maximum size of the collection.
+     */
+    public void complete(String prefix, Collection<String> into, int limit) {
+        for (Map.Entry<String, String> entry : values.tailMap(prefix).entrySet()) {
+            if (into.size() >= limit || !entry.getKey().startsWith(prefix)) {
+                return;
+            }
+            into.add(entry.getValue());
+        }
+    }
+
+    /**
+     * Adds the values of a sorted array starting with the prefix to the
+     * collection, in order, until it has the given size.
+     */
+    static void complete(String[] sorted, String prefix, Collection<String> into, int limit) {
+        int i = Arrays.binarySearch(sorted, prefix);
+        for (i = i < 0 ? -i - 1 : i; i < sorted.length && into.size() < limit && sorted[i].startsWith(prefix); i++) {
+            into.add(sorted[i]);
+        }
+    }
+
+}
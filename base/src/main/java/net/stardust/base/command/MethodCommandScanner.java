@@ -12,11 +12,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.bukkit.command.CommandSender;
+
 import br.sergio.utils.Pair;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.experimental.StandardException;
 
@@ -32,6 +34,8 @@ public class MethodCommandScanner {
 
     private Class<?> commandClass;
     private List<Method> methods;
+    @Getter(AccessLevel.NONE)
+    private Node root;
 
     public MethodCommandScanner(Class<?> commandClass) {
         this.commandClass = Objects.requireNonNull(commandClass, "commandClass");
@@ -147,204 +151,118 @@ public class MethodCommandScanner {
         }.reversed());
 
         this.methods = methods;
+        root = compile(methods);
     }
 
+    /**
+     * Finds the entry matching the command line and parses its arguments.
+     *
+     * @see #resolve(String[])
+     * @param args the command line, without the name of the command.
+     * @return the method and its arguments, or null if no entry matches.
+     */
     public Pair<Method, Object[]> find(final String[] args) {
-        // Here we are filtrating the possibilities
-        List<Method> filter = new ArrayList<>(methods);
+        Pair<CommandEndpoint, Object[]> pair = resolve(args);
+        return pair == null ? null : new Pair<>(pair.getMale().getMethod(), pair.getFemale());
+    }
 
-        for(int i = 0, j = filter.size(); i < j; i++) {
-            Method method = filter.get(i);
-            Class<?>[] params = method.getParameterTypes();
-            int len = params.length;
-            String subs = normSubs(method);
-            int sum = (subs.isEmpty() ? 0 : subs.split(" ").length) + len;
-            if(sum < args.length && (len == 0 || params[len - 1] != String.class) || sum > args.length) {
-                filter.remove(i);
-                i--;
-                j--;
-            }
-        }
-        List<String> forComparison = Arrays.asList(args).stream().map(String::toLowerCase).toList();
-        Map<Integer, List<Method>> byMatchingSubcommandsAmount = new HashMap<>();
-        for(Method method : filter) {
-            String subs = normSubs(method);
-            String[] array = subs.isEmpty() ? new String[0] : subs.split(" ");
-            int count = 0;
-            /*
-             * The amount of subcommands in the method is always
-             * less or equals to the player's command line, so
-             * this loop is safe.
-             */
-            boolean equals = true;
-            for(int i = 0; i < array.length; i++) {
-                if(!array[i].equals(forComparison.get(i))) {
-                    equals = false;
-                    break;
-                }
-                count++;
+    /**
+     * Finds the entry matching the command line and parses its arguments.
+     * The subcommands are walked down the tree compiled by {@link #scan()},
+     * one word at a time, and the entries of the deepest subcommand that
+     * can take the amount of words left are tried: first the ones that do
+     * not end with a String, then the ones that do, each group in the order
+     * of {@link #getMethods()}.
+     *
+     * @param args the command line, without the name of the command.
+     * @return the entry and its arguments, or null if no entry matches.
+     */
+    public Pair<CommandEndpoint, Object[]> resolve(final String[] args) {
+        Node node = root, deepest = null;
+        for (int depth = 0; node != null; depth++) {
+            if (node.accepts(args.length - depth)) {
+                deepest = node;
             }
-            if(equals) {
-                List<Method> list = byMatchingSubcommandsAmount.getOrDefault(count, new ArrayList<>());
-                list.add(method);
-                byMatchingSubcommandsAmount.putIfAbsent(count, list);
+            if (depth == args.length) {
+                break;
             }
+            node = node.children.get(args[depth].toLowerCase());
         }
-        int max = 0;
-        for(int size : byMatchingSubcommandsAmount.keySet()) {
-            max = Math.max(max, size);
-        }
-        filter = byMatchingSubcommandsAmount.get(max);
-        // Now we have only the most matching subcommands, all methods with same values for them
-        if(filter == null || filter.isEmpty()) {
+        if (deepest == null) {
             // No method found for this input
             return null;
         }
-        
-        if(filter.size() == 1) {
-            Method method = filter.get(0);
-            String subs = normSubs(method);
-            int cutIndex = subs.isEmpty() ? 0 : subs.split(" ").length;
-            String[] newArgs = Arrays.copyOfRange(args, cutIndex, args.length);
-
-            Pair<Method, Object[]> pair;
-            Class<?>[] params = method.getParameterTypes();
-            int len = params.length;
-            int argsLen = newArgs.length;
-            if(len == 0) {
-                if(argsLen == 0) {
-                    pair = new Pair<>(method, new Object[0]);
-                } else {
-                    pair = null;
-                }
-            } else if(len == argsLen) {
-                /*
-                 * Even if the last parameter is a String, it doesn't
-                 * matter because once we have the same length for both
-                 * params and args, oneWordFinalString is meaningless here
-                 */
-                pair = nonLastParamString(method, newArgs);
-            } else if(len < argsLen && params[len - 1] == String.class) {
-                pair = lastParamString(method, newArgs);
-            } else {
-                pair = null;
-            }
-            return pair;
-        } else {
-            List<Method> nonLastParamString = new ArrayList<>();
-            List<Method> lastParamString = new ArrayList<>();
-            filter.forEach(method -> {
-                Class<?>[] params = method.getParameterTypes();
-                if(params.length == 0 || params[params.length - 1] != String.class) {
-                    nonLastParamString.add(method);
-                } else {
-                    lastParamString.add(method);
+        /*
+         * Entries with a String as last parameter come last, because
+         * that String can swallow words meant for other entries
+         */
+        for (boolean finalString : new boolean[] { false, true }) {
+            for (CommandEndpoint endpoint : deepest.endpoints) {
+                if (endpoint.hasFinalString() == finalString) {
+                    Object[] values = endpoint.parse(args);
+                    if (values != null) {
+                        return new Pair<>(endpoint, values);
+                    }
                 }
-            });
-
-            BiFunction<Method, BiFunction<Method, String[], Pair<Method, Object[]>>, Pair<Method, Object[]>> function = (method, bifun) -> {
-                String subs = normSubs(method);
-                int cutIndex = subs.isEmpty() ? 0 : subs.split(" ").length;
-                String[] newArgs = Arrays.copyOfRange(args, cutIndex, args.length);
-                return bifun.apply(method, newArgs);
-            };
-
-            for(Method method : nonLastParamString) {
-                Pair<Method, Object[]> pair = function.apply(method, this::nonLastParamString);
-                if(pair == null) continue;
-                return pair;
-            }
-
-            for(Method method : lastParamString) {
-                Pair<Method, Object[]> pair = function.apply(method, this::lastParamString);
-                if(pair == null) continue;
-                return pair;
-            }
-        }
-
-        return null;
-    }
-
-    private Pair<Method, Object[]> nonLastParamString(Method method, String[] args) {
-        Class<?>[] params = method.getParameterTypes();
-        if(params.length == args.length) {
-            int len = params.length;
-            Object[] values = new Object[len];
-            if(!parseArguments(params, args, values, len)) {
-                return null;
             }
-            return new Pair<>(method, values);
         }
         return null;
     }
 
-    private Pair<Method, Object[]> lastParamString(Method method, String[] args) {
-        Class<?>[] params = method.getParameterTypes();
-        int len = params.length;
-        if(len < args.length && method.getAnnotation(CommandEntry.class).oneWordFinalString()) {
-            return null;
-        }
-        if(params.length <= args.length) {
-            Object[] values = new Object[len];
-            if(!parseArguments(params, args, values, len - 1)) {
-                return null;
-            }
-            // last as String
-            values[len - 1] = String.join(" ", Arrays.copyOfRange(args, len - 1, args.length));
-            return new Pair<>(method, values);
+    /**
+     * Lists the tab completions of the last word of the command line, which
+     * may be empty: the subcommands following the previous words that
+     * start with it, and the values of the parameter at its position in
+     * the entries along the way, for the entries the sender can run.
+     *
+     * @param args  the command line, without the name of the command.
+     * @param sender the sender completing the command.
+     * @param op     whether the sender is op.
+     * @param limit  the maximum amount of completions.
+     * @return the completions, in order and without duplicates.
+     */
+    public List<String> complete(final String[] args, CommandSender sender, boolean op, int limit) {
+        if (args.length == 0 || root == null) {
+            return List.of();
         }
-        return null;
-    }
-
-    private boolean parseArguments(Class<?>[] params, String[] args, Object[] values, int limit) {
-        for(int i = 0; i < limit; i++) {
-            Class<?> param = params[i];
-            String arg = args[i];
-            if(DECIMALS.contains(param)) {
-                arg = arg.replace(',', '.');
-            } else if(param.isEnum()) {
-                arg = arg.toUpperCase();
+        int last = args.length - 1;
+        String prefix = args[last].toLowerCase();
+        List<String> completions = new ArrayList<>();
+        Node node = root;
+        for (int depth = 0; node != null && completions.size() < limit; depth++) {
+            for (CommandEndpoint endpoint : node.endpoints) {
+                if (endpoint.allows(sender, op)) {
+                    endpoint.complete(sender, args, prefix, completions, limit);
+                }
             }
-            try {
-                values[i] = parseArgument(param, arg);
-            } catch(RuntimeException e) {
-                return false;
+            if (depth == last) {
+                node.completeChildren(prefix, op, completions, limit);
+                break;
             }
+            node = node.children.get(args[depth].toLowerCase());
         }
-        return true;
+        return completions.size() < 2 ? completions : completions.stream().distinct().toList();
     }
 
-    private Object parseArgument(Class<?> param, String arg) throws RuntimeException {
-        if(param == byte.class || param == Byte.class) return Byte.parseByte(arg);
-        if(param == short.class || param == Short.class) return Short.parseShort(arg);
-        if(param == int.class || param == Integer.class) return Integer.parseInt(arg);
-        if(param == long.class || param == Long.class) return Long.parseLong(arg);
-        if(param == float.class || param == Float.class) return Float.parseFloat(arg);
-        if(param == double.class || param == Double.class) return Double.parseDouble(arg);
-        if(param == char.class || param == Character.class) {
-            if(arg.length() != 1) throw new IllegalArgumentException("String length != 1 for char parsing");
-            return arg.charAt(0);
-        }
-        if(param == boolean.class || param == Boolean.class) {
-            return switch(arg.toLowerCase()) {
-                case "true" -> true;
-                case "false" -> false;
-                default -> throw new IllegalArgumentException("Not a boolean value");
-            };
-        }
-        if(param == BigInteger.class) return new BigInteger(arg);
-        if(param == BigDecimal.class) return new BigDecimal(arg);
-        if(param.isEnum()) {
-            try {
-                return param.getMethod("valueOf", String.class).invoke(null, arg);
-            } catch(Exception e) {
-                if(e instanceof RuntimeException re) throw re;
-                throw new RuntimeException(e);
+    /**
+     * Builds the tree of subcommands, keeping the order of the methods
+     * in the entries of each subcommand.
+     */
+    private Node compile(List<Method> methods) {
+        Node root = new Node();
+        Map<Node, List<CommandEndpoint>> endpoints = new HashMap<>();
+        for (Method method : methods) {
+            String subs = normSubs(method);
+            String[] tokens = subs.isEmpty() ? new String[0] : subs.split(" ");
+            Node node = root;
+            for (String token : tokens) {
+                node = node.children.computeIfAbsent(token, key -> new Node());
             }
+            endpoints.computeIfAbsent(node, key -> new ArrayList<>()).add(new CommandEndpoint(method, tokens.length));
         }
-        if(param == String.class) return arg;
-        // Should never get here
-        throw new Error("Param class is not one of the presets");
+        endpoints.forEach((node, list) -> node.endpoints = list.toArray(CommandEndpoint[]::new));
+        root.index();
+        return root;
     }
 
     private boolean methodEquals(Method m1, Method m2) {
@@ -371,4 +289,57 @@ public class MethodCommandScanner {
     @StandardException
     public static class MethodScanException extends RuntimeException {}
 
+    /**
+     * A subcommand in the tree: the entries ending in it and the
+     * subcommands that can follow it.
+     */
+    private static class Node {
+
+        private Map<String, Node> children = new HashMap<>();
+        private CommandEndpoint[] endpoints = new CommandEndpoint[0];
+        private String[] names;
+        private Node[] sorted;
+        private boolean opOnly;
+
+        boolean accepts(int arguments) {
+            if (arguments < 0) {
+                return false;
+            }
+            for (CommandEndpoint endpoint : endpoints) {
+                if (endpoint.accepts(arguments)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Sorts the subcommands for completion and finds out if every
+         * entry from here on is op only.
+         */
+        void index() {
+            names = children.keySet().stream().sorted().toArray(String[]::new);
+            sorted = new Node[names.length];
+            opOnly = true;
+            for (CommandEndpoint endpoint : endpoints) {
+                opOnly &= endpoint.getEntry().opOnly();
+            }
+            for (int i = 0; i < names.length; i++) {
+                sorted[i] = children.get(names[i]);
+                sorted[i].index();
+                opOnly &= sorted[i].opOnly;
+            }
+        }
+
+        void completeChildren(String prefix, boolean op, List<String> into, int limit) {
+            int i = Arrays.binarySearch(names, prefix);
+            for (i = i < 0 ? -i - 1 : i; i < names.length && into.size() < limit && names[i].startsWith(prefix); i++) {
+                if (op || !sorted[i].opOnly) {
+                    into.add(names[i]);
+                }
+            }
+        }
+
+    }
+
 }
@@ -15,9 +15,9 @@ import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -27,9 +27,14 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 
-public abstract sealed class StardustCommand<T extends BasePlugin> implements CommandExecutor, Communicable
+public abstract sealed class StardustCommand<T extends BasePlugin> implements CommandExecutor, TabCompleter, Communicable
 		permits SyncCommand, AsyncCommand, DirectCommand, VirtualCommand {
 
+	/**
+	 * The maximum amount of tab completions listed at once.
+	 */
+	public static final int MAX_COMPLETIONS = 100;
+
 	protected final T plugin;
 	protected final String name;
 	protected final Messager messager;
@@ -81,10 +86,10 @@ public abstract sealed class StardustCommand<T extends BasePlugin> implements Co
 		boolean op = sender.isOp();
 		if (canExecute(senderTypes, type) && (!opOnly || op)) {
 			plugin.getVirtual().execute(() -> {
-				Pair<Method, Object[]> result = scanner.find(args);
+				Pair<CommandEndpoint, Object[]> result = scanner.resolve(args);
 				if (result != null) {
-					Method endpoint = result.getMale();
-					CommandEntry entry = endpoint.getAnnotation(CommandEntry.class);
+					CommandEndpoint endpoint = result.getMale();
+					CommandEntry entry = endpoint.getEntry();
 					if (entry.opOnly() && !op) {
 						if (entry.showMessage()) {
 							messager.message(sender,
@@ -92,7 +97,7 @@ public abstract sealed class StardustCommand<T extends BasePlugin> implements Co
 						}
 						return;
 					}
-					Set<Class<? extends CommandSender>> types = Set.of(entry.types());
+					Set<Class<? extends CommandSender>> types = endpoint.getTypes();
 					if (!canExecute(types, type)) {
 						if (entry.showMessage()) {
 							List<String> str = types.stream().map(Class::getSimpleName).toList();
@@ -131,6 +136,29 @@ public abstract sealed class StardustCommand<T extends BasePlugin> implements Co
 		return false;
 	}
 
+	@Override
+	public final List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
+		return complete(sender, args);
+	}
+
+	/**
+	 * Lists the tab completions of the last word of the arguments, from the
+	 * subcommands and parameters of the entries the sender can run. This
+	 * method is thread-safe and can be called off the main thread.
+	 *
+	 * @see MethodCommandScanner#complete(String[], CommandSender, boolean, int)
+	 * @param sender the sender completing the command.
+	 * @param args   the arguments, the last one being completed.
+	 * @return the completions, at most {@link #MAX_COMPLETIONS}.
+	 */
+	public final List<String> complete(CommandSender sender, String[] args) {
+		boolean op = sender.isOp();
+		if (!canExecute(senderTypes, sender.getClass()) || opOnly && !op) {
+			return List.of();
+		}
+		return scanner.complete(args, sender, op, MAX_COMPLETIONS);
+	}
+
 	@SuppressWarnings("unchecked")
 	protected final <U extends CommandSender> U sender() {
 		return (U) senders.get();
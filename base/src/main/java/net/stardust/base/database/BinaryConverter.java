@@ -4,8 +4,8 @@ import java.io.IOException;
 
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
-import net.stardust.base.utils.Serializer;
 import net.stardust.base.utils.Throwables;
+import net.stardust.base.utils.codec.BinaryCodec;
 
 @Converter
 public class BinaryConverter implements AttributeConverter<Object, byte[]> {
@@ -16,7 +16,7 @@ public class BinaryConverter implements AttributeConverter<Object, byte[]> {
             return null;
         }
         try {
-            return Serializer.serialize(attribute);
+            return BinaryCodec.encode(attribute);
         } catch (IOException e) {
             Throwables.sendAndThrow(e);
             return null;
@@ -29,8 +29,8 @@ public class BinaryConverter implements AttributeConverter<Object, byte[]> {
             return null;
         }
         try {
-            return Serializer.deserialize(dbData);
-        } catch (ClassNotFoundException | IOException e) {
+            return BinaryCodec.decode(dbData);
+        } catch (IOException e) {
             Throwables.sendAndThrow(e);
             return null;
         }
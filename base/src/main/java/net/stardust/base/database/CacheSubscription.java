@@ -0,0 +1,24 @@
+package net.stardust.base.database;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Body of a POST (subscribe) or DELETE (unsubscribe) sent to a
+ * {@link RepositoryController} by a client that caches the entities of its
+ * type. While subscribed, the client receives an {@link Invalidation} for
+ * every write handled by the controller.
+ *
+ * @param subscriber the id of the request listener of the client
+ *
+ * @see net.stardust.base.database.crud.CrudCache
+ *
+ * @author Sergio Luis
+ */
+public record CacheSubscription(String subscriber) implements Serializable {
+
+    public CacheSubscription {
+        Objects.requireNonNull(subscriber, "subscriber");
+    }
+
+}
@@ -26,7 +26,14 @@ import org.hibernate.cfg.Configuration;
  */
 public class HibernateConfigurationBuilder {
 
+    /**
+     * The connection provider used when a pool size is defined.
+     */
+    public static final String POOL_PROVIDER = "org.hibernate.hikaricp.internal.HikariCPConnectionProvider";
+
     private String url, username, password, dialect, hbm2ddlAuto;
+    private Integer poolSize, minimumIdle, batchSize;
+    private Long connectionTimeout;
 
     /**
      * Sets the connection url (hibernate.connection.url).
@@ -95,6 +102,62 @@ public class HibernateConfigurationBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum amount of JDBC connections kept by the connection
+     * pool (hibernate.hikari.maximumPoolSize). Defining this property also
+     * selects the HikariCP connection provider
+     * (hibernate.connection.provider_class), otherwise Hibernate uses its
+     * built-in provider.
+     * 
+     * @param poolSize the maximum pool size
+     * @return this builder
+     */
+    public HibernateConfigurationBuilder poolSize(Integer poolSize) {
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    /**
+     * Sets the minimum amount of idle JDBC connections kept by the
+     * connection pool (hibernate.hikari.minimumIdle). Only used if
+     * {@link #poolSize(Integer)} is also defined.
+     * 
+     * @param minimumIdle the minimum idle connections
+     * @return this builder
+     */
+    public HibernateConfigurationBuilder minimumIdle(Integer minimumIdle) {
+        this.minimumIdle = minimumIdle;
+        return this;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds a request waits for a free
+     * connection of the pool (hibernate.hikari.connectionTimeout). Only used
+     * if {@link #poolSize(Integer)} is also defined.
+     * 
+     * @param connectionTimeout the connection timeout in milliseconds
+     * @return this builder
+     */
+    public HibernateConfigurationBuilder connectionTimeout(Long connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the amount of statements sent to the database in a single JDBC
+     * batch (hibernate.jdbc.batch_size). Defining this property also orders
+     * inserts and updates by entity (hibernate.order_inserts and
+     * hibernate.order_updates), so statements of the same table end up in
+     * the same batch.
+     * 
+     * @param batchSize the JDBC batch size
+     * @return this builder
+     */
+    public HibernateConfigurationBuilder batchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
     /**
      * Creates a new {@link Properties} object with the objects
      * obtained by setters. If an attribute was not defined (null),
@@ -109,12 +172,23 @@ public class HibernateConfigurationBuilder {
         addIfNotNull(props, "hibernate.connection.password", password);
         addIfNotNull(props, "hibernate.dialect", dialect);
         addIfNotNull(props, "hibernate.hbm2ddl.auto", hbm2ddlAuto);
+        if (batchSize != null) {
+            props.put("hibernate.jdbc.batch_size", batchSize.toString());
+            props.put("hibernate.order_inserts", "true");
+            props.put("hibernate.order_updates", "true");
+        }
+        if (poolSize != null) {
+            props.put("hibernate.connection.provider_class", POOL_PROVIDER);
+            addIfNotNull(props, "hibernate.hikari.maximumPoolSize", poolSize);
+            addIfNotNull(props, "hibernate.hikari.minimumIdle", minimumIdle);
+            addIfNotNull(props, "hibernate.hikari.connectionTimeout", connectionTimeout);
+        }
         return props;
     }
 
-    private void addIfNotNull(Properties properties, String key, String value) {
+    private void addIfNotNull(Properties properties, String key, Object value) {
         if (value != null) {
-            properties.put(key, value);
+            properties.put(key, value.toString());
         }
     }
 
@@ -0,0 +1,27 @@
+package net.stardust.base.database;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import net.stardust.base.model.StardustEntity;
+
+/**
+ * Marks a field of a {@link StardustEntity} as searchable through a
+ * {@link Query}. In-memory repositories keep an index for every field
+ * with this annotation: a tree index if the field type is
+ * {@link Comparable}, serving equality, range and prefix filters, or a
+ * hash index otherwise, serving equality only. Relational repositories
+ * rely on the database indexes, so the entity should also declare one
+ * in its {@link jakarta.persistence.Table} annotation.
+ *
+ * @see Query
+ *
+ * @author Sergio Luis
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Indexed {
+
+}
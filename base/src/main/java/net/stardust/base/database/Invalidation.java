@@ -0,0 +1,26 @@
+package net.stardust.base.database;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * Body of the DELETE pushed by a {@link RepositoryController} to its
+ * {@link CacheSubscription subscribers} after handling a write, telling
+ * them to drop the cached entities of the written keys.
+ *
+ * @param source the id of the repository that handled the write
+ * @param keys   the written keys
+ *
+ * @see net.stardust.base.database.crud.CrudCache
+ *
+ * @author Sergio Luis
+ */
+public record Invalidation(String source, ArrayList<? extends Serializable> keys) implements Serializable {
+
+    public Invalidation {
+        Objects.requireNonNull(source, "source");
+        Objects.requireNonNull(keys, "keys");
+    }
+
+}
@@ -12,6 +12,16 @@ import java.util.Properties;
 
 public final class JPA {
 
+    /**
+     * The connection pool size used by {@link #inMemory(Reflections)}.
+     */
+    public static final int DEFAULT_POOL_SIZE = 4;
+
+    /**
+     * The JDBC batch size used by {@link #inMemory(Reflections)}.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
     private JPA() {
     }
 
@@ -38,6 +48,7 @@ public final class JPA {
 
     public static EntityManagerFactory entityManagerFactory(FileConfiguration config, Reflections reflections) {
         ConfigurationSection con = config.getConfigurationSection("hibernate.connection");
+        ConfigurationSection pool = config.getConfigurationSection("hibernate.pool");
 
         Properties props = new HibernateConfigurationBuilder()
                 .url(con.getString("url"))
@@ -45,6 +56,11 @@ public final class JPA {
                 .password(con.getString("password"))
                 .dialect(config.getString("hibernate.dialect"))
                 .hbm2ddlAuto(config.getString("hibernate.hbm2ddl.auto"))
+                .poolSize(pool == null || !pool.isSet("size") ? null : pool.getInt("size"))
+                .minimumIdle(pool == null || !pool.isSet("minimum-idle") ? null : pool.getInt("minimum-idle"))
+                .connectionTimeout(pool == null || !pool.isSet("connection-timeout") ? null
+                        : pool.getLong("connection-timeout"))
+                .batchSize(config.isSet("hibernate.jdbc.batch_size") ? config.getInt("hibernate.jdbc.batch_size") : null)
                 .build();
 
         return entityManagerFactory(props, reflections);
@@ -57,6 +73,8 @@ public final class JPA {
                 .password("")
                 .dialect("org.hibernate.dialect.H2Dialect")
                 .hbm2ddlAuto("update")
+                .poolSize(DEFAULT_POOL_SIZE)
+                .batchSize(DEFAULT_BATCH_SIZE)
                 .build();
 
         return entityManagerFactory(props, reflections);
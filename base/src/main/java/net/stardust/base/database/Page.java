@@ -0,0 +1,71 @@
+package net.stardust.base.database;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of the values of a {@link Repository}, answered for a
+ * {@link PageRequest}. Besides the values, a page carries the cursor of
+ * the next one, which is the key of its last value, or null if there is
+ * nothing after it.
+ *
+ * @see PageRequest
+ *
+ * @author Sergio Luis
+ */
+public class Page<V extends Serializable> implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private ArrayList<V> content;
+    private Serializable next;
+
+    /**
+     * Creates a page.
+     *
+     * @param content the values of the page
+     * @param next    the cursor of the next page, or null if this is the
+     *                last one
+     */
+    public Page(List<V> content, Serializable next) {
+        this.content = new ArrayList<>(content);
+        this.next = next;
+    }
+
+    /**
+     * Returns an empty last page.
+     *
+     * @param <V> the value type
+     * @return an empty page
+     */
+    public static <V extends Serializable> Page<V> empty() {
+        return new Page<>(List.of(), null);
+    }
+
+    public List<V> getContent() {
+        return Collections.unmodifiableList(content);
+    }
+
+    /**
+     * Returns the cursor to pass to the request of the next page.
+     *
+     * @return the cursor, or null if this is the last page
+     */
+    public Serializable getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page[size=" + content.size() + ", next=" + next + "]";
+    }
+
+}
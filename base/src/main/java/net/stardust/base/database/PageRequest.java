@@ -0,0 +1,100 @@
+package net.stardust.base.database;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Request for one page of the values of a {@link Repository}, in ascending
+ * order of their keys. Pages are addressed by cursor instead of by offset:
+ * the first page has no cursor and each following page starts right after
+ * the key returned by {@link Page#getNext()}, so reading page N never scans
+ * the N - 1 pages before it and values saved or deleted between requests do
+ * not shift the pages that are still to come.
+ *
+ * <p>
+ * The size of a page is bounded by {@link #MAX_SIZE}, so neither side of a
+ * request ever holds more than that amount of values because of it.
+ * </p>
+ *
+ * @see Page
+ * @see Repository#findPage(PageRequest)
+ *
+ * @author Sergio Luis
+ */
+public class PageRequest implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_SIZE = 100;
+    public static final int MAX_SIZE = 500;
+
+    private Serializable after;
+    private int size;
+
+    /**
+     * Creates a request for the first page with {@link #DEFAULT_SIZE}
+     * values.
+     */
+    public PageRequest() {
+        this(null, DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a request for the page that starts right after the given
+     * key. Sizes greater than {@link #MAX_SIZE} are reduced to it.
+     *
+     * @param after the cursor, or null for the first page
+     * @param size  the maximum amount of values of the page
+     * @throws IllegalArgumentException if size is not positive
+     */
+    public PageRequest(Serializable after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.after = after;
+        this.size = Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * Returns the request for the page following the given one, keeping
+     * the size of this request.
+     *
+     * @param page the current page
+     * @return the request for the next page
+     * @throws IllegalStateException if the page is the last one
+     */
+    public PageRequest next(Page<?> page) {
+        if (!page.hasNext()) {
+            throw new IllegalStateException("Last page");
+        }
+        return new PageRequest(page.getNext(), size);
+    }
+
+    /**
+     * Returns the key after which the page starts, or null for the
+     * first page.
+     *
+     * @return the cursor
+     */
+    public Serializable getAfter() {
+        return after;
+    }
+
+    /**
+     * Returns the maximum amount of values of the page. This is never
+     * greater than {@link #MAX_SIZE}, even for a request that was
+     * deserialized.
+     *
+     * @return the page size
+     */
+    public int getSize() {
+        return Math.clamp(size, 1, MAX_SIZE);
+    }
+
+    @Override
+    public String toString() {
+        return "PageRequest[after=" + after + ", size=" + getSize() + "]";
+    }
+
+}
@@ -0,0 +1,240 @@
+package net.stardust.base.database;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.stardust.base.model.StardustEntity;
+
+/**
+ * Declarative query over the fields of a {@link StardustEntity}, sent to a
+ * {@link Repository} through {@link Repository#findBy(Query)}. A query is a
+ * conjunction of filters: field equality, inclusive ranges and string
+ * prefixes. Repositories answer them through the indexes they maintain
+ * for the fields annotated with {@link Indexed}, falling back to a scan
+ * for the remaining filters.
+ *
+ * <pre>
+ * <code>
+ * Query query = new Query().equal("name", name).limit(1);
+ * </code>
+ * </pre>
+ *
+ * @see Indexed
+ * @see Repository#findBy(Query)
+ *
+ * @author Sergio Luis
+ */
+public class Query implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final Map<Class<?>, Map<String, Field>> FIELDS = new ConcurrentHashMap<>();
+
+    private ArrayList<Filter> filters;
+    private int limit;
+
+    /**
+     * Creates a query without filters, which matches every entity.
+     */
+    public Query() {
+        filters = new ArrayList<>();
+    }
+
+    /**
+     * Adds a filter matching entities whose field is equal to the value.
+     *
+     * @param field the field name
+     * @param value the value
+     * @return this query
+     */
+    public Query equal(String field, Serializable value) {
+        return add(new Filter(field, Operator.EQUAL, value, null));
+    }
+
+    /**
+     * Adds a filter matching entities whose field is inside the inclusive
+     * range [from, to]. A null bound leaves that side of the range open.
+     *
+     * @param <T>  the field type
+     * @param field the field name
+     * @param from the lower bound or null
+     * @param to   the upper bound or null
+     * @return this query
+     */
+    public <T extends Comparable<? super T> & Serializable> Query range(String field, T from, T to) {
+        return add(new Filter(field, Operator.RANGE, from, to));
+    }
+
+    /**
+     * Adds a filter matching entities whose String field starts with
+     * the prefix.
+     *
+     * @param field  the field name
+     * @param prefix the prefix
+     * @return this query
+     */
+    public Query prefix(String field, String prefix) {
+        return add(new Filter(field, Operator.PREFIX, Objects.requireNonNull(prefix, "prefix"), null));
+    }
+
+    /**
+     * Limits the amount of returned entities. Zero, the default,
+     * means no limit.
+     *
+     * @param limit the maximum amount of entities
+     * @return this query
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public Query limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    private Query add(Filter filter) {
+        filters.add(filter);
+        return this;
+    }
+
+    public List<Filter> getFilters() {
+        return Collections.unmodifiableList(filters);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns whether the entity passes every filter of this query.
+     *
+     * @param entity the entity
+     * @return true if the entity matches
+     * @throws IllegalArgumentException if a filter references a field
+     *                                  the entity does not have
+     */
+    public boolean matches(Object entity) {
+        for (Filter filter : filters) {
+            if (!filter.test(valueOf(entity, filter.field()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a field of an entity by name, looking into its superclasses
+     * too. Lookups are cached by class.
+     *
+     * @param entity the entity
+     * @param field  the field name
+     * @return the field value
+     * @throws IllegalArgumentException if the entity has no such field
+     */
+    public static Object valueOf(Object entity, String field) {
+        try {
+            return field(entity.getClass(), field).get(entity);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Field not accessible: " + field, e);
+        }
+    }
+
+    /**
+     * Finds a field by name in the class or in its superclasses.
+     *
+     * @param type the class
+     * @param name the field name
+     * @return the accessible field
+     * @throws IllegalArgumentException if there is no such field
+     */
+    public static Field field(Class<?> type, String name) {
+        Field field = FIELDS.computeIfAbsent(type, key -> new ConcurrentHashMap<>()).computeIfAbsent(name, key -> {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                try {
+                    Field found = current.getDeclaredField(key);
+                    found.trySetAccessible();
+                    return found;
+                } catch (NoSuchFieldException e) {
+                    // look into the superclass
+                }
+            }
+            return null;
+        });
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown field \"" + name + "\" in " + type.getName());
+        }
+        return field;
+    }
+
+    @Override
+    public String toString() {
+        return "Query" + filters + (limit == 0 ? "" : " limit " + limit);
+    }
+
+    /**
+     * The kinds of filter of a {@link Query}.
+     */
+    public enum Operator {
+
+        /**
+         * The field equals the value.
+         */
+        EQUAL,
+
+        /**
+         * The field is inside the inclusive range [value, to].
+         */
+        RANGE,
+
+        /**
+         * The String field starts with the value.
+         */
+        PREFIX;
+
+    }
+
+    /**
+     * A single filter of a {@link Query}.
+     *
+     * @param field    the field name
+     * @param operator the operator
+     * @param value    the value, prefix or lower bound
+     * @param to       the upper bound of a range
+     */
+    public record Filter(String field, Operator operator, Serializable value, Serializable to)
+            implements Serializable {
+
+        public Filter {
+            Objects.requireNonNull(field, "field");
+            Objects.requireNonNull(operator, "operator");
+        }
+
+        /**
+         * Returns whether a field value passes this filter.
+         *
+         * @param fieldValue the value of the field
+         * @return true if it passes
+         */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        public boolean test(Object fieldValue) {
+            return switch (operator) {
+                case EQUAL -> Objects.equals(value, fieldValue);
+                case PREFIX -> fieldValue instanceof String s && s.startsWith((String) value);
+                case RANGE -> fieldValue != null
+                        && (value == null || ((Comparable) value).compareTo(fieldValue) <= 0)
+                        && (to == null || ((Comparable) to).compareTo(fieldValue) >= 0);
+            };
+        }
+
+    }
+
+}
@@ -4,12 +4,24 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import net.stardust.base.model.StardustEntity;
-import net.stardust.base.utils.Serializer;
+import net.stardust.base.utils.codec.BinaryCodec;
 
 /**
  * A basic interface for manipulation of data stored in any
@@ -47,6 +59,154 @@ public interface Repository<K, V extends StardustEntity<K>> extends AutoCloseabl
 	 */
 	V findById(K id);
 
+	/**
+	 * Returns the values matching every filter of the query, up to its
+	 * limit. The default implementation scans {@link #findAll()};
+	 * implementations should answer through their indexes instead.
+	 * 
+	 * @see Query
+	 * @param query the query.
+	 * @return the matching values.
+	 * @throws IllegalArgumentException if the query references a field
+	 *                                  the value class does not have.
+	 */
+	default List<V> findBy(Query query) {
+		Stream<V> stream = findAll().stream().filter(query::matches);
+		if (query.getLimit() > 0) {
+			stream = stream.limit(query.getLimit());
+		}
+		return stream.collect(Collectors.toCollection(ArrayList::new));
+	}
+
+	/**
+	 * Returns a page of values in ascending order of their keys, as the
+	 * underlying storage compares them, starting right after the cursor of
+	 * the request. The default implementation
+	 * sorts {@link #findAll()}; implementations should seek the cursor
+	 * through an ordered structure instead, so a page costs the same no
+	 * matter how far it is from the first one.
+	 * 
+	 * @see PageRequest
+	 * @see #keyOrder(Class)
+	 * @param request the page request.
+	 * @return the page.
+	 * @throws IllegalArgumentException if the cursor is not of the key class.
+	 */
+	default Page<V> findPage(PageRequest request) {
+		Comparator<K> order = keyOrder(getKeyClass());
+		K after = cursor(request);
+		List<V> values = findAll().stream()
+				.filter(value -> after == null || order.compare(value.getEntityId(), after) > 0)
+				.sorted(Comparator.comparing(StardustEntity::getEntityId, order))
+				.limit(request.getSize() + 1)
+				.collect(Collectors.toCollection(ArrayList::new));
+		return page(values, request.getSize());
+	}
+
+	/**
+	 * Returns a lazy stream of all values in ascending order of their keys,
+	 * fetched through {@link #findPage(PageRequest)} one page at a time, so
+	 * at most one page is held in memory by the stream itself. Values
+	 * saved or deleted while the stream is consumed may or may not be seen.
+	 * 
+	 * @param pageSize the size of each fetched page.
+	 * @return the stream of values.
+	 */
+	default Stream<V> stream(int pageSize) {
+		return pages(new PageRequest(null, pageSize), this::findPage);
+	}
+
+	/**
+	 * Returns the order in which {@link #findPage(PageRequest)} walks the keys:
+	 * their natural order if they are {@link Comparable}, or the order of
+	 * {@link #keyToString(Object)} otherwise.
+	 * 
+	 * @param <K>      the key type.
+	 * @param keyClass the key class.
+	 * @return the key order.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static <K> Comparator<K> keyOrder(Class<K> keyClass) {
+		if (Comparable.class.isAssignableFrom(keyClass)) {
+			return (Comparator<K>) Comparator.naturalOrder();
+		}
+		return Comparator.comparing(Repository::keyToString);
+	}
+
+	/**
+	 * Returns the cursor of the request cast to the key class.
+	 * 
+	 * @param request the page request.
+	 * @return the cursor, or null for the first page.
+	 * @throws IllegalArgumentException if the cursor is not of the key class.
+	 */
+	default K cursor(PageRequest request) {
+		Serializable after = request.getAfter();
+		if (after != null && !getKeyClass().isInstance(after)) {
+			throw new IllegalArgumentException("Cursor is not a " + getKeyClass().getName());
+		}
+		return getKeyClass().cast(after);
+	}
+
+	/**
+	 * Builds a page from values fetched in key order, of which there
+	 * should be at most size + 1: the extra value only tells that there is
+	 * a next page and is dropped.
+	 * 
+	 * @param <K>    the key type.
+	 * @param <V>    the value type.
+	 * @param values the fetched values.
+	 * @param size   the page size.
+	 * @return the page.
+	 */
+	static <K, V extends StardustEntity<K>> Page<V> page(List<V> values, int size) {
+		if (values.size() <= size) {
+			return new Page<>(values, null);
+		}
+		List<V> content = values.subList(0, size);
+		return new Page<>(content, (Serializable) content.getLast().getEntityId());
+	}
+
+	/**
+	 * Returns a lazy stream over the values of consecutive pages, starting
+	 * at the given request. A page is only fetched when the previous one
+	 * was entirely consumed.
+	 * 
+	 * @param <V>     the value type.
+	 * @param first   the request of the first page.
+	 * @param fetcher the function that answers a page request.
+	 * @return the stream of values.
+	 */
+	static <V extends Serializable> Stream<V> pages(PageRequest first,
+			Function<PageRequest, Page<V>> fetcher) {
+		Iterator<V> iterator = new Iterator<>() {
+
+			private PageRequest request = first;
+			private Iterator<V> current = Collections.emptyIterator();
+
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext() && request != null) {
+					Page<V> page = fetcher.apply(request);
+					current = page.getContent().iterator();
+					request = page.hasNext() ? request.next(page) : null;
+				}
+				return current.hasNext();
+			}
+
+			@Override
+			public V next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return current.next();
+			}
+
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
 	/**
 	 * Checks if a value exists into the database for a
 	 * given key (id). Implementations should throw a
@@ -221,11 +381,11 @@ public interface Repository<K, V extends StardustEntity<K>> extends AutoCloseabl
 				} else {
 					byte[] data;
 					try {
-						data = Serializer.serialize(s);
+						data = BinaryCodec.encode(s);
 					} catch (IOException e) {
 						throw new IllegalArgumentException("Could not serialize key", e);
 					}
-					yield new String(data);
+					yield new String(data, StandardCharsets.ISO_8859_1);
 				}
 			}
 			default -> throw new IllegalArgumentException("Illegal key");
@@ -1,22 +1,49 @@
 package net.stardust.base.database;
 
+import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
+import br.sergio.comlib.Communication;
 import br.sergio.comlib.MethodAdapter;
+import br.sergio.comlib.Request;
+import br.sergio.comlib.RequestMethod;
 import br.sergio.comlib.ResponseData;
 import br.sergio.comlib.ResponseStatus;
 import net.stardust.base.BasePlugin;
+import net.stardust.base.database.crud.Crud;
+import net.stardust.base.database.Repository.SaveResult;
 import net.stardust.base.model.StardustEntity;
 import net.stardust.base.utils.Throwables;
 
+/**
+ * Exposes a {@link Repository} to the other plugins through comlib, under the
+ * id given by {@link Crud#idFor(Class)} for its value class.
+ *
+ * <p>
+ * Clients caching the entities of the repository subscribe by posting a
+ * {@link CacheSubscription}. After every POST, PUT or DELETE that may have
+ * changed the repository, an {@link Invalidation} of the written keys is
+ * pushed to each subscriber in background; a subscriber that cannot be
+ * reached is dropped.
+ * </p>
+ *
+ * @see net.stardust.base.database.crud.CrudCache
+ *
+ * @author Sergio Luis
+ */
 public class RepositoryController<K, V extends StardustEntity<K>> extends MethodAdapter {
 
 	private BasePlugin plugin;
 	private Repository<K, V> repository;
 	private Class<K> keyClass;
 	private Class<V> valueClass;
+	private String id;
+	private Set<String> subscribers;
 
 	public RepositoryController(BasePlugin plugin, Repository<K, V> repository) {
 		this.plugin = plugin;
@@ -24,6 +51,8 @@ public class RepositoryController<K, V extends StardustEntity<K>> extends Method
 
 		keyClass = repository.getKeyClass();
 		valueClass = repository.getValueClass();
+		id = Crud.idFor(valueClass);
+		subscribers = ConcurrentHashMap.newKeySet();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -50,6 +79,20 @@ public class RepositoryController<K, V extends StardustEntity<K>> extends Method
 				}
 				return new ResponseData(ResponseStatus.OK, (ArrayList<V>) repository.findAll(ids));
 			}
+			if(content instanceof PageRequest request) {
+				try {
+					return new ResponseData(ResponseStatus.OK, repository.findPage(request));
+				} catch(IllegalArgumentException e) {
+					return new ResponseData(ResponseStatus.BAD_REQUEST, e.getMessage());
+				}
+			}
+			if(content instanceof Query query) {
+				try {
+					return new ResponseData(ResponseStatus.OK, new ArrayList<>(repository.findBy(query)));
+				} catch(IllegalArgumentException e) {
+					return new ResponseData(ResponseStatus.BAD_REQUEST, e.getMessage());
+				}
+			}
 			return new ResponseData(ResponseStatus.BAD_REQUEST);
 		} catch(Exception e) {
 			plugin.getLogger().log(Level.SEVERE, "Exception at method get. KeyClass: " 
@@ -60,6 +103,10 @@ public class RepositoryController<K, V extends StardustEntity<K>> extends Method
 
 	@Override
 	public ResponseData post(Object content) {
+		if(content instanceof CacheSubscription subscription) {
+			subscribers.add(subscription.subscriber());
+			return new ResponseData(ResponseStatus.CREATED);
+		}
 		return save(content, false);
 	}
 
@@ -75,8 +122,15 @@ public class RepositoryController<K, V extends StardustEntity<K>> extends Method
 			if(content == null) {
 				return new ResponseData(ResponseStatus.BAD_REQUEST);
 			}
+			if(content instanceof CacheSubscription subscription) {
+				subscribers.remove(subscription.subscriber());
+				return new ResponseData(ResponseStatus.NO_CONTENT);
+			}
 			if(keyClass.isInstance(content)) {
-				if(repository.delete(keyClass.cast(content))) {
+				K key = keyClass.cast(content);
+				boolean deleted = repository.delete(key);
+				invalidate(List.of(key));
+				if(deleted) {
 					return new ResponseData(ResponseStatus.NO_CONTENT);
 				} else {
 					return new ResponseData(ResponseStatus.INTERNAL_SERVER_ERROR, "Could not delete element from database");
@@ -89,7 +143,9 @@ public class RepositoryController<K, V extends StardustEntity<K>> extends Method
 				} catch(ClassCastException e) {
 					return new ResponseData(ResponseStatus.BAD_REQUEST);
 				}
-				if(repository.deleteAll(elements)) {
+				boolean deleted = repository.deleteAll(elements);
+				invalidate(elements);
+				if(deleted) {
 					return new ResponseData(ResponseStatus.NO_CONTENT);
 				} else {
 					return new ResponseData(ResponseStatus.INTERNAL_SERVER_ERROR, "Could not delete elements from database");
@@ -110,7 +166,12 @@ public class RepositoryController<K, V extends StardustEntity<K>> extends Method
 				return new ResponseData(ResponseStatus.BAD_REQUEST);
 			}
 			if(valueClass.isInstance(content)) {
-				return switch(repository.save(valueClass.cast(content), update)) {
+				V element = valueClass.cast(content);
+				SaveResult result = repository.save(element, update);
+				if(result != SaveResult.DUPLICATE) {
+					invalidate(List.of(element.getEntityId()));
+				}
+				return switch(result) {
 					case SUCCESS -> new ResponseData(ResponseStatus.CREATED);
 					case DUPLICATE -> new ResponseData(ResponseStatus.CONFLICT);
 					case FAIL -> new ResponseData(ResponseStatus.INTERNAL_SERVER_ERROR, "Could not " 
@@ -124,7 +185,11 @@ public class RepositoryController<K, V extends StardustEntity<K>> extends Method
 				} catch(ClassCastException e) {
 					return new ResponseData(ResponseStatus.BAD_REQUEST);
 				}
-				return switch(repository.saveAll(elements, update)) {
+				SaveResult result = repository.saveAll(elements, update);
+				if(result != SaveResult.DUPLICATE) {
+					invalidate(elements.stream().map(StardustEntity::getEntityId).toList());
+				}
+				return switch(result) {
 					case SUCCESS -> new ResponseData(ResponseStatus.CREATED);
 					case DUPLICATE -> new ResponseData(ResponseStatus.CONFLICT);
 					case FAIL -> new ResponseData(ResponseStatus.INTERNAL_SERVER_ERROR, "Could not " 
@@ -139,4 +204,38 @@ public class RepositoryController<K, V extends StardustEntity<K>> extends Method
 		}
 	}
 
+	/**
+	 * Pushes an invalidation of the keys to every subscriber in background.
+	 * Pushes may arrive in any order, which is fine since invalidating
+	 * twice has the same effect of invalidating once. Called after every
+	 * write made through this controller; components writing to the
+	 * repository directly must call it themselves.
+	 *
+	 * @param keys the written keys
+	 */
+	public void invalidate(List<K> keys) {
+		if(subscribers.isEmpty() || keys.isEmpty()) {
+			return;
+		}
+		ArrayList<Serializable> body = new ArrayList<>(keys.size());
+		keys.forEach(key -> body.add((Serializable) key));
+		Invalidation invalidation = new Invalidation(id, body);
+		for(String subscriber : subscribers) {
+			plugin.getVirtual().submit(() -> push(subscriber, invalidation));
+		}
+	}
+
+	private void push(String subscriber, Invalidation invalidation) {
+		try {
+			Request<Invalidation> request = Request.newRequest(id, subscriber, RequestMethod.DELETE, invalidation);
+			if(Communication.send(request).getStatus() == ResponseStatus.NO_CONTENT) {
+				return;
+			}
+		} catch(IOException e) {
+			plugin.getLogger().log(Level.FINE, "Could not reach cache subscriber " + subscriber, e);
+		}
+		subscribers.remove(subscriber);
+		plugin.getLogger().warning("Cache subscriber \"" + subscriber + "\" dropped from " + id);
+	}
+
 }
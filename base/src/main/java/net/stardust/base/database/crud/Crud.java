@@ -5,6 +5,12 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 import br.sergio.comlib.Communication;
 import br.sergio.comlib.Request;
@@ -13,10 +19,35 @@ import br.sergio.comlib.Response;
 import br.sergio.comlib.ResponseStatus;
 import net.stardust.base.Communicable;
 import net.stardust.base.database.NotFoundException;
+import net.stardust.base.database.Page;
+import net.stardust.base.database.PageRequest;
+import net.stardust.base.database.Query;
+import net.stardust.base.database.Repository;
+import net.stardust.base.database.repositories.EntityCache;
+import net.stardust.base.model.StardustEntity;
 
+/**
+ * Client of the {@link net.stardust.base.database.RepositoryController} of an
+ * entity type. Every operation has a blocking form and an asynchronous one,
+ * suffixed with "Async", which returns a {@link CompletableFuture} right
+ * away and performs the request on a virtual thread. Independent requests,
+ * even to different repositories, can then be in flight at the same time
+ * and joined with {@link #all(CompletableFuture...)}, so a flow touching N
+ * entities waits for about one round trip instead of N:
+ *
+ * <pre>
+ * <code>
+ * Crud.all(userCrud.createAsync(user), walletCrud.createAsync(wallet)).join();
+ * </code>
+ * </pre>
+ *
+ * @author Sergio Luis
+ */
 public class Crud<T extends Serializable, U extends Serializable> implements Communicable {
 
     public static final String PREFIX = "repository";
+
+    private static final ExecutorService ASYNC = Executors.newVirtualThreadPerTaskExecutor();
     
     protected String sender, receiver;
 
@@ -45,6 +76,46 @@ public class Crud<T extends Serializable, U extends Serializable> implements Com
         return new ArrayList<>();
     }
 
+    /**
+     * Fetches a single page of entities.
+     *
+     * @param request the page request
+     * @return the page, or an empty last page if the request failed
+     */
+    public Page<U> getPage(PageRequest request) {
+        try {
+            Request<PageRequest> req = Request.newRequest(sender, receiver, RequestMethod.GET, request);
+            Response<Page<U>> response = Communication.send(req);
+            return response.getContent().orElseGet(Page::empty);
+        } catch(Exception e) {
+            e.printStackTrace();
+        }
+        return Page.empty();
+    }
+
+    /**
+     * Returns a lazy stream of all entities, fetched one page of
+     * {@link PageRequest#DEFAULT_SIZE} at a time. Prefer this over
+     * {@link #getAll()} for scans, since only the current page is kept
+     * in memory and a short-circuiting stream stops requesting pages.
+     *
+     * @return the stream of entities
+     */
+    public Stream<U> stream() {
+        return stream(PageRequest.DEFAULT_SIZE);
+    }
+
+    /**
+     * Returns a lazy stream of all entities, fetched one page at a time.
+     *
+     * @param pageSize the size of each page, up to {@link PageRequest#MAX_SIZE}
+     * @return the stream of entities
+     * @see #stream()
+     */
+    public Stream<U> stream(int pageSize) {
+        return Repository.pages(new PageRequest(null, pageSize), this::getPage);
+    }
+
     public List<U> getAll(List<T> list) {
         try {
             Serializable body = list instanceof Serializable ser ? ser : new ArrayList<>(list);
@@ -57,6 +128,22 @@ public class Crud<T extends Serializable, U extends Serializable> implements Com
         return new ArrayList<>();
     }
 
+    public List<U> query(Query query) {
+        try {
+            Request<Query> request = Request.newRequest(sender, receiver, RequestMethod.GET, query);
+            Response<ArrayList<U>> response = Communication.send(request);
+            return response.getContent().orElseGet(ArrayList::new);
+        } catch(Exception e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    public U firstOrNull(Query query) {
+        List<U> result = query(query.limit(1));
+        return result.isEmpty() ? null : result.getFirst();
+    }
+
     public U getOrNull(T obj) {
         try {
             return getOrThrow(obj);
@@ -65,7 +152,40 @@ public class Crud<T extends Serializable, U extends Serializable> implements Com
         }
     }
 
+    /**
+     * Returns the entity of the given id, answering from the {@link CrudCache}
+     * region of the entity type if it is enabled.
+     *
+     * @param obj the id
+     * @return the entity
+     * @throws NotFoundException if there is no such entity or the request failed
+     */
+    @SuppressWarnings("unchecked")
     public U getOrThrow(T obj) {
+        EntityCache<Serializable, Serializable> region = CrudCache.region(receiver);
+        if(region == null) {
+            return fetchOrThrow(obj);
+        }
+        Serializable cached = region.get(obj);
+        if(cached != null) {
+            return (U) cached;
+        }
+        long generation = region.generation();
+        U entity = fetchOrThrow(obj);
+        region.put(obj, entity, generation);
+        return entity;
+    }
+
+    /**
+     * Returns the entity of the given id, always requesting it from the
+     * repository. Use this when the entity is going to be modified and
+     * saved back.
+     *
+     * @param obj the id
+     * @return the entity
+     * @throws NotFoundException if there is no such entity or the request failed
+     */
+    public U fetchOrThrow(T obj) {
         try {
             Request<T> request = Request.newRequest(sender, receiver, RequestMethod.GET, obj);
             Response<U> response = Communication.send(request);
@@ -85,20 +205,59 @@ public class Crud<T extends Serializable, U extends Serializable> implements Com
     }
 
     public boolean create(U obj) {
-        return genericRequest(RequestMethod.POST, obj, ResponseStatus.CREATED);
+        try {
+            return genericRequest(RequestMethod.POST, obj, ResponseStatus.CREATED);
+        } finally {
+            invalidate(List.of(obj));
+        }
     }
 
     public boolean update(U obj) {
-        return genericRequest(RequestMethod.PUT, obj, ResponseStatus.CREATED);
+        try {
+            return genericRequest(RequestMethod.PUT, obj, ResponseStatus.CREATED);
+        } finally {
+            invalidate(List.of(obj));
+        }
     }
 
     public boolean updateAll(List<U> list) {
         Serializable body = list instanceof Serializable ser ? ser : new ArrayList<>(list);
-        return genericRequest(RequestMethod.PUT, body, ResponseStatus.CREATED);
+        try {
+            return genericRequest(RequestMethod.PUT, body, ResponseStatus.CREATED);
+        } finally {
+            invalidate(list);
+        }
     }
 
     public boolean delete(T obj) {
-        return genericRequest(RequestMethod.DELETE, obj, ResponseStatus.NO_CONTENT);
+        try {
+            return genericRequest(RequestMethod.DELETE, obj, ResponseStatus.NO_CONTENT);
+        } finally {
+            EntityCache<Serializable, Serializable> region = CrudCache.region(receiver);
+            if(region != null) {
+                region.invalidate(obj);
+            }
+        }
+    }
+
+    /**
+     * Drops the written entities from the local cache region, without
+     * waiting for the invalidation pushed by the repository.
+     */
+    private void invalidate(List<U> entities) {
+        EntityCache<Serializable, Serializable> region = CrudCache.region(receiver);
+        if(region == null) {
+            return;
+        }
+        for(U entity : entities) {
+            if(entity instanceof StardustEntity<?> stardustEntity
+                    && stardustEntity.getEntityId() instanceof Serializable key) {
+                region.invalidate(key);
+            } else {
+                region.clear();
+                return;
+            }
+        }
     }
 
     private boolean genericRequest(RequestMethod method, Serializable obj, int expectedStatus) {
@@ -111,6 +270,88 @@ public class Crud<T extends Serializable, U extends Serializable> implements Com
         }
     }
 
+    public CompletableFuture<List<U>> getAllAsync(List<T> list) {
+        return async(() -> getAll(list));
+    }
+
+    public CompletableFuture<List<U>> queryAsync(Query query) {
+        return async(() -> query(query));
+    }
+
+    /**
+     * Asynchronous form of {@link #getOrNull(Serializable)}.
+     *
+     * @param obj the id
+     * @return a future of the entity, or of null if it was not found
+     */
+    public CompletableFuture<U> getAsync(T obj) {
+        return async(() -> getOrNull(obj));
+    }
+
+    public CompletableFuture<Boolean> createAsync(U obj) {
+        return async(() -> create(obj));
+    }
+
+    public CompletableFuture<Boolean> updateAsync(U obj) {
+        return async(() -> update(obj));
+    }
+
+    public CompletableFuture<Boolean> updateAllAsync(List<U> list) {
+        return async(() -> updateAll(list));
+    }
+
+    public CompletableFuture<Boolean> deleteAsync(T obj) {
+        return async(() -> delete(obj));
+    }
+
+    /**
+     * Performs a blocking task, normally a request, on a virtual thread.
+     * If the task throws, the future completes exceptionally with the
+     * thrown exception.
+     *
+     * @param <R>  the result type
+     * @param task the task
+     * @return the future of the task result
+     */
+    public static <R> CompletableFuture<R> async(Callable<R> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch(Exception e) {
+                throw new CompletionException(e);
+            }
+        }, ASYNC);
+    }
+
+    /**
+     * Joins independent futures, such as the ones returned by the
+     * asynchronous operations of any Crud. The returned future completes
+     * with the results in the same order of the arguments once all of them
+     * complete, or exceptionally as soon as any of them fails.
+     *
+     * @param <R>     the result type
+     * @param futures the futures
+     * @return the future of all results
+     */
+    @SafeVarargs
+    public static <R> CompletableFuture<List<R>> all(CompletableFuture<? extends R>... futures) {
+        CompletableFuture<List<R>> result = CompletableFuture.allOf(futures).thenApply(ignored -> {
+            List<R> results = new ArrayList<>(futures.length);
+            for(CompletableFuture<? extends R> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        });
+        for(CompletableFuture<? extends R> future : futures) {
+            future.whenComplete((value, e) -> {
+                if(e != null) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+        return result;
+    }
+
     public static String idFor(Class<?> clazz) {
         return PREFIX + "/" + clazz.getName();
     }
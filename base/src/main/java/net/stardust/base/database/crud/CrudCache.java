@@ -0,0 +1,185 @@
+package net.stardust.base.database.crud;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import br.sergio.comlib.Communication;
+import br.sergio.comlib.ConnectionException;
+import br.sergio.comlib.Request;
+import br.sergio.comlib.RequestListener;
+import br.sergio.comlib.RequestMapper;
+import br.sergio.comlib.RequestMethod;
+import br.sergio.comlib.Response;
+import br.sergio.comlib.ResponseStatus;
+import net.stardust.base.BasePlugin;
+import net.stardust.base.database.CacheSubscription;
+import net.stardust.base.database.Invalidation;
+import net.stardust.base.database.RepositoryController;
+import net.stardust.base.database.repositories.EntityCache;
+import net.stardust.base.utils.Throwables;
+
+/**
+ * Opt-in read-through cache of the entities fetched by {@link Crud}s. A
+ * plugin enables it for the entity types it reads on hot paths, normally
+ * during its onEnable:
+ *
+ * <pre>
+ * <code>
+ * CrudCache.enable(this, PlayerWallet.class, RPGPlayer.class);
+ * </code>
+ * </pre>
+ *
+ * From then on, {@link Crud#getOrThrow(Serializable)} and
+ * {@link Crud#getOrNull(Serializable)} of those types are answered from an
+ * {@link EntityCache} region when possible, without a request to the
+ * repository.
+ *
+ * <p>
+ * Each plugin has its own regions. The plugin starts a request listener
+ * and subscribes it to the {@link RepositoryController} of each type,
+ * which pushes an {@link Invalidation} after every write, no matter which
+ * plugin made it.
+ * Writes made through a {@link Crud} also invalidate the local region
+ * right away. Entries also expire after the time to live of the region,
+ * which bounds the staleness if an invalidation is lost. Regions are
+ * configured by the "crud-cache" section of the plugin config, in the
+ * format read by {@link EntityCache#fromConfig(ConfigurationSection, String)}.
+ * </p>
+ *
+ * <p>
+ * Cached entities are shared by every caller, so they must be treated as
+ * read-only. Read-modify-write sequences should read through
+ * {@link Crud#fetchOrThrow(Serializable)} instead.
+ * </p>
+ *
+ * @see Crud
+ * @see EntityCache
+ *
+ * @author Sergio Luis
+ */
+public final class CrudCache {
+
+    public static final String PREFIX = "crud-cache";
+
+    private static final Map<BasePlugin, CrudCache> CACHES = new ConcurrentHashMap<>();
+
+    private final Map<String, EntityCache<Serializable, Serializable>> regions;
+    private final String id;
+    private final Logger log;
+    private RequestListener listener;
+
+    private CrudCache(BasePlugin plugin) {
+        regions = new ConcurrentHashMap<>();
+        id = PREFIX + "/" + plugin.getId();
+        log = plugin.getLogger();
+    }
+
+    /**
+     * Enables the cache of the plugin for the given entity types. Types
+     * whose repository could not accept the subscription are left uncached.
+     *
+     * @param plugin        the plugin whose config and listener are used
+     * @param entityClasses the entity types to cache
+     */
+    @SafeVarargs
+    public static synchronized void enable(BasePlugin plugin, Class<? extends Serializable>... entityClasses) {
+        CrudCache cache = CACHES.get(plugin);
+        if (cache == null) {
+            cache = new CrudCache(plugin);
+            try {
+                cache.listener = Communication.newRequestListener(cache.id, cache.new InvalidationMapper());
+                cache.listener.start();
+            } catch (ConnectionException e) {
+                cache.log.log(Level.SEVERE, "Could not start the request listener of " + cache.id,
+                        Throwables.send(plugin.getId(), e));
+                return;
+            }
+            CACHES.put(plugin, cache);
+        }
+        FileConfiguration config = plugin.getConfig();
+        ConfigurationSection section = config == null ? null : config.getConfigurationSection(PREFIX);
+        for (Class<? extends Serializable> entityClass : entityClasses) {
+            String receiver = Crud.idFor(entityClass);
+            if (cache.regions.containsKey(receiver)) {
+                continue;
+            }
+            if (cache.subscription(receiver, RequestMethod.POST) == ResponseStatus.CREATED) {
+                cache.regions.put(receiver, EntityCache.fromConfig(section, entityClass.getSimpleName()));
+            } else {
+                cache.log.warning("Could not subscribe to " + receiver + ", its entities will not be cached");
+            }
+        }
+    }
+
+    /**
+     * Unsubscribes every type cached by the plugin, drops its regions and
+     * closes its request listener. The caches of other plugins are left
+     * untouched. Should be called during onDisable by plugins that called
+     * {@link #enable(BasePlugin, Class...)}.
+     *
+     * @param plugin the plugin
+     */
+    public static synchronized void disable(BasePlugin plugin) {
+        CrudCache cache = CACHES.remove(plugin);
+        if (cache == null) {
+            return;
+        }
+        for (String receiver : cache.regions.keySet()) {
+            cache.subscription(receiver, RequestMethod.DELETE);
+        }
+        cache.regions.clear();
+        try {
+            cache.listener.close();
+        } catch (IOException e) {
+            cache.log.log(Level.WARNING, "Could not close the request listener of " + cache.id, e);
+        }
+    }
+
+    /**
+     * Returns the region of the entities served by the receiver, or null if
+     * no enabled plugin caches them.
+     */
+    static EntityCache<Serializable, Serializable> region(String receiver) {
+        for (CrudCache cache : CACHES.values()) {
+            EntityCache<Serializable, Serializable> region = cache.regions.get(receiver);
+            if (region != null) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    private int subscription(String receiver, RequestMethod method) {
+        try {
+            Request<CacheSubscription> request = Request.newRequest(id, receiver, method, new CacheSubscription(id));
+            return Communication.send(request).getStatus();
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Could not reach " + receiver, e);
+            return ResponseStatus.INTERNAL_SERVER_ERROR;
+        }
+    }
+
+    private class InvalidationMapper implements RequestMapper {
+
+        @Override
+        public Response<? extends Serializable> handle(Request<? extends Serializable> request) {
+            if (!(request.getContent().orElse(null) instanceof Invalidation invalidation)) {
+                return Response.emptyResponse(ResponseStatus.BAD_REQUEST);
+            }
+            EntityCache<Serializable, Serializable> region = regions.get(invalidation.source());
+            if (region != null) {
+                region.invalidateAll(invalidation.keys());
+            }
+            return Response.emptyResponse(ResponseStatus.NO_CONTENT);
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+package net.stardust.base.database.crud;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import br.sergio.comlib.Communication;
+import br.sergio.comlib.Request;
+import br.sergio.comlib.RequestMethod;
+import br.sergio.comlib.ResponseStatus;
+import net.stardust.base.database.Query;
+import net.stardust.base.database.repositories.EntityCache;
+import net.stardust.base.model.minigame.MinigameStats;
+import net.stardust.base.model.minigame.StatsDelta;
+
+/**
+ * {@link Crud} of {@link MinigameStats}. Counts are changed through the
+ * statistics counter of the repository, which applies a batch of
+ * {@link StatsDelta}s atomically in a single round trip, so concurrent
+ * matches never overwrite each other's results. Reads use the repository
+ * as usual.
+ *
+ * @author Sergio Luis
+ */
+public final class MinigameStatsCrud extends Crud<String, MinigameStats> {
+
+    /**
+     * The id of the statistics counter request listener.
+     */
+    public static final String COUNTER_ID = idFor(MinigameStats.class) + "/counter";
+
+    public MinigameStatsCrud() {
+        super(MinigameStats.class);
+    }
+
+    /**
+     * Applies every delta atomically, creating the statistics that do not
+     * exist yet.
+     *
+     * @param deltas the deltas
+     * @return true if the deltas were applied, false otherwise
+     */
+    public boolean increment(List<StatsDelta> deltas) {
+        if(deltas.isEmpty()) {
+            return true;
+        }
+        try {
+            Request<ArrayList<StatsDelta>> request = Request.newRequest(sender, COUNTER_ID, RequestMethod.POST,
+                    new ArrayList<>(deltas));
+            return Communication.send(request).getStatus() == ResponseStatus.CREATED;
+        } catch(IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            EntityCache<Serializable, Serializable> region = CrudCache.region(receiver);
+            if(region != null) {
+                deltas.forEach(delta -> region.invalidate(delta.id()));
+            }
+        }
+    }
+
+    public MinigameStats of(String minigame, UUID player) {
+        return getOrNull(MinigameStats.idOf(minigame, player));
+    }
+
+    public List<MinigameStats> byMinigame(String minigame) {
+        return query(new Query().equal("minigame", minigame));
+    }
+
+}
@@ -1,28 +1,140 @@
 package net.stardust.base.database.crud;
 
+import java.io.IOException;
+import java.io.Serializable;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import br.sergio.comlib.Communication;
+import br.sergio.comlib.Request;
+import br.sergio.comlib.RequestMethod;
+import br.sergio.comlib.Response;
+import br.sergio.comlib.ResponseStatus;
+import net.stardust.base.database.repositories.EntityCache;
 import net.stardust.base.model.economy.wallet.Currency;
+import net.stardust.base.model.economy.wallet.LeaderboardQuery;
+import net.stardust.base.model.economy.wallet.LedgerRequest;
 import net.stardust.base.model.economy.wallet.Money;
 import net.stardust.base.model.economy.wallet.PlayerWallet;
+import net.stardust.base.model.economy.wallet.RankedWallet;
+import net.stardust.base.model.economy.wallet.WalletDelta;
 
+/**
+ * {@link Crud} of {@link PlayerWallet}s. Balance changes go through the
+ * wallet ledger of the repository, which applies them atomically on the
+ * server in a single round trip, so concurrent payments to the same wallet
+ * never overwrite each other. Setting a balance with
+ * {@link #updateMoney(UUID, Money)} is an absolute delta applied by the
+ * ledger too, so it is journaled and never writes back a stale wallet.
+ * Reads use the repository as usual.
+ *
+ * <p>
+ * Rankings are answered by the wallet leaderboards of the repository,
+ * which are kept up to date on every write, so a rank query costs
+ * O(log N) on the server instead of a read of every wallet.
+ * </p>
+ *
+ * @see LedgerRequest
+ * @see LeaderboardQuery
+ *
+ * @author Sergio Luis
+ */
 public final class PlayerWalletCrud extends Crud<UUID, PlayerWallet> {
 
+    /**
+     * The id of the wallet ledger request listener.
+     */
+    public static final String LEDGER_ID = idFor(PlayerWallet.class) + "/ledger";
+
+    /**
+     * The id of the wallet leaderboards request listener.
+     */
+    public static final String LEADERBOARD_ID = idFor(PlayerWallet.class) + "/leaderboard";
+
     public PlayerWalletCrud() {
         super(PlayerWallet.class);
     }
 
+    /**
+     * Applies every delta of the request atomically.
+     *
+     * @param request the request
+     * @return true if the request was applied, now or by an earlier attempt
+     *         with the same transaction id; false if a wallet was not found,
+     *         funds were required and missing, or the request failed
+     */
+    public boolean apply(LedgerRequest request) {
+        try {
+            Request<LedgerRequest> ledgerRequest = Request.newRequest(sender, LEDGER_ID, RequestMethod.POST, request);
+            int status = Communication.send(ledgerRequest).getStatus();
+            return status == ResponseStatus.CREATED || status == ResponseStatus.OK;
+        } catch(IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            EntityCache<Serializable, Serializable> region = CrudCache.region(receiver);
+            if(region != null) {
+                request.deltas().forEach(delta -> region.invalidate(delta.wallet()));
+            }
+        }
+    }
+
+    /**
+     * Returns the wallets ranked from a position on by the balance of the
+     * currency, richest first.
+     *
+     * @param currency the currency
+     * @param from     the first rank, starting at 1
+     * @param size     the maximum amount of wallets
+     * @return the ranked wallets, empty past the last rank or if the
+     *         request failed
+     */
+    public List<RankedWallet> top(Currency currency, int from, int size) {
+        try {
+            Request<LeaderboardQuery> request = Request.newRequest(sender, LEADERBOARD_ID, RequestMethod.GET,
+                    LeaderboardQuery.range(currency, from, size));
+            Response<ArrayList<RankedWallet>> response = Communication.send(request);
+            return response.getContent().orElseGet(ArrayList::new);
+        } catch(Exception e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Returns the rank of the wallet by the balance of the currency.
+     *
+     * @param currency the currency
+     * @param id       the id of the wallet
+     * @return the ranked wallet, or null if it was not found or the
+     *         request failed
+     */
+    public RankedWallet rankOf(Currency currency, UUID id) {
+        try {
+            Request<LeaderboardQuery> request = Request.newRequest(sender, LEADERBOARD_ID, RequestMethod.GET,
+                    LeaderboardQuery.rankOf(currency, id));
+            Response<RankedWallet> response = Communication.send(request);
+            if(response.getStatus() == ResponseStatus.OK) {
+                return response.getContent().orElse(null);
+            }
+        } catch(Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     public BigInteger getBronze(UUID id) {
         return getOrThrow(id).getBronze().getValue();
     }
 
     public boolean addBronze(UUID id, BigInteger bronze) {
-        return updateBronze(id, getBronze(id).add(bronze));
+        return apply(LedgerRequest.of(false, WalletDelta.credit(id, Currency.BRONZE, bronze)));
     }
 
     public boolean subtractBronze(UUID id, BigInteger bronze) {
-        return updateBronze(id, getBronze(id).subtract(bronze));
+        return apply(LedgerRequest.of(false, WalletDelta.debit(id, Currency.BRONZE, bronze)));
     }
 
     public boolean updateBronze(UUID id, BigInteger bronze) {
@@ -34,11 +146,11 @@ public final class PlayerWalletCrud extends Crud<UUID, PlayerWallet> {
     }
     
     public boolean addSilver(UUID id, BigInteger silver) {
-        return updateSilver(id, getSilver(id).add(silver));
+        return apply(LedgerRequest.of(false, WalletDelta.credit(id, Currency.SILVER, silver)));
     }
     
     public boolean subtractSilver(UUID id, BigInteger silver) {
-        return updateSilver(id, getSilver(id).subtract(silver));
+        return apply(LedgerRequest.of(false, WalletDelta.debit(id, Currency.SILVER, silver)));
     }
     
     public boolean updateSilver(UUID id, BigInteger silver) {
@@ -50,11 +162,11 @@ public final class PlayerWalletCrud extends Crud<UUID, PlayerWallet> {
     }
     
     public boolean addGold(UUID id, BigInteger gold) {
-        return updateGold(id, getGold(id).add(gold));
+        return apply(LedgerRequest.of(false, WalletDelta.credit(id, Currency.GOLD, gold)));
     }
     
     public boolean subtractGold(UUID id, BigInteger gold) {
-        return updateGold(id, getGold(id).subtract(gold));
+        return apply(LedgerRequest.of(false, WalletDelta.debit(id, Currency.GOLD, gold)));
     }
     
     public boolean updateGold(UUID id, BigInteger gold) {
@@ -62,9 +174,7 @@ public final class PlayerWalletCrud extends Crud<UUID, PlayerWallet> {
     }
 
     public boolean updateMoney(UUID id, Money money) {
-        PlayerWallet wallet = getOrThrow(id);
-        wallet.setMoney(money);
-        return update(wallet);
+        return apply(LedgerRequest.of(false, WalletDelta.set(id, money.getCurrency(), money.getValue())));
     }
 
 }
@@ -1,9 +1,9 @@
 package net.stardust.base.database.crud;
 
-import java.util.List;
 import java.util.UUID;
 
 import net.stardust.base.database.NotFoundException;
+import net.stardust.base.database.Query;
 import net.stardust.base.model.user.User;
 
 public final class UserCrud extends Crud<UUID, User> {
@@ -21,13 +21,11 @@ public final class UserCrud extends Crud<UUID, User> {
     }
     
     public User byNameOrThrow(String name) {
-    	List<User> all = getAll();
-    	for(User user : all) {
-    		if(name.equals(user.getName())) {
-    			return user;
-    		}
+    	User user = firstOrNull(new Query().equal("name", name));
+    	if(user == null) {
+    		throw new NotFoundException("User not found: " + name, name);
     	}
-    	throw new NotFoundException("User not found: " + name, name);
+    	return user;
     }
 
 }
@@ -2,12 +2,9 @@ package net.stardust.base.database.lang;
 
 import net.kyori.adventure.key.Key;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.translation.GlobalTranslator;
 import net.kyori.adventure.translation.TranslationRegistry;
-import net.stardust.base.utils.StardustThreads;
 import net.stardust.base.utils.Throwables;
-import net.stardust.base.utils.plugin.PluginConfig;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
@@ -19,42 +16,88 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class Translation {
 
     public static final String DEFAULT_BUNDLE_PATH = "plugins/repository/bundles";
     public static final List<String> SUPPORTED_LANGUAGES;
 
+    private static final Map<Locale, Map<String, TranslationTemplate>> TEMPLATES = new ConcurrentHashMap<>();
+
     private static boolean loaded;
+    private static TranslationRegistry registry;
 
     private Translation() {}
 
     public static synchronized void load() {
         if(!loaded) {
-            TranslationRegistry registry = TranslationRegistry.create(Key.key("stardust", "translation"));
-            registry.defaultLocale(defaultLocale());
-            SUPPORTED_LANGUAGES.stream().map(Translation::getBundle)
-                .forEach(bundle -> registry.registerAll(bundle.getLocale(), bundle, true));
+            registry = createRegistry();
             GlobalTranslator.translator().addSource(registry);
             loaded = true;
         }
     }
 
+    /**
+     * Reads the bundles again and replaces the translations loaded by
+     * {@link #load()}, discarding the cached templates. The templates cached
+     * by other plugins are replaced on their next use. If the bundles could
+     * not be read, the loaded translations are kept. Called by the
+     * "/translations reload" command of the authentication plugin, which
+     * is the one loading the translations.
+     */
+    public static synchronized void reload() {
+        if(!loaded) {
+            load();
+            return;
+        }
+        TranslationRegistry newRegistry = createRegistry();
+        GlobalTranslator.translator().removeSource(registry);
+        GlobalTranslator.translator().addSource(newRegistry);
+        registry = newRegistry;
+        TEMPLATES.clear();
+    }
+
+    private static TranslationRegistry createRegistry() {
+        TranslationRegistry registry = TranslationRegistry.create(Key.key("stardust", "translation"));
+        registry.defaultLocale(defaultLocale());
+        SUPPORTED_LANGUAGES.stream().map(Translation::getBundle)
+            .forEach(bundle -> registry.registerAll(bundle.getLocale(), bundle, true));
+        return registry;
+    }
+
+    /**
+     * Returns the parsed translation of the key, compiling it on first use
+     * and again whenever the translator returns a different format.
+     */
+    private static TranslationTemplate template(Locale locale, String key) {
+        MessageFormat source = TranslationTemplate.source(key, locale);
+        Map<String, TranslationTemplate> templates = TEMPLATES.computeIfAbsent(locale,
+            l -> new ConcurrentHashMap<>());
+        TranslationTemplate template = templates.get(key);
+        if(template == null || !template.isCompiledFrom(source)) {
+            template = TranslationTemplate.compile(key, locale, source);
+            templates.put(key, template);
+        }
+        return template;
+    }
+
     public static Component get(CommandSender sender, String key, Object... args) {
         return sender instanceof Player player ? get(player, key, args) : console(key, args);
     }
 
     public static Component get(Player player, String key, Object... args) {
-        return get(StardustThreads.call(PluginConfig.get().getPlugin(), player::locale), key, args);
+        return get(locale(player), key, args);
     }
     
     public static Component get(Locale locale, String key, Object... args) {
-        return StardustThreads.call(PluginConfig.get().getPlugin(), 
-            () -> MiniMessage.miniMessage().deserialize(string(locale, key, args)));
+        return template(locale, key).component(args);
     }
 
     public static Component getTextComponent(CommandSender sender, String key, Object... args) {
@@ -62,11 +105,11 @@ public final class Translation {
     }
 
     public static Component getTextComponent(Player player, String key, Object... args) {
-        return getTextComponent(StardustThreads.call(PluginConfig.get().getPlugin(), player::locale), key, args);
+        return getTextComponent(locale(player), key, args);
     }
 
     public static Component getTextComponent(Locale locale, String key, Object... args) {
-        return StardustThreads.call(PluginConfig.get().getPlugin(), () -> Component.text(string(locale, key, args)));
+        return template(locale, key).text(args);
     }
 
     public static Component consoleText(String key, Object... args) {
@@ -86,12 +129,11 @@ public final class Translation {
     }
 
     public static String string(Player player, String key, Object... args) {
-        return string(StardustThreads.call(PluginConfig.get().getPlugin(), player::locale), key, args);
+        return string(locale(player), key, args);
     }
 
     public static String string(Locale locale, String key, Object... args) {
-        return StardustThreads.call(PluginConfig.get().getPlugin(), 
-            () -> GlobalTranslator.translator().translate(key, locale).format(args));
+        return template(locale, key).string(args);
     }
 
     public static Locale defaultLocale() {
@@ -104,12 +146,17 @@ public final class Translation {
 
     public static Locale locale(CommandSender sender) {
         if(sender instanceof Player player) {
-            return StardustThreads.call(PluginConfig.get().getPlugin(), player::locale);
+            return locale(player);
         } else {
             return consoleLocale();
         }
     }
 
+    private static Locale locale(Player player) {
+        // the locale is a field updated by the client settings packet, reading it needs no main thread
+        return player.locale();
+    }
+
     private static ResourceBundle getBundle(String lang) {
         try {
             File dir = new File(DEFAULT_BUNDLE_PATH);
@@ -0,0 +1,156 @@
+package net.stardust.base.database.lang;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.ComponentLike;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import net.kyori.adventure.translation.GlobalTranslator;
+
+import java.text.Format;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A translation of a key to a locale, parsed once and rendered any number
+ * of times from any thread. Translations without arguments are kept as a
+ * ready string and component. Translations with arguments keep their
+ * {@link MessageFormat} and a component parsed with a slot in the place of
+ * each argument, so rendering only replaces the slots instead of parsing
+ * the MiniMessage text again.
+ *
+ * <p>
+ * A template is valid while the translator returns the same format it was
+ * compiled from, so it is compiled again when any plugin reloads the
+ * bundles.
+ * </p>
+ *
+ * <p>
+ * Arguments put in slots are inserted as text, or as they are if they are
+ * components, and never parsed as MiniMessage. Translations whose arguments
+ * have a format type, like {@code {0,number}}, have no slots and are
+ * formatted and parsed on every render.
+ * </p>
+ *
+ * @see Translation
+ *
+ * @author Sergio Luis
+ */
+final class TranslationTemplate {
+
+    private static final String SLOT_TAG = "stardust_arg";
+    private static final String SLOT_KEY = "stardust.arg.";
+
+    private final Locale locale;
+    private final MessageFormat source;
+    private final MessageFormat format;
+    private final boolean subformats;
+    private final String string;
+    private final Component component;
+    private final Component text;
+
+    private TranslationTemplate(Locale locale, MessageFormat source, MessageFormat format, boolean subformats,
+            String string, Component component) {
+        this.locale = locale;
+        this.source = source;
+        this.format = format;
+        this.subformats = subformats;
+        this.string = string;
+        this.component = component;
+        text = string == null ? null : Component.text(string);
+    }
+
+    static MessageFormat source(String key, Locale locale) {
+        return GlobalTranslator.translator().translate(key, locale);
+    }
+
+    static TranslationTemplate compile(String key, Locale locale, MessageFormat format) {
+        if(format == null) {
+            return new TranslationTemplate(locale, null, null, false, key, Component.text(key));
+        }
+        int arguments = format.getFormatsByArgumentIndex().length;
+        if(arguments == 0) {
+            String string = format.format(new Object[0]);
+            return new TranslationTemplate(locale, format, null, false, string,
+                MiniMessage.miniMessage().deserialize(string));
+        }
+        for(Format subformat : format.getFormats()) {
+            if(subformat != null) {
+                return new TranslationTemplate(locale, format, format, true, null, null);
+            }
+        }
+        Object[] slots = new Object[arguments];
+        for(int i = 0; i < arguments; i++) {
+            slots[i] = "<" + SLOT_TAG + ":" + i + ">";
+        }
+        TagResolver resolver = TagResolver.resolver(SLOT_TAG, (queue, context) -> Tag.inserting(Component
+            .translatable(SLOT_KEY + queue.pop().value())));
+        Component component = MiniMessage.miniMessage().deserialize(format.format(slots), resolver);
+        return new TranslationTemplate(locale, format, format, false, null, component);
+    }
+
+    boolean isCompiledFrom(MessageFormat format) {
+        return source == format;
+    }
+
+    String string(Object... args) {
+        if(string != null) {
+            return string;
+        }
+        // the format is only shared when it has no subformats, which are not thread-safe
+        MessageFormat format = subformats ? (MessageFormat) this.format.clone() : this.format;
+        return format.format(args);
+    }
+
+    Component component(Object... args) {
+        if(component == null) {
+            return MiniMessage.miniMessage().deserialize(string(args));
+        }
+        return string != null ? component : fill(component, args);
+    }
+
+    Component text(Object... args) {
+        return text != null ? text : Component.text(string(args));
+    }
+
+    /**
+     * Replaces the slots in the tree, copying only the components on the
+     * way to them.
+     */
+    private Component fill(Component component, Object[] args) {
+        if(component instanceof TranslatableComponent slot && slot.key().startsWith(SLOT_KEY)) {
+            int index = Integer.parseInt(slot.key().substring(SLOT_KEY.length()));
+            Component argument = index < args.length ? argument(args[index]) : Component.text("{" + index + "}");
+            return argument.applyFallbackStyle(slot.style());
+        }
+        List<Component> children = component.children();
+        List<Component> filled = null;
+        for(int i = 0; i < children.size(); i++) {
+            Component child = children.get(i);
+            Component filledChild = fill(child, args);
+            if(filledChild != child) {
+                if(filled == null) {
+                    filled = new ArrayList<>(children);
+                }
+                filled.set(i, filledChild);
+            }
+        }
+        return filled == null ? component : component.children(filled);
+    }
+
+    private Component argument(Object arg) {
+        if(arg instanceof ComponentLike like) {
+            return like.asComponent();
+        }
+        if(arg instanceof Number || arg instanceof Date) {
+            // formatted like MessageFormat does with a plain {n}
+            return Component.text(new MessageFormat("{0}", locale).format(new Object[] { arg }));
+        }
+        return Component.text(String.valueOf(arg));
+    }
+
+}
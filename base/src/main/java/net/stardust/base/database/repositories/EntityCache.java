@@ -0,0 +1,248 @@
+package net.stardust.base.database.repositories;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Bounded in-process cache of the entities of a single type (a region),
+ * used by {@link JpaRepository} to avoid reading hot entities from the
+ * database on every request. Entries are evicted in least recently used
+ * order when the region is full and expire after a fixed time to live.
+ *
+ * <p>
+ * Every write must call {@link #invalidate(Object)} or
+ * {@link #invalidateAll(Collection)} after committing. Readers take a
+ * {@link #generation()} before going to the database and pass it to
+ * {@link #put(Object, Object, long)}, which discards the value if any
+ * invalidation happened in the meantime, so a slow read never puts back
+ * a value that a concurrent write already replaced.
+ * </p>
+ *
+ * <p>
+ * Cached instances are shared between requests, so they must not be
+ * modified unless the modification is saved through the repository.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Sergio Luis
+ */
+public class EntityCache<K, V> {
+
+    public static final int DEFAULT_SIZE = 1000;
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    private int maxSize;
+    private long ttlNanos;
+    private Map<K, CachedValue<V>> entries;
+    private AtomicLong generation;
+    private LongAdder hits, misses, evictions;
+
+    /**
+     * Creates a region holding at most {@code maxSize} entities for
+     * {@code ttl} units of time each. A size of zero disables caching.
+     *
+     * @param maxSize the maximum amount of entities
+     * @param ttl     the time to live of an entry
+     * @param unit    the unit of ttl
+     * @throws IllegalArgumentException if maxSize or ttl are negative
+     */
+    public EntityCache(int maxSize, long ttl, TimeUnit unit) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        if (ttl < 0) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+        this.maxSize = maxSize;
+        ttlNanos = unit.toNanos(ttl);
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+
+        };
+        generation = new AtomicLong();
+        hits = new LongAdder();
+        misses = new LongAdder();
+        evictions = new LongAdder();
+    }
+
+    /**
+     * Creates a region configured by the given section, reading "size"
+     * and "ttl" (in seconds). If the section has a "regions" subsection
+     * with an entry for the region name, its values take precedence.
+     * Missing values fall back to {@link #DEFAULT_SIZE} and
+     * {@link #DEFAULT_TTL_SECONDS}.
+     *
+     * @param <K>     the key type
+     * @param <V>     the value type
+     * @param section the cache configuration, may be null
+     * @param region  the region name, normally the entity simple name
+     * @return the configured cache
+     */
+    public static <K, V> EntityCache<K, V> fromConfig(ConfigurationSection section, String region) {
+        int size = DEFAULT_SIZE;
+        long ttl = DEFAULT_TTL_SECONDS;
+        if (section != null) {
+            size = section.getInt("size", size);
+            ttl = section.getLong("ttl", ttl);
+            ConfigurationSection override = section.getConfigurationSection("regions." + region);
+            if (override != null) {
+                size = override.getInt("size", size);
+                ttl = override.getLong("ttl", ttl);
+            }
+        }
+        return new EntityCache<>(size, ttl, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the cached value for the key, or null if it is absent or
+     * expired.
+     *
+     * @param key the key
+     * @return the cached value or null
+     */
+    public V get(K key) {
+        if (maxSize == 0) {
+            return null;
+        }
+        synchronized (entries) {
+            CachedValue<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt - System.nanoTime() > 0) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Returns the current generation, to be passed to
+     * {@link #put(Object, Object, long)} after reading from the database.
+     *
+     * @return the current generation
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a value read from the database, unless an invalidation
+     * happened since the given generation was taken. Null values are
+     * ignored.
+     *
+     * @param key        the key
+     * @param value      the value
+     * @param generation the generation taken before reading the value
+     */
+    public void put(K key, V value, long generation) {
+        if (maxSize == 0 || value == null) {
+            return;
+        }
+        synchronized (entries) {
+            if (this.generation.get() == generation) {
+                entries.put(key, new CachedValue<>(value, System.nanoTime() + ttlNanos));
+            }
+        }
+    }
+
+    /**
+     * Removes the value of a key after it was written.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Removes the values of the keys after they were written.
+     *
+     * @param keys the keys
+     */
+    public void invalidateAll(Collection<? extends K> keys) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            keys.forEach(entries::remove);
+        }
+    }
+
+    /**
+     * Removes every value of this region.
+     */
+    public void clear() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the counters of this region.
+     *
+     * @return the statistics
+     */
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, maxSize);
+    }
+
+    private record CachedValue<V>(V value, long expiresAt) {
+    }
+
+    /**
+     * Snapshot of the counters of a region.
+     *
+     * @param hits      the lookups served by the cache
+     * @param misses    the lookups that went to the database
+     * @param evictions the entries removed because the region was full
+     * @param size      the current amount of entries
+     * @param maxSize   the maximum amount of entries
+     */
+    public record Stats(long hits, long misses, long evictions, int size, int maxSize) {
+
+        /**
+         * Returns the ratio of lookups served by the cache, or 0 if
+         * there was no lookup.
+         *
+         * @return the hit ratio
+         */
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=%d, misses=%d, hitRatio=%.2f, evictions=%d, size=%d/%d"
+                    .formatted(hits, misses, hitRatio(), evictions, size, maxSize);
+        }
+
+    }
+
+}
@@ -0,0 +1,123 @@
+package net.stardust.base.database.repositories;
+
+import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import net.stardust.base.database.Indexed;
+import net.stardust.base.database.Query;
+import net.stardust.base.database.Query.Filter;
+
+/**
+ * Index of the keys of a {@link MapRepository} by the value of one
+ * {@link Indexed} field. Comparable fields are kept in a
+ * {@link ConcurrentSkipListMap}, which serves equality, range and prefix
+ * filters in logarithmic time; other fields are kept in a
+ * {@link ConcurrentHashMap} serving equality only. The value indexed for
+ * each key is remembered, so an entity mutated in place can still be
+ * removed from the right position.
+ *
+ * <p>
+ * Lookups take no lock and are weakly consistent, like the cache of the
+ * repository. Updates are serialized by the index itself, since writers
+ * of different keys of a {@link MapRepository} run concurrently.
+ * </p>
+ *
+ * @author Sergio Luis
+ */
+class FieldIndex<K> {
+
+    private Field field;
+    private boolean sorted;
+    private Map<Object, Set<K>> index;
+    private Map<K, Object> indexed;
+
+    FieldIndex(Field field) {
+        this.field = field;
+        Class<?> type = field.getType();
+        sorted = type.isPrimitive() || Comparable.class.isAssignableFrom(type);
+        index = sorted ? new ConcurrentSkipListMap<>() : new ConcurrentHashMap<>();
+        indexed = new ConcurrentHashMap<>();
+    }
+
+    synchronized void add(K key, Object entity) {
+        remove(key);
+        Object value = Query.valueOf(entity, field.getName());
+        if (value != null) {
+            index.computeIfAbsent(value, v -> ConcurrentHashMap.newKeySet()).add(key);
+            indexed.put(key, value);
+        }
+    }
+
+    synchronized void remove(K key) {
+        Object value = indexed.remove(key);
+        if (value != null) {
+            Set<K> keys = index.get(value);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                index.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys whose indexed value passes the filter, or null if
+     * this index cannot serve that kind of filter.
+     *
+     * @param filter the filter
+     * @return the matching keys or null
+     * @throws IllegalArgumentException if the filter values are not of
+     *                                  the field type
+     */
+    Set<K> find(Filter filter) {
+        try {
+            return switch (filter.operator()) {
+                case EQUAL -> filter.value() == null ? null : index.getOrDefault(filter.value(), Set.of());
+                case RANGE -> sorted ? union(range(filter.value(), filter.to())) : null;
+                case PREFIX -> sorted && field.getType() == String.class
+                        ? union(range(filter.value(), filter.value() + Character.toString(Character.MAX_VALUE)))
+                        : null;
+            };
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Filter value not comparable to field \"" + field.getName() + "\"", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Object, Set<K>> range(Object from, Object to) {
+        NavigableMap<Object, Set<K>> tree = (NavigableMap<Object, Set<K>>) index;
+        if (from == null && to == null) {
+            return tree;
+        }
+        if (from == null) {
+            return tree.headMap(to, true);
+        }
+        if (to == null) {
+            return tree.tailMap(from, true);
+        }
+        if (compare(from, to) > 0) {
+            return Map.of();
+        }
+        return tree.subMap(from, true, to, true);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compare(Object a, Object b) {
+        return ((Comparable) a).compareTo(b);
+    }
+
+    private Set<K> union(Map<Object, Set<K>> entries) {
+        Set<K> keys = new HashSet<>();
+        entries.values().forEach(keys::addAll);
+        return keys;
+    }
+
+    String getFieldName() {
+        return field.getName();
+    }
+
+}
@@ -4,18 +4,46 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 
 import net.stardust.base.BasePlugin;
 import net.stardust.base.model.StardustEntity;
-import net.stardust.base.utils.Serializer;
+import net.stardust.base.utils.StardustThreads;
 import net.stardust.base.utils.Throwables;
+import net.stardust.base.utils.codec.BinaryCodec;
 
+/**
+ * {@link MapRepository} persisted into a file. The file holds a snapshot
+ * of the entire map, and every change made after that snapshot is appended
+ * to a {@link RepositoryLog}, so the cost of a write is proportional to the
+ * changed entries and not to the size of the repository. Once the log grows
+ * beyond {@link #compactionThreshold()} a new snapshot is written and the
+ * old segments are deleted. On startup the snapshot is read and the log is
+ * replayed on top of it. Snapshots written by older versions, without log,
+ * are read as they are.
+ *
+ * @see RepositoryLog
+ *
+ * @author Sergio Luis
+ */
 public class FileRepository<K, V extends StardustEntity<K>> extends MapRepository<K, V> {
 
+    public static final long DEFAULT_SEGMENT_SIZE = 1 << 20;
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 8 << 20;
+
     private File file;
+    private RepositoryLog<K, V> changeLog;
+    private ExecutorService writer;
+    private final Lock snapshotWriteLock = new ReentrantLock();
 
     public FileRepository(BasePlugin plugin, Class<K> keyClass, Class<V> valueClass) {
         super(plugin, keyClass, valueClass);
@@ -42,28 +70,167 @@ public class FileRepository<K, V extends StardustEntity<K>> extends MapRepositor
 
     @Override
     protected void doFlush(Map<K, V> elements) {
-        synchronized (elements) {
-            flushToFile(elements, file);
+        writeSnapshot(elements);
+    }
+
+    @Override
+    protected void changed(List<V> saved, List<K> deleted) {
+        if (changeLog == null) {
+            super.changed(saved, deleted);
+            return;
+        }
+        byte[] block;
+        try {
+            block = changeLog.encode(saved, deleted);
+        } catch (IOException e) {
+            log.log(Level.SEVERE, "Could not encode changes for the log, a new snapshot will be written", e);
+            Throwables.send(getId(), e);
+            // on the writer, like every other snapshot, so it never races with a compaction
+            writer.submit(this::compactQuietly);
+            return;
+        }
+        writer.submit(() -> append(block));
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            log.log(Level.SEVERE, "Could not compact the log of \"" + file.getAbsolutePath() + "\"", e);
+            Throwables.send(getId(), e);
+        }
+    }
+
+    private void append(byte[] block) {
+        try {
+            changeLog.append(block);
+            if (changeLog.getBytesSinceCheckpoint() >= compactionThreshold()) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.log(Level.SEVERE, "Could not append changes to the log of \"" + file.getAbsolutePath() + "\"", e);
+            Throwables.send(getId(), e);
+        }
+    }
+
+    /**
+     * Writes a new snapshot and deletes the log segments it covers. Must
+     * run on the writer thread, or after it was terminated.
+     *
+     * @throws IOException if the log could not be rolled or truncated
+     */
+    protected void compact() throws IOException {
+        int first = changeLog.roll();
+        if (writeSnapshot(snapshot())) {
+            changeLog.deleteBefore(first);
         }
     }
 
-    protected void flushToFile(Map<K, V> elements, File file) {
+    /**
+     * Writes the elements into a temporary file and then moves it over the
+     * repository file, so a crash in the middle never leaves a partial
+     * snapshot behind.
+     *
+     * @param elements the elements to write
+     * @return true if the snapshot was written, false otherwise
+     */
+    protected boolean writeSnapshot(Map<K, V> elements) {
+        // the temporary file is shared, so snapshots from the flusher and the writer must not overlap
+        snapshotWriteLock.lock();
+        try {
+            File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+            if (!flushToFile(elements, temp)) {
+                return false;
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            log.log(Level.SEVERE, "Could not replace the file \"" + file.getAbsolutePath() + "\"", e);
+            Throwables.send(getId(), e);
+            return false;
+        } finally {
+            snapshotWriteLock.unlock();
+        }
+    }
+
+    protected boolean flushToFile(Map<K, V> elements, File file) {
         try (FileOutputStream fos = new FileOutputStream(file)) {
-            Serializer.serialize(elements, fos);
+            BinaryCodec.encode(elements, fos);
+            return true;
         } catch (IOException e) {
             log.log(Level.SEVERE,
                     "Could not serialize the map of elements into the file \"" + file.getAbsolutePath() + "\"", e);
             Throwables.send(getId(), e);
+            return false;
         }
     }
 
     @Override
     protected Map<K, V> initializeElements() {
         file = create(this, directory(), fileName());
-        if (file.length() != 0) {
-            return readFile(file);
+        Map<K, V> elements = file.length() != 0 ? readFile(file) : new HashMap<>();
+        if (isLogging()) {
+            changeLog = new RepositoryLog<>(directory(), getValueClass().getSimpleName(), segmentSize());
+            try {
+                changeLog.replay(elements);
+            } catch (IOException e) {
+                log.log(Level.SEVERE, "Could not replay the log of \"" + file.getAbsolutePath() + "\"", e);
+                Throwables.sendAndThrow(getId(), e);
+            }
+            writer = StardustThreads.singleThreadDaemon();
         }
-        return new HashMap<>();
+        return elements;
+    }
+
+    @Override
+    public void close() {
+        if (changeLog == null) {
+            super.close();
+            return;
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(BasePlugin.DEFAULT_EXECUTOR_SERVICE_TIMEOUT, TimeUnit.SECONDS)) {
+                log.warning("Log writer of \"" + file.getAbsolutePath() + "\" did not terminate in time");
+            }
+            compact();
+            changeLog.close();
+        } catch (IOException | InterruptedException e) {
+            log.log(Level.SEVERE, "Could not close the log of \"" + file.getAbsolutePath() + "\"", e);
+            Throwables.send(getId(), e);
+        }
+    }
+
+    /**
+     * Returns whether changes are appended to a {@link RepositoryLog}
+     * instead of rewriting the entire file on every write. Subclasses
+     * whose file must always reflect the current state, like human-readable
+     * formats, should return false.
+     *
+     * @return true if this repository uses a log
+     */
+    protected boolean isLogging() {
+        return true;
+    }
+
+    /**
+     * Returns the size in bytes after which a new log segment is opened.
+     *
+     * @return the segment size
+     */
+    protected long segmentSize() {
+        return DEFAULT_SEGMENT_SIZE;
+    }
+
+    /**
+     * Returns the log size in bytes after which a new snapshot is written
+     * and the old segments are deleted.
+     *
+     * @return the compaction threshold
+     */
+    protected long compactionThreshold() {
+        return DEFAULT_COMPACTION_THRESHOLD;
     }
 
     protected File directory() {
@@ -77,12 +244,12 @@ public class FileRepository<K, V extends StardustEntity<K>> extends MapRepositor
     @SuppressWarnings("unchecked")
     protected Map<K, V> readFile(File file) {
         try (FileInputStream fis = new FileInputStream(file)) {
-            return (Map<K, V>) Serializer.deserialize(fis, Map.class);
-        } catch (IOException | ClassNotFoundException e) {
+            return (Map<K, V>) BinaryCodec.decode(fis);
+        } catch (IOException | ClassCastException e) {
             log.log(Level.SEVERE, "Could not read data from file \"" + file.getAbsolutePath() + "\"", e);
             Throwables.sendAndThrow(e);
             return null;
         }
     }
-    
+
 }
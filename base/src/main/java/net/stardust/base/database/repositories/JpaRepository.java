@@ -1,77 +1,261 @@
 package net.stardust.base.database.repositories;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.bukkit.configuration.file.FileConfiguration;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceException;
+import jakarta.persistence.metamodel.Attribute;
 import net.stardust.base.BasePlugin;
 import net.stardust.base.Communicable;
+import net.stardust.base.database.JPA;
+import net.stardust.base.database.Page;
+import net.stardust.base.database.PageRequest;
+import net.stardust.base.database.Query;
+import net.stardust.base.database.Query.Filter;
 import net.stardust.base.database.Repository;
 import net.stardust.base.model.StardustEntity;
+import net.stardust.base.utils.BatchList;
 import net.stardust.base.utils.Throwables;
 
+/**
+ * {@link Repository} backed by JPA. Every operation is a unit of work: it
+ * opens its own short-lived {@link EntityManager} (and transaction, for
+ * writes) from the plugin {@link EntityManagerFactory}, which is thread-safe
+ * and draws connections from the pool configured in
+ * {@link net.stardust.base.database.HibernateConfigurationBuilder}. That way
+ * concurrent requests do not share a persistence context and none of them
+ * grows without bound.
+ *
+ * <p>
+ * Since returned entities are detached, lazy associations are initialized
+ * before the entity manager of the request is closed.
+ * </p>
+ *
+ * <p>
+ * Bulk operations work in batches of hibernate.jdbc.batch_size elements:
+ * existence checks and loads use one {@code IN} query per batch, and the
+ * persistence context is flushed and cleared after each batch so the
+ * statements go to the database as JDBC batches.
+ * </p>
+ *
+ * <p>
+ * Lookups by id are served from an {@link EntityCache} region of the entity
+ * type, configured by the "repository.cache" section of the plugin config,
+ * and every write invalidates the written ids.
+ * </p>
+ *
+ * @see net.stardust.base.database.JPA
+ *
+ * @author Sergio Luis
+ */
 public class JpaRepository<K, V extends StardustEntity<K>> implements Repository<K, V>, Communicable {
-    
+
     private Class<K> keyClass;
     private Class<V> valueClass;
     private String id;
-    private EntityManager entityManager;
+    private EntityManagerFactory entityManagerFactory;
+    private List<Member> lazyMembers;
+    private int batchSize;
+    private EntityCache<K, V> cache;
     private Logger log;
 
     public JpaRepository(BasePlugin plugin, Class<K> keyClass, Class<V> valueClass) {
         this.keyClass = Objects.requireNonNull(keyClass, "keyClass");
         this.valueClass = Objects.requireNonNull(valueClass, "valueClass");
         id = plugin.getId() + "/" + valueClass.getSimpleName();
-        entityManager = plugin.getEntityManagerFactory().createEntityManager();
+        entityManagerFactory = plugin.getEntityManagerFactory();
+        lazyMembers = entityManagerFactory.getMetamodel().entity(valueClass).getPluralAttributes().stream()
+                .map(Attribute::getJavaMember).toList();
+        Object configuredBatchSize = entityManagerFactory.getProperties().get("hibernate.jdbc.batch_size");
+        batchSize = configuredBatchSize == null ? JPA.DEFAULT_BATCH_SIZE
+                : Math.max(1, Integer.parseInt(configuredBatchSize.toString()));
+        FileConfiguration config = plugin.getConfig();
+        cache = EntityCache.fromConfig(config == null ? null : config.getConfigurationSection("repository.cache"),
+                valueClass.getSimpleName());
         log = plugin.getLogger();
     }
 
     @Override
     public List<V> findAll() {
-        var query = entityManager.createQuery("SELECT e FROM " + valueClass.getSimpleName() + " e", valueClass);
-        return query.getResultList();
+        return read(entityManager -> {
+            var query = entityManager.createQuery("SELECT e FROM " + valueClass.getSimpleName() + " e", valueClass);
+            return initialize(query.getResultList());
+        });
     }
 
     @Override
     public List<V> findAll(List<K> list) {
-        var query = entityManager.createQuery("SELECT e FROM " + valueClass.getSimpleName() + " e WHERE e.id IN :ids",
-                valueClass);
-        query.setParameter("ids", list);
-        return query.getResultList();
+        List<V> result = new ArrayList<>(list.size());
+        List<K> missing = new ArrayList<>();
+        for (K id : list) {
+            V cached = cache.get(id);
+            if (cached == null) {
+                missing.add(id);
+            } else {
+                result.add(cached);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        long generation = cache.generation();
+        List<V> loaded = read(entityManager -> {
+            List<V> entities = new ArrayList<>(missing.size());
+            for (List<K> batch : new BatchList<>(batchSize, missing).getBatches()) {
+                entities.addAll(load(entityManager, batch));
+            }
+            return initialize(entities);
+        });
+        for (V entity : loaded) {
+            cache.put(entity.getEntityId(), entity, generation);
+        }
+        result.addAll(loaded);
+        return result;
     }
 
     @Override
     public V findById(K id) {
-        return entityManager.find(valueClass, id);
+        V cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.generation();
+        V entity = read(entityManager -> initialize(entityManager.find(valueClass, id)));
+        cache.put(id, entity, generation);
+        return entity;
+    }
+
+    /**
+     * Translates the query into JPQL, so it is answered by the database
+     * indexes declared in the entity table. Field names are checked against
+     * the entity metamodel before being used in the statement.
+     */
+    @Override
+    public List<V> findBy(Query query) {
+        var entityType = entityManagerFactory.getMetamodel().entity(valueClass);
+        StringBuilder jpql = new StringBuilder("SELECT e FROM ").append(valueClass.getSimpleName()).append(" e");
+        List<Filter> filters = query.getFilters();
+        List<Object> parameters = new ArrayList<>();
+        for (int i = 0; i < filters.size(); i++) {
+            Filter filter = filters.get(i);
+            String field = "e." + entityType.getAttribute(filter.field()).getName();
+            jpql.append(i == 0 ? " WHERE " : " AND ");
+            switch (filter.operator()) {
+                case EQUAL -> {
+                    if (filter.value() == null) {
+                        jpql.append(field).append(" IS NULL");
+                    } else {
+                        jpql.append(field).append(" = ?").append(parameters.size() + 1);
+                        parameters.add(filter.value());
+                    }
+                }
+                case RANGE -> {
+                    jpql.append(field).append(" IS NOT NULL");
+                    if (filter.value() != null) {
+                        jpql.append(" AND ").append(field).append(" >= ?").append(parameters.size() + 1);
+                        parameters.add(filter.value());
+                    }
+                    if (filter.to() != null) {
+                        jpql.append(" AND ").append(field).append(" <= ?").append(parameters.size() + 1);
+                        parameters.add(filter.to());
+                    }
+                }
+                case PREFIX -> {
+                    jpql.append(field).append(" LIKE ?").append(parameters.size() + 1).append(" ESCAPE '\\'");
+                    parameters.add(escapeLike((String) filter.value()) + "%");
+                }
+            }
+        }
+        long generation = cache.generation();
+        List<V> result = read(entityManager -> {
+            var typedQuery = entityManager.createQuery(jpql.toString(), valueClass);
+            for (int i = 0; i < parameters.size(); i++) {
+                typedQuery.setParameter(i + 1, parameters.get(i));
+            }
+            if (query.getLimit() > 0) {
+                typedQuery.setMaxResults(query.getLimit());
+            }
+            return initialize(typedQuery.getResultList());
+        });
+        for (V entity : result) {
+            cache.put(entity.getEntityId(), entity, generation);
+        }
+        return result;
+    }
+
+    /**
+     * Seeks the cursor through the primary key index, fetching one value
+     * more than the page size to know whether there is a next page. Like
+     * {@link #findAll()}, pages bypass the cache, so a full scan does not
+     * evict the hot entities.
+     */
+    @Override
+    public Page<V> findPage(PageRequest request) {
+        K after = cursor(request);
+        String jpql = "SELECT e FROM " + valueClass.getSimpleName() + " e"
+                + (after == null ? "" : " WHERE e.id > :after") + " ORDER BY e.id";
+        List<V> values = read(entityManager -> {
+            var query = entityManager.createQuery(jpql, valueClass);
+            if (after != null) {
+                query.setParameter("after", after);
+            }
+            query.setMaxResults(request.getSize() + 1);
+            return initialize(query.getResultList());
+        });
+        return Repository.page(values, request.getSize());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     @Override
     public boolean existsById(K id) {
-        var query = entityManager
-                .createQuery("SELECT COUNT(e) FROM " + valueClass.getSimpleName() + " e WHERE e.id = :id", Long.class);
-        query.setParameter("id", id);
-        return query.getSingleResult() > 0;
+        if (cache.get(id) != null) {
+            return true;
+        }
+        return read(entityManager -> {
+            var query = entityManager.createQuery(
+                    "SELECT COUNT(e) FROM " + valueClass.getSimpleName() + " e WHERE e.id = :id", Long.class);
+            query.setParameter("id", id);
+            return query.getSingleResult() > 0;
+        });
     }
 
     @Override
     public SaveResult save(V data, boolean update) {
-        var transaction = entityManager.getTransaction();
         try {
-            transaction.begin();
-            if (update) {
-                entityManager.merge(data);
-            } else {
-                entityManager.persist(data);
-            }
-            transaction.commit();
+            return doSave(data, update);
+        } finally {
+            cache.invalidate(data.getEntityId());
+        }
+    }
+
+    private SaveResult doSave(V data, boolean update) {
+        try {
+            write(entityManager -> {
+                if (update) {
+                    entityManager.merge(data);
+                } else {
+                    entityManager.persist(data);
+                }
+                return null;
+            });
             return SaveResult.SUCCESS;
         } catch (PersistenceException e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
             return update ? SaveResult.FAIL : SaveResult.DUPLICATE;
         } catch (Exception e) {
             log.log(Level.SEVERE, "Error while trying to save an entity into the database",
@@ -82,33 +266,41 @@ public class JpaRepository<K, V extends StardustEntity<K>> implements Repository
 
     @Override
     public SaveResult saveAll(List<V> list, boolean update) {
-        var transaction = entityManager.getTransaction();
         try {
-            transaction.begin();
-            if (update) {
-                for (V data : list) {
-                    entityManager.merge(data);
-                }
-            } else {
-                List<K> ids = list.stream().map(V::getEntityId).toList();
-                var query = entityManager.createQuery(
-                        "SELECT e.id FROM " + valueClass.getSimpleName() + " e WHERE e.id IN :ids", keyClass);
-                query.setParameter("ids", ids);
-                List<K> existingIds = query.getResultList();
-                if (!existingIds.isEmpty()) {
-                    transaction.rollback();
-                    return SaveResult.DUPLICATE;
-                }
-                for (V data : list) {
-                    entityManager.persist(data);
+            return doSaveAll(list, update);
+        } finally {
+            cache.invalidateAll(list.stream().map(V::getEntityId).toList());
+        }
+    }
+
+    private SaveResult doSaveAll(List<V> list, boolean update) {
+        try {
+            return write(entityManager -> {
+                BatchList<V> batches = new BatchList<>(batchSize, list);
+                if (update) {
+                    for (List<V> batch : batches.getBatches()) {
+                        // loaded entities are found by merge in the persistence context,
+                        // avoiding one select per element
+                        load(entityManager, batch.stream().map(V::getEntityId).toList());
+                        batch.forEach(entityManager::merge);
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                } else {
+                    List<K> ids = list.stream().map(V::getEntityId).toList();
+                    if (!existingIds(entityManager, ids).isEmpty()) {
+                        entityManager.getTransaction().setRollbackOnly();
+                        return SaveResult.DUPLICATE;
+                    }
+                    for (List<V> batch : batches.getBatches()) {
+                        batch.forEach(entityManager::persist);
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
                 }
-            }
-            transaction.commit();
-            return SaveResult.SUCCESS;
+                return SaveResult.SUCCESS;
+            });
         } catch (PersistenceException e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
             return update ? SaveResult.FAIL : SaveResult.DUPLICATE;
         } catch (Exception e) {
             log.log(Level.SEVERE, "Error while trying to save a list of entities into the database",
@@ -119,46 +311,144 @@ public class JpaRepository<K, V extends StardustEntity<K>> implements Repository
 
     @Override
     public boolean delete(K id) {
-        var transaction = entityManager.getTransaction();
         try {
-            transaction.begin();
-            V entity = entityManager.find(valueClass, id);
-            if (entity != null) {
-                entityManager.remove(entity);
-            }
-            transaction.commit();
+            write(entityManager -> remove(entityManager, List.of(id)));
             return true;
         } catch (Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
             log.log(Level.SEVERE, "Error while trying to delete an entity from the database",
                     Throwables.send(getId(), e));
             return false;
+        } finally {
+            cache.invalidate(id);
         }
     }
 
     @Override
     public boolean deleteAll(List<K> list) {
-        var transaction = entityManager.getTransaction();
         try {
-            transaction.begin();
-            for (K id : list) {
-                V entity = entityManager.find(valueClass, id);
-                if (entity != null) {
-                    entityManager.remove(entity);
-                }
-            }
-            transaction.commit();
+            write(entityManager -> remove(entityManager, list));
             return true;
         } catch (Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
             log.log(Level.SEVERE, "Error while trying to delete a list of entities from the database",
                     Throwables.send(getId(), e));
             return false;
+        } finally {
+            cache.invalidateAll(list);
+        }
+    }
+
+    private List<K> existingIds(EntityManager entityManager, List<K> ids) {
+        List<K> existing = new ArrayList<>();
+        for (List<K> batch : new BatchList<>(batchSize, ids).getBatches()) {
+            var query = entityManager.createQuery(
+                    "SELECT e.id FROM " + valueClass.getSimpleName() + " e WHERE e.id IN :ids", keyClass);
+            query.setParameter("ids", batch);
+            existing.addAll(query.getResultList());
+        }
+        return existing;
+    }
+
+    private List<V> load(EntityManager entityManager, List<K> ids) {
+        var query = entityManager.createQuery(
+                "SELECT e FROM " + valueClass.getSimpleName() + " e WHERE e.id IN :ids", valueClass);
+        query.setParameter("ids", ids);
+        return query.getResultList();
+    }
+
+    private Void remove(EntityManager entityManager, List<K> ids) {
+        for (List<K> batch : new BatchList<>(batchSize, ids).getBatches()) {
+            if (lazyMembers.isEmpty()) {
+                entityManager.createQuery("DELETE FROM " + valueClass.getSimpleName() + " e WHERE e.id IN :ids")
+                        .setParameter("ids", batch)
+                        .executeUpdate();
+            } else {
+                // bulk deletes do not cascade to associations, so those entities
+                // are loaded in a single query and removed one by one
+                load(entityManager, batch).forEach(entityManager::remove);
+                entityManager.flush();
+                entityManager.clear();
+            }
         }
+        return null;
+    }
+
+    /**
+     * Runs a read-only unit of work in a new {@link EntityManager}, which
+     * is closed when the work is done. Entities loaded inside are not
+     * tracked for changes.
+     *
+     * @param <R>  the result type
+     * @param work the work to run
+     * @return the result of the work
+     */
+    protected <R> R read(Function<EntityManager, R> work) {
+        try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+            entityManager.unwrap(Session.class).setDefaultReadOnly(true);
+            return work.apply(entityManager);
+        }
+    }
+
+    /**
+     * Runs a unit of work inside a transaction of a new {@link EntityManager},
+     * which is closed when the work is done. The transaction is committed
+     * unless the work throws an exception or marks it as rollback only.
+     *
+     * @param <R>  the result type
+     * @param work the work to run
+     * @return the result of the work
+     * @throws RuntimeException the exception thrown by the work or by the
+     *                          commit, after rolling back
+     */
+    protected <R> R write(Function<EntityManager, R> work) {
+        try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+            var transaction = entityManager.getTransaction();
+            try {
+                transaction.begin();
+                R result = work.apply(entityManager);
+                if (transaction.getRollbackOnly()) {
+                    transaction.rollback();
+                } else {
+                    transaction.commit();
+                }
+                return result;
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private List<V> initialize(List<V> entities) {
+        if (!lazyMembers.isEmpty()) {
+            entities.forEach(this::initialize);
+        }
+        return entities;
+    }
+
+    private V initialize(V entity) {
+        if (entity == null) {
+            return null;
+        }
+        for (Member member : lazyMembers) {
+            try {
+                Object value;
+                if (member instanceof Field field) {
+                    field.trySetAccessible();
+                    value = field.get(entity);
+                } else {
+                    Method method = (Method) member;
+                    method.trySetAccessible();
+                    value = method.invoke(entity);
+                }
+                Hibernate.initialize(value);
+            } catch (ReflectiveOperationException e) {
+                throw new PersistenceException("Could not initialize " + member.getName() + " of "
+                        + valueClass.getName(), e);
+            }
+        }
+        return entity;
     }
 
     @Override
@@ -171,9 +461,15 @@ public class JpaRepository<K, V extends StardustEntity<K>> implements Repository
         return valueClass;
     }
 
+    /**
+     * Logs the statistics of the cache and clears it. There is no entity
+     * manager kept between requests, and the {@link EntityManagerFactory}
+     * belongs to the plugin and is closed by it.
+     */
     @Override
     public void close() {
-        entityManager.close();
+        log.info("Cache of " + valueClass.getSimpleName() + ": " + cache.getStats());
+        cache.clear();
     }
 
     @Override
@@ -181,8 +477,12 @@ public class JpaRepository<K, V extends StardustEntity<K>> implements Repository
         return id;
     }
 
-    public EntityManager getEntityManager() {
-        return entityManager;
+    public EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
     }
-    
+
+    public EntityCache<K, V> getCache() {
+        return cache;
+    }
+
 }
@@ -0,0 +1,284 @@
+package net.stardust.base.database.repositories;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ranking of ids by a score, highest first, kept in an order-statistic
+ * treap: every node knows the size of its subtree, so updating a score,
+ * finding the rank of an id and finding the id at a rank all take
+ * O(log N) expected time, no matter how many ids are ranked. Ties are
+ * broken by the natural order of the ids, so ranks are stable.
+ *
+ * <p>
+ * Ranks start at 1. This class is thread-safe: queries run concurrently
+ * with each other and updates are exclusive.
+ * </p>
+ *
+ * @author Sergio Luis
+ */
+public class Leaderboard {
+
+    private Node root;
+    private Map<UUID, Node> nodes;
+    private ReentrantReadWriteLock lock;
+
+    public Leaderboard() {
+        nodes = new HashMap<>();
+        lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Sets the score of the id, adding it to the ranking if needed.
+     *
+     * @param id    the id
+     * @param score the score
+     * @throws NullPointerException if id or score is null
+     */
+    public void update(UUID id, BigInteger score) {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(score, "score");
+        lock.writeLock().lock();
+        try {
+            Node node = nodes.get(id);
+            if (node != null) {
+                if (node.score.equals(score)) {
+                    return;
+                }
+                root = remove(root, node);
+            }
+            node = new Node(id, score);
+            nodes.put(id, node);
+            root = insert(root, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the id from the ranking, if present.
+     *
+     * @param id the id
+     */
+    public void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            Node node = nodes.remove(id);
+            if (node != null) {
+                root = remove(root, node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the rank of the id, or 0 if it is not ranked.
+     *
+     * @param id the id
+     * @return the rank, starting at 1, or 0
+     */
+    public int rankOf(UUID id) {
+        lock.readLock().lock();
+        try {
+            Node node = nodes.get(id);
+            return node == null ? 0 : rank(node);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the rank and score of the id, or null if it is not ranked.
+     *
+     * @param id the id
+     * @return the entry of the id or null
+     */
+    public Entry entryOf(UUID id) {
+        lock.readLock().lock();
+        try {
+            Node node = nodes.get(id);
+            return node == null ? null : new Entry(rank(node), node.id, node.score);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ranked ids from the given rank on, in rank order.
+     *
+     * @param from  the first rank, starting at 1
+     * @param count the maximum amount of ids
+     * @return the ids, empty if there is no id at the first rank
+     */
+    public List<Entry> range(int from, int count) {
+        lock.readLock().lock();
+        try {
+            List<Entry> entries = new ArrayList<>(Math.max(0, Math.min(count, size(root) - from + 1)));
+            collect(root, from, from + count - 1, 1, entries);
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the nodes ranked before the target on the path from the root.
+     */
+    private int rank(Node target) {
+        int before = 0;
+        Node node = root;
+        while (node != target) {
+            if (compare(target, node) < 0) {
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return before + size(node.left) + 1;
+    }
+
+    /**
+     * Appends the entries of the subtree whose ranks are in [from, to],
+     * visiting only the subtrees that overlap the range.
+     */
+    private void collect(Node node, int from, int to, int offset, List<Entry> entries) {
+        if (node == null || from > to) {
+            return;
+        }
+        int rank = offset + size(node.left);
+        if (from < rank) {
+            collect(node.left, from, to, offset, entries);
+        }
+        if (from <= rank && rank <= to) {
+            entries.add(new Entry(rank, node.id, node.score));
+        }
+        if (to > rank) {
+            collect(node.right, from, to, rank + 1, entries);
+        }
+    }
+
+    private static Node insert(Node root, Node node) {
+        if (root == null) {
+            return node;
+        }
+        if (node.priority > root.priority) {
+            Node[] split = split(root, node);
+            node.left = split[0];
+            node.right = split[1];
+            return update(node);
+        }
+        if (compare(node, root) < 0) {
+            root.left = insert(root.left, node);
+        } else {
+            root.right = insert(root.right, node);
+        }
+        return update(root);
+    }
+
+    private static Node remove(Node root, Node node) {
+        if (root == node) {
+            return merge(root.left, root.right);
+        }
+        if (compare(node, root) < 0) {
+            root.left = remove(root.left, node);
+        } else {
+            root.right = remove(root.right, node);
+        }
+        return update(root);
+    }
+
+    /**
+     * Splits the tree into the nodes ranked before the pivot and the
+     * nodes ranked after it.
+     */
+    private static Node[] split(Node root, Node pivot) {
+        if (root == null) {
+            return new Node[2];
+        }
+        if (compare(root, pivot) < 0) {
+            Node[] split = split(root.right, pivot);
+            root.right = split[0];
+            split[0] = update(root);
+            return split;
+        }
+        Node[] split = split(root.left, pivot);
+        root.left = split[1];
+        split[1] = update(root);
+        return split;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static Node update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int compare(Node a, Node b) {
+        int byScore = b.score.compareTo(a.score);
+        return byScore != 0 ? byScore : a.id.compareTo(b.id);
+    }
+
+    /**
+     * An id at a rank of the leaderboard.
+     *
+     * @param rank  the rank, starting at 1
+     * @param id    the id
+     * @param score the score
+     */
+    public record Entry(int rank, UUID id, BigInteger score) {
+    }
+
+    private static class Node {
+
+        private UUID id;
+        private BigInteger score;
+        private int priority;
+        private int size;
+        private Node left, right;
+
+        Node(UUID id, BigInteger score) {
+            this.id = id;
+            this.score = score;
+            priority = ThreadLocalRandom.current().nextInt();
+            size = 1;
+        }
+
+    }
+
+}
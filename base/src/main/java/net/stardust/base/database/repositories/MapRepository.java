@@ -1,18 +1,55 @@
 package net.stardust.base.database.repositories;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.stardust.base.BasePlugin;
 import net.stardust.base.Communicable;
+import net.stardust.base.database.Indexed;
+import net.stardust.base.database.Page;
+import net.stardust.base.database.PageRequest;
+import net.stardust.base.database.Query;
+import net.stardust.base.database.Query.Filter;
+import net.stardust.base.database.Query.Operator;
 import net.stardust.base.database.Repository;
 import net.stardust.base.model.StardustEntity;
 import net.stardust.base.utils.Throwables;
 
+/**
+ * {@link Repository} kept entirely in memory, in a {@link ConcurrentHashMap},
+ * and persisted by subclasses. Reads never take a lock: they see every
+ * write completed before them and never wait for writers or flushes.
+ *
+ * <p>
+ * Writes lock only the stripes of the keys they touch, so writes to
+ * different keys proceed in parallel while writes to the same key, and the
+ * duplicate checks before them, stay atomic. Multi-key writes lock their
+ * stripes in ascending order, which rules out deadlocks. Writers also hold
+ * the read side of a snapshot lock, whose write side is taken by
+ * {@link #snapshot()} only while copying the map, so snapshots are
+ * point-in-time and never contain half of a saveAll or deleteAll.
+ * </p>
+ *
+ * @see FileRepository
+ *
+ * @author Sergio Luis
+ */
 public abstract class MapRepository<K, V extends StardustEntity<K>> implements Repository<K, V>, Communicable {
 
     protected Logger log;
@@ -23,6 +60,11 @@ public abstract class MapRepository<K, V extends StardustEntity<K>> implements R
     private Class<V> valueClass;
     private String id;
     private Map<K, V> cache;
+    private Map<String, FieldIndex<K>> indexes;
+    private NavigableSet<K> keys;
+    private Lock[] stripes;
+    private ReentrantReadWriteLock snapshotLock;
+    private Lock flushLock;
 
     public MapRepository(BasePlugin plugin, Class<K> keyClass, Class<V> valueClass) {
         this.plugin = plugin;
@@ -33,100 +75,268 @@ public abstract class MapRepository<K, V extends StardustEntity<K>> implements R
         flusher = plugin.getVirtual();
         id = plugin.getId() + "/" + valueClass.getSimpleName();
 
-        cache = initializeElements();
+        cache = new ConcurrentHashMap<>(initializeElements());
+        indexes = new HashMap<>();
+        for (Class<?> type = valueClass; type != null; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Indexed.class)) {
+                    indexes.put(field.getName(), new FieldIndex<>(Query.field(valueClass, field.getName())));
+                }
+            }
+        }
+        keys = new ConcurrentSkipListSet<>(Repository.keyOrder(keyClass));
+        cache.forEach(this::index);
+
+        stripes = new Lock[stripeCount()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        snapshotLock = new ReentrantReadWriteLock();
+        flushLock = new ReentrantLock();
     }
     
     protected abstract void doFlush(Map<K, V> elements);
 
     protected abstract Map<K, V> initializeElements();
 
+    /**
+     * Called after values were saved into or deleted from the cache, while
+     * still holding the locks of their keys, so implementations see the
+     * changes of each key in the same order they were applied. Changes of
+     * different keys may be reported concurrently. The default
+     * implementation flushes the entire cache; implementations that can
+     * persist only the changed entries should override this.
+     *
+     * @param saved   the values that were saved
+     * @param deleted the keys of the values that were deleted
+     */
+    protected void changed(List<V> saved, List<K> deleted) {
+        flush();
+    }
+
     @Override
     public List<V> findAll() {
-        synchronized (cache) {
-            return new ArrayList<>(cache.values());
-        }
+        return new ArrayList<>(cache.values());
     }
 
     @Override
     public List<V> findAll(List<K> list) {
-        synchronized (cache) {
-            List<V> resultList = new ArrayList<>(list.size());
-            list.forEach(key -> resultList.add(cache.get(key)));
-            return resultList;
-        }
+        List<V> resultList = new ArrayList<>(list.size());
+        list.forEach(key -> resultList.add(cache.get(key)));
+        return resultList;
     }
 
     @Override
     public V findById(K id) {
-        synchronized (cache) {
-            return cache.get(id);
+        return cache.get(id);
+    }
+
+    /**
+     * Indexes are read without locks too, so a key selected by an index may
+     * have been deleted or changed meanwhile; every candidate is checked
+     * against the query again.
+     */
+    @Override
+    public List<V> findBy(Query query) {
+        Collection<V> candidates = null;
+        Set<K> keys = indexed(query);
+        if (keys == null) {
+            candidates = cache.values();
+        } else {
+            candidates = new ArrayList<>(keys.size());
+            for (K key : keys) {
+                V value = cache.get(key);
+                if (value != null) {
+                    candidates.add(value);
+                }
+            }
+        }
+        List<V> result = new ArrayList<>();
+        for (V value : candidates) {
+            if (query.matches(value)) {
+                result.add(value);
+                if (result.size() == query.getLimit()) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the keys selected by the index of a filter of the query,
+     * preferring equality filters, or null if no filter can be served by
+     * an index.
+     */
+    private Set<K> indexed(Query query) {
+        List<Filter> filters = query.getFilters().stream()
+                .sorted(Comparator.comparing(filter -> filter.operator() != Operator.EQUAL))
+                .toList();
+        for (Filter filter : filters) {
+            FieldIndex<K> index = indexes.get(filter.field());
+            if (index != null) {
+                Set<K> keys = index.find(filter);
+                if (keys != null) {
+                    return keys;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Walks the keys in order from the cursor, so a page costs the same
+     * wherever it is.
+     */
+    @Override
+    public Page<V> findPage(PageRequest request) {
+        K after = cursor(request);
+        Iterator<K> iterator = (after == null ? keys : keys.tailSet(after, false)).iterator();
+        List<V> values = new ArrayList<>(request.getSize() + 1);
+        while (iterator.hasNext() && values.size() <= request.getSize()) {
+            V value = cache.get(iterator.next());
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return Repository.page(values, request.getSize());
+    }
+
+    private void index(K key, V value) {
+        keys.add(key);
+        for (FieldIndex<K> index : indexes.values()) {
+            index.add(key, value);
+        }
+    }
+
+    private void unindex(K key) {
+        keys.remove(key);
+        for (FieldIndex<K> index : indexes.values()) {
+            index.remove(key);
         }
     }
 
     @Override
     public boolean existsById(K id) {
-        synchronized (cache) {
-            return cache.containsKey(id);
+        return cache.containsKey(id);
+    }
+
+    /**
+     * Returns the amount of lock stripes of the writes. Must be a power of
+     * two; the default is enough to make collisions between concurrent
+     * writers rare.
+     *
+     * @return the amount of stripes
+     */
+    protected int stripeCount() {
+        return 64;
+    }
+
+    /**
+     * Locks the stripes of the keys, in ascending order, and the read side
+     * of the snapshot lock.
+     *
+     * @param keys the keys to be written
+     * @return the locked stripes, in the order they must be passed to
+     *         {@link #unlock(int[])}
+     */
+    private int[] lock(Collection<K> keys) {
+        int[] locked = keys.stream()
+                .mapToInt(key -> (key.hashCode() ^ (key.hashCode() >>> 16)) & (stripes.length - 1))
+                .sorted()
+                .distinct()
+                .toArray();
+        snapshotLock.readLock().lock();
+        int acquired = 0;
+        try {
+            for (; acquired < locked.length; acquired++) {
+                stripes[locked[acquired]].lock();
+            }
+        } catch (RuntimeException | Error e) {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[locked[i]].unlock();
+            }
+            snapshotLock.readLock().unlock();
+            throw e;
         }
+        return locked;
+    }
+
+    private void unlock(int[] locked) {
+        for (int i = locked.length - 1; i >= 0; i--) {
+            stripes[locked[i]].unlock();
+        }
+        snapshotLock.readLock().unlock();
     }
 
     @Override
     public SaveResult save(V data, boolean update) {
         K key = data.getEntityId();
-        if (update || !existsById(key)) {
+        try {
+            int[] locked = lock(List.of(key));
             try {
-                synchronized (cache) {
-                    cache.put(key, data);
+                if (!update && cache.containsKey(key)) {
+                    return SaveResult.DUPLICATE;
                 }
-            } catch (Exception e) {
-                log.log(Level.SEVERE,
-                        "Could not save an element into database. Repository class: %s. Key class: %s. Value class: %s"
-                                .formatted(getClass().getName(), keyClass.getName(), valueClass.getName()),
-                        e);
-                Throwables.send(getId(), e);
-                return SaveResult.FAIL;
+                cache.put(key, data);
+                index(key, data);
+                changed(List.of(data), List.of());
+            } finally {
+                unlock(locked);
             }
-        } else {
-            return SaveResult.DUPLICATE;
+        } catch (Exception e) {
+            log.log(Level.SEVERE,
+                    "Could not save an element into database. Repository class: %s. Key class: %s. Value class: %s"
+                            .formatted(getClass().getName(), keyClass.getName(), valueClass.getName()),
+                    e);
+            Throwables.send(getId(), e);
+            return SaveResult.FAIL;
         }
-        flush();
         return SaveResult.SUCCESS;
     }
 
     @Override
     public SaveResult saveAll(List<V> list, boolean update) {
-        List<K> keys = list.stream().map(V::getEntityId).toList();
-        int size = keys.size();
-        for (int i = 0; i < size; i++) {
-            K key = keys.get(i);
-            if (update || !existsById(key)) {
-                try {
-                    synchronized (cache) {
-                        cache.put(key, list.get(i));
+        try {
+            int[] locked = lock(list.stream().map(V::getEntityId).toList());
+            try {
+                if (!update) {
+                    for (V data : list) {
+                        if (cache.containsKey(data.getEntityId())) {
+                            return SaveResult.DUPLICATE;
+                        }
                     }
-                } catch (Exception e) {
-                    log.log(Level.SEVERE,
-                            "could not save list of elements into database. Repository class: %s. Key class: %s. Value class: %s"
-                                    .formatted(getClass().getName(), keyClass.getName(), valueClass.getName()),
-                            e);
-                    Throwables.send(getId(), e);
-                    return SaveResult.FAIL;
                 }
-            } else {
-                return SaveResult.DUPLICATE;
+                for (V data : list) {
+                    cache.put(data.getEntityId(), data);
+                    index(data.getEntityId(), data);
+                }
+                changed(list, List.of());
+            } finally {
+                unlock(locked);
             }
+        } catch (Exception e) {
+            log.log(Level.SEVERE,
+                    "could not save list of elements into database. Repository class: %s. Key class: %s. Value class: %s"
+                            .formatted(getClass().getName(), keyClass.getName(), valueClass.getName()),
+                    e);
+            Throwables.send(getId(), e);
+            return SaveResult.FAIL;
         }
-        flush();
         return SaveResult.SUCCESS;
     }
 
     @Override
     public boolean delete(K id) {
         try {
-            synchronized (cache) {
+            int[] locked = lock(List.of(id));
+            try {
                 cache.remove(id);
+                unindex(id);
+                changed(List.of(), List.of(id));
+            } finally {
+                unlock(locked);
             }
-            flush();
             return true;
         } catch (Exception e) {
             log.log(Level.SEVERE,
@@ -141,10 +351,16 @@ public abstract class MapRepository<K, V extends StardustEntity<K>> implements R
     @Override
     public boolean deleteAll(List<K> list) {
         try {
-            synchronized (cache) {
-                list.forEach(this.cache::remove);
+            int[] locked = lock(list);
+            try {
+                for (K key : list) {
+                    cache.remove(key);
+                    unindex(key);
+                }
+                changed(List.of(), list);
+            } finally {
+                unlock(locked);
             }
-            flush();
             return true;
         } catch (Exception e) {
             Throwables.send(getId(), e);
@@ -172,8 +388,35 @@ public abstract class MapRepository<K, V extends StardustEntity<K>> implements R
         return id;
     }
 
+    /**
+     * Asynchronously passes a snapshot to {@link #doFlush(Map)}. Flushes
+     * never overlap, and each one takes its snapshot only when it starts,
+     * so an older snapshot is never written over a newer one.
+     */
     public void flush() {
-        flusher.submit(() -> doFlush(cache));
+        flusher.submit(() -> {
+            flushLock.lock();
+            try {
+                doFlush(snapshot());
+            } finally {
+                flushLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Returns a point-in-time copy of the cache. Writers are held back
+     * while the map is copied, but readers are not.
+     *
+     * @return a copy of the cache
+     */
+    protected Map<K, V> snapshot() {
+        snapshotLock.writeLock().lock();
+        try {
+            return new HashMap<>(cache);
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
     }
 
     public BasePlugin getPlugin() {
@@ -0,0 +1,294 @@
+package net.stardust.base.database.repositories;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import net.stardust.base.model.StardustEntity;
+import net.stardust.base.utils.codec.BinaryCodec;
+
+/**
+ * Segmented append-only log of changes made to a {@link MapRepository}.
+ * Instead of rewriting the whole map on every write, only the saved values
+ * and the deleted keys are appended to the current segment. When a segment
+ * grows beyond the configured size a new one is opened. A full snapshot of
+ * the map plus the segments written after it are enough to rebuild the
+ * repository state through {@link #replay(Map)}.
+ *
+ * <p>
+ * Every record has the layout
+ * </p>
+ *
+ * <pre>
+ * int    payload length
+ * int    CRC32 of type + payload
+ * byte   type (SAVE or DELETE)
+ * byte[] payload (the serialized value or key)
+ * </pre>
+ *
+ * <p>
+ * Records are idempotent overwrites, so replaying a segment on top of a
+ * snapshot taken after that segment was written still results in the latest
+ * state. That is what allows snapshots to be taken while new changes keep
+ * being appended. A torn record (for example after a crash) fails its
+ * checksum, and the segment is truncated before it during the replay.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe: {@link #append(byte[])}, {@link #roll()}
+ * and {@link #deleteBefore(int)} should be called by a single writer thread.
+ * {@link #encode(List, List)} has no state and can be called from any thread.
+ * </p>
+ *
+ * @see FileRepository
+ *
+ * @author Sergio Luis
+ */
+public class RepositoryLog<K, V extends StardustEntity<K>> implements Closeable {
+
+    public static final byte SAVE = 1;
+    public static final byte DELETE = 2;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + 1;
+    private static final String EXTENSION = ".log";
+
+    private File directory;
+    private String baseName;
+    private long segmentSize;
+    private int segment;
+    private FileChannel channel;
+    private long bytesSinceCheckpoint;
+
+    /**
+     * Creates a log whose segments are files named
+     * {@code <baseName>-<index>.log} inside the given directory.
+     * No segment is opened until {@link #roll()} or {@link #append(byte[])}
+     * is called.
+     *
+     * @param directory   the directory of the segments
+     * @param baseName    the prefix of the segment file names
+     * @param segmentSize the size in bytes after which a new segment is opened
+     * @throws NullPointerException     if directory or baseName is null
+     * @throws IllegalArgumentException if segmentSize is not positive
+     */
+    public RepositoryLog(File directory, String baseName, long segmentSize) {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.baseName = Objects.requireNonNull(baseName, "baseName");
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be greater than zero");
+        }
+        this.segmentSize = segmentSize;
+        int[] segments = segments();
+        segment = segments.length == 0 ? 0 : segments[segments.length - 1];
+    }
+
+    /**
+     * Serializes the given changes into a block of records ready to be
+     * passed to {@link #append(byte[])}. Saved values come before the
+     * deleted keys.
+     *
+     * @param saved   the saved values
+     * @param deleted the keys of the deleted values
+     * @return the encoded records
+     * @throws IOException if an element could not be serialized
+     */
+    public byte[] encode(List<V> saved, List<K> deleted) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (V value : saved) {
+            writeRecord(out, SAVE, BinaryCodec.encode(value));
+        }
+        for (K key : deleted) {
+            writeRecord(out, DELETE, BinaryCodec.encode(key));
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private void writeRecord(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.writeByte(type);
+        out.write(payload);
+    }
+
+    /**
+     * Appends a block created by {@link #encode(List, List)} to the current
+     * segment, opening a new one first if the current is full.
+     *
+     * @param block the encoded records
+     * @throws IOException if the block could not be written
+     */
+    public void append(byte[] block) throws IOException {
+        if (channel == null || channel.size() >= segmentSize) {
+            roll();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        bytesSinceCheckpoint += block.length;
+    }
+
+    /**
+     * Closes the current segment and opens the next one. Every change
+     * appended after this call goes to a segment with an index greater
+     * than or equal to the returned one.
+     *
+     * @return the index of the new segment
+     * @throws IOException if the segment could not be opened
+     */
+    public int roll() throws IOException {
+        closeChannel();
+        segment++;
+        channel = FileChannel.open(segmentFile(segment).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return segment;
+    }
+
+    /**
+     * Deletes every segment with index lower than the given one. Should
+     * only be called after a snapshot containing those changes was safely
+     * written. Resets {@link #getBytesSinceCheckpoint()}.
+     *
+     * @param first the first segment to keep
+     * @throws IOException if a segment could not be deleted
+     */
+    public void deleteBefore(int first) throws IOException {
+        for (int index : segments()) {
+            if (index < first) {
+                Files.deleteIfExists(segmentFile(index).toPath());
+            }
+        }
+        bytesSinceCheckpoint = channel == null ? 0 : channel.size();
+    }
+
+    /**
+     * Applies every record of every segment, in order, to the given map.
+     * A segment is read up to its first record that is incomplete or fails
+     * its checksum, and is then truncated there, so the torn tail left by a
+     * crash never sits in front of the records appended after the restart.
+     * The segments after it are still replayed. Must be called before
+     * anything is appended.
+     *
+     * @param target the map to apply the changes to
+     * @return the amount of applied records
+     * @throws IOException if a segment could not be read or truncated, or a
+     *                     record could not be decoded
+     */
+    public int replay(Map<K, V> target) throws IOException {
+        int applied = 0;
+        for (int index : segments()) {
+            File file = segmentFile(index);
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            applied += replay(buffer, target);
+            int end = buffer.position();
+            if (end < buffer.limit()) {
+                try (FileChannel torn = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                    torn.truncate(end);
+                }
+            }
+            bytesSinceCheckpoint += end;
+        }
+        return applied;
+    }
+
+    /**
+     * Applies the records of a segment, leaving the buffer positioned
+     * after the last valid one.
+     */
+    @SuppressWarnings("unchecked")
+    private int replay(ByteBuffer buffer, Map<K, V> target) throws IOException {
+        int applied = 0;
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            byte type = buffer.get();
+            if (length < 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                return applied;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(type);
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum || type != SAVE && type != DELETE) {
+                buffer.position(start);
+                return applied;
+            }
+            Object element = BinaryCodec.decode(payload);
+            if (type == SAVE) {
+                V value = (V) element;
+                target.put(value.getEntityId(), value);
+            } else {
+                target.remove((K) element);
+            }
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * Returns the amount of bytes written to the segments since the
+     * last call of {@link #deleteBefore(int)}, including the ones found
+     * during {@link #replay(Map)}.
+     *
+     * @return the log size since the last checkpoint
+     */
+    public long getBytesSinceCheckpoint() {
+        return bytesSinceCheckpoint;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeChannel();
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private int[] segments() {
+        String[] names = directory.list((dir, name) -> name.startsWith(baseName + "-") && name.endsWith(EXTENSION));
+        if (names == null) {
+            return new int[0];
+        }
+        List<Integer> indexes = new ArrayList<>(names.length);
+        for (String name : names) {
+            try {
+                indexes.add(Integer.parseInt(name.substring(baseName.length() + 1, name.length() - EXTENSION.length())));
+            } catch (NumberFormatException e) {
+                // not a segment of this log
+            }
+        }
+        int[] result = indexes.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    private File segmentFile(int index) {
+        return new File(directory, "%s-%08d%s".formatted(baseName, index, EXTENSION));
+    }
+
+}
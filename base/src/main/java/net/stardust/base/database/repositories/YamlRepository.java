@@ -24,17 +24,26 @@ public class YamlRepository<K, V extends StardustEntity<K>> extends FileReposito
 	}
 
 	@Override
-	protected void flushToFile(Map<K, V> elements, File file) {
-		synchronized (elements) {
-			try {
-				mapper.writeValue(file, elements);
-			} catch (IOException e) {
-				log.log(Level.SEVERE, "Could not save elements into file \"" + file.getAbsolutePath() + "\"", e);
-				Throwables.send(getId(), e);
-			}
+	protected boolean flushToFile(Map<K, V> elements, File file) {
+		try {
+			mapper.writeValue(file, elements);
+			return true;
+		} catch (IOException e) {
+			log.log(Level.SEVERE, "Could not save elements into file \"" + file.getAbsolutePath() + "\"", e);
+			Throwables.send(getId(), e);
+			return false;
 		}
 	}
 
+	/**
+	 * The yaml file is meant to be readable and editable, so it is
+	 * always rewritten entirely instead of being followed by a binary log.
+	 */
+	@Override
+	protected boolean isLogging() {
+		return false;
+	}
+
 	@Override
 	protected String fileName() {
 		return getValueClass().getSimpleName() + ".yml";
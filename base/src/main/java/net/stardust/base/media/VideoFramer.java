@@ -5,46 +5,69 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.bytedeco.javacv.FFmpegFrameGrabber;
 import org.bytedeco.javacv.Frame;
 import org.bytedeco.javacv.FrameGrabber;
 import org.bytedeco.javacv.Java2DFrameConverter;
 
+import net.stardust.base.utils.ranges.Ranges;
+
 /**
  * <p>
  * Class that represents everything that can process frames of
  * a video and put them in a queue for use.
  * </p>
- * 
+ *
  * <p>
  * This class has a queue of a generic type <T> representing the video frames.
  * Those frames are not continuous, they are separated by 50 ms of timestamp,
  * which is 1 tick in Minecraft. Because of that, the video is made to be
  * reproduced synchronously with Bukkit Main thread.
  * </p>
- * 
+ *
+ * <p>
+ * The queue is bounded by the capacity given on construction, so the
+ * memory held by a video is fixed no matter how far decoding is ahead of
+ * playback: adding a frame to a full queue waits until a frame is polled.
+ * Frames can be processed one by one with {@link #processNextFrame()}, or
+ * by a pipeline started with {@link #startPipeline(ExecutorService, int)},
+ * in which a thread decodes frames into a preallocated ring of buffers,
+ * several frames are converted in parallel and a last stage puts them in
+ * the queue in order, through {@link #sequenceFrame(Object)}.
+ * </p>
+ *
  * <p>
  * This class is thread-safe, so you can poll frames from the queue in
  * a thread and process the next frame in another if you want.
  * </p>
- * 
+ *
  * <p>
  * Closing an instance closes the {@link InputStream} passed as parameter during
  * construction, the internal {@link FFmpegFrameGrabber} and the internal
  * {@link Java2DFrameConverter}, but do not clears the queue, so any frame
  * inside it before the close call will still be there for use.
  * </p>
- * 
+ *
  * @see InputStream
  * @see FFmpegFrameGrabber
  * @see Java2DFrameConverter
- * 
+ *
  * @author Sergio Luis
  */
 public abstract class VideoFramer<T> implements AutoCloseable {
@@ -54,47 +77,70 @@ public abstract class VideoFramer<T> implements AutoCloseable {
      */
     public static final long MINECRAFT_TICK_MICROS = 50000;
 
+    /**
+     * The default capacity of the queue, 5 seconds of video.
+     */
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private static final Future<?> END = CompletableFuture.completedFuture(null);
+    private static final long WAIT_MILLIS = 50;
+
     private final InputStream stream;
     private volatile long timestamp;
-    private volatile boolean started, closed;
-    private Queue<T> frames;
+    private volatile boolean started, closing, closed, pipelined;
+    private BlockingQueue<T> frames;
     private FFmpegFrameGrabber grabber;
     private Java2DFrameConverter converter;
 
     /**
      * Creates a new MapVideo instance from an {@link InputStream}. This method
      * do not wraps the {@link InputStream} in a {@link BufferedInputStream},
-     * so if you want, you need to pass the buffered one as parameter.
-     * 
+     * so if you want, you need to pass the buffered one as parameter. The
+     * queue has {@link #DEFAULT_CAPACITY}.
+     *
      * @see InputStream
      * @see BufferedInputStream
      * @param stream the stream to read the video data
      * @throws NullPointerException if stream is null
      */
     public VideoFramer(InputStream stream) {
+        this(stream, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new {@link VideoFramer} instance from an {@link InputStream}
+     * with a queue of the given capacity.
+     *
+     * @see #VideoFramer(InputStream)
+     * @param stream   the stream to read the video data
+     * @param capacity the maximum amount of frames in the queue
+     * @throws NullPointerException     if stream is null
+     * @throws IllegalArgumentException if capacity is 0 or negative
+     */
+    public VideoFramer(InputStream stream, int capacity) {
         this.stream = Objects.requireNonNull(stream, "stream");
 
         grabber = new FFmpegFrameGrabber(stream);
         converter = new Java2DFrameConverter();
-        frames = new LinkedList<>();
+        frames = new ArrayBlockingQueue<>(Ranges.greater(capacity, 0, "capacity"));
     }
 
     /**
      * Creates a new {@link VideoFramer} instance from a {@link File} reading
      * its data and creating an {@link InputStream} from it.
-     * 
+     *
      * @implNote This constructor just calls
      *           {@link VideoFramer#VideoFramer(InputStream)}
      *           passing
-     * 
+     *
      *           <pre>
      *           <code>
      *           new BufferedInputStream(new FileInputStream(Objects.requireNonNull(file, "file")))
      *           </code>
      *           </pre>
-     * 
+     *
      *           to it.
-     * 
+     *
      * @see VideoFramer#VideoFramer(InputStream)
      * @param file the file from where read video data
      * @throws NullPointerException  if file is null
@@ -110,7 +156,7 @@ public abstract class VideoFramer<T> implements AutoCloseable {
      * Starts the internal {@link FFmpegFrameGrabber}. Frames cannot
      * be read before this method have been called. Calling it after
      * being called once has no effect.
-     * 
+     *
      * @see #hasStarted()
      * @throws FFmpegFrameGrabber.Exception if an exception occurs during
      *                                      start process.
@@ -124,7 +170,7 @@ public abstract class VideoFramer<T> implements AutoCloseable {
 
     /**
      * Returns if the internal {@link FFmpegFrameGrabber} has started.
-     * 
+     *
      * @see #start()
      * @return true if grabber started, false otherwise.
      */
@@ -134,59 +180,56 @@ public abstract class VideoFramer<T> implements AutoCloseable {
 
     /**
      * Returns the number of frames available for polling in the queue.
-     * 
+     *
      * @return the number of available frames.
      */
     public int availableFrames() {
-        synchronized (frames) {
-            return frames.size();
-        }
+        return frames.size();
     }
 
     /**
      * Polls a frame from the queue.
-     * 
-     * @see Queue#poll()
+     *
+     * @see BlockingQueue#poll()
      * @see #pollAllFrames()
      * @return the next frame or null if the queue is empty.
      */
     public T pollFrame() {
-        synchronized (frames) {
-            return frames.poll();
-        }
+        return frames.poll();
     }
 
     /**
      * Polls all frames to a returning list.
-     * 
+     *
      * @see #pollFrame()
      * @return a list of all frames in the queue or an empty list if it is empty.
      */
     public List<T> pollAllFrames() {
-        synchronized (frames) {
-            List<T> polledFrames = new ArrayList<>(frames);
-            frames.clear();
-            return polledFrames;
-        }
+        List<T> polledFrames = new ArrayList<>(frames.size());
+        frames.drainTo(polledFrames);
+        return polledFrames;
     }
 
     /**
-     * Grabs the next frame of the video and puts it in the queue for polling.
+     * Grabs the next frame of the video and puts it in the queue for polling,
+     * waiting while the queue is full.
      * Make sure the grabber has started before calling this method
      * ({@link #hasStarted()}).
      * Also, read {@link VideoFramer} documentation to know more details about
      * how the frames are processed.
-     * 
+     *
      * @see VideoFramer
      * @see #hasStarted()
      * @see #isClosed()
      * @see #processAllRemainingFrames()
      * @return true if a new frame was successfully added to the queue, false if
-     *         this object was closed or for some other reason it can't read more
-     *         frames.
+     *         this object was closed or interrupted while waiting, or for some
+     *         other reason it can't read more frames.
      * @throws FrameGrabber.Exception if an exception occurs during frame grabbing.
+     * @throws IllegalStateException  if a pipeline was started.
      */
     public boolean processNextFrame() throws FrameGrabber.Exception {
+        checkNotPipelined();
         synchronized (stream) {
             if (closed) {
                 return false;
@@ -196,27 +239,27 @@ public abstract class VideoFramer<T> implements AutoCloseable {
             if (frame == null) {
                 return false;
             }
+            advanceTimestamp();
 
-            addFrameToQueue(frame);
-
-            return true;
+            T converted = convertFrame(converter, frame);
+            return converted == null || enqueue(sequenceFrame(converted));
         }
     }
 
     /**
      * <p>
      * Process all remaining frames in the video and adds them to the queue
-     * for polling. Note that depending on the size of the video, this method
-     * can increase the memory a lot; use it with care. {@link #processNextFrame()}
-     * is preferred for cases when you are not sure about the memory consumption
-     * the video can cause.
+     * for polling. Since the queue is bounded, this only returns when the
+     * whole video fit in it, so frames must be polled from another thread
+     * meanwhile. {@link #processNextFrame()} and
+     * {@link #startPipeline(ExecutorService, int)} are preferred.
      * </p>
-     * 
+     *
      * <p>
      * This method doesn't close the stream after reading the entire video.
      * So don't forget to call {@link #close()}.
      * </p>
-     * 
+     *
      * @see #processNextFrame()
      * @see #close()
      * @return true if all frames were successfully added to the queue, false
@@ -224,15 +267,21 @@ public abstract class VideoFramer<T> implements AutoCloseable {
      *         frames.
      * @throws FFmpegFrameGrabber.Exception if an exception occurs during frame
      *                                      grabbing.
+     * @throws IllegalStateException        if a pipeline was started.
      */
     public boolean processAllRemainingFrames() throws FFmpegFrameGrabber.Exception {
+        checkNotPipelined();
         synchronized (stream) {
             if (closed) {
                 return false;
             }
 
             for (Frame frame; (frame = grabFrame(grabber)) != null;) {
-                addFrameToQueue(frame);
+                advanceTimestamp();
+                T converted = convertFrame(converter, frame);
+                if (converted != null && !enqueue(sequenceFrame(converted))) {
+                    return false;
+                }
             }
 
             return true;
@@ -240,32 +289,325 @@ public abstract class VideoFramer<T> implements AutoCloseable {
     }
 
     /**
-     * Converts and adds the frame to the queue if not null for polling
-     * and updates the timestamp of the grabber to next frame.
-     * 
-     * @param converter the converter
-     * @param frame     the frame to be converted
-     * @throws FFmpegFrameGrabber.Exception
+     * <p>
+     * Processes the rest of the video in a pipeline of stages running on
+     * the executor: a single thread decodes frames, copying each into one of
+     * a preallocated ring of buffers; up to {@code parallelism} frames are
+     * converted through {@link #convertFrame(Java2DFrameConverter, Frame)}
+     * at the same time, each with a converter of its own; and a last thread
+     * passes the converted frames through {@link #sequenceFrame(Object)}
+     * and puts them in the queue, in the order of the video.
+     * </p>
+     *
+     * <p>
+     * Every stage is bounded, so when the queue is full the whole pipeline
+     * waits for frames to be polled, and steady-state decoding allocates no
+     * buffers. Once started, frames can no longer be processed with the
+     * other methods.
+     * </p>
+     *
+     * @param executor    the executor of the stages, which must be able to
+     *                    run {@code parallelism + 2} tasks at the same time,
+     *                    such as a virtual thread executor.
+     * @param parallelism the maximum amount of frames being converted at the
+     *                    same time.
+     * @return a future completed when the last frame is in the queue or the
+     *         framer is closed, or completed exceptionally if a stage failed,
+     *         only after every conversion stopped and the converters were
+     *         closed.
+     * @throws NullPointerException     if executor is null.
+     * @throws IllegalArgumentException if parallelism is 0 or negative.
+     * @throws IllegalStateException    if a pipeline was already started.
+     */
+    public synchronized CompletableFuture<Void> startPipeline(ExecutorService executor, int parallelism) {
+        Objects.requireNonNull(executor, "executor");
+        Ranges.greater(parallelism, 0, "parallelism");
+        checkNotPipelined();
+        pipelined = true;
+
+        BlockingQueue<Future<?>> inFlight = new ArrayBlockingQueue<>(parallelism);
+        BlockingQueue<Frame> buffers = new ArrayBlockingQueue<>(parallelism + 1);
+        BlockingQueue<Java2DFrameConverter> converters = new ArrayBlockingQueue<>(parallelism);
+        List<Java2DFrameConverter> created = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            Java2DFrameConverter conv = new Java2DFrameConverter();
+            created.add(conv);
+            converters.add(conv);
+        }
+        Set<Conversion> pending = ConcurrentHashMap.newKeySet();
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        CompletableFuture<Void> decoding = CompletableFuture.runAsync(() -> {
+            try {
+                decode(executor, inFlight, buffers, converters, pending, parallelism + 1, result);
+                offer(inFlight, END, result);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, executor);
+        CompletableFuture<Void> sequencing = CompletableFuture.runAsync(() -> {
+            try {
+                sequence(inFlight, result);
+                result.complete(null);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, executor);
+
+        // the converters are only closed once no conversion can use them anymore
+        CompletableFuture<Void> finished = new CompletableFuture<>();
+        CompletableFuture.allOf(decoding, sequencing).whenComplete((ignored, t) -> {
+            try {
+                stopConversions(pending);
+                created.forEach(Java2DFrameConverter::close);
+            } finally {
+                result.whenComplete((r, e) -> {
+                    if (e != null) {
+                        finished.completeExceptionally(e);
+                    } else {
+                        finished.complete(null);
+                    }
+                });
+            }
+        });
+        return finished;
+    }
+
+    /**
+     * Cancels the conversions that did not start and waits for the running
+     * ones, whether or not they reached the pipeline queue. Must be called
+     * after the decoding stage stopped, so no conversion is submitted
+     * anymore.
+     */
+    private void stopConversions(Set<Conversion> pending) {
+        boolean interrupted = false;
+        for (Conversion conversion : List.copyOf(pending)) {
+            while (true) {
+                try {
+                    conversion.stop();
+                    break;
+                } catch (InterruptedException e) {
+                    // a running conversion still holds a converter, so it must be waited for
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The decoding stage: grabs frames, copies them into buffers of the ring
+     * and submits their conversion, waiting for a free buffer and a free
+     * conversion slot. Stops when the video ends, this object is closing or
+     * the pipeline finished.
+     */
+    private void decode(ExecutorService executor, BlockingQueue<Future<?>> inFlight, BlockingQueue<Frame> buffers,
+            BlockingQueue<Java2DFrameConverter> converters, Set<Conversion> pending, int ringSize,
+            CompletableFuture<Void> result) throws Exception {
+        int allocated = 0;
+        while (!closing && !result.isDone()) {
+            Frame buffer = buffers.poll();
+            if (buffer == null && allocated == ringSize) {
+                buffer = buffers.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (buffer == null) {
+                    continue;
+                }
+            }
+            Frame copy;
+            boolean pooled;
+            synchronized (stream) {
+                if (closed) {
+                    return;
+                }
+                Frame frame = grabFrame(grabber);
+                if (frame == null) {
+                    return;
+                }
+                advanceTimestamp();
+                copy = copy(frame, buffer);
+                pooled = copy != null;
+                if (!pooled) {
+                    copy = frame.clone();
+                    if (buffer != null) {
+                        buffers.add(buffer);
+                    }
+                } else if (buffer == null) {
+                    allocated++;
+                }
+            }
+            Conversion conversion = new Conversion(copy, pooled, converters, buffers, pending);
+            pending.add(conversion);
+            executor.execute(conversion);
+            if (!offer(inFlight, conversion.future, result)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Puts the element in the pipeline queue, waiting while it is full.
+     *
+     * @return false if this object is closing or the pipeline finished
      */
-    private void addFrameToQueue(Frame frame) throws FFmpegFrameGrabber.Exception {
-        T converted = convertFrame(converter, frame);
-        if (converted == null) {
-            return;
+    private boolean offer(BlockingQueue<Future<?>> queue, Future<?> element, CompletableFuture<Void> result)
+            throws InterruptedException {
+        while (!queue.offer(element, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (closing || result.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The last stage: takes converted frames in the order they were
+     * submitted and puts them in the queue.
+     */
+    @SuppressWarnings("unchecked")
+    private void sequence(BlockingQueue<Future<?>> inFlight, CompletableFuture<Void> result)
+            throws InterruptedException, ExecutionException {
+        while (!closing && !result.isDone()) {
+            Future<?> next = inFlight.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            if (next == END) {
+                return;
+            }
+            T converted = next == null ? null : (T) next.get();
+            if (converted != null && !enqueue(sequenceFrame(converted))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copies the frame into the buffer, allocating a buffer of the same
+     * format if there is none or it does not match.
+     *
+     * @return the buffer, or null if the planes of the frame are not byte
+     *         buffers and cannot be copied
+     */
+    private static Frame copy(Frame frame, Frame buffer) {
+        if (frame.image == null || !(frame.image[0] instanceof ByteBuffer)) {
+            return null;
+        }
+        if (buffer == null || buffer.imageWidth != frame.imageWidth || buffer.imageHeight != frame.imageHeight
+                || buffer.imageDepth != frame.imageDepth || buffer.imageChannels != frame.imageChannels
+                || buffer.imageStride != frame.imageStride || buffer.image.length != frame.image.length) {
+            buffer = new Frame(frame.imageWidth, frame.imageHeight, frame.imageDepth, frame.imageChannels,
+                    frame.imageStride);
         }
+        for (int i = 0; i < frame.image.length; i++) {
+            ByteBuffer source = ((ByteBuffer) frame.image[i]).duplicate();
+            ByteBuffer target = (ByteBuffer) buffer.image[i];
+            source.rewind();
+            target.clear();
+            target.put(source);
+            target.rewind();
+        }
+        buffer.timestamp = frame.timestamp;
+        buffer.keyFrame = frame.keyFrame;
+        return buffer;
+    }
 
-        synchronized (frames) {
-            frames.add(converted);
-            timestamp += MINECRAFT_TICK_MICROS;
-            grabber.setTimestamp(timestamp);
+    /**
+     * Puts the frame in the queue, waiting while it is full.
+     *
+     * @return false if this object is closing or the thread was interrupted
+     */
+    private boolean enqueue(T frame) {
+        try {
+            while (!frames.offer(frame, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closing) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
+    /**
+     * The conversion of a frame by the pipeline. It runs at most once, and
+     * only if it was not stopped first, so stopping it either cancels it or
+     * waits for it to give its converter and buffer back.
+     */
+    private final class Conversion implements Runnable {
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final Frame source;
+        private final boolean pooled;
+        private final BlockingQueue<Java2DFrameConverter> converters;
+        private final BlockingQueue<Frame> buffers;
+        private final Set<Conversion> pending;
+
+        private Conversion(Frame source, boolean pooled, BlockingQueue<Java2DFrameConverter> converters,
+                BlockingQueue<Frame> buffers, Set<Conversion> pending) {
+            this.source = source;
+            this.pooled = pooled;
+            this.converters = converters;
+            this.buffers = buffers;
+            this.pending = pending;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                Java2DFrameConverter conv = converters.take();
+                try {
+                    future.complete(convertFrame(conv, source));
+                } finally {
+                    converters.add(conv);
+                    if (pooled) {
+                        buffers.add(source);
+                    }
+                }
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                pending.remove(this);
+                finished.countDown();
+            }
+        }
+
+        private void stop() throws InterruptedException {
+            if (claimed.compareAndSet(false, true)) {
+                future.cancel(false);
+                pending.remove(this);
+            } else {
+                finished.await();
+            }
+        }
+
+    }
+
+    private void checkNotPipelined() {
+        if (pipelined) {
+            throw new IllegalStateException("Frames are being processed by a pipeline");
+        }
+    }
+
+    /**
+     * Updates the timestamp of the grabber to the next frame.
+     */
+    private void advanceTimestamp() throws FFmpegFrameGrabber.Exception {
+        timestamp += MINECRAFT_TICK_MICROS;
+        grabber.setTimestamp(timestamp);
+    }
+
     /**
      * Grabbs a frame. The default implementation just calls
      * {@link FFmpegFrameGrabber#grabImage()}, but you can
      * override this method if you want to grab a different
      * kind of frame, maybe incluing audio for example.
-     * 
+     *
      * @param grabber the frame grabber.
      * @return the grabbed frame.
      * @throws FFmpegFrameGrabber.Exception if an exception occurs during grab.
@@ -276,19 +618,36 @@ public abstract class VideoFramer<T> implements AutoCloseable {
 
     /**
      * Converts the raw frame to the genetic type parameter of this class.
-     * 
+     * In a pipeline, this is called for several frames at the same time,
+     * each with a converter of its own, and the frame is reused once this
+     * returns, so the result must not keep references to it.
+     *
      * @param converter the converter
      * @param frame     the frame to be converted
-     * @return the converted frame
+     * @return the converted frame, or null to skip it
      */
     protected abstract T convertFrame(Java2DFrameConverter converter, Frame frame);
 
+    /**
+     * Called for every converted frame, one at a time and in the order of
+     * the video, right before the frame is put in the queue. Work that
+     * depends on the previous frames belongs here rather than in
+     * {@link #convertFrame(Java2DFrameConverter, Frame)}. The default
+     * implementation returns the frame itself.
+     *
+     * @param frame the converted frame
+     * @return the frame to put in the queue
+     */
+    protected T sequenceFrame(T frame) {
+        return frame;
+    }
+
     /**
      * Returns the current timestamp of the video in microseconds.
      * Note: this is not the timestamp of the last frame calculated,
      * it is the one that will be used for calculation of the next
      * frame.
-     * 
+     *
      * @return the current timestamp.
      */
     public long getTimestamp() {
@@ -297,8 +656,9 @@ public abstract class VideoFramer<T> implements AutoCloseable {
 
     /**
      * Closes the grabber, the converter and the stream and sets the
-     * "closed" internal flag to true.
-     * 
+     * "closed" internal flag to true. Threads waiting for room in the
+     * queue give up first.
+     *
      * @see AutoCloseable
      * @see AutoCloseable#close()
      * @see #isClosed()
@@ -307,6 +667,7 @@ public abstract class VideoFramer<T> implements AutoCloseable {
      */
     @Override
     public void close() throws Exception {
+        closing = true;
         synchronized (stream) {
             if (closed) {
                 return;
@@ -322,7 +683,7 @@ public abstract class VideoFramer<T> implements AutoCloseable {
 
     /**
      * Returns if this object has been closed.
-     * 
+     *
      * @see #close()
      * @return true if this object has been closed,
      *         false otherwise.
@@ -0,0 +1,357 @@
+package net.stardust.base.media.map;
+
+import java.awt.Rectangle;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.map.MapCanvas;
+
+/**
+ * A frame of a {@link MapVideo}, already converted to map palette indexes.
+ * Besides the pixels of the whole map, a frame knows which regions changed
+ * since the previous frame of the video, so it can be drawn over a canvas
+ * that shows the previous frame by writing only those regions.
+ *
+ * <p>
+ * Regions are found by comparing the frames in tiles of {@link #TILE_SIZE}
+ * pixels, and changed tiles next to each other in a row of tiles are
+ * merged into a single region. A frame whose drawn area differs from the
+ * previous one, or in which most tiles changed, as in a scene cut, is a
+ * key frame: its only region is its whole area, since comparing it would
+ * save nothing.
+ * </p>
+ *
+ * <p>
+ * Instances are immutable and thread-safe.
+ * </p>
+ *
+ * @see MapVideo
+ * @see MapVideoRenderer
+ *
+ * @author Sergio Luis
+ */
+public final class MapFrame {
+
+    /**
+     * The side of the square tiles in which frames are compared.
+     */
+    public static final int TILE_SIZE = 8;
+
+    /**
+     * The fraction of changed tiles from which a frame is a key frame.
+     */
+    public static final double KEY_FRAME_THRESHOLD = 0.75;
+
+    private static final int MAP_SIZE = MapImage.MINECRAFT_DEFAULT_MAP_SIZE;
+    private static final AtomicLong VIDEOS = new AtomicLong();
+
+    private final long video;
+    private final long index;
+    private final byte[] pixels;
+    private final Rectangle area;
+    private final List<Rectangle> regions;
+    private final boolean key;
+
+    private MapFrame(long video, long index, byte[] pixels, Rectangle area, List<Rectangle> regions, boolean key) {
+        this.video = video;
+        this.index = index;
+        this.pixels = pixels;
+        this.area = area;
+        this.regions = regions;
+        this.key = key;
+    }
+
+    /**
+     * Creates the frame of a quantized image, comparing it with the previous
+     * frame of the video. A frame without a previous one starts a new
+     * video, whose frames never follow the frames of other videos.
+     *
+     * @implNote This method just calls
+     *           <code>MapFrame.of(image).after(previous)</code>.
+     *
+     * @param image    the image of the frame.
+     * @param previous the previous frame, or null for the first frame.
+     * @return the frame.
+     * @throws NullPointerException if image is null.
+     */
+    public static MapFrame of(MapImage image, MapFrame previous) {
+        return of(image).after(previous);
+    }
+
+    /**
+     * Creates the first frame of a new video from a quantized image. The
+     * frame is a key frame until placed in a video with
+     * {@link #after(MapFrame)}, so the expensive part of creating frames can
+     * run for many frames at the same time, and only the comparison needs
+     * to follow the order of the video.
+     *
+     * @param image the image of the frame.
+     * @return the frame.
+     * @throws NullPointerException if image is null.
+     */
+    public static MapFrame of(MapImage image) {
+        Objects.requireNonNull(image, "image");
+        image.quantize();
+        byte[] pixels = new byte[MAP_SIZE * MAP_SIZE];
+        Rectangle area = image.drawTo(pixels);
+        return of(pixels, area);
+    }
+
+    /**
+     * Creates the first frame of a new video from palette indexes of the
+     * whole map, which are not copied and must not change afterwards.
+     */
+    static MapFrame of(byte[] pixels, Rectangle area) {
+        return new MapFrame(VIDEOS.incrementAndGet(), 0, pixels, area, List.of(area), true);
+    }
+
+    /**
+     * Returns this frame placed right after the previous one, in the same
+     * video, with the regions that changed since it. The pixels are shared,
+     * not copied.
+     *
+     * @param previous the previous frame, or null for the first frame.
+     * @return this frame if previous is null, or a frame following it.
+     */
+    public MapFrame after(MapFrame previous) {
+        if (previous == null) {
+            return this;
+        }
+        long index = previous.index + 1;
+        if (!area.equals(previous.area) || area.isEmpty()) {
+            return new MapFrame(previous.video, index, pixels, area, List.of(area), true);
+        }
+        if (pixels == previous.pixels) {
+            return new MapFrame(previous.video, index, pixels, area, List.of(), false);
+        }
+        List<Rectangle> regions = diff(previous.pixels, pixels, area);
+        if (regions == null) {
+            return new MapFrame(previous.video, index, pixels, area, List.of(area), true);
+        }
+        // an unchanged frame keeps the pixels of the previous one, so its own can be collected
+        return regions.isEmpty()
+                ? new MapFrame(previous.video, index, previous.pixels, area, List.of(), false)
+                : new MapFrame(previous.video, index, pixels, area, List.copyOf(regions), false);
+    }
+
+    /**
+     * Returns the changed regions of the area, or null if most of it changed.
+     */
+    private static List<Rectangle> diff(byte[] previous, byte[] current, Rectangle area) {
+        int firstRow = area.y / TILE_SIZE, lastRow = (area.y + area.height - 1) / TILE_SIZE;
+        int firstColumn = area.x / TILE_SIZE, lastColumn = (area.x + area.width - 1) / TILE_SIZE;
+        int tiles = (lastRow - firstRow + 1) * (lastColumn - firstColumn + 1);
+        int limit = (int) (tiles * KEY_FRAME_THRESHOLD);
+        int changed = 0;
+        List<Rectangle> regions = new ArrayList<>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            int y = Math.max(row * TILE_SIZE, area.y);
+            int bottom = Math.min((row + 1) * TILE_SIZE, area.y + area.height);
+            Rectangle run = null;
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int x = Math.max(column * TILE_SIZE, area.x);
+                int right = Math.min((column + 1) * TILE_SIZE, area.x + area.width);
+                if (!changed(previous, current, x, y, right, bottom)) {
+                    run = null;
+                    continue;
+                }
+                if (++changed > limit) {
+                    return null;
+                }
+                if (run == null) {
+                    run = new Rectangle(x, y, right - x, bottom - y);
+                    regions.add(run);
+                } else {
+                    run.width = right - run.x;
+                }
+            }
+        }
+        return regions;
+    }
+
+    private static boolean changed(byte[] previous, byte[] current, int x, int y, int right, int bottom) {
+        for (int j = y; j < bottom; j++) {
+            int offset = j * MAP_SIZE;
+            if (!Arrays.equals(previous, offset + x, offset + right, current, offset + x, offset + right)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes this frame for {@link MapVideoCache}: the whole area of a key
+     * frame, or only the changed regions of any other frame, which
+     * {@link #read(ByteBuffer, MapFrame)} draws over the previous frame.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeBoolean(key);
+        writeRectangle(out, area);
+        if (key) {
+            writePixels(out, area);
+            return;
+        }
+        out.writeShort(regions.size());
+        for (Rectangle region : regions) {
+            writeRectangle(out, region);
+            writePixels(out, region);
+        }
+    }
+
+    /**
+     * Reads a frame written by {@link #write(DataOutput)}, right after the
+     * previous frame read from the same cache.
+     */
+    static MapFrame read(ByteBuffer in, MapFrame previous) throws IOException {
+        try {
+            long video = previous == null ? VIDEOS.incrementAndGet() : previous.video;
+            long index = previous == null ? 0 : previous.index + 1;
+            boolean key = in.get() != 0;
+            Rectangle area = readRectangle(in);
+            if (key) {
+                byte[] pixels = new byte[MAP_SIZE * MAP_SIZE];
+                readPixels(in, pixels, area);
+                return new MapFrame(video, index, pixels, area, List.of(area), true);
+            }
+            if (previous == null || !area.equals(previous.area)) {
+                throw new StreamCorruptedException("Frame does not follow the previous frame");
+            }
+            Rectangle[] regions = new Rectangle[in.getShort() & 0xFFFF];
+            byte[] pixels = regions.length == 0 ? previous.pixels : previous.pixels.clone();
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = readRectangle(in);
+                readPixels(in, pixels, regions[i]);
+            }
+            return new MapFrame(video, index, pixels, area, List.of(regions), false);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new StreamCorruptedException("Truncated or invalid frame");
+        }
+    }
+
+    private void writePixels(DataOutput out, Rectangle region) throws IOException {
+        for (int y = region.y; y < region.y + region.height; y++) {
+            out.write(pixels, y * MAP_SIZE + region.x, region.width);
+        }
+    }
+
+    private static void readPixels(ByteBuffer in, byte[] pixels, Rectangle region) {
+        for (int y = region.y; y < region.y + region.height; y++) {
+            in.get(pixels, y * MAP_SIZE + region.x, region.width);
+        }
+    }
+
+    private static void writeRectangle(DataOutput out, Rectangle rectangle) throws IOException {
+        out.writeByte(rectangle.x);
+        out.writeByte(rectangle.y);
+        out.writeByte(rectangle.width);
+        out.writeByte(rectangle.height);
+    }
+
+    private static Rectangle readRectangle(ByteBuffer in) throws StreamCorruptedException {
+        Rectangle rectangle = new Rectangle(in.get() & 0xFF, in.get() & 0xFF, in.get() & 0xFF, in.get() & 0xFF);
+        if (rectangle.x + rectangle.width > MAP_SIZE || rectangle.y + rectangle.height > MAP_SIZE) {
+            throw new StreamCorruptedException("Region out of the map: " + rectangle);
+        }
+        return rectangle;
+    }
+
+    /**
+     * Draws the whole area of this frame to the canvas.
+     *
+     * @param canvas the canvas.
+     */
+    public void drawFull(MapCanvas canvas) {
+        draw(canvas, area);
+    }
+
+    /**
+     * Draws only the regions that changed since the previous frame. The
+     * canvas must be showing the previous frame of the video.
+     *
+     * @param canvas the canvas.
+     */
+    public void drawChanges(MapCanvas canvas) {
+        for (Rectangle region : regions) {
+            draw(canvas, region);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void draw(MapCanvas canvas, Rectangle region) {
+        for (int y = region.y; y < region.y + region.height; y++) {
+            int offset = y * MAP_SIZE;
+            for (int x = region.x; x < region.x + region.width; x++) {
+                canvas.setPixel(x, y, pixels[offset + x]);
+            }
+        }
+    }
+
+    /**
+     * Returns whether this frame comes right after the other one in the
+     * same video, so {@link #drawChanges(MapCanvas)} can be drawn over it.
+     *
+     * @param other the other frame, may be null.
+     * @return true if this frame follows the other one.
+     */
+    public boolean follows(MapFrame other) {
+        return other != null && other.video == video && other.index == index - 1;
+    }
+
+    /**
+     * Returns the position of this frame in the video.
+     *
+     * @return the index of this frame.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the area of the map this frame draws.
+     *
+     * @return a copy of the area.
+     */
+    public Rectangle getArea() {
+        return new Rectangle(area);
+    }
+
+    /**
+     * Returns the regions that changed since the previous frame, which
+     * for a key frame is its whole area.
+     *
+     * @return copies of the changed regions.
+     */
+    public List<Rectangle> getRegions() {
+        return regions.stream().map(Rectangle::new).toList();
+    }
+
+    /**
+     * Returns the palette index of a pixel of the map.
+     *
+     * @param x the x coordinate of the pixel.
+     * @param y the y coordinate of the pixel.
+     * @return the palette index.
+     */
+    public byte getPixel(int x, int y) {
+        return pixels[y * MAP_SIZE + x];
+    }
+
+    /**
+     * Returns whether this frame was not compared with the previous one
+     * and must be drawn entirely.
+     *
+     * @return true if this is a key frame.
+     */
+    public boolean isKey() {
+        return key;
+    }
+
+}
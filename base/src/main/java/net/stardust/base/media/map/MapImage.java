@@ -3,6 +3,7 @@ package net.stardust.base.media.map;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.BufferedInputStream;
@@ -39,8 +40,18 @@ import net.stardust.base.utils.ranges.Ranges;
  * Minecraft map with various utility methods for image manipulation.
  * This class is not thread-safe.
  * 
+ * <p>
+ * The visible part of the image is converted to map palette indexes only
+ * once, through the {@link PaletteTable}, and kept until the image or the
+ * alignment changes, so rendering an image that does not change just
+ * copies those indexes to the canvas. Changes made through this class
+ * are detected; changes made directly to the image returned by
+ * {@link #getImage()} must be followed by {@link #invalidate()}.
+ * </p>
+ * 
  * @see BufferedImage
  * @see MapRenderer
+ * @see PaletteTable
  * 
  * @author Sergio Luis
  */
@@ -54,6 +65,9 @@ public class MapImage extends MapRenderer implements Serializable, Cloneable {
     private transient BufferedImage image;
     private ImageAlignStrategy strategy;
 
+    private transient byte[] indexes;
+    private transient int indexesX, indexesY, indexesWidth, indexesHeight;
+
     /**
      * Creates a {@link MapImage} with {@link ImageAlignStrategyEnum#TOP_LEFT} as
      * default alignment strategy and an empty non null {@link BufferedImage}
@@ -208,6 +222,7 @@ public class MapImage extends MapRenderer implements Serializable, Cloneable {
         graphics.dispose();
 
         this.image = resized;
+        invalidate();
     }
 
     /**
@@ -262,14 +277,79 @@ public class MapImage extends MapRenderer implements Serializable, Cloneable {
      * 
      * @see ImageAlignStrategy
      * @see #resize(int, int)
-     * @see MapCanvas#drawImage(int, int, Image)
+     * @see #quantize()
      * @see #MINECRAFT_DEFAULT_MAP_SIZE
      */
     @Override
+    @SuppressWarnings("deprecation")
     public void render(MapView map, MapCanvas canvas, Player player) {
+        quantize();
+
+        for (int j = 0; j < indexesHeight; j++) {
+            int offset = j * indexesWidth;
+            for (int i = 0; i < indexesWidth; i++) {
+                canvas.setPixel(indexesX + i, indexesY + j, indexes[offset + i]);
+            }
+        }
+    }
+
+    /**
+     * Converts the part of the image visible in the map to map palette
+     * indexes, if it was not converted since the last change. Rendering
+     * does this when needed, but calling it beforehand, from any thread
+     * that owns this object, keeps that work out of the render.
+     * 
+     * @see PaletteTable
+     * @see #invalidate()
+     */
+    public void quantize() {
+        if (indexes != null) {
+            return;
+        }
+
         Point corner = getCorner();
+        int mapSize = MINECRAFT_DEFAULT_MAP_SIZE;
+
+        int x = Math.max(corner.x, 0);
+        int y = Math.max(corner.y, 0);
+        int width = Math.max(Math.min(corner.x + getWidth(), mapSize) - x, 0);
+        int height = Math.max(Math.min(corner.y + getHeight(), mapSize) - y, 0);
+
+        indexes = PaletteTable.quantize(image, x - corner.x, y - corner.y, width, height);
+        indexesX = x;
+        indexesY = y;
+        indexesWidth = width;
+        indexesHeight = height;
+    }
+
+    /**
+     * Copies the palette indexes of the image to a buffer of the whole map,
+     * row by row, converting them first if needed.
+     * 
+     * @param canvas the buffer, of length {@link #MINECRAFT_DEFAULT_MAP_SIZE}
+     *               squared.
+     * @return the area of the map the image covers.
+     */
+    Rectangle drawTo(byte[] canvas) {
+        quantize();
+
+        for (int j = 0; j < indexesHeight; j++) {
+            System.arraycopy(indexes, j * indexesWidth, canvas, (indexesY + j) * MINECRAFT_DEFAULT_MAP_SIZE + indexesX,
+                    indexesWidth);
+        }
+
+        return new Rectangle(indexesX, indexesY, indexesWidth, indexesHeight);
+    }
 
-        canvas.drawImage(corner.x, corner.y, image);
+    /**
+     * Discards the palette indexes of the image, so they are converted
+     * again on the next render. Call this after changing the image
+     * returned by {@link #getImage()} directly.
+     * 
+     * @see #quantize()
+     */
+    public void invalidate() {
+        indexes = null;
     }
 
     /**
@@ -369,6 +449,7 @@ public class MapImage extends MapRenderer implements Serializable, Cloneable {
         Ranges.rangeBITE(y, 0, image.getHeight(), "y");
 
         image.setRGB(x, y, rgb);
+        invalidate();
     }
 
     /**
@@ -456,6 +537,7 @@ public class MapImage extends MapRenderer implements Serializable, Cloneable {
      */
     public void setAlignStrategy(ImageAlignStrategy strategy) {
         this.strategy = Objects.requireNonNull(strategy, "strategy");
+        invalidate();
     }
 
     /**
@@ -469,7 +551,7 @@ public class MapImage extends MapRenderer implements Serializable, Cloneable {
      * @throws NullPointerException if strategy is null.
      */
     public void setAlignStrategy(ImageAlignStrategyEnum strategy) {
-        this.strategy = Objects.requireNonNull(strategy, "strategy").getStrategy();
+        setAlignStrategy(Objects.requireNonNull(strategy, "strategy").getStrategy());
     }
 
     /**
@@ -520,6 +602,7 @@ public class MapImage extends MapRenderer implements Serializable, Cloneable {
         int[][] pixels = (int[][]) stream.readObject();
 
         this.image = createNewImage(width, height, pixels);
+        invalidate();
     }
 
     private static BufferedImage createNewImage(int width, int height, int[][] pixels) {
@@ -543,6 +626,7 @@ public class MapImage extends MapRenderer implements Serializable, Cloneable {
      * @throws NullPointerException if image is null
      */
     private void checkImageType(BufferedImage image) {
+        invalidate();
         if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
             this.image = image;
             return;
@@ -23,22 +23,33 @@ import net.stardust.base.media.VideoFramer;
  * <b>preserving the ratio</b> between width and height.
  * </p>
  * 
+ * <p>
+ * Frames are {@link MapFrame}s, already converted to map palette indexes
+ * and compared with the previous frame, so playing them through a
+ * {@link MapVideoRenderer} only draws the regions that changed, and whole
+ * frames only on scene cuts or for canvases that missed a frame.
+ * </p>
+ * 
  * @apiNote This class is meant to be used in only one map, eighter in the
  *          player hand or in the wall. If you want to use many maps in a wall
  *          to get more pixels for frames, use {@link WallMapVideo} instead.
  * 
  * @see VideoFramer
  * @see WallMapVideo
- * @see MapImage
+ * @see MapFrame
+ * @see MapVideoRenderer
  * @see FFmpegFrameGrabber
  * @see InputStream
  * 
  * @author Sergio Luis
  */
-public class MapVideo extends VideoFramer<MapImage> {
+public class MapVideo extends VideoFramer<MapFrame> {
 
     private volatile ImageAlignStrategy strategy;
 
+    // only touched by sequenceFrame, which is never called concurrently
+    private MapFrame previous;
+
     /**
      * Creates a new {@link MapVideo} instance with the passed
      * stream. This initializes with align strategy
@@ -56,6 +67,22 @@ public class MapVideo extends VideoFramer<MapImage> {
         setAlignStrategy(ImageAlignStrategyEnum.CENTER);
     }
 
+    /**
+     * Creates a new {@link MapVideo} instance with the passed
+     * stream and a queue of the given capacity. This initializes
+     * with align strategy {@link ImageAlignStrategyEnum#CENTER}.
+     *
+     * @see VideoFramer#VideoFramer(InputStream, int)
+     * @param stream   the stream to read video data
+     * @param capacity the maximum amount of frames in the queue
+     * @throws NullPointerException     if stream is null
+     * @throws IllegalArgumentException if capacity is 0 or negative
+     */
+    public MapVideo(InputStream stream, int capacity) {
+        super(stream, capacity);
+        setAlignStrategy(ImageAlignStrategyEnum.CENTER);
+    }
+
     /**
      * Creates a new {@link MapVideo} instance with the passed
      * file. This initializes with align strategy
@@ -114,11 +141,17 @@ public class MapVideo extends VideoFramer<MapImage> {
     }
 
     @Override
-    protected MapImage convertFrame(Java2DFrameConverter converter, Frame frame) {
+    protected MapFrame convertFrame(Java2DFrameConverter converter, Frame frame) {
         MapImage image = new MapImage(converter.getBufferedImage(frame));
         image.setAlignStrategy(getAlignStrategy());
         image.resizeToMinecraftPreservingRatio();
-        return image;
+        return MapFrame.of(image);
+    }
+
+    @Override
+    protected MapFrame sequenceFrame(MapFrame frame) {
+        previous = frame.after(previous);
+        return previous;
     }
 
 }
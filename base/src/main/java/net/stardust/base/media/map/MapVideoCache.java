@@ -0,0 +1,393 @@
+package net.stardust.base.media.map;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.stardust.base.media.VideoFramer;
+import net.stardust.base.utils.ranges.Ranges;
+
+/**
+ * <p>
+ * A video already converted to {@link MapFrame}s and stored in a file, so
+ * playing it again reads the frames instead of decoding, resizing and
+ * quantizing the video once more. The file is encoded once, from a
+ * {@link MapVideo} or a {@link WallMapVideo}, with the
+ * {@code encode} methods, and every playback afterwards
+ * {@link #open(Path) opens} it and memory maps it: reading a frame is
+ * copying the pixels of the previous one and writing the changed regions
+ * over them.
+ * </p>
+ *
+ * <p>
+ * The file starts with a header holding the size of the wall in maps and
+ * the amount of frames, followed by the frames, one per tick. For each map
+ * of the wall, a key frame stores its whole area and any other frame only
+ * the regions that changed since the previous one. Frames are optionally
+ * compressed with {@link Deflater}.
+ * </p>
+ *
+ * <p>
+ * Frames are read in order and this class is thread-safe. Closing it
+ * releases the file, and frames already read are still valid.
+ * </p>
+ *
+ * @see MapFrame
+ * @see MapVideo
+ * @see WallMapVideo
+ *
+ * @author Sergio Luis
+ */
+public class MapVideoCache implements AutoCloseable {
+
+    private static final int MAGIC = 0x53444D56; // "SDMV"
+    private static final byte VERSION = 1;
+    private static final byte COMPRESSED = 1;
+    private static final int HEADER_SIZE = 14;
+    private static final int FRAME_COUNT_OFFSET = 10;
+
+    private final Path path;
+    private final int wallWidth, wallHeight, frameCount;
+    private final boolean compressed;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private Inflater inflater;
+    private byte[] inflated;
+    private MapFrame[][] previous;
+    private int position;
+
+    private MapVideoCache(Path path) throws IOException {
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Video cache too large to be mapped: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new StreamCorruptedException("Not a video cache: " + path);
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new StreamCorruptedException("Unsupported video cache version " + version + ": " + path);
+            }
+            compressed = (buffer.get() & COMPRESSED) != 0;
+            wallWidth = buffer.getShort();
+            wallHeight = buffer.getShort();
+            frameCount = buffer.getInt();
+            if (wallWidth <= 0 || wallHeight <= 0 || frameCount < 0) {
+                throw new StreamCorruptedException("Invalid video cache header: " + path);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (compressed) {
+            inflater = new Inflater();
+        }
+        previous = new MapFrame[wallWidth][wallHeight];
+    }
+
+    /**
+     * Opens a video cache file, memory mapping it.
+     *
+     * @param path the path of the file.
+     * @return the opened video cache.
+     * @throws NullPointerException if path is null.
+     * @throws IOException          if the file cannot be read or is not a
+     *                              video cache.
+     */
+    public static MapVideoCache open(Path path) throws IOException {
+        return new MapVideoCache(Objects.requireNonNull(path, "path"));
+    }
+
+    /**
+     * Encodes the rest of a video for a single map into a cache file,
+     * replacing the file only once the whole video was encoded. The video
+     * is started if needed and read to its end, but not closed.
+     *
+     * @param video    the video, whose frames must not be processed
+     *                 elsewhere meanwhile.
+     * @param path     the path of the cache file.
+     * @param compress whether to compress the frames.
+     * @throws NullPointerException if video or path is null.
+     * @throws IOException          if the video cannot be read or the file
+     *                              cannot be written.
+     */
+    public static void encode(MapVideo video, Path path, boolean compress) throws IOException {
+        Objects.requireNonNull(video, "video");
+        try (Writer writer = new Writer(path, 1, 1, compress)) {
+            video.start();
+            while (video.processNextFrame()) {
+                for (MapFrame frame; (frame = video.pollFrame()) != null;) {
+                    writer.write(new MapFrame[][] { { frame } });
+                }
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * Encodes the rest of a video for a wall of maps into a cache file,
+     * replacing the file only once the whole video was encoded. The video
+     * is started if needed and read to its end, but not closed.
+     *
+     * @param video    the video, whose frames must not be processed
+     *                 elsewhere meanwhile.
+     * @param path     the path of the cache file.
+     * @param compress whether to compress the frames.
+     * @throws NullPointerException if video or path is null.
+     * @throws IOException          if the video cannot be read or the file
+     *                              cannot be written.
+     */
+    public static void encode(WallMapVideo video, Path path, boolean compress) throws IOException {
+        Objects.requireNonNull(video, "video");
+        int width = video.getWallWidth(), height = video.getWallHeight();
+        try (Writer writer = new Writer(path, width, height, compress)) {
+            video.start();
+            while (video.processNextFrame()) {
+                for (MapFrame[][] frames; (frames = video.pollFrame()) != null;) {
+                    writer.write(frames);
+                }
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * Reads the next frame of the video, with a {@link MapFrame} for each
+     * map of the wall, indexed as {@code [x][y]} like the frames of a
+     * {@link WallMapVideo}.
+     *
+     * @return the next frame, or null if the video ended.
+     * @throws IOException           if the frame is corrupted.
+     * @throws IllegalStateException if this object was closed.
+     */
+    public synchronized MapFrame[][] nextFrame() throws IOException {
+        if (buffer == null) {
+            throw new IllegalStateException("Video cache closed");
+        }
+        if (position == frameCount) {
+            return null;
+        }
+        ByteBuffer data = frameData();
+        MapFrame[][] frames = new MapFrame[wallWidth][wallHeight];
+        for (int i = 0; i < wallWidth; i++) {
+            for (int j = 0; j < wallHeight; j++) {
+                frames[i][j] = MapFrame.read(data, previous[i][j]);
+            }
+        }
+        previous = frames;
+        position++;
+        return frames;
+    }
+
+    /**
+     * Returns the data of the next frame, inflating it if compressed.
+     */
+    private ByteBuffer frameData() throws IOException {
+        try {
+            int length = buffer.getInt();
+            if (!compressed) {
+                ByteBuffer data = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                return data;
+            }
+            int inflatedLength = buffer.getInt();
+            if (inflated == null || inflated.length < inflatedLength) {
+                inflated = new byte[inflatedLength];
+            }
+            inflater.reset();
+            inflater.setInput(buffer.slice(buffer.position(), length));
+            buffer.position(buffer.position() + length);
+            if (inflater.inflate(inflated, 0, inflatedLength) != inflatedLength) {
+                throw new StreamCorruptedException("Truncated frame in " + path);
+            }
+            return ByteBuffer.wrap(inflated, 0, inflatedLength);
+        } catch (DataFormatException | RuntimeException e) {
+            throw new StreamCorruptedException("Corrupted frame " + position + " in " + path);
+        }
+    }
+
+    /**
+     * Goes back to the first frame, so the video plays again.
+     *
+     * @throws IllegalStateException if this object was closed.
+     */
+    public synchronized void rewind() {
+        if (buffer == null) {
+            throw new IllegalStateException("Video cache closed");
+        }
+        buffer.position(HEADER_SIZE);
+        previous = new MapFrame[wallWidth][wallHeight];
+        position = 0;
+    }
+
+    /**
+     * Returns whether there are frames left to read.
+     *
+     * @return true if {@link #nextFrame()} returns a frame.
+     */
+    public synchronized boolean hasNextFrame() {
+        return buffer != null && position < frameCount;
+    }
+
+    public int getWallWidth() {
+        return wallWidth;
+    }
+
+    public int getWallHeight() {
+        return wallHeight;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the index of the next frame to be read.
+     *
+     * @return the amount of frames already read.
+     */
+    public synchronized int getPosition() {
+        return position;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Returns the duration of the video.
+     *
+     * @return the duration in microseconds.
+     */
+    public long getDuration() {
+        return frameCount * VideoFramer.MINECRAFT_TICK_MICROS;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        buffer = null;
+        if (inflater != null) {
+            inflater.end();
+        }
+        channel.close();
+    }
+
+    /**
+     * Writes frames to a temporary file, which replaces the cache file
+     * only when committed.
+     */
+    private static class Writer implements AutoCloseable {
+
+        private final Path path, temporary;
+        private final int wallWidth, wallHeight;
+        private final FileChannel channel;
+        private final ByteArrayOutputStream bytes;
+        private final DataOutputStream out;
+        private Deflater deflater;
+        private byte[] deflated;
+        private int frameCount;
+        private boolean committed;
+
+        Writer(Path path, int wallWidth, int wallHeight, boolean compress) throws IOException {
+            this.path = Objects.requireNonNull(path, "path").toAbsolutePath();
+            this.wallWidth = Ranges.rangeBITI(wallWidth, 1, Short.MAX_VALUE, "wallWidth");
+            this.wallHeight = Ranges.rangeBITI(wallHeight, 1, Short.MAX_VALUE, "wallHeight");
+            bytes = new ByteArrayOutputStream();
+            out = new DataOutputStream(bytes);
+            if (compress) {
+                deflater = new Deflater();
+                deflated = new byte[1024];
+            }
+            Files.createDirectories(this.path.getParent());
+            temporary = Files.createTempFile(this.path.getParent(), this.path.getFileName().toString(), ".tmp");
+            channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).put(VERSION).put(compress ? COMPRESSED : 0);
+            header.putShort((short) wallWidth).putShort((short) wallHeight).putInt(0);
+            writeFully(header.flip());
+        }
+
+        void write(MapFrame[][] frames) throws IOException {
+            bytes.reset();
+            for (int i = 0; i < wallWidth; i++) {
+                for (int j = 0; j < wallHeight; j++) {
+                    frames[i][j].write(out);
+                }
+            }
+            byte[] data = bytes.toByteArray();
+            if (deflater == null) {
+                writeFully(ByteBuffer.allocate(4).putInt(data.length).flip());
+                writeFully(ByteBuffer.wrap(data));
+                frameCount++;
+                return;
+            }
+            deflater.reset();
+            deflater.setInput(data);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == deflated.length) {
+                    deflated = Arrays.copyOf(deflated, deflated.length * 2);
+                }
+                length += deflater.deflate(deflated, length, deflated.length - length);
+            }
+            writeFully(ByteBuffer.allocate(8).putInt(length).putInt(data.length).flip());
+            writeFully(ByteBuffer.wrap(deflated, 0, length));
+            frameCount++;
+        }
+
+        /**
+         * Writes the amount of frames and replaces the cache file.
+         */
+        void commit() throws IOException {
+            ByteBuffer count = ByteBuffer.allocate(4).putInt(frameCount).flip();
+            while (count.hasRemaining()) {
+                channel.write(count, FRAME_COUNT_OFFSET + count.position());
+            }
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        private void writeFully(ByteBuffer data) throws IOException {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (deflater != null) {
+                deflater.end();
+            }
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+package net.stardust.base.media.map;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.bukkit.entity.Player;
+import org.bukkit.map.MapCanvas;
+import org.bukkit.map.MapRenderer;
+import org.bukkit.map.MapView;
+
+/**
+ * Map renderer that plays the {@link MapFrame}s of a {@link MapVideo}.
+ * The same renderer stays on the map for the whole video and the current
+ * frame is replaced through {@link #setFrame(MapFrame)}, usually once per
+ * tick, so the canvas keeps showing the previous frame and only the changed
+ * regions of each frame are drawn.
+ *
+ * <p>
+ * The renderer remembers the last frame drawn to each canvas. A canvas
+ * that missed a frame, or never showed one, like the canvas of a player
+ * who just started looking at the map, gets the whole frame instead, and a
+ * canvas that already shows the current frame is left as it is.
+ * </p>
+ *
+ * <p>
+ * Frames can be set from any thread; rendering happens in the main thread.
+ * </p>
+ *
+ * @see MapFrame
+ * @see MapVideo
+ *
+ * @author Sergio Luis
+ */
+public class MapVideoRenderer extends MapRenderer {
+
+    private volatile MapFrame frame;
+    private Map<MapCanvas, MapFrame> drawn;
+
+    /**
+     * Creates a renderer whose canvas is shared by every player.
+     */
+    public MapVideoRenderer() {
+        this(false);
+    }
+
+    /**
+     * Creates a renderer.
+     *
+     * @see MapRenderer#MapRenderer(boolean)
+     * @param contextual whether each player gets a canvas of their own.
+     */
+    public MapVideoRenderer(boolean contextual) {
+        super(contextual);
+        drawn = new WeakHashMap<>();
+    }
+
+    @Override
+    public void render(MapView map, MapCanvas canvas, Player player) {
+        MapFrame frame = this.frame;
+        if (frame == null) {
+            return;
+        }
+        MapFrame last = drawn.get(canvas);
+        if (last == frame) {
+            return;
+        }
+        if (!frame.isKey() && frame.follows(last)) {
+            frame.drawChanges(canvas);
+        } else {
+            frame.drawFull(canvas);
+        }
+        drawn.put(canvas, frame);
+    }
+
+    /**
+     * Returns the frame being rendered.
+     *
+     * @return the current frame, or null if none was set.
+     */
+    public MapFrame getFrame() {
+        return frame;
+    }
+
+    /**
+     * Sets the frame to be rendered from now on.
+     *
+     * @param frame the new frame, or null to stop drawing.
+     */
+    public void setFrame(MapFrame frame) {
+        this.frame = frame;
+    }
+
+}
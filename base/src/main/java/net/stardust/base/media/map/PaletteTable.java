@@ -0,0 +1,109 @@
+package net.stardust.base.media.map;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import org.bukkit.map.MapPalette;
+
+/**
+ * Lookup table from RGB colors to the indexes of the Minecraft map
+ * palette. {@link MapPalette#matchColor(Color)} compares a color against
+ * every color of the palette; this table does that once for every color
+ * with {@link #BITS} bits per channel, when first used, so converting a
+ * pixel afterwards is a single array access. The low bits of each channel
+ * are dropped, which is far below the precision of the palette itself.
+ *
+ * <p>
+ * Pixels with an alpha below half are converted to
+ * {@link MapPalette#TRANSPARENT}, like {@link MapPalette#imageToBytes(java.awt.Image)}
+ * does. This class is thread-safe.
+ * </p>
+ *
+ * @see MapImage
+ * @see MapPalette
+ *
+ * @author Sergio Luis
+ */
+public final class PaletteTable {
+
+    /**
+     * The bits of each channel used to look a color up.
+     */
+    public static final int BITS = 6;
+
+    private static final int SHIFT = 8 - BITS;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Final utility class. Should never be instantiated.
+     */
+    private PaletteTable() {}
+
+    /**
+     * Returns the palette index of the ARGB color.
+     *
+     * @param argb the color in {@link BufferedImage#TYPE_INT_ARGB} format.
+     * @return the palette index.
+     */
+    public static byte indexOf(int argb) {
+        if ((argb >>> 24) < 128) {
+            return MapPalette.TRANSPARENT;
+        }
+        return Holder.TABLE[key(argb >> 16, argb >> 8, argb)];
+    }
+
+    /**
+     * Converts a region of the image into palette indexes, row by row.
+     *
+     * @param image  the image.
+     * @param x      the x coordinate of the region.
+     * @param y      the y coordinate of the region.
+     * @param width  the width of the region.
+     * @param height the height of the region.
+     * @return the palette indexes of the region, of length width * height.
+     * @throws ArrayIndexOutOfBoundsException if the region is not inside the
+     *                                        image.
+     */
+    public static byte[] quantize(BufferedImage image, int x, int y, int width, int height) {
+        byte[] indexes = new byte[width * height];
+        int[] row = new int[width];
+        for (int j = 0; j < height; j++) {
+            image.getRGB(x, y + j, width, 1, row, 0, width);
+            int offset = j * width;
+            for (int i = 0; i < width; i++) {
+                indexes[offset + i] = indexOf(row[i]);
+            }
+        }
+        return indexes;
+    }
+
+    private static int key(int red, int green, int blue) {
+        return ((red & 0xFF) >>> SHIFT) << (2 * BITS) | ((green & 0xFF) >>> SHIFT) << BITS | (blue & 0xFF) >>> SHIFT;
+    }
+
+    /**
+     * Builds the table only when it is first needed.
+     */
+    private static class Holder {
+
+        private static final byte[] TABLE = build();
+
+        @SuppressWarnings("deprecation")
+        private static byte[] build() {
+            byte[] table = new byte[1 << (3 * BITS)];
+            int half = SHIFT == 0 ? 0 : 1 << (SHIFT - 1);
+            for (int red = 0; red <= MASK; red++) {
+                for (int green = 0; green <= MASK; green++) {
+                    for (int blue = 0; blue <= MASK; blue++) {
+                        // the center of the range of colors sharing this entry
+                        Color color = new Color(red << SHIFT | half, green << SHIFT | half, blue << SHIFT | half);
+                        table[red << (2 * BITS) | green << BITS | blue] = MapPalette.matchColor(color);
+                    }
+                }
+            }
+            return table;
+        }
+
+    }
+
+}
@@ -3,17 +3,21 @@ package net.stardust.base.media.map;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
 
+import org.bukkit.map.MapPalette;
 import org.bytedeco.javacv.Frame;
 import org.bytedeco.javacv.Java2DFrameConverter;
 
 import net.stardust.base.media.ImageAlignStrategy;
-import net.stardust.base.media.ImageAlignStrategy.ConstantStrategy;
 import net.stardust.base.media.ImageAlignStrategy.ImageAlignStrategyEnum;
 import net.stardust.base.media.VideoFramer;
 import net.stardust.base.utils.ranges.Ranges;
@@ -25,15 +29,43 @@ import net.stardust.base.utils.ranges.Ranges;
  * documentation. For a video in only 1 map, {@link MapVideo}
  * is recommended.
  * 
+ * <p>
+ * Frames are grids of {@link MapFrame}s, indexed as {@code [x][y]}, one
+ * for each map of the wall. Each frame is sliced straight into the palette
+ * indexes of every map, in parallel for walls of at least
+ * {@link #PARALLEL_THRESHOLD} maps, and every map is compared with its
+ * previous frame, so maps that did not change are not drawn again when
+ * played through {@link MapVideoRenderer}s.
+ * </p>
+ * 
  * @see VideoFramer
  * @see MapVideo
+ * @see MapFrame
  * 
  * @author Sergio Luis
  */
-public class WallMapVideo extends VideoFramer<MapImage[][]> {
+public class WallMapVideo extends VideoFramer<MapFrame[][]> {
+
+    /**
+     * The amount of maps from which the maps of a frame are converted in
+     * parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 4;
+
+    private static final byte[] EMPTY_PIXELS = new byte[MapImage.MINECRAFT_DEFAULT_MAP_SIZE
+            * MapImage.MINECRAFT_DEFAULT_MAP_SIZE];
+    private static final ThreadLocal<int[]> ROW = ThreadLocal
+            .withInitial(() -> new int[MapImage.MINECRAFT_DEFAULT_MAP_SIZE]);
+
+    static {
+        Arrays.fill(EMPTY_PIXELS, MapPalette.TRANSPARENT);
+    }
 
     private volatile ImageAlignStrategy strategy;
 
+    // only touched by sequenceFrame, which is never called concurrently
+    private MapFrame[][] previous;
+
     private int wallWidth, wallHeight; // Dimensions of the wall in map unities
     private int screenWidth, screenHeight; // Dimensions of the entire screen in pixels
 
@@ -98,9 +130,27 @@ public class WallMapVideo extends VideoFramer<MapImage[][]> {
     }
 
     @Override
-    protected MapImage[][] convertFrame(Java2DFrameConverter converter, Frame frame) {
-        BufferedImage image = converter.convert(frame);
+    protected MapFrame[][] convertFrame(Java2DFrameConverter converter, Frame frame) {
+        BufferedImage image = scale(converter.convert(frame));
+        Point corner = strategy.getCorner(image.getWidth(), image.getHeight(), screenWidth, screenHeight);
 
+        MapFrame[][] convertedFrame = new MapFrame[wallWidth][wallHeight];
+        forEachMap((i, j) -> convertedFrame[i][j] = slice(image, corner, i, j));
+        return convertedFrame;
+    }
+
+    @Override
+    protected MapFrame[][] sequenceFrame(MapFrame[][] frame) {
+        MapFrame[][] last = previous;
+        forEachMap((i, j) -> frame[i][j] = frame[i][j].after(last == null ? null : last[i][j]));
+        previous = frame;
+        return frame;
+    }
+
+    /**
+     * Resizes the image to fit in the screen, if it is bigger.
+     */
+    private BufferedImage scale(BufferedImage image) {
         int width = image.getWidth();
         int height = image.getHeight();
 
@@ -126,46 +176,55 @@ public class WallMapVideo extends VideoFramer<MapImage[][]> {
 
             image = resized;
         }
-        
-        MapImage[][] convertedFrame = new MapImage[wallWidth][wallHeight];
-        Point corner = strategy.getCorner(width, height, screenWidth, screenHeight);
+
+        return image;
+    }
+
+    /**
+     * Converts the part of the image inside the map at the given position
+     * of the wall straight to palette indexes, without copying it to an
+     * image of its own first. Maps the image does not reach are cleared.
+     */
+    private static MapFrame slice(BufferedImage image, Point corner, int i, int j) {
         int mapSize = MapImage.MINECRAFT_DEFAULT_MAP_SIZE;
 
-        int firstFilledSquareHIndex = corner.x / mapSize;
-        int lastFilledSquareHIndex = (corner.x + width - 1) / mapSize;
-        int firstFilledSquareVIndex = corner.y / mapSize;
-        int lastFilledSquareVIndex = (corner.y + height - 1) / mapSize;
-
-        for (int i = 0; i < wallWidth; i++) {
-            for (int j = 0; j < wallHeight; j++) {
-                MapImage img = null;
-        
-                if (i >= firstFilledSquareHIndex && i <= lastFilledSquareHIndex
-                        && j >= firstFilledSquareVIndex && j <= lastFilledSquareVIndex) {
-                    int initialX = Math.max(corner.x, i * mapSize);
-                    int initialY = Math.max(corner.y, j * mapSize);
-                    int finalX = Math.min(corner.x + width, (i + 1) * mapSize);
-                    int finalY = Math.min(corner.y + height, (j + 1) * mapSize);
-        
-                    int fragmentWidth = finalX - initialX;
-                    int fragmentHeight = finalY - initialY;
-                    int imageX = initialX - corner.x;
-                    int imageY = initialY - corner.y;
-        
-                    BufferedImage fragment = image.getSubimage(imageX, imageY, fragmentWidth, fragmentHeight);
-        
-                    int fragmentCornerX = initialX % mapSize;
-                    int fragmentCornerY = initialY % mapSize;
-        
-                    img = new MapImage(fragment);
-                    img.setAlignStrategy(new ConstantStrategy(fragmentCornerX, fragmentCornerY));
-                }
-        
-                convertedFrame[i][j] = img != null ? img : new MapImage();
+        int initialX = Math.max(corner.x, i * mapSize);
+        int initialY = Math.max(corner.y, j * mapSize);
+        int finalX = Math.min(corner.x + image.getWidth(), (i + 1) * mapSize);
+        int finalY = Math.min(corner.y + image.getHeight(), (j + 1) * mapSize);
+
+        if (initialX >= finalX || initialY >= finalY) {
+            return MapFrame.of(EMPTY_PIXELS, new Rectangle(0, 0, mapSize, mapSize));
+        }
+
+        int fragmentWidth = finalX - initialX;
+        int fragmentHeight = finalY - initialY;
+        int fragmentCornerX = initialX - i * mapSize;
+        int fragmentCornerY = initialY - j * mapSize;
+
+        byte[] pixels = new byte[mapSize * mapSize];
+        int[] row = ROW.get();
+        for (int y = 0; y < fragmentHeight; y++) {
+            image.getRGB(initialX - corner.x, initialY - corner.y + y, fragmentWidth, 1, row, 0, fragmentWidth);
+            int offset = (fragmentCornerY + y) * mapSize + fragmentCornerX;
+            for (int x = 0; x < fragmentWidth; x++) {
+                pixels[offset + x] = PaletteTable.indexOf(row[x]);
             }
         }
 
-        return convertedFrame;
+        return MapFrame.of(pixels, new Rectangle(fragmentCornerX, fragmentCornerY, fragmentWidth, fragmentHeight));
+    }
+
+    /**
+     * Runs the action for every map of the wall, in parallel for big walls.
+     * Actions for different maps must not depend on each other.
+     */
+    private void forEachMap(BiConsumer<Integer, Integer> action) {
+        IntStream maps = IntStream.range(0, wallWidth * wallHeight);
+        if (wallWidth * wallHeight >= PARALLEL_THRESHOLD) {
+            maps = maps.parallel();
+        }
+        maps.forEach(map -> action.accept(map / wallHeight, map % wallHeight));
     }
 
     /**
@@ -11,15 +11,18 @@ import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import net.stardust.base.database.crud.MinigameDataCrud;
+import net.stardust.base.database.crud.MinigameStatsCrud;
 import net.stardust.base.database.crud.PlayerWalletCrud;
 import net.stardust.base.events.DefaultListener;
 import net.stardust.base.events.TrackerListener;
 import net.stardust.base.events.WorldListener;
 import net.stardust.base.model.economy.wallet.Currency;
+import net.stardust.base.model.economy.wallet.LedgerRequest;
 import net.stardust.base.model.economy.wallet.Money;
-import net.stardust.base.model.economy.wallet.PlayerWallet;
+import net.stardust.base.model.economy.wallet.WalletDelta;
 import net.stardust.base.model.minigame.MinigameData;
-import net.stardust.base.model.minigame.MinigamePlayer;
+import net.stardust.base.model.minigame.MinigameStats;
+import net.stardust.base.model.minigame.StatsDelta;
 import net.stardust.base.utils.FileDrawer;
 import net.stardust.base.utils.Throwables;
 import net.stardust.base.utils.gameplay.AutomaticMessages;
@@ -42,14 +45,13 @@ import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public abstract class Minigame implements Listener {
 
     public static final int DEFAULT_POST_MATCH_TIME = 5;
     protected static final MinigameDataCrud dataCrud = new MinigameDataCrud();
+    protected static final MinigameStatsCrud statsCrud = new MinigameStatsCrud();
 
     @Getter
     private MinigameInfo info;
@@ -161,24 +163,25 @@ public abstract class Minigame implements Listener {
         stopMatchStopwatch();
         MatchResult result = getMatchResult(winners, losers);
         if (result != MatchResult.NO_WINNERS) {
-            PlayerWalletCrud walletCrud = new PlayerWalletCrud();
-            MinigameData data = dataCrud.getOrThrow(info.name());
-            Map<UUID, PlayerWallet> wallets = walletCrud.getAll(winners.stream()
-                    .map(Player::getUniqueId)
-                    .toList())
-                    .stream()
-                    .collect(Collectors.toMap(PlayerWallet::getId, wallet -> wallet));
-            Map<UUID, MinigamePlayer> minigamePlayers = data.getMinigamePlayers();
+            List<Player> rewarded = result == MatchResult.NORMAL ? winners : getWorld().getPlayers();
+            List<Player> defeated = result == MatchResult.NORMAL ? losers : Collections.emptyList();
+            String name = info.name();
             BigInteger reward = new BigInteger(String.valueOf(info.reward()));
-            if (result == MatchResult.NORMAL) {
-                onNormalEnding(winners, losers, wallets, minigamePlayers, reward);
-            } else {
-                onDrawEnding(wallets, minigamePlayers, reward);
+            List<StatsDelta> stats = new ArrayList<>(rewarded.size() + defeated.size());
+            WalletDelta[] credits = new WalletDelta[rewarded.size()];
+            for (int i = 0; i < credits.length; i++) {
+                UUID uniqueId = rewarded.get(i).getUniqueId();
+                stats.add(StatsDelta.win(name, uniqueId));
+                credits[i] = WalletDelta.credit(uniqueId, Currency.SILVER, reward);
+            }
+            for (Player player : defeated) {
+                stats.add(StatsDelta.loss(name, player.getUniqueId()));
             }
-            final MinigameData finalData = data;
             PluginConfig.get().getPlugin().getVirtual().submit(() -> {
-                dataCrud.update(finalData);
-                walletCrud.updateAll(new ArrayList<>(wallets.values()));
+                statsCrud.increment(stats);
+                if (credits.length > 0) {
+                    new PlayerWalletCrud().apply(LedgerRequest.of(false, credits));
+                }
             });
         }
         sendEndMessages(winners, losers, result);
@@ -197,33 +200,6 @@ public abstract class Minigame implements Listener {
         }, 20 * postMatchTime);
     }
 
-    private void onNormalEnding(List<Player> winners, List<Player> losers, Map<UUID, PlayerWallet> wallets,
-            Map<UUID, MinigamePlayer> minigamePlayers, BigInteger reward) {
-        for (Player player : winners) {
-            UUID uniqueId = player.getUniqueId();
-            MinigamePlayer minigamePlayer = getMinigamePlayer(minigamePlayers, uniqueId);
-            minigamePlayer.setWins(minigamePlayer.getWins() + 1);
-            PlayerWallet wallet = wallets.get(uniqueId);
-            wallet.getSilver().add(reward);
-        }
-        for (Player player : losers) {
-            UUID uniqueId = player.getUniqueId();
-            MinigamePlayer minigamePlayer = getMinigamePlayer(minigamePlayers, uniqueId);
-            minigamePlayer.setLosses(minigamePlayer.getLosses() + 1);
-        }
-    }
-
-    private void onDrawEnding(Map<UUID, PlayerWallet> wallets, Map<UUID, MinigamePlayer> minigamePlayers,
-            BigInteger reward) {
-        for (Player player : getWorld().getPlayers()) {
-            UUID uniqueId = player.getUniqueId();
-            MinigamePlayer minigamePlayer = getMinigamePlayer(minigamePlayers, uniqueId);
-            minigamePlayer.setWins(minigamePlayer.getWins() + 1);
-            PlayerWallet wallet = wallets.get(uniqueId);
-            wallet.getSilver().add(reward);
-        }
-    }
-
     protected void sendEndMessages(List<Player> winners, List<Player> losers, MatchResult result) {
         switch (result) {
             case NORMAL -> {
@@ -252,15 +228,6 @@ public abstract class Minigame implements Listener {
         losersMessage.getMale().forEach(player -> player.sendMessage(losersMessage.getFemale()));
     }
 
-    private static MinigamePlayer getMinigamePlayer(Map<UUID, MinigamePlayer> minigamePlayers, UUID uniqueId) {
-        MinigamePlayer minigamePlayer = minigamePlayers.get(uniqueId);
-        if (minigamePlayer == null) {
-            minigamePlayer = new MinigamePlayer(uniqueId);
-            minigamePlayers.put(uniqueId, minigamePlayer);
-        }
-        return minigamePlayer;
-    }
-
     private static MatchResult getMatchResult(List<Player> winners, List<Player> losers) {
         if (winners.isEmpty()) {
             return losers.isEmpty() ? MatchResult.DRAW : MatchResult.NO_WINNERS;
@@ -270,46 +237,33 @@ public abstract class Minigame implements Listener {
 
     public CompletableFuture<Integer> getWins(Player player) {
         return CompletableFuture.supplyAsync(() -> getPlayerMatchResult(player,
-                MinigamePlayer::getWins, 0), PluginConfig.get().getPlugin().getVirtual());
+                MinigameStats::getWins, 0), PluginConfig.get().getPlugin().getVirtual());
     }
 
     public CompletableFuture<Integer> getLosses(Player player) {
         return CompletableFuture.supplyAsync(() -> getPlayerMatchResult(player,
-                MinigamePlayer::getLosses, 0), PluginConfig.get().getPlugin().getVirtual());
+                MinigameStats::getLosses, 0), PluginConfig.get().getPlugin().getVirtual());
     }
 
     public CompletableFuture<Float> getRatio(Player player) {
         return CompletableFuture.supplyAsync(() -> getPlayerMatchResult(player,
-                MinigamePlayer::getRatio, 0f), PluginConfig.get().getPlugin().getVirtual());
+                MinigameStats::getRatio, 0f), PluginConfig.get().getPlugin().getVirtual());
     }
 
     public void addWin(Player player) {
-        addPlayerMatchResult(player, MinigamePlayer::addWin);
+        addPlayerMatchResult(StatsDelta.win(getInfo().name(), player.getUniqueId()));
     }
 
     public void addLoss(Player player) {
-        addPlayerMatchResult(player, MinigamePlayer::addLoss);
-    }
-
-    private void addPlayerMatchResult(Player player, Consumer<MinigamePlayer> consumer) {
-        UUID playerId = player.getUniqueId();
-        PluginConfig.get().getPlugin().getVirtual().submit(() -> {
-            String name = getInfo().name();
-            MinigameData data = dataCrud.getOrNull(name);
-            Map<UUID, MinigamePlayer> minigamePlayers = data.getMinigamePlayers();
-            MinigamePlayer minigamePlayer = minigamePlayers.computeIfAbsent(playerId, MinigamePlayer::new);
-            consumer.accept(minigamePlayer);
-            dataCrud.update(data);
-        });
+        addPlayerMatchResult(StatsDelta.loss(getInfo().name(), player.getUniqueId()));
     }
 
-    private <T> T getPlayerMatchResult(Player player, Function<MinigamePlayer, T> fn, T defaultValue) {
-        return getMinigamePlayer(player).map(fn).orElse(defaultValue);
+    private void addPlayerMatchResult(StatsDelta delta) {
+        PluginConfig.get().getPlugin().getVirtual().submit(() -> statsCrud.increment(List.of(delta)));
     }
 
-    private Optional<MinigamePlayer> getMinigamePlayer(Player player) {
-        MinigameData data = dataCrud.getOrThrow(getInfo().name());
-        return Optional.ofNullable(data.getMinigamePlayers().get(player.getUniqueId()));
+    private <T> T getPlayerMatchResult(Player player, Function<MinigameStats, T> fn, T defaultValue) {
+        return Optional.ofNullable(statsCrud.of(getInfo().name(), player.getUniqueId())).map(fn).orElse(defaultValue);
     }
 
     void enterMatchProcess() {
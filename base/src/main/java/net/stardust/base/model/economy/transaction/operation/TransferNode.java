@@ -5,12 +5,15 @@ import java.util.List;
 
 import net.stardust.base.database.crud.PlayerWalletCrud;
 import net.stardust.base.model.economy.Cash;
+import net.stardust.base.model.economy.PlayerCash;
 import net.stardust.base.model.economy.storage.Storage;
 import net.stardust.base.model.economy.transaction.ItemNegotiators;
 import net.stardust.base.model.economy.transaction.ItemTransaction;
 import net.stardust.base.model.economy.transaction.Transaction;
+import net.stardust.base.model.economy.wallet.LedgerRequest;
 import net.stardust.base.model.economy.wallet.PlayerWallet;
 import net.stardust.base.model.economy.wallet.Wallet;
+import net.stardust.base.model.economy.wallet.WalletDelta;
 
 /**
  * <p>This operation transfers the money being negotiated
@@ -25,11 +28,14 @@ import net.stardust.base.model.economy.wallet.Wallet;
  * the seller or if the seller has items to sell to the buyer
  * etc... Use other {@link Operation} nodes to do that.</p>
  * 
- * <p>If the {@link Wallet} object returned by the negotiators
- * ({@link Cash#getWallet()}) is an instance of {@link PlayerWallet},
- * then a {@link PlayerWalletCrud} will be created to update wallets
- * in database. This is done directly, and because of that, it blocks
- * until the result is available; keep that in mind.</p>
+ * <p>Negotiators that are {@link PlayerCash}es have their
+ * {@link PlayerWallet}s changed by a single {@link LedgerRequest}
+ * sent through a {@link PlayerWalletCrud}, which debits and credits
+ * them atomically in the repository and rejects the transfer if the
+ * buyer no longer has the money. This is done directly, and because
+ * of that, it blocks until the result is available; keep that in
+ * mind. Other wallets are changed in memory, only after the ledger
+ * accepted the transfer.</p>
  * 
  * @see Transaction
  * @see ItemTransaction
@@ -55,9 +61,9 @@ public class TransferNode implements Operation {
      * 
      * @see TransferNode
      * @param transaction the transaction for execute transferencies
-     * @throws OperationFailedException if buyer or seller wallets are instances
-     * of {@link PlayerWallet} and {@link PlayerWalletCrud#updateAll(List)} returns
-     * false, meaning that it could not update the wallets in database
+     * @throws OperationFailedException if buyer or seller are instances
+     * of {@link PlayerCash} and {@link PlayerWalletCrud#apply(LedgerRequest)}
+     * returns false, meaning that the wallets were not changed
      */
     @Override
     public void execute(Transaction transaction) throws OperationFailedException {
@@ -70,23 +76,24 @@ public class TransferNode implements Operation {
         var buyer = pair.getBuyer();
         var seller = pair.getSeller();
 
-        var buyerWallet = buyer.getWallet();
-        var sellerWallet = seller.getWallet();
-        buyerWallet.getMoney(currency).subtract(value);
-        sellerWallet.getMoney(currency).add(value);
-
-        // Update wallets in database in case of some being a PlayerWallet
-        var crud = new PlayerWalletCrud();
-        List<PlayerWallet> list = new ArrayList<>();
-        if (buyerWallet instanceof PlayerWallet playerWallet) {
-            list.add(playerWallet);
+        // Player wallets are changed together by the ledger, in one round trip
+        List<WalletDelta> deltas = new ArrayList<>(2);
+        if (buyer instanceof PlayerCash playerCash) {
+            deltas.add(WalletDelta.debit(playerCash.getId(), currency, value));
         }
-        if (sellerWallet instanceof PlayerWallet playerWallet) {
-            list.add(playerWallet);
+        if (seller instanceof PlayerCash playerCash) {
+            deltas.add(WalletDelta.credit(playerCash.getId(), currency, value));
         }
-        if (!list.isEmpty() && !crud.updateAll(list)) {
+        if (!deltas.isEmpty()
+                && !new PlayerWalletCrud().apply(LedgerRequest.of(true, deltas.toArray(WalletDelta[]::new)))) {
             throw OperationFailedException.fromKey("could-not-transfer", this);
         }
+        if (!(buyer instanceof PlayerCash)) {
+            buyer.getWallet().getMoney(currency).subtract(value);
+        }
+        if (!(seller instanceof PlayerCash)) {
+            seller.getWallet().getMoney(currency).add(value);
+        }
 
         // Transfer items from seller to buyer in case of an ItemTransaction
         if (transaction instanceof ItemTransaction itemTransaction) {
@@ -0,0 +1,39 @@
+package net.stardust.base.model.economy.wallet;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A query to the wallet leaderboards of the repository, which rank the
+ * {@link PlayerWallet}s by the balance of each {@link Currency}, richest
+ * first. A query either asks for the rank of a wallet, when the wallet is
+ * not null, or for the wallets ranked from a position on.
+ *
+ * @param currency the currency of the leaderboard
+ * @param wallet   the id of the wallet to rank, or null
+ * @param from     the first rank, starting at 1
+ * @param size     the maximum amount of wallets
+ *
+ * @see RankedWallet
+ *
+ * @author Sergio Luis
+ */
+public record LeaderboardQuery(Currency currency, UUID wallet, int from, int size) implements Serializable {
+
+    public LeaderboardQuery {
+        Objects.requireNonNull(currency, "currency");
+        if(wallet == null && (from < 1 || size < 0)) {
+            throw new IllegalArgumentException("Invalid range: from " + from + ", size " + size);
+        }
+    }
+
+    public static LeaderboardQuery range(Currency currency, int from, int size) {
+        return new LeaderboardQuery(currency, null, from, size);
+    }
+
+    public static LeaderboardQuery rankOf(Currency currency, UUID wallet) {
+        return new LeaderboardQuery(currency, Objects.requireNonNull(wallet, "wallet"), 0, 0);
+    }
+
+}
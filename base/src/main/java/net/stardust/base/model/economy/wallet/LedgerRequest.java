@@ -0,0 +1,48 @@
+package net.stardust.base.model.economy.wallet;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A set of {@link WalletDelta}s the wallet ledger of the repository applies
+ * atomically: either every delta is applied and journaled or none is.
+ *
+ * <p>
+ * The transaction id makes the request idempotent, so a client that did
+ * not receive the response can send the same request again without
+ * applying it twice.
+ * </p>
+ *
+ * @param transaction  the unique id of this request
+ * @param deltas       the deltas to apply
+ * @param requireFunds if true, the request is rejected when a debit is
+ *                     larger than the balance; if false, such balances
+ *                     become zero, like {@link Money#subtract(java.math.BigInteger)}
+ *
+ * @see net.stardust.base.database.crud.PlayerWalletCrud#apply(LedgerRequest)
+ *
+ * @author Sergio Luis
+ */
+public record LedgerRequest(UUID transaction, ArrayList<WalletDelta> deltas, boolean requireFunds)
+        implements Serializable {
+
+    public LedgerRequest {
+        Objects.requireNonNull(transaction, "transaction");
+        Objects.requireNonNull(deltas, "deltas");
+    }
+
+    /**
+     * Creates a request with a random transaction id.
+     *
+     * @param requireFunds whether debits larger than the balance are rejected
+     * @param deltas       the deltas to apply
+     * @return the request
+     */
+    public static LedgerRequest of(boolean requireFunds, WalletDelta... deltas) {
+        return new LedgerRequest(UUID.randomUUID(), new ArrayList<>(Arrays.asList(deltas)), requireFunds);
+    }
+
+}
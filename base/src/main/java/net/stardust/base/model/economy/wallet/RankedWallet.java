@@ -0,0 +1,19 @@
+package net.stardust.base.model.economy.wallet;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.UUID;
+
+/**
+ * A wallet at a rank of a wallet leaderboard.
+ *
+ * @param rank    the rank, starting at 1
+ * @param wallet  the id of the wallet
+ * @param balance the balance of the currency of the leaderboard
+ *
+ * @see LeaderboardQuery
+ *
+ * @author Sergio Luis
+ */
+public record RankedWallet(int rank, UUID wallet, BigInteger balance) implements Serializable {
+}
@@ -0,0 +1,52 @@
+package net.stardust.base.model.economy.wallet;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A signed change of the balance of one currency of a {@link PlayerWallet},
+ * applied by the wallet ledger of the repository. Positive amounts are
+ * credits and negative amounts are debits. An absolute delta sets the
+ * balance to its amount instead, under the same locks as every other
+ * delta, so it never overwrites a concurrent change of another balance.
+ *
+ * @param wallet   the id of the wallet
+ * @param currency the currency
+ * @param amount   the signed amount, or the new balance if absolute
+ * @param absolute whether the amount replaces the balance
+ *
+ * @see LedgerRequest
+ *
+ * @author Sergio Luis
+ */
+public record WalletDelta(UUID wallet, Currency currency, BigInteger amount, boolean absolute)
+        implements Serializable {
+
+    public WalletDelta {
+        Objects.requireNonNull(wallet, "wallet");
+        Objects.requireNonNull(currency, "currency");
+        Objects.requireNonNull(amount, "amount");
+        if (absolute && amount.signum() < 0) {
+            throw new IllegalArgumentException("balance cannot be negative: " + amount);
+        }
+    }
+
+    public WalletDelta(UUID wallet, Currency currency, BigInteger amount) {
+        this(wallet, currency, amount, false);
+    }
+
+    public static WalletDelta credit(UUID wallet, Currency currency, BigInteger amount) {
+        return new WalletDelta(wallet, currency, amount);
+    }
+
+    public static WalletDelta debit(UUID wallet, Currency currency, BigInteger amount) {
+        return new WalletDelta(wallet, currency, amount.negate());
+    }
+
+    public static WalletDelta set(UUID wallet, Currency currency, BigInteger balance) {
+        return new WalletDelta(wallet, currency, balance, true);
+    }
+
+}
@@ -20,6 +20,13 @@ import lombok.NoArgsConstructor;
 import net.stardust.base.database.BaseEntity;
 import net.stardust.base.model.StardustEntity;
 
+/**
+ * The registration of a minigame. Player statistics are kept in
+ * {@link MinigameStats} rows; the player map is only read once by the
+ * repository, which moves its content into those rows and empties it.
+ *
+ * @author Sergio Luis
+ */
 @Getter
 @EqualsAndHashCode
 @NoArgsConstructor
@@ -33,6 +40,10 @@ public class MinigameData implements StardustEntity<String> {
     @Column(name = "id")
     private String minigameName;
 
+    /**
+     * Statistics stored before {@link MinigameStats} existed, empty once
+     * migrated.
+     */
     @Exclude
     @OneToMany(cascade = CascadeType.ALL)
     @JoinTable(
@@ -0,0 +1,125 @@
+package net.stardust.base.model.minigame;
+
+import java.util.Objects;
+import java.util.UUID;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import net.stardust.base.database.BaseEntity;
+import net.stardust.base.database.Indexed;
+import net.stardust.base.model.StardustEntity;
+
+/**
+ * The statistics of a player in a minigame, stored as a row of its own
+ * keyed by {@link #idOf(String, UUID)}, so a match only reads and writes
+ * the rows of the players who played it. Rows are created and changed by
+ * the statistics counter of the repository, through {@link StatsDelta}s.
+ *
+ * @see net.stardust.base.database.crud.MinigameStatsCrud
+ *
+ * @author Sergio Luis
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@BaseEntity(String.class)
+@Entity
+@Table(name = "minigame_stats", indexes = @Index(name = "minigame_stats_minigame", columnList = "minigame"))
+public class MinigameStats implements StardustEntity<String>, Comparable<MinigameStats>, Cloneable {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String minigame;
+
+    private UUID player;
+    private int wins, losses;
+
+    public MinigameStats(String minigame, UUID player) {
+        this(minigame, player, 0, 0);
+    }
+
+    public MinigameStats(String minigame, UUID player, int wins, int losses) {
+        this.minigame = Objects.requireNonNull(minigame, "minigame");
+        this.player = Objects.requireNonNull(player, "player");
+        id = idOf(minigame, player);
+        setWins(wins);
+        setLosses(losses);
+    }
+
+    /**
+     * Returns the id of the statistics of the player in the minigame.
+     *
+     * @param minigame the name of the minigame
+     * @param player   the id of the player
+     * @return the id
+     */
+    public static String idOf(String minigame, UUID player) {
+        return minigame + "/" + player;
+    }
+
+    public void setWins(int wins) {
+        if(wins < 0) {
+            throw new IllegalArgumentException("wins < 0");
+        }
+        this.wins = wins;
+    }
+
+    public void setLosses(int losses) {
+        if(losses < 0) {
+            throw new IllegalArgumentException("losses < 0");
+        }
+        this.losses = losses;
+    }
+
+    /**
+     * Adds the counts of the delta, which must be of these statistics.
+     *
+     * @param delta the delta
+     * @throws IllegalArgumentException if the delta is of other statistics
+     *                                  or would make a count negative
+     */
+    public void apply(StatsDelta delta) {
+        if(!id.equals(delta.id())) {
+            throw new IllegalArgumentException("Delta of " + delta.id() + " applied to " + id);
+        }
+        setWins(Math.addExact(wins, delta.wins()));
+        setLosses(Math.addExact(losses, delta.losses()));
+    }
+
+    public int getTotalMatches() {
+        return wins + losses;
+    }
+
+    public float getRatio() {
+        return (float) wins / losses;
+    }
+
+    @Override
+    public int compareTo(MinigameStats o) {
+        int ofWins = Integer.compare(wins, o.wins);
+        if(ofWins == 0) {
+            return Integer.compare(o.losses, losses);
+        }
+        return ofWins;
+    }
+
+    @Override
+    public MinigameStats clone() {
+        return new MinigameStats(minigame, player, wins, losses);
+    }
+
+    @Override
+    public String getEntityId() {
+        return id;
+    }
+
+}
@@ -0,0 +1,45 @@
+package net.stardust.base.model.minigame;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * An increment of the {@link MinigameStats} of a player in a minigame,
+ * applied atomically by the statistics counter of the repository, which
+ * creates the statistics if the player has none yet.
+ *
+ * @param minigame the name of the minigame
+ * @param player   the id of the player
+ * @param wins     the wins to add
+ * @param losses   the losses to add
+ *
+ * @see net.stardust.base.database.crud.MinigameStatsCrud#increment(java.util.List)
+ *
+ * @author Sergio Luis
+ */
+public record StatsDelta(String minigame, UUID player, int wins, int losses) implements Serializable {
+
+    public StatsDelta {
+        Objects.requireNonNull(minigame, "minigame");
+        Objects.requireNonNull(player, "player");
+    }
+
+    public static StatsDelta win(String minigame, UUID player) {
+        return new StatsDelta(minigame, player, 1, 0);
+    }
+
+    public static StatsDelta loss(String minigame, UUID player) {
+        return new StatsDelta(minigame, player, 0, 1);
+    }
+
+    /**
+     * Returns the id of the statistics this delta increments.
+     *
+     * @return the id, as in {@link MinigameStats#idOf(String, UUID)}
+     */
+    public String id() {
+        return MinigameStats.idOf(minigame, player);
+    }
+
+}
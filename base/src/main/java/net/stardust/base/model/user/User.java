@@ -4,6 +4,7 @@ import java.util.UUID;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -12,6 +13,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import net.stardust.base.database.BaseEntity;
+import net.stardust.base.database.Indexed;
 import net.stardust.base.model.StardustEntity;
 import net.stardust.base.utils.security.PasswordEncryption;
 import net.stardust.base.utils.security.PasswordException;
@@ -22,7 +24,7 @@ import net.stardust.base.utils.security.PasswordException;
 @NoArgsConstructor
 @BaseEntity(UUID.class)
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "users_name", columnList = "name"))
 public class User implements StardustEntity<UUID>, Cloneable, PlayerIdentifierProvider {
     
     @Id
@@ -30,7 +32,11 @@ public class User implements StardustEntity<UUID>, Cloneable, PlayerIdentifierPr
     private long registered;
 
     @Setter
-    private String name, email;
+    @Indexed
+    private String name;
+
+    @Setter
+    private String email;
 
     private byte[] salt, password;
 
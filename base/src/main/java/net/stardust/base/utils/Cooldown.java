@@ -1,21 +1,37 @@
 package net.stardust.base.utils;
 
 import net.stardust.base.Communicable;
+import net.stardust.base.utils.TimerWheel.Timeout;
 import net.stardust.base.utils.plugin.PluginConfig;
 
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * A countdown that runs a {@link CooldownTask} when it ends, or once per
+ * unit of time until it ends with {@link #startRepeat(int, TimeUnit)}.
+ * Cooldowns are scheduled in a {@link TimerWheel} shared by all of them,
+ * so a running cooldown costs no thread, and tasks ending in the same tick
+ * run together, synchronous ones in a single task of the main thread.
+ * Times are rounded up to ticks.
+ *
+ * @see TimerWheel
+ *
+ * @author Sergio Luis
+ */
 public class Cooldown implements Communicable {
 
-    private static ExecutorService service = Executors.newVirtualThreadPerTaskExecutor();
+    private static final TimerWheel WHEEL = new TimerWheel();
+    private static final Executor ASYNC_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Executor SYNC_EXECUTOR = command -> StardustThreads.run(PluginConfig.get().getPlugin(),
+            command);
 
     private boolean sync;
     private CooldownTask task;
     private AtomicBoolean running, canceled;
+    private volatile Timeout timeout;
 
     public Cooldown(boolean sync) {
         this(sync, null);
@@ -30,54 +46,47 @@ public class Cooldown implements Communicable {
 
     public void start(int time, TimeUnit unit) {
         if (tryStart(time, unit)) {
-            service.submit(() -> {
+            timeout = WHEEL.schedule(TimerWheel.toTicks(time, unit), () -> {
                 try {
-                    Thread.sleep(unit.toMillis(time));
-                } catch (InterruptedException e) {
-                    Throwables.send(getId(), e);
-                    complete();
-                    return;
-                }
-                if (!canceled.get() && task != null) {
-                    if (sync) {
-                        StardustThreads.run(PluginConfig.get().getPlugin(), () -> task.execute(0, unit));
-                    } else {
+                    if (!canceled.get() && task != null) {
                         task.execute(0, unit);
                     }
+                } finally {
+                    complete();
                 }
-                complete();
-            });
+            }, executor());
         }
     }
 
     public void startRepeat(int time, TimeUnit unit) {
         if (tryStart(time, unit)) {
-            service.submit(() -> {
-                AtomicInteger remainingTime = new AtomicInteger(time);
-                long sleepTime = unit.toMillis(1);
-                while (remainingTime.get() >= 0) {
-                    final int t = remainingTime.get();
-                    if (canceled.get()) break;
-                    if (task != null) {
-                        if (sync && StardustThreads.call(PluginConfig.get()
-                                .getPlugin(), () -> task.execute(t, unit))) break;
-                        if (task.execute(t, unit)) break;
-                    }
-                    if (t == 0) break;
-                    remainingTime.decrementAndGet();
-                    try {
-                        Thread.sleep(sleepTime);
-                    } catch (InterruptedException e) {
-                        Throwables.send(getId(), e);
-                        complete();
-                        return;
-                    }
-                }
-                complete();
-            });
+            step(time, time, unit, WHEEL.getTick(), Math.max(TimerWheel.toTicks(1, unit), 1));
         }
     }
 
+    /**
+     * Schedules the call of the task with the given remaining time, at the
+     * tick it is due counting from the start, so delays do not add up.
+     */
+    private void step(int remainingTime, int time, TimeUnit unit, long start, long stepTicks) {
+        timeout = WHEEL.scheduleAt(start + (time - remainingTime) * stepTicks, () -> {
+            boolean stop = true;
+            try {
+                stop = canceled.get() || (task != null && task.execute(remainingTime, unit)) || remainingTime == 0;
+            } finally {
+                if (stop) {
+                    complete();
+                } else {
+                    step(remainingTime - 1, time, unit, start, stepTicks);
+                }
+            }
+        }, executor());
+    }
+
+    private Executor executor() {
+        return sync ? SYNC_EXECUTOR : ASYNC_EXECUTOR;
+    }
+
     private boolean tryStart(int time, TimeUnit unit) {
         if (running.get()) return false;
         if (time <= 0) throw new IllegalArgumentException("time must be greater than zero");
@@ -89,6 +98,8 @@ public class Cooldown implements Communicable {
     public void cancel() {
         if (!running.get()) return;
         canceled.set(true);
+        Timeout timeout = this.timeout;
+        if (timeout != null && timeout.cancel()) complete();
     }
 
     private void complete() {
@@ -139,7 +150,7 @@ public class Cooldown implements Communicable {
          *
          * @param remainingTime the remaining time to end the cooldown.
          *                      It belongs to the interval [0, initialTime].
-         * @param unit          the time unit used in {@link Thread#sleep(long)}
+         * @param unit          the time unit of the remaining time
          * @return <code>true</code> if the cooldown should cancel,
          * <code>false</code> otherwise.
          */
@@ -17,6 +17,12 @@ import java.util.Objects;
  * {@link java.io.Externalizable} as specified in the documentation of
  * {@link java.io.ObjectInputStream} and {@link java.io.ObjectOutputStream},
  * the same exceptions are thrown.
+ *
+ * <p>
+ * Data persisted by Stardust should be written by
+ * {@link net.stardust.base.utils.codec.BinaryCodec} instead, which is far
+ * more compact and still reads data written by this class.
+ * </p>
  * 
  * @author Sergio Luis
  */
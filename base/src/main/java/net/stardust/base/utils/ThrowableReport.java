@@ -0,0 +1,25 @@
+package net.stardust.base.utils;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A throwable sent to the throwable manager plugin by {@link Throwables},
+ * standing for all throwables of the same type and stack trace sent by the
+ * same sender in a reporting window.
+ *
+ * @param sender    the sender, or null.
+ * @param throwable the first throwable of the window.
+ * @param count     the amount of throwables in the window.
+ * @param first     the time the first one was sent, in epoch milliseconds.
+ * @param last      the time the last one was sent, in epoch milliseconds.
+ *
+ * @author Sergio Luis
+ */
+public record ThrowableReport(String sender, Throwable throwable, int count, long first, long last)
+        implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+}
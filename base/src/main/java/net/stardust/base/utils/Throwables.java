@@ -4,19 +4,89 @@ import br.sergio.comlib.Communication;
 import br.sergio.comlib.Request;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utility class to send throwables to the throwable manager plugin.
  * It is recommended to always send a throwable if it is not expected
  * in the context.
  *
+ * <p>
+ * Sending a throwable only puts it in a bounded queue, so the failing
+ * thread never waits for the throwable manager. A daemon thread, run
+ * between {@link #start()} and {@link #stop()}, collects
+ * the queue for {@link #WINDOW_MILLIS} milliseconds after the first
+ * throwable arrives, merges the throwables of the same sender, type and
+ * stack trace into a single {@link ThrowableReport} with their count, and
+ * sends the reports in one request. Throwables sent while the queue is
+ * full are dropped and their amount is reported in the next request.
+ * </p>
+ *
  * @author Sergio Luis
  */
 public final class Throwables {
 
+    /**
+     * The time throwables are collected before being sent, in milliseconds.
+     */
+    public static final long WINDOW_MILLIS = 1000;
+
+    /**
+     * The maximum amount of throwables waiting to be collected.
+     */
+    public static final int QUEUE_CAPACITY = 1024;
+
+    private static final int MAX_CAUSES = 8;
+
+    private static final BlockingQueue<Pending> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final Object REPORT_LOCK = new Object();
+
+    private static Thread reporter;
+
     private Throwables() {
     }
 
+    /**
+     * Starts the reporter thread, if it is not running. Plugins call this
+     * method when enabled.
+     */
+    public static synchronized void start() {
+        if (reporter != null && reporter.isAlive()) {
+            return;
+        }
+        reporter = StardustThreads.DAEMON_FACTORY.newThread(Throwables::report);
+        reporter.setName("Stardust Throwables Reporter");
+        reporter.start();
+    }
+
+    /**
+     * Interrupts the reporter thread and waits for it to send what it had
+     * collected. Throwables still in the queue are left to {@link #flush()}.
+     * Plugins call this method when disabled, before flushing.
+     *
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void stop(long timeoutMillis) throws InterruptedException {
+        Thread stopped;
+        synchronized (Throwables.class) {
+            stopped = reporter;
+            reporter = null;
+        }
+        if (stopped != null) {
+            stopped.interrupt();
+            stopped.join(timeoutMillis);
+        }
+    }
+
     /**
      * Prints the stack trace of a throwable to an output stream.
      * The stream is closed inside this method.
@@ -61,8 +131,8 @@ public final class Throwables {
     }
 
     /**
-     * Sends a throwable to the throwable manager plugin. If the plugin
-     * is not active, this method will fail silently.
+     * Sends a throwable to the throwable manager plugin, in the background.
+     * If the plugin is not active, this method will fail silently.
      *
      * @param sender the sender.
      * @param t      the throwable.
@@ -70,12 +140,98 @@ public final class Throwables {
      * @return the throwable.
      */
     public static <T extends Throwable> T send(String sender, T t) {
+        if (!QUEUE.offer(new Pending(sender, t, System.currentTimeMillis()))) {
+            DROPPED.incrementAndGet();
+        }
+        return t;
+    }
+
+    /**
+     * Sends the throwables waiting in the queue now, in the calling thread.
+     * Plugins call this method when disabled, so no throwable is lost.
+     */
+    public static void flush() {
+        synchronized (REPORT_LOCK) {
+            List<Pending> pending = new ArrayList<>();
+            QUEUE.drainTo(pending);
+            ship(pending);
+        }
+    }
+
+    /**
+     * Loop of the reporter thread.
+     */
+    private static void report() {
+        List<Pending> pending = new ArrayList<>();
+        while (true) {
+            try {
+                pending.add(QUEUE.take());
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WINDOW_MILLIS);
+                for (long left; (left = end - System.nanoTime()) > 0;) {
+                    Pending next = QUEUE.poll(left, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        pending.add(next);
+                        QUEUE.drainTo(pending);
+                    }
+                }
+                synchronized (REPORT_LOCK) {
+                    ship(pending);
+                }
+            } catch (InterruptedException e) {
+                // stopped, so what was collected is sent now
+                synchronized (REPORT_LOCK) {
+                    ship(pending);
+                }
+                return;
+            } catch (RuntimeException e) {
+                // nowhere left to report it
+            } finally {
+                pending.clear();
+            }
+        }
+    }
+
+    /**
+     * Merges the throwables with the same fingerprint and sends the reports
+     * in a single request.
+     */
+    private static void ship(List<Pending> pending) {
+        long dropped = DROPPED.getAndSet(0);
+        if (pending.isEmpty() && dropped == 0) {
+            return;
+        }
+        Map<List<Object>, ThrowableReport> reports = new LinkedHashMap<>();
+        for (Pending p : pending) {
+            reports.merge(fingerprint(p), new ThrowableReport(p.sender(), p.throwable(), 1, p.time(), p.time()),
+                    (first, next) -> new ThrowableReport(first.sender(), first.throwable(), first.count() + 1,
+                            first.first(), next.last()));
+        }
+        ArrayList<ThrowableReport> batch = new ArrayList<>(reports.values());
+        if (dropped > 0) {
+            long now = System.currentTimeMillis();
+            IllegalStateException e = new IllegalStateException(dropped + " throwables dropped, reporting queue full");
+            batch.add(new ThrowableReport(null, e, (int) Math.min(dropped, Integer.MAX_VALUE), now, now));
+        }
         try {
-            Communication.send(Request.noMethodRequest(sender, "throwables", t));
+            Communication.send(Request.noMethodRequest(null, "throwables", batch));
         } catch (Exception e) {
-            t.addSuppressed(e);
+            // the throwable manager is not active
         }
-        return t;
+    }
+
+    /**
+     * Returns the sender, the types and the stack traces of the throwable
+     * and its causes.
+     */
+    private static List<Object> fingerprint(Pending pending) {
+        List<Object> fingerprint = new ArrayList<>();
+        fingerprint.add(String.valueOf(pending.sender()));
+        Throwable t = pending.throwable();
+        for (int i = 0; t != null && i < MAX_CAUSES; i++, t = t.getCause()) {
+            fingerprint.add(t.getClass());
+            fingerprint.add(List.of(t.getStackTrace()));
+        }
+        return fingerprint;
     }
 
     /**
@@ -135,4 +291,7 @@ public final class Throwables {
         }
     }
 
+    private record Pending(String sender, Throwable throwable, long time) {
+    }
+
 }
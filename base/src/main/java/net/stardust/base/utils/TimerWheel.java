@@ -0,0 +1,354 @@
+package net.stardust.base.utils;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.stardust.base.Communicable;
+
+/**
+ * <p>
+ * Hierarchical timing wheel that runs tasks after a given amount of ticks
+ * of {@link #TICK_MILLIS} milliseconds, the time of a Minecraft tick. A
+ * single daemon thread advances the wheel once per tick, so any amount of
+ * scheduled tasks costs no thread while waiting.
+ * </p>
+ *
+ * <p>
+ * The wheel has {@link #LEVELS} levels of {@link #SLOTS} slots each. A
+ * task is placed in the slot of the lowest level that covers its deadline,
+ * and the slots of higher levels are moved down as the wheel turns, so
+ * scheduling and cancelling take constant time and each tick only visits
+ * the tasks expiring in it. Deadlines beyond the last level wait in it and
+ * are placed again every time it turns.
+ * </p>
+ *
+ * <p>
+ * Tasks expiring in the same tick are run in batches: one task is submitted
+ * to each executor, running all tasks of that executor in the order they
+ * were scheduled. Tasks must be short, since the next tasks of the batch
+ * wait for them. This class is thread-safe.
+ * </p>
+ *
+ * @see Cooldown
+ *
+ * @author Sergio Luis
+ */
+public class TimerWheel implements Communicable, AutoCloseable {
+
+    /**
+     * The time of a tick in milliseconds.
+     */
+    public static final long TICK_MILLIS = 50;
+
+    /**
+     * The amount of levels of the wheel.
+     */
+    public static final int LEVELS = 4;
+
+    /**
+     * The amount of slots in each level of the wheel.
+     */
+    public static final int SLOTS = 64;
+
+    private static final int BITS = Integer.numberOfTrailingZeros(SLOTS);
+    private static final int MASK = SLOTS - 1;
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private final ReentrantLock lock;
+    private final Slot[][] wheel;
+    private final Slot due;
+    private final ScheduledExecutorService driver;
+    private volatile long tick;
+
+    /**
+     * Creates a wheel and starts turning it.
+     */
+    public TimerWheel() {
+        lock = new ReentrantLock();
+        wheel = new Slot[LEVELS][SLOTS];
+        for (Slot[] level : wheel) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Slot();
+            }
+        }
+        due = new Slot();
+        driver = Executors.newSingleThreadScheduledExecutor(StardustThreads.DAEMON_FACTORY);
+        driver.scheduleAtFixedRate(this::advance, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Converts a duration to ticks, rounding up.
+     *
+     * @param duration the duration.
+     * @param unit     the unit of the duration.
+     * @return the duration in ticks.
+     * @throws NullPointerException if unit is null.
+     */
+    public static long toTicks(long duration, TimeUnit unit) {
+        long millis = unit.toMillis(duration);
+        return millis / TICK_MILLIS + (millis % TICK_MILLIS > 0 ? 1 : 0);
+    }
+
+    /**
+     * Schedules a task to run after the given amount of ticks.
+     *
+     * @param ticks    the delay in ticks. A task with no delay runs in the
+     *                 next tick.
+     * @param task     the task.
+     * @param executor the executor to run the task.
+     * @return the timeout of the task, to cancel it.
+     * @throws NullPointerException if task or executor is null.
+     */
+    public Timeout schedule(long ticks, Runnable task, Executor executor) {
+        return scheduleAt(tick + Math.max(ticks, 0), task, executor);
+    }
+
+    /**
+     * Schedules a task to run in the given tick. Tasks whose tick has
+     * passed run in the next tick.
+     *
+     * @see #getTick()
+     * @param deadline the tick to run the task.
+     * @param task     the task.
+     * @param executor the executor to run the task.
+     * @return the timeout of the task, to cancel it.
+     * @throws NullPointerException if task or executor is null.
+     */
+    public Timeout scheduleAt(long deadline, Runnable task, Executor executor) {
+        Timeout timeout = new Timeout(deadline, Objects.requireNonNull(task, "task"),
+                Objects.requireNonNull(executor, "executor"));
+        lock.lock();
+        try {
+            place(timeout);
+        } finally {
+            lock.unlock();
+        }
+        return timeout;
+    }
+
+    /**
+     * Puts the timeout in the slot of the lowest level covering its deadline.
+     */
+    private void place(Timeout timeout) {
+        long delay = timeout.deadline - tick;
+        if (delay <= 0) {
+            due.add(timeout);
+            return;
+        }
+        long deadline = delay < SPAN ? timeout.deadline : tick + SPAN - 1;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        wheel[level][(int) (deadline >>> (BITS * level)) & MASK].add(timeout);
+    }
+
+    /**
+     * Turns the wheel one tick and runs the tasks expiring in it.
+     */
+    private void advance() {
+        List<Timeout> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            long now = tick + 1;
+            tick = now;
+            int top = 0;
+            while (top < LEVELS - 1 && (now & ((1L << (BITS * (top + 1))) - 1)) == 0) {
+                top++;
+            }
+            // higher levels first, so their tasks can still fall into lower slots turning now
+            for (int level = top; level > 0; level--) {
+                Slot slot = wheel[level][(int) (now >>> (BITS * level)) & MASK];
+                for (Timeout timeout; (timeout = slot.poll()) != null;) {
+                    place(timeout);
+                }
+            }
+            for (Timeout timeout; (timeout = due.poll()) != null;) {
+                expired.add(timeout);
+            }
+            Slot slot = wheel[0][(int) now & MASK];
+            for (Timeout timeout; (timeout = slot.poll()) != null;) {
+                expired.add(timeout);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!expired.isEmpty()) {
+            run(expired);
+        }
+    }
+
+    /**
+     * Submits one task to each executor running its expired tasks.
+     */
+    private void run(List<Timeout> expired) {
+        Map<Executor, List<Runnable>> batches = new IdentityHashMap<>();
+        for (Timeout timeout : expired) {
+            batches.computeIfAbsent(timeout.executor, executor -> new ArrayList<>()).add(timeout.task);
+        }
+        batches.forEach((executor, tasks) -> {
+            try {
+                executor.execute(() -> {
+                    for (Runnable task : tasks) {
+                        try {
+                            task.run();
+                        } catch (Throwable t) {
+                            Throwables.send(getId(), t);
+                        }
+                    }
+                });
+            } catch (Throwable t) {
+                Throwables.send(getId(), t);
+            }
+        });
+    }
+
+    /**
+     * Returns the amount of ticks the wheel turned since created.
+     *
+     * @return the current tick.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Stops turning the wheel. Scheduled tasks never run.
+     */
+    @Override
+    public void close() {
+        driver.shutdownNow();
+    }
+
+    /**
+     * A task scheduled in a {@link TimerWheel}.
+     *
+     * @author Sergio Luis
+     */
+    public final class Timeout {
+
+        private final long deadline;
+        private final Runnable task;
+        private final Executor executor;
+        private Slot slot;
+        private Timeout previous, next;
+        private boolean cancelled;
+
+        private Timeout(long deadline, Runnable task, Executor executor) {
+            this.deadline = deadline;
+            this.task = task;
+            this.executor = executor;
+        }
+
+        /**
+         * Cancels the task, if it did not expire yet.
+         *
+         * @return true if the task was cancelled and will never run.
+         */
+        public boolean cancel() {
+            lock.lock();
+            try {
+                if (slot == null) {
+                    return false;
+                }
+                slot.remove(this);
+                cancelled = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns whether the task was cancelled.
+         *
+         * @return true if {@link #cancel()} succeeded.
+         */
+        public boolean isCancelled() {
+            lock.lock();
+            try {
+                return cancelled;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns whether the task expired and was handed to its executor.
+         *
+         * @return true if the task expired.
+         */
+        public boolean isExpired() {
+            lock.lock();
+            try {
+                return slot == null && !cancelled;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the tick in which the task runs.
+         *
+         * @return the deadline tick.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+    }
+
+    /**
+     * Doubly linked list of the timeouts in a slot of the wheel, guarded
+     * by the lock of the wheel.
+     */
+    private static class Slot {
+
+        private Timeout head, tail;
+
+        void add(Timeout timeout) {
+            timeout.slot = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.slot = null;
+            timeout.previous = timeout.next = null;
+        }
+
+        Timeout poll() {
+            Timeout timeout = head;
+            if (timeout != null) {
+                remove(timeout);
+            }
+            return timeout;
+        }
+
+    }
+
+}
@@ -0,0 +1,218 @@
+package net.stardust.base.utils.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.stardust.base.utils.Serializer;
+
+/**
+ * Compact binary codec used instead of plain Java serialization to persist
+ * Stardust objects. Classes are written through registered {@link Schema}s
+ * and identified by numeric ids instead of class descriptors; integers are
+ * written as varints, {@link java.util.UUID}s as 16 bytes and
+ * {@link java.math.BigInteger}s that fit in a long as varints too.
+ *
+ * <p>
+ * Encoded data starts with a two-byte magic followed by the format version,
+ * so it can never be mistaken for a Java serialization stream, which starts
+ * with {@code 0xACED}. Decoding accepts both: legacy data written by
+ * {@link Serializer} is read transparently and gets rewritten in the new
+ * format the next time it is saved.
+ * </p>
+ *
+ * <p>
+ * The schemas of the model classes are registered by {@link ModelSchemas}.
+ * Objects without a schema are still encoded, nested as Java serialization,
+ * and a top-level object without a schema is written as plain Java
+ * serialization, so nothing that was persistable before stops being so.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @see Schema
+ * @see CodecOutput
+ * @see CodecInput
+ *
+ * @author Sergio Luis
+ */
+public final class BinaryCodec {
+
+    /**
+     * The format version written after the magic.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte MAGIC_0 = (byte) 0x53, MAGIC_1 = (byte) 0x44;
+    private static final byte LEGACY_0 = (byte) 0xAC, LEGACY_1 = (byte) 0xED;
+
+    private static final Map<Class<?>, Schema<?>> BY_CLASS = new ConcurrentHashMap<>();
+    private static final Map<Integer, Schema<?>> BY_ID = new ConcurrentHashMap<>();
+
+    static {
+        ModelSchemas.all().forEach(BinaryCodec::register);
+    }
+
+    /**
+     * Final utility class. Should never be instantiated.
+     */
+    private BinaryCodec() {}
+
+    /**
+     * Registers a schema.
+     *
+     * @param schema the schema
+     * @throws IllegalArgumentException if the id is negative or another
+     *                                  schema already uses its id or class
+     */
+    public static synchronized void register(Schema<?> schema) {
+        Objects.requireNonNull(schema, "schema");
+        if (schema.id() < 0) {
+            throw new IllegalArgumentException("Negative schema id: " + schema.id());
+        }
+        Schema<?> byId = BY_ID.get(schema.id());
+        Schema<?> byClass = BY_CLASS.get(schema.type());
+        if (byId != null || byClass != null) {
+            throw new IllegalArgumentException("Schema " + schema.id() + " for " + schema.type().getName()
+                    + " conflicts with " + (byId != null ? byId : byClass).type().getName());
+        }
+        BY_ID.put(schema.id(), schema);
+        BY_CLASS.put(schema.type(), schema);
+    }
+
+    static Schema<?> schemaOf(Class<?> type) {
+        return BY_CLASS.get(type);
+    }
+
+    static Schema<?> schemaOf(int id) throws IOException {
+        Schema<?> schema = BY_ID.get(id);
+        if (schema == null) {
+            throw new StreamCorruptedException("Unknown schema id " + id);
+        }
+        return schema;
+    }
+
+    /**
+     * Returns whether the class is written through a schema of its own
+     * rather than as Java serialization.
+     *
+     * @param type the class
+     * @return true if the class has a schema
+     */
+    public static boolean hasSchema(Class<?> type) {
+        return BY_CLASS.containsKey(type);
+    }
+
+    /**
+     * Encodes an object into a byte array.
+     *
+     * @param obj the object, may be null
+     * @return the encoded object
+     * @throws IOException if the object, or an object nested in it without
+     *                     a schema, is not serializable
+     */
+    public static byte[] encode(Object obj) throws IOException {
+        if (obj != null && !BY_CLASS.containsKey(obj.getClass()) && !isNative(obj)) {
+            return Serializer.serialize(obj);
+        }
+        CodecOutput out = new CodecOutput();
+        out.writeByte(MAGIC_0);
+        out.writeByte(MAGIC_1);
+        out.writeVarInt(FORMAT_VERSION);
+        out.writeValue(obj);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes an object into the stream, as described in
+     * {@link #encode(Object)}. The stream is not closed.
+     *
+     * @param obj the object, may be null
+     * @param out the stream
+     * @throws IOException if the object cannot be encoded or written
+     */
+    public static void encode(Object obj, OutputStream out) throws IOException {
+        out.write(encode(obj));
+        out.flush();
+    }
+
+    /**
+     * Decodes an object encoded by {@link #encode(Object)} or serialized
+     * by {@link Serializer}.
+     *
+     * @param data the encoded object
+     * @return the object
+     * @throws IOException if the data is malformed or references an
+     *                     unknown schema or class
+     */
+    public static Object decode(byte[] data) throws IOException {
+        if (isLegacy(data)) {
+            try {
+                return Serializer.deserialize(data);
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+        if (data.length < 3 || data[0] != MAGIC_0 || data[1] != MAGIC_1) {
+            throw new StreamCorruptedException("Not encoded by BinaryCodec");
+        }
+        CodecInput in = new CodecInput(data, 2, data.length - 2);
+        int version = in.readVarInt();
+        if (version != FORMAT_VERSION) {
+            throw new StreamCorruptedException("Unsupported format version " + version);
+        }
+        return in.readValue();
+    }
+
+    /**
+     * Decodes an object and casts it, as described in {@link #decode(byte[])}.
+     *
+     * @param <T>  the type
+     * @param data the encoded object
+     * @param type the class to cast the object to
+     * @return the object
+     * @throws IOException        if the data cannot be decoded
+     * @throws ClassCastException if the object is not of the class
+     */
+    public static <T> T decode(byte[] data, Class<T> type) throws IOException {
+        return type.cast(decode(data));
+    }
+
+    /**
+     * Reads the stream to its end and decodes its content, as described
+     * in {@link #decode(byte[])}. The stream is not closed.
+     *
+     * @param in the stream
+     * @return the object
+     * @throws IOException if the stream cannot be read or decoded
+     */
+    public static Object decode(InputStream in) throws IOException {
+        return decode(in.readAllBytes());
+    }
+
+    /**
+     * Returns whether the data is a Java serialization stream rather than
+     * data encoded by this codec.
+     *
+     * @param data the data
+     * @return true if the data is in the legacy format
+     */
+    public static boolean isLegacy(byte[] data) {
+        return data.length >= 2 && data[0] == LEGACY_0 && data[1] == LEGACY_1;
+    }
+
+    private static boolean isNative(Object obj) {
+        return !(obj instanceof Serializable) || obj instanceof String || obj instanceof Number
+                || obj instanceof Boolean || obj instanceof Character || obj instanceof java.util.UUID
+                || obj instanceof Enum<?> || obj instanceof byte[] || obj instanceof Map<?, ?>
+                || obj instanceof java.util.Collection<?>;
+    }
+
+}
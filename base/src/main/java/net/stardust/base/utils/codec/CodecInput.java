@@ -0,0 +1,246 @@
+package net.stardust.base.utils.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import net.stardust.base.utils.Serializer;
+
+/**
+ * Reader of the data written by a {@link CodecOutput}.
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @see BinaryCodec
+ *
+ * @author Sergio Luis
+ */
+public final class CodecInput {
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+
+    public CodecInput(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public CodecInput(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        position = offset;
+        limit = offset + length;
+    }
+
+    private void require(int amount) throws EOFException {
+        if (amount < 0 || limit - position < amount) {
+            throw new EOFException("Unexpected end of data");
+        }
+    }
+
+    public int readByte() throws IOException {
+        require(1);
+        return buffer[position++];
+    }
+
+    public byte[] readRaw(int length) throws IOException {
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    public int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    public long readZigZag() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readLong() throws IOException {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    public float readFloat() throws IOException {
+        require(4);
+        int bits = 0;
+        for (int i = 0; i < 4; i++) {
+            bits = (bits << 8) | (buffer[position++] & 0xFF);
+        }
+        return Float.intBitsToFloat(bits);
+    }
+
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public byte[] readBytes() throws IOException {
+        return readRaw(readVarInt());
+    }
+
+    public String readString() throws IOException {
+        int length = readVarInt();
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public UUID readUuid() throws IOException {
+        return new UUID(readLong(), readLong());
+    }
+
+    public BigInteger readBigInteger() throws IOException {
+        int length = readVarInt();
+        return length == 0 ? BigInteger.valueOf(readZigZag()) : new BigInteger(readRaw(length));
+    }
+
+    /**
+     * Reads a value written by {@link CodecOutput#writeValue(Object)}.
+     * Lists, sets and maps are read as {@link ArrayList},
+     * {@link LinkedHashSet} and {@link LinkedHashMap}.
+     *
+     * @return the value, may be null
+     * @throws IOException if the data is malformed, references an unknown
+     *                     schema or a class that cannot be loaded
+     */
+    public Object readValue() throws IOException {
+        int tag = readByte();
+        return switch (tag) {
+            case Tags.NULL -> null;
+            case Tags.FALSE -> Boolean.FALSE;
+            case Tags.TRUE -> Boolean.TRUE;
+            case Tags.BYTE -> (byte) readByte();
+            case Tags.SHORT -> (short) readZigZag();
+            case Tags.INT -> (int) readZigZag();
+            case Tags.LONG -> readZigZag();
+            case Tags.FLOAT -> readFloat();
+            case Tags.DOUBLE -> readDouble();
+            case Tags.CHAR -> (char) readVarInt();
+            case Tags.STRING -> readString();
+            case Tags.UUID -> readUuid();
+            case Tags.BIG_INTEGER -> readBigInteger();
+            case Tags.BIG_DECIMAL -> {
+                int scale = (int) readZigZag();
+                yield new BigDecimal(readBigInteger(), scale);
+            }
+            case Tags.BYTES -> readBytes();
+            case Tags.LIST -> {
+                int size = readSize();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                yield list;
+            }
+            case Tags.SET -> {
+                int size = readSize();
+                Set<Object> set = new LinkedHashSet<>();
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue());
+                }
+                yield set;
+            }
+            case Tags.MAP -> {
+                int size = readSize();
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(), readValue());
+                }
+                yield map;
+            }
+            case Tags.ENUM -> readEnum();
+            case Tags.OBJECT -> {
+                Schema<?> schema = BinaryCodec.schemaOf(readVarInt());
+                yield schema.read(this, readVarInt());
+            }
+            case Tags.JAVA -> {
+                try {
+                    yield Serializer.deserialize(readBytes());
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+            default -> throw new StreamCorruptedException("Unknown tag " + tag);
+        };
+    }
+
+    /**
+     * Reads a value with {@link #readValue()} and casts it.
+     *
+     * @param <T>  the expected type
+     * @param type the expected class
+     * @return the value, may be null
+     * @throws IOException if the value cannot be read or is of another type
+     */
+    public <T> T readValue(Class<T> type) throws IOException {
+        Object value = readValue();
+        if (value != null && !type.isInstance(value)) {
+            throw new StreamCorruptedException("Expected " + type.getName() + " but found "
+                    + value.getClass().getName());
+        }
+        return type.cast(value);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object readEnum() throws IOException {
+        String className = readString();
+        String name = readString();
+        try {
+            Class<?> type = Class.forName(className, false, CodecInput.class.getClassLoader());
+            if (!type.isEnum()) {
+                throw new StreamCorruptedException(className + " is not an enum");
+            }
+            return Enum.valueOf((Class) type, name);
+        } catch (ClassNotFoundException | IllegalArgumentException e) {
+            throw new IOException("Unknown enum constant " + className + "." + name, e);
+        }
+    }
+
+    private int readSize() throws IOException {
+        int size = readVarInt();
+        // every element takes at least one byte, which bounds corrupted sizes
+        require(size);
+        return size;
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+}
@@ -0,0 +1,273 @@
+package net.stardust.base.utils.codec;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.UUID;
+
+import net.stardust.base.utils.Serializer;
+
+/**
+ * Growable byte buffer that {@link Schema}s write into. Besides raw
+ * primitives, it writes variable-length integers (LEB128, with zigzag for
+ * signed values), so small numbers take a single byte, and self-describing
+ * values through {@link #writeValue(Object)}, which a {@link CodecInput}
+ * can read back or skip without knowing their type in advance.
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @see BinaryCodec
+ *
+ * @author Sergio Luis
+ */
+public final class CodecOutput {
+
+    private byte[] buffer;
+    private int size;
+
+    public CodecOutput() {
+        this(64);
+    }
+
+    public CodecOutput(int initialCapacity) {
+        buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + extra));
+        }
+    }
+
+    public void writeByte(int value) {
+        ensure(1);
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeRaw(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /**
+     * Writes an unsigned variable-length integer, taking 1 byte for values
+     * below 128, 2 below 16384 and so on.
+     *
+     * @param value the value, treated as unsigned
+     */
+    public void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes a signed variable-length integer, so small negative values
+     * are as short as small positive ones.
+     *
+     * @param value the value
+     */
+    public void writeZigZag(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeLong(long value) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    public void writeFloat(float value) {
+        int bits = Float.floatToIntBits(value);
+        ensure(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buffer[size++] = (byte) (bits >>> shift);
+        }
+    }
+
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeBytes(byte[] bytes) {
+        writeVarInt(bytes.length);
+        writeRaw(bytes);
+    }
+
+    public void writeString(String value) {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void writeUuid(UUID value) {
+        writeLong(value.getMostSignificantBits());
+        writeLong(value.getLeastSignificantBits());
+    }
+
+    /**
+     * Writes a BigInteger as a zigzag varint if it fits in a long, which is
+     * the common case for money, or as its two's complement bytes otherwise.
+     *
+     * @param value the value
+     */
+    public void writeBigInteger(BigInteger value) {
+        if (value.bitLength() < 64) {
+            writeVarInt(0);
+            writeZigZag(value.longValue());
+        } else {
+            byte[] bytes = value.toByteArray();
+            writeVarInt(bytes.length);
+            writeRaw(bytes);
+        }
+    }
+
+    /**
+     * Writes a value of any type preceded by a tag identifying it. Types
+     * with a registered {@link Schema} are written through it, together
+     * with the schema id and version; other {@link java.io.Serializable}
+     * types fall back to Java serialization.
+     *
+     * @param value the value, may be null
+     * @throws IOException if the value cannot be written
+     */
+    public void writeValue(Object value) throws IOException {
+        switch (value) {
+            case null -> writeByte(Tags.NULL);
+            case Boolean b -> writeByte(b ? Tags.TRUE : Tags.FALSE);
+            case Byte b -> {
+                writeByte(Tags.BYTE);
+                writeByte(b);
+            }
+            case Short s -> {
+                writeByte(Tags.SHORT);
+                writeZigZag(s);
+            }
+            case Integer i -> {
+                writeByte(Tags.INT);
+                writeZigZag(i);
+            }
+            case Long l -> {
+                writeByte(Tags.LONG);
+                writeZigZag(l);
+            }
+            case Float f -> {
+                writeByte(Tags.FLOAT);
+                writeFloat(f);
+            }
+            case Double d -> {
+                writeByte(Tags.DOUBLE);
+                writeDouble(d);
+            }
+            case Character c -> {
+                writeByte(Tags.CHAR);
+                writeVarInt(c);
+            }
+            case String s -> {
+                writeByte(Tags.STRING);
+                writeString(s);
+            }
+            case UUID u -> {
+                writeByte(Tags.UUID);
+                writeUuid(u);
+            }
+            case BigInteger b -> {
+                writeByte(Tags.BIG_INTEGER);
+                writeBigInteger(b);
+            }
+            case BigDecimal b -> {
+                writeByte(Tags.BIG_DECIMAL);
+                writeZigZag(b.scale());
+                writeBigInteger(b.unscaledValue());
+            }
+            case byte[] bytes -> {
+                writeByte(Tags.BYTES);
+                writeBytes(bytes);
+            }
+            case Enum<?> e -> writeEnum(e);
+            default -> writeObject(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Enum<E>> void writeEnum(Enum<?> value) throws IOException {
+        Schema<E> schema = (Schema<E>) BinaryCodec.schemaOf(value.getDeclaringClass());
+        if (schema != null) {
+            writeSchema(schema, (E) value);
+            return;
+        }
+        writeByte(Tags.ENUM);
+        writeString(value.getDeclaringClass().getName());
+        writeString(value.name());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void writeObject(T value) throws IOException {
+        Class<?> type = value.getClass();
+        Schema<T> schema = (Schema<T>) BinaryCodec.schemaOf(type);
+        if (schema != null) {
+            writeSchema(schema, value);
+        } else if (type == ArrayList.class) {
+            writeCollection(Tags.LIST, (Collection<?>) value);
+        } else if (type == HashSet.class || type == LinkedHashSet.class) {
+            writeCollection(Tags.SET, (Collection<?>) value);
+        } else if (type == HashMap.class || type == LinkedHashMap.class) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeByte(Tags.MAP);
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        } else {
+            writeByte(Tags.JAVA);
+            writeBytes(Serializer.serialize(value));
+        }
+    }
+
+    private <T> void writeSchema(Schema<T> schema, T value) throws IOException {
+        writeByte(Tags.OBJECT);
+        writeVarInt(schema.id());
+        writeVarInt(schema.version());
+        schema.write(this, value);
+    }
+
+    private void writeCollection(int tag, Collection<?> collection) throws IOException {
+        writeByte(tag);
+        writeVarInt(collection.size());
+        for (Object element : collection) {
+            writeValue(element);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+}
@@ -0,0 +1,143 @@
+package net.stardust.base.utils.codec;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+
+/**
+ * {@link Schema} that writes a fixed list of fields by reflection, for
+ * classes with a no-args constructor. Each field is written as its tag,
+ * which is its position in the list starting from 1, followed by its value
+ * written by {@link CodecOutput#writeValue(Object)}; null fields are
+ * omitted and a 0 ends the object.
+ *
+ * <p>
+ * Since values are self-describing, the layout evolves without a new
+ * version: new fields are appended to the list, and removed fields are
+ * replaced by null in the list so their tag is never reused. Values of
+ * unknown or removed tags are read and discarded, and fields missing from
+ * the data keep the value given by the constructor.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * new FieldSchema&lt;&gt;(8, User.class, "id", "registered", "name", "email", "salt", "password");
+ * </code>
+ * </pre>
+ *
+ * @param <T> the class
+ *
+ * @author Sergio Luis
+ */
+public class FieldSchema<T> implements Schema<T> {
+
+    private int id;
+    private Class<T> type;
+    private Constructor<T> constructor;
+    private Field[] fields;
+
+    /**
+     * Creates a schema for the named fields of the class, which may be
+     * declared by the class or by its superclasses.
+     *
+     * @param id     the schema id
+     * @param type   the class
+     * @param fields the field names in tag order, null for removed fields
+     * @throws IllegalArgumentException if the class has no no-args
+     *                                  constructor or a field does not exist,
+     *                                  is static or is transient
+     */
+    public FieldSchema(int id, Class<T> type, String... fields) {
+        this.id = id;
+        this.type = Objects.requireNonNull(type, "type");
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(type.getName() + " has no no-args constructor", e);
+        }
+        this.fields = new Field[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                this.fields[i] = field(type, fields[i]);
+            }
+        }
+    }
+
+    private static Field field(Class<?> type, String name) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(name);
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                    throw new IllegalArgumentException("Field " + name + " of " + type.getName()
+                            + " is static or transient");
+                }
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                // look into the superclass
+            }
+        }
+        throw new IllegalArgumentException("Unknown field " + name + " in " + type.getName());
+    }
+
+    @Override
+    public int id() {
+        return id;
+    }
+
+    @Override
+    public Class<T> type() {
+        return type;
+    }
+
+    @Override
+    public void write(CodecOutput out, T value) throws IOException {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] == null) {
+                    continue;
+                }
+                Object fieldValue = fields[i].get(value);
+                if (fieldValue != null) {
+                    out.writeVarInt(i + 1);
+                    out.writeValue(fieldValue);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+        out.writeVarInt(0);
+    }
+
+    @Override
+    public T read(CodecInput in, int version) throws IOException {
+        T value;
+        try {
+            value = constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Could not instantiate " + type.getName(), e);
+        }
+        for (int tag = in.readVarInt(); tag != 0; tag = in.readVarInt()) {
+            Object fieldValue = in.readValue();
+            if (tag < 0 || tag > fields.length || fields[tag - 1] == null) {
+                continue;
+            }
+            Field field = fields[tag - 1];
+            try {
+                field.set(value, fieldValue);
+            } catch (IllegalArgumentException | IllegalAccessException e) {
+                StreamCorruptedException exception = new StreamCorruptedException("Could not set "
+                        + field.getName() + " of " + type.getName());
+                exception.initCause(e);
+                throw exception;
+            }
+        }
+        return value;
+    }
+
+}
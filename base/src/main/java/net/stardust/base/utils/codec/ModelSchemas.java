@@ -0,0 +1,140 @@
+package net.stardust.base.utils.codec;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.inventory.ItemStack;
+
+import net.stardust.base.ServerIdentifier;
+import net.stardust.base.model.Identifier;
+import net.stardust.base.model.channel.ChannelStatus;
+import net.stardust.base.model.economy.sign.SignShopData;
+import net.stardust.base.model.economy.wallet.Currency;
+import net.stardust.base.model.economy.wallet.Money;
+import net.stardust.base.model.economy.wallet.PlayerWallet;
+import net.stardust.base.model.economy.wallet.Wallet;
+import net.stardust.base.model.gameplay.HabilityData;
+import net.stardust.base.model.minigame.MinigameData;
+import net.stardust.base.model.minigame.MinigamePlayer;
+import net.stardust.base.model.minigame.MinigameStats;
+import net.stardust.base.model.rpg.RPGPlayer;
+import net.stardust.base.model.terrain.Home;
+import net.stardust.base.model.terrain.Terrain;
+import net.stardust.base.model.user.PlayerIdentifier;
+import net.stardust.base.model.user.User;
+
+/**
+ * Schemas of the model classes registered by default in
+ * {@link BinaryCodec}. Ids are part of the persisted format: they must
+ * never change nor be reused, and new schemas take the next free id.
+ *
+ * @author Sergio Luis
+ */
+final class ModelSchemas {
+
+    private ModelSchemas() {}
+
+    static List<Schema<?>> all() {
+        return List.of(
+            new CustomSchema<>(1, Money.class, (out, money) -> {
+                out.writeByte(money.getCurrency().getOrder());
+                out.writeBigInteger(money.getValue());
+            }, in -> new Money(currency(in.readByte()), in.readBigInteger())),
+
+            new CustomSchema<>(2, Wallet.class, (out, wallet) -> {
+                out.writeBigInteger(wallet.getBronze().getValue());
+                out.writeBigInteger(wallet.getSilver().getValue());
+                out.writeBigInteger(wallet.getGold().getValue());
+            }, in -> new Wallet(in.readBigInteger(), in.readBigInteger(), in.readBigInteger())),
+
+            new CustomSchema<>(3, PlayerWallet.class, (out, wallet) -> {
+                out.writeUuid(wallet.getId());
+                out.writeBigInteger(wallet.getBronze().getValue());
+                out.writeBigInteger(wallet.getSilver().getValue());
+                out.writeBigInteger(wallet.getGold().getValue());
+            }, in -> new PlayerWallet(in.readUuid(), in.readBigInteger(), in.readBigInteger(), in.readBigInteger())),
+
+            new CustomSchema<>(4, PlayerIdentifier.class, (out, identifier) -> out.writeUuid(identifier.getId()),
+                in -> new PlayerIdentifier(in.readUuid())),
+
+            new CustomSchema<>(5, ServerIdentifier.class, (out, identifier) -> {}, in -> ServerIdentifier.INSTANCE),
+
+            new CustomSchema<>(6, Home.class, (out, home) -> {
+                Location location = home.getLocation();
+                out.writeUuid(home.getId());
+                out.writeString(home.getName());
+                out.writeString(location.getWorld().getName());
+                out.writeDouble(location.getX());
+                out.writeDouble(location.getY());
+                out.writeDouble(location.getZ());
+                out.writeFloat(location.getYaw());
+                out.writeFloat(location.getPitch());
+            }, in -> {
+                UUID id = in.readUuid();
+                String name = in.readString();
+                String worldName = in.readString();
+                World world = Bukkit.getWorld(worldName);
+                if(world == null) {
+                    throw new StreamCorruptedException("Unknown world of home " + name + ": " + worldName);
+                }
+                return new Home(id, name, new Location(world, in.readDouble(), in.readDouble(), in.readDouble(),
+                        in.readFloat(), in.readFloat()));
+            }),
+
+            new CustomSchema<>(7, SignShopData.class, (out, data) -> {
+                out.writeValue(data.getIdentifier());
+                out.writeBytes(data.getItem().serializeAsBytes());
+                out.writeValue(data.getBuy());
+                out.writeValue(data.getSell());
+            }, in -> new SignShopData(in.readValue(Identifier.class), ItemStack.deserializeBytes(in.readBytes()),
+                    in.readValue(Money.class), in.readValue(Money.class))),
+
+            new FieldSchema<>(8, User.class, "id", "registered", "name", "email", "salt", "password"),
+            new FieldSchema<>(9, ChannelStatus.class, "id", "properties", "json"),
+            new FieldSchema<>(10, RPGPlayer.class, "id", "rank", "attributes", "skills"),
+            new FieldSchema<>(11, MinigameData.class, "minigameName", "minigamePlayers"),
+            new FieldSchema<>(12, MinigamePlayer.class, "id", "wins", "losses"),
+            new FieldSchema<>(13, Terrain.class, "id", "terrainWorldName", "terrainDelimiter", "size"),
+            new FieldSchema<>(14, HabilityData.class, "id", "habilityId", "level"),
+            new FieldSchema<>(15, MinigameStats.class, "id", "minigame", "player", "wins", "losses")
+        );
+    }
+
+    private static Currency currency(int order) throws IOException {
+        Currency currency = Currency.fromOrder((byte) order);
+        if(currency == null) {
+            throw new StreamCorruptedException("Unknown currency order " + order);
+        }
+        return currency;
+    }
+
+    @FunctionalInterface
+    private interface Writer<T> {
+        void write(CodecOutput out, T value) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(CodecInput in) throws IOException;
+    }
+
+    private record CustomSchema<T>(int id, Class<T> type, Writer<T> writer, Reader<T> reader) implements Schema<T> {
+
+        @Override
+        public void write(CodecOutput out, T value) throws IOException {
+            writer.write(out, value);
+        }
+
+        @Override
+        public T read(CodecInput in, int version) throws IOException {
+            return reader.read(in);
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package net.stardust.base.utils.codec;
+
+import java.io.IOException;
+
+/**
+ * Binary layout of one class for the {@link BinaryCodec}. A schema is
+ * registered under a numeric id, which is what identifies the class inside
+ * encoded data instead of its name, so the id of a registered schema must
+ * never change nor be reused.
+ *
+ * <p>
+ * Every value is written together with the current {@link #version()} of
+ * its schema, and {@link #read(CodecInput, int)} receives the version the
+ * value was written with. A schema whose layout changes must increment its
+ * version and keep reading the older ones.
+ * </p>
+ *
+ * @param <T> the class
+ *
+ * @see BinaryCodec#register(Schema)
+ * @see FieldSchema
+ *
+ * @author Sergio Luis
+ */
+public interface Schema<T> {
+
+    /**
+     * Returns the id that identifies the class in encoded data.
+     *
+     * @return the schema id
+     */
+    int id();
+
+    /**
+     * Returns the class written by this schema. Only instances of exactly
+     * this class, not of its subclasses, are written through it.
+     *
+     * @return the class
+     */
+    Class<T> type();
+
+    /**
+     * Returns the version of the layout currently written.
+     *
+     * @return the version
+     */
+    default int version() {
+        return 1;
+    }
+
+    /**
+     * Writes the state of the value.
+     *
+     * @param out   the output
+     * @param value the value, never null
+     * @throws IOException if a nested value cannot be written
+     */
+    void write(CodecOutput out, T value) throws IOException;
+
+    /**
+     * Reads a value written by this schema.
+     *
+     * @param in      the input
+     * @param version the version the value was written with
+     * @return the value
+     * @throws IOException if the data is malformed or the version is unknown
+     */
+    T read(CodecInput in, int version) throws IOException;
+
+}
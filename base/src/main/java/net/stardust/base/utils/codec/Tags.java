@@ -0,0 +1,36 @@
+package net.stardust.base.utils.codec;
+
+/**
+ * Tags preceding each value written by {@link CodecOutput#writeValue(Object)}.
+ * They are part of the persisted format, so existing values must never
+ * change; new ones are appended.
+ *
+ * @author Sergio Luis
+ */
+final class Tags {
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int BYTE = 3;
+    static final int SHORT = 4;
+    static final int INT = 5;
+    static final int LONG = 6;
+    static final int FLOAT = 7;
+    static final int DOUBLE = 8;
+    static final int CHAR = 9;
+    static final int STRING = 10;
+    static final int UUID = 11;
+    static final int BIG_INTEGER = 12;
+    static final int BIG_DECIMAL = 13;
+    static final int BYTES = 14;
+    static final int LIST = 15;
+    static final int SET = 16;
+    static final int MAP = 17;
+    static final int ENUM = 18;
+    static final int OBJECT = 19;
+    static final int JAVA = 20;
+
+    private Tags() {}
+
+}
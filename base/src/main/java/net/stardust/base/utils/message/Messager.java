@@ -1,5 +1,6 @@
 package net.stardust.base.utils.message;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
@@ -11,15 +12,25 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.ComponentLike;
 import net.stardust.base.BasePlugin;
 import net.stardust.base.utils.StardustThreads;
+import net.stardust.base.utils.Throwables;
 
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.function.BiConsumer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 
 /**
  * Utility class for sending messages in a thread-safe context, that is,
@@ -27,6 +38,16 @@ import java.util.function.BiConsumer;
  * with various overloads. The first just sends the message in Bukkit Main thread,
  * the second does that and also blocks until the messaging process is done.
  * 
+ * <p>
+ * Messages sent outside Bukkit Main thread go to a queue drained once per tick
+ * by a single task, so a broadcast costs one scheduler task no matter how many
+ * messages it has. Queued messages are sent in the order they were queued, and
+ * an action bar replaced by a later one to the same recipient in the same tick
+ * is not sent. The "message" methods return a future completed
+ * when the message is sent, which should be preferred to the blocking
+ * "messageAndWait" methods.
+ * </p>
+ * 
  * @author Sergio Luis
  */
 @Getter
@@ -36,289 +57,356 @@ public class Messager {
 	
 	@NonNull
 	private BasePlugin plugin;
+
+	@Getter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	private final Queue<Outbound> outbound = new ConcurrentLinkedQueue<>();
+
+	@Getter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	private final AtomicBoolean scheduled = new AtomicBoolean();
 	
-	public void message(Audience recipient, Component component) {
-		message(() -> recipient.sendMessage(component));
+	public CompletableFuture<Void> message(Audience recipient, Component component) {
+		return submit(recipient, false, () -> recipient.sendMessage(component));
 	}
 
-	public void message(Audience recipient, Component... messages) {
-		message(() -> Arrays.asList(messages).forEach(recipient::sendMessage));
+	public CompletableFuture<Void> message(Audience recipient, Component... messages) {
+		return submit(recipient, false, () -> Arrays.asList(messages).forEach(recipient::sendMessage));
 	}
 
-	public void message(Audience recipient, ComponentLike component) {
-		message(() -> recipient.sendMessage(component));
+	public CompletableFuture<Void> message(Audience recipient, ComponentLike component) {
+		return submit(recipient, false, () -> recipient.sendMessage(component));
 	}
 
-	public void message(Audience recipient, SignedMessage signedMessage, Bound bound) {
-		message(() -> recipient.sendMessage(signedMessage, bound));
+	public CompletableFuture<Void> message(Audience recipient, SignedMessage signedMessage, Bound bound) {
+		return submit(recipient, false, () -> recipient.sendMessage(signedMessage, bound));
 	}
 
-	public void message(Audience recipient, Component component, Bound bound) {
-		message(() -> recipient.sendMessage(component, bound));
+	public CompletableFuture<Void> message(Audience recipient, Component component, Bound bound) {
+		return submit(recipient, false, () -> recipient.sendMessage(component, bound));
 	}
 
-	public void message(Audience recipient, ComponentLike component, Bound bound) {
-		message(() -> recipient.sendMessage(component, bound));
+	public CompletableFuture<Void> message(Audience recipient, ComponentLike component, Bound bound) {
+		return submit(recipient, false, () -> recipient.sendMessage(component, bound));
 	}
 
-	public void actionBar(Audience recipient, Component component) {
-		message(() -> recipient.sendActionBar(component));
+	public CompletableFuture<Void> actionBar(Audience recipient, Component component) {
+		return submit(recipient, true, () -> recipient.sendActionBar(component));
 	}
 
-	public void actionBar(Audience recipient, ComponentLike component) {
-		message(() -> recipient.sendActionBar(component));
+	public CompletableFuture<Void> actionBar(Audience recipient, ComponentLike component) {
+		return submit(recipient, true, () -> recipient.sendActionBar(component));
 	}
 
-	public void message(Collection<? extends Audience> recipients, Component component) {
-		message(() -> recipients.forEach(recipient -> recipient.sendMessage(component)));
+	public CompletableFuture<Void> message(Collection<? extends Audience> recipients, Component component) {
+		return submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(component)));
 	}
 
-	public void message(Collection<? extends Audience> recipients, ComponentLike component) {
-		message(() -> recipients.forEach(recipient -> recipient.sendMessage(component)));
+	public CompletableFuture<Void> message(Collection<? extends Audience> recipients, ComponentLike component) {
+		return submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(component)));
 	}
 
-	public void message(Collection<? extends Audience> recipients, SignedMessage signedMessage, Bound bound) {
-		message(() -> recipients.forEach(recipient -> recipient.sendMessage(signedMessage, bound)));
+	public CompletableFuture<Void> message(Collection<? extends Audience> recipients, SignedMessage signedMessage, Bound bound) {
+		return submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(signedMessage, bound)));
 	}
 
-	public void message(Collection<? extends Audience> recipients, Component component, Bound bound) {
-		message(() -> recipients.forEach(recipient -> recipient.sendMessage(component, bound)));
+	public CompletableFuture<Void> message(Collection<? extends Audience> recipients, Component component, Bound bound) {
+		return submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(component, bound)));
 	}
 
-	public void message(Collection<? extends Audience> recipients, ComponentLike component, Bound bound) {
-		message(() -> recipients.forEach(recipient -> recipient.sendMessage(component, bound)));
+	public CompletableFuture<Void> message(Collection<? extends Audience> recipients, ComponentLike component, Bound bound) {
+		return submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(component, bound)));
 	}
 
-	public void actionBar(Collection<? extends Audience> recipients, Component component) {
-		message(() -> recipients.forEach(recipient -> recipient.sendActionBar(component)));
+	public CompletableFuture<Void> actionBar(Collection<? extends Audience> recipients, Component component) {
+		return submit(recipients, true, () -> recipients.forEach(recipient -> recipient.sendActionBar(component)));
 	}
 
-	public void actionBar(Collection<? extends Audience> recipients, ComponentLike component) {
-		message(() -> recipients.forEach(recipient -> recipient.sendActionBar(component)));
+	public CompletableFuture<Void> actionBar(Collection<? extends Audience> recipients, ComponentLike component) {
+		return submit(recipients, true, () -> recipients.forEach(recipient -> recipient.sendActionBar(component)));
 	}
 	
-	public void message(CommandSender recipient, String message) {
-		message(() -> recipient.sendMessage(message));
+	public CompletableFuture<Void> message(CommandSender recipient, String message) {
+		return submit(recipient, false, () -> recipient.sendMessage(message));
 	}
 	
-	public void message(CommandSender recipient, String... messages) {
-		message(() -> recipient.sendMessage(messages));
+	public CompletableFuture<Void> message(CommandSender recipient, String... messages) {
+		return submit(recipient, false, () -> recipient.sendMessage(messages));
 	}
 
-	public void message(CommandSender recipient, Component... messages) {
-		message(() -> Arrays.asList(messages).forEach(recipient::sendMessage));
+	public CompletableFuture<Void> message(CommandSender recipient, Component... messages) {
+		return submit(recipient, false, () -> Arrays.asList(messages).forEach(recipient::sendMessage));
 	}
 
-	public void plainMessage(CommandSender recipient, String message) {
-		message(() -> recipient.sendPlainMessage(message));
+	public CompletableFuture<Void> plainMessage(CommandSender recipient, String message) {
+		return submit(recipient, false, () -> recipient.sendPlainMessage(message));
 	}
 
-	public void richMessage(CommandSender recipient, String message) {
-		message(() -> recipient.sendRichMessage(message));
+	public CompletableFuture<Void> richMessage(CommandSender recipient, String message) {
+		return submit(recipient, false, () -> recipient.sendRichMessage(message));
 	}
 
-	public void message(Collection<? extends CommandSender> recipients, String message) {
-		message(() -> recipients.forEach(recipient -> recipient.sendMessage(message)));
+	public CompletableFuture<Void> message(Collection<? extends CommandSender> recipients, String message) {
+		return submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(message)));
 	}
 
-	public void message(Collection<? extends CommandSender> recipients, String... messages) {
-		message(() -> recipients.forEach(recipient -> recipient.sendMessage(messages)));
+	public CompletableFuture<Void> message(Collection<? extends CommandSender> recipients, String... messages) {
+		return submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(messages)));
 	}
 
-	public void message(Collection<? extends CommandSender> recipients, Component... messages) {
-		message(() -> recipients.forEach(recipient -> Arrays.asList(messages).forEach(message -> recipient.sendMessage(message))));
+	public CompletableFuture<Void> message(Collection<? extends CommandSender> recipients, Component... messages) {
+		return submit(recipients, false, () -> recipients.forEach(recipient -> Arrays.asList(messages).forEach(message -> recipient.sendMessage(message))));
 	}
 	
-	public void message(Messageable messageable, String message) {
-		message(() -> messageable.sendMessage(message));
+	public CompletableFuture<Void> message(Messageable messageable, String message) {
+		return submit(messageable, false, () -> messageable.sendMessage(message));
 	}
 
-	public void message(Messageable messageable, String... messages) {
-		message(() -> messageable.sendMessage(messages));
+	public CompletableFuture<Void> message(Messageable messageable, String... messages) {
+		return submit(messageable, false, () -> messageable.sendMessage(messages));
 	}
 
-	public void message(Messageable messageable, Component message) {
-		message(() -> messageable.sendMessage(message));
+	public CompletableFuture<Void> message(Messageable messageable, Component message) {
+		return submit(messageable, false, () -> messageable.sendMessage(message));
 	}
 
-	public void message(Messageable messageable, Component... messages) {
-		message(() -> messageable.sendMessage(messages));
+	public CompletableFuture<Void> message(Messageable messageable, Component... messages) {
+		return submit(messageable, false, () -> messageable.sendMessage(messages));
 	}
 
-	public void plainMessage(Collection<? extends CommandSender> recipients, String message) {
-		message(() -> recipients.forEach(recipient -> recipient.sendPlainMessage(message)));
+	public CompletableFuture<Void> plainMessage(Collection<? extends CommandSender> recipients, String message) {
+		return submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendPlainMessage(message)));
 	}
 
-	public void richMessage(Collection<? extends CommandSender> recipients, String message) {
-		message(() -> recipients.forEach(recipient -> recipient.sendRichMessage(message)));
+	public CompletableFuture<Void> richMessage(Collection<? extends CommandSender> recipients, String message) {
+		return submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendRichMessage(message)));
 	}
 
-	public void rawMessage(Player player, String message) {
-		message(() -> player.sendRawMessage(message));
+	public CompletableFuture<Void> rawMessage(Player player, String message) {
+		return submit(player, false, () -> player.sendRawMessage(message));
 	}
 
-	public void pluginMessage(Player player, Plugin plugin, String channel, byte[] message) {
-		message(() -> player.sendPluginMessage(plugin, channel, message));
+	public CompletableFuture<Void> pluginMessage(Player player, Plugin plugin, String channel, byte[] message) {
+		return submit(player, false, () -> player.sendPluginMessage(plugin, channel, message));
 	}
 
-	public void rawMessage(Collection<? extends Player> players, String message) {
-		message(() -> players.forEach(player -> player.sendRawMessage(message)));
+	public CompletableFuture<Void> rawMessage(Collection<? extends Player> players, String message) {
+		return submit(players, false, () -> players.forEach(player -> player.sendRawMessage(message)));
 	}
 
-	public void pluginMessage(Collection<? extends Player> players, Plugin plugin, String channel, byte[] message) {
-		message(() -> players.forEach(player -> player.sendPluginMessage(plugin, channel, message)));
+	public CompletableFuture<Void> pluginMessage(Collection<? extends Player> players, Plugin plugin, String channel, byte[] message) {
+		return submit(players, false, () -> players.forEach(player -> player.sendPluginMessage(plugin, channel, message)));
 	}
 
 	// ---------------------
 	
 	public void messageAndWait(Audience recipient, Component component) {
-		messageAndWait(() -> recipient.sendMessage(component));
+		await(submit(recipient, false, () -> recipient.sendMessage(component)));
 	}
 
 	public void messageAndWait(Audience recipient, Component... messages) {
-		messageAndWait(() -> Arrays.asList(messages).forEach(recipient::sendMessage));
+		await(submit(recipient, false, () -> Arrays.asList(messages).forEach(recipient::sendMessage)));
 	}
 
 	public void messageAndWait(Audience recipient, ComponentLike component) {
-		messageAndWait(() -> recipient.sendMessage(component));
+		await(submit(recipient, false, () -> recipient.sendMessage(component)));
 	}
 
 	public void messageAndWait(Audience recipient, SignedMessage signedMessage, Bound bound) {
-		messageAndWait(() -> recipient.sendMessage(signedMessage, bound));
+		await(submit(recipient, false, () -> recipient.sendMessage(signedMessage, bound)));
 	}
 
 	public void messageAndWait(Audience recipient, Component component, Bound bound) {
-		messageAndWait(() -> recipient.sendMessage(component, bound));
+		await(submit(recipient, false, () -> recipient.sendMessage(component, bound)));
 	}
 
 	public void messageAndWait(Audience recipient, ComponentLike component, Bound bound) {
-		messageAndWait(() -> recipient.sendMessage(component, bound));
+		await(submit(recipient, false, () -> recipient.sendMessage(component, bound)));
 	}
 
 	public void actionBarAndWait(Audience recipient, Component component) {
-		messageAndWait(() -> recipient.sendActionBar(component));
+		await(submit(recipient, true, () -> recipient.sendActionBar(component)));
 	}
 
 	public void actionBarAndWait(Audience recipient, ComponentLike component) {
-		messageAndWait(() -> recipient.sendActionBar(component));
+		await(submit(recipient, true, () -> recipient.sendActionBar(component)));
 	}
 
 	public void messageAndWait(Collection<? extends Audience> recipients, Component component) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendMessage(component)));
+		await(submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(component))));
 	}
 
 	public void messageAndWait(Collection<? extends Audience> recipients, ComponentLike component) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendMessage(component)));
+		await(submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(component))));
 	}
 
 	public void messageAndWait(Collection<? extends Audience> recipients, SignedMessage signedMessage, Bound bound) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendMessage(signedMessage, bound)));
+		await(submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(signedMessage, bound))));
 	}
 
 	public void messageAndWait(Collection<? extends Audience> recipients, Component component, Bound bound) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendMessage(component, bound)));
+		await(submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(component, bound))));
 	}
 
 	public void messageAndWait(Collection<? extends Audience> recipients, ComponentLike component, Bound bound) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendMessage(component, bound)));
+		await(submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(component, bound))));
 	}
 
 	public void actionBarAndWait(Collection<? extends Audience> recipients, Component component) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendActionBar(component)));
+		await(submit(recipients, true, () -> recipients.forEach(recipient -> recipient.sendActionBar(component))));
 	}
 
 	public void actionBarAndWait(Collection<? extends Audience> recipients, ComponentLike component) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendActionBar(component)));
+		await(submit(recipients, true, () -> recipients.forEach(recipient -> recipient.sendActionBar(component))));
 	}
 	
 	public void messageAndWait(CommandSender recipient, String message) {
-		messageAndWait(() -> recipient.sendMessage(message));
+		await(submit(recipient, false, () -> recipient.sendMessage(message)));
 	}
 	
 	public void messageAndWait(CommandSender recipient, String... messages) {
-		messageAndWait(() -> recipient.sendMessage(messages));
+		await(submit(recipient, false, () -> recipient.sendMessage(messages)));
 	}
 
 	public void messageAndWait(CommandSender recipient, Component... messages) {
-		messageAndWait(() -> Arrays.asList(messages).forEach(recipient::sendMessage));
+		await(submit(recipient, false, () -> Arrays.asList(messages).forEach(recipient::sendMessage)));
 	}
 
 	public void messageAndWait(Messageable messageable, String message) {
-		messageAndWait(() -> messageable.sendMessage(message));
+		await(submit(messageable, false, () -> messageable.sendMessage(message)));
 	}
 
 	public void messageAndWait(Messageable messageable, String... messages) {
-		messageAndWait(() -> messageable.sendMessage(messages));
+		await(submit(messageable, false, () -> messageable.sendMessage(messages)));
 	}
 
 	public void messageAndWait(Messageable messageable, Component message) {
-		messageAndWait(() -> messageable.sendMessage(message));
+		await(submit(messageable, false, () -> messageable.sendMessage(message)));
 	}
 
 	public void messageAndWait(Messageable messageable, Component... messages) {
-		messageAndWait(() -> messageable.sendMessage(messages));
+		await(submit(messageable, false, () -> messageable.sendMessage(messages)));
 	}
 
 	public void plainMessageAndWait(CommandSender recipient, String message) {
-		messageAndWait(() -> recipient.sendPlainMessage(message));
+		await(submit(recipient, false, () -> recipient.sendPlainMessage(message)));
 	}
 
 	public void richMessageAndWait(CommandSender recipient, String message) {
-		messageAndWait(() -> recipient.sendRichMessage(message));
+		await(submit(recipient, false, () -> recipient.sendRichMessage(message)));
 	}
 
 	public void messageAndWait(Collection<? extends CommandSender> recipients, String message) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendMessage(message)));
+		await(submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(message))));
 	}
 
 	public void messageAndWait(Collection<? extends CommandSender> recipients, String... messages) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendMessage(messages)));
+		await(submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendMessage(messages))));
 	}
 
 	public void messageAndWait(Collection<? extends CommandSender> recipients, Component... messages) {
-		messageAndWait(() -> recipients.forEach(recipient -> Arrays.asList(messages).forEach(message -> recipient.sendMessage(message))));
+		await(submit(recipients, false, () -> recipients.forEach(recipient -> Arrays.asList(messages).forEach(message -> recipient.sendMessage(message)))));
 	}
 
 	public void plainMessageAndWait(Collection<? extends CommandSender> recipients, String message) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendPlainMessage(message)));
+		await(submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendPlainMessage(message))));
 	}
 
 	public void richMessageAndWait(Collection<? extends CommandSender> recipients, String message) {
-		messageAndWait(() -> recipients.forEach(recipient -> recipient.sendRichMessage(message)));
+		await(submit(recipients, false, () -> recipients.forEach(recipient -> recipient.sendRichMessage(message))));
 	}
 	
 	public void rawMessageAndWait(Player player, String message) {
-		messageAndWait(() -> player.sendRawMessage(message));
+		await(submit(player, false, () -> player.sendRawMessage(message)));
 	}
 
 	public void pluginMessageAndWait(Player player, Plugin plugin, String channel, byte[] message) {
-		messageAndWait(() -> player.sendPluginMessage(plugin, channel, message));
+		await(submit(player, false, () -> player.sendPluginMessage(plugin, channel, message)));
 	}
 
 	public void rawMessageAndWait(Collection<? extends Player> players, String message) {
-		messageAndWait(() -> players.forEach(player -> player.sendRawMessage(message)));
+		await(submit(players, false, () -> players.forEach(player -> player.sendRawMessage(message))));
 	}
 
 	public void pluginMessageAndWait(Collection<? extends Player> players, Plugin plugin, String channel, byte[] message) {
-		messageAndWait(() -> players.forEach(player -> player.sendPluginMessage(plugin, channel, message)));
+		await(submit(players, false, () -> players.forEach(player -> player.sendPluginMessage(plugin, channel, message))));
 	}
 
 	// ---------------------
 
-	private void message(Runnable runnable) {
-		sendMessage(runnable, StardustThreads::run);
+	private CompletableFuture<Void> submit(Object recipient, boolean actionBar, Runnable runnable) {
+		Outbound message = new Outbound(recipient, actionBar, runnable, new CompletableFuture<>());
+		if(Bukkit.isPrimaryThread()) {
+			// messages queued before this one go first
+			flush();
+			message.send(plugin);
+		} else {
+			outbound.offer(message);
+			if(scheduled.compareAndSet(false, true)) {
+				try {
+					StardustThreads.run(plugin, this::flush);
+				} catch(RuntimeException e) {
+					// nothing will drain the queue, so its messages are failed instead of left hanging
+					scheduled.set(false);
+					plugin.getLogger().log(Level.SEVERE, "Could not schedule the queued messages",
+						Throwables.send(plugin.getId(), e));
+					for(Outbound queued; (queued = outbound.poll()) != null;) {
+						queued.done().completeExceptionally(e);
+					}
+				}
+			}
+		}
+		return message.done();
 	}
 
-	private void messageAndWait(Runnable runnable) {
-		sendMessage(runnable, StardustThreads::runAndWait);
+	private void await(CompletableFuture<Void> future) {
+		future.handle((result, t) -> null).join();
 	}
 
-	private void sendMessage(Runnable runnable, BiConsumer<BasePlugin, Runnable> biConsumer) {
-		if(Bukkit.isPrimaryThread()) {
-			runnable.run();
-		} else {
-			biConsumer.accept(plugin, runnable);
+	/**
+	 * Sends all queued messages now. Must be called in Bukkit Main thread. It is
+	 * called once per tick while there are queued messages and when the plugin is
+	 * disabled.
+	 */
+	public void flush() {
+		scheduled.set(false);
+		if(outbound.isEmpty()) {
+			return;
 		}
+		List<Outbound> batch = new ArrayList<>();
+		for(Outbound message; (message = outbound.poll()) != null;) {
+			batch.add(message);
+		}
+		// walking backwards, an action bar is replaced if a later one has the same recipient
+		boolean[] replaced = new boolean[batch.size()];
+		Set<Object> actionBars = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(int i = batch.size() - 1; i >= 0; i--) {
+			Outbound message = batch.get(i);
+			replaced[i] = message.actionBar() && !actionBars.add(message.recipient());
+		}
+		// messages are sent in the order they were queued, since a collection may contain other recipients
+		for(int i = 0; i < batch.size(); i++) {
+			Outbound message = batch.get(i);
+			if(replaced[i]) {
+				message.done().complete(null);
+			} else {
+				message.send(plugin);
+			}
+		}
+	}
+
+	private record Outbound(Object recipient, boolean actionBar, Runnable runnable, CompletableFuture<Void> done) {
+
+		void send(BasePlugin plugin) {
+			try {
+				runnable.run();
+				done.complete(null);
+			} catch(Throwable t) {
+				plugin.getLogger().log(Level.SEVERE, "Could not send message", Throwables.send(plugin.getId(), t));
+				done.completeExceptionally(t);
+			}
+		}
+
 	}
 	
 }
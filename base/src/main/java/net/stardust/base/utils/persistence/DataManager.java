@@ -10,7 +10,8 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.Arrays;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -27,16 +28,18 @@ import org.bukkit.persistence.PersistentDataHolder;
 import org.bukkit.persistence.PersistentDataType;
 
 import net.stardust.base.Stardust;
-import net.stardust.base.utils.Serializer;
 import net.stardust.base.utils.Throwables;
+import net.stardust.base.utils.codec.BinaryCodec;
 
 /**
  * <p>
  * Utility class that wraps a {@link PersistentDataHolder} and manages
  * different types of data, being able to serialize and deserializes from its
  * {@link PersistentDataContainer}. For every type, even the primitives,
- * this class saves it as byte arrays using {@link ObjectOutputStream} in
- * conjunction with {@link ByteArrayOutputStream}, so every object to serialize
+ * this class saves it as byte arrays encoded by {@link BinaryCodec}, which
+ * start with a tag of the type of the value, so reading a key never has to
+ * probe the types of the container. Objects without a schema in the codec
+ * fall back to Java serialization, so every object to serialize
  * must implement {@link Serializable}. For that reason, in Stardust server,
  * never manage data directly from the {@link PersistentDataContainer} interface
  * to avoid lacks of integrity; always use this class.
@@ -58,12 +61,25 @@ import net.stardust.base.utils.Throwables;
  * @see ObjectInputStream
  * @see ByteArrayInputStream
  * @see Serializable
- * @see Serializer
+ * @see BinaryCodec
  * 
  * @author Sergio Luis
  */
 public class DataManager<T extends PersistentDataHolder> implements PersistentDataHolder, Iterable<NamespacedKey> {
 
+    private static final List<PersistentDataType<?, ?>> DEFAULT_DATA_TYPES = List.of(
+            PersistentDataType.BYTE,
+            PersistentDataType.SHORT,
+            PersistentDataType.INTEGER,
+            PersistentDataType.LONG,
+            PersistentDataType.FLOAT,
+            PersistentDataType.DOUBLE,
+            PersistentDataType.BOOLEAN,
+            PersistentDataType.STRING,
+            PersistentDataType.BYTE_ARRAY,
+            PersistentDataType.INTEGER_ARRAY,
+            PersistentDataType.LONG_ARRAY);
+
     /**
      * The wrapped {@link PersistentDataHolder}. Do not modify it
      * using reflection.
@@ -166,12 +182,13 @@ public class DataManager<T extends PersistentDataHolder> implements PersistentDa
 
     /**
      * Reads all objects inside the container and maps them to their
-     * respective keys.
+     * respective keys. The returned map is unmodifiable and holds the keys
+     * present when this method was called.
      * 
-     * @implNote This method internally calls {@link #readObject(NamespacedKey)} for
-     *           every key returned by {@link #getKeys()}, so if you are working
-     *           with many objects
-     *           and/or the objects are big in data, this can perform really bad.
+     * @implNote Objects are decoded lazily, by {@link #readObject(NamespacedKey)},
+     *           the first time their value is accessed, so only the entries
+     *           actually read cost a deserialization. Decoding errors are
+     *           therefore thrown on access.
      * 
      * @see #readObject(NamespacedKey)
      * @return the map of all key-object entries inside the container
@@ -186,11 +203,7 @@ public class DataManager<T extends PersistentDataHolder> implements PersistentDa
      *                                           {@link PersistenceSerializationException}.
      */
     public Map<NamespacedKey, Object> getContent() {
-        Map<NamespacedKey, Object> content = new HashMap<>();
-        for (NamespacedKey key : getKeys()) {
-            content.put(key, readObject(key));
-        }
-        return content;
+        return new LazyContent(getKeys());
     }
 
     /**
@@ -1501,29 +1514,30 @@ public class DataManager<T extends PersistentDataHolder> implements PersistentDa
      */
     public Object readObject(NamespacedKey key) {
         Objects.requireNonNull(key, "null key");
-        var list = getDefaultDataTypes();
         var container = getPersistentDataContainer();
-        Object found = null;
-        for (var type : list) {
-            try {
-                found = container.get(key, type);
-                if (found == null) {
-                    continue;
-                }
-                break;
-            } catch (IllegalArgumentException e) {
-                continue;
-            }
+        if (!container.has(key)) {
+            return null;
+        }
+        // everything written by this class is a byte array whose first bytes
+        // already tag the type of the encoded value, so this is the hot path
+        if (container.has(key, PersistentDataType.BYTE_ARRAY)) {
+            return decode(container.get(key, PersistentDataType.BYTE_ARRAY));
         }
-        if (found instanceof byte[] array) {
-            try {
-                return Serializer.deserialize(array);
-            } catch (IOException | ClassNotFoundException e) {
-                Throwables.send("PersistentDataManager/readObject", e);
-                throw new PersistenceSerializationException("IOException during deserialization", e);
+        for (var type : DEFAULT_DATA_TYPES) {
+            if (container.has(key, type)) {
+                return container.get(key, type);
             }
         }
-        return found;
+        return null;
+    }
+
+    private static Object decode(byte[] array) {
+        try {
+            return BinaryCodec.decode(array);
+        } catch (IOException e) {
+            Throwables.send("PersistentDataManager/readObject", e);
+            throw new PersistenceSerializationException("IOException during deserialization", e);
+        }
     }
 
     /**
@@ -1590,7 +1604,7 @@ public class DataManager<T extends PersistentDataHolder> implements PersistentDa
                 remove(key);
             } else {
                 try {
-                    container.set(key, PersistentDataType.BYTE_ARRAY, Serializer.serialize(object));
+                    container.set(key, PersistentDataType.BYTE_ARRAY, BinaryCodec.encode(object));
                 } catch (IllegalArgumentException e) {
                     NullPointerException exception = new NullPointerException("null key");
                     exception.initCause(e);
@@ -1704,27 +1718,94 @@ public class DataManager<T extends PersistentDataHolder> implements PersistentDa
     }
 
     /**
-     * Returns an unmodifiable list of all simple constants presentF
+     * Returns an unmodifiable list of all simple constants present
      * in {@link PersistentDataType}. A simple constant here means that
      * it includes only the primitive wrapper types, the String type and
-     * the byte, integer and long array types.
+     * the byte, integer and long array types. The same list is returned
+     * on every call.
      * 
      * @see PersistentDataType
      * @return a list of all data types
      */
     public static List<PersistentDataType<?, ?>> getDefaultDataTypes() {
-        return Arrays.asList(
-                PersistentDataType.BYTE,
-                PersistentDataType.SHORT,
-                PersistentDataType.INTEGER,
-                PersistentDataType.LONG,
-                PersistentDataType.FLOAT,
-                PersistentDataType.DOUBLE,
-                PersistentDataType.BOOLEAN,
-                PersistentDataType.STRING,
-                PersistentDataType.BYTE_ARRAY,
-                PersistentDataType.INTEGER_ARRAY,
-                PersistentDataType.LONG_ARRAY);
+        return DEFAULT_DATA_TYPES;
+    }
+
+    /**
+     * Unmodifiable view of the content of the container that decodes each
+     * value only when it is first accessed.
+     */
+    private class LazyContent extends AbstractMap<NamespacedKey, Object> {
+
+        private Set<NamespacedKey> keys;
+        private Map<NamespacedKey, Object> decoded;
+
+        LazyContent(Set<NamespacedKey> keys) {
+            this.keys = keys;
+            decoded = new HashMap<>();
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (!(key instanceof NamespacedKey namespacedKey) || !keys.contains(namespacedKey)) {
+                return null;
+            }
+            if (decoded.containsKey(namespacedKey)) {
+                return decoded.get(namespacedKey);
+            }
+            Object value = readObject(namespacedKey);
+            decoded.put(namespacedKey, value);
+            return value;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return keys.contains(key);
+        }
+
+        @Override
+        public int size() {
+            return keys.size();
+        }
+
+        @Override
+        public Set<Entry<NamespacedKey, Object>> entrySet() {
+            return new AbstractSet<>() {
+
+                @Override
+                public Iterator<Entry<NamespacedKey, Object>> iterator() {
+                    Iterator<NamespacedKey> iterator = keys.iterator();
+                    return new Iterator<>() {
+
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<NamespacedKey, Object> next() {
+                            NamespacedKey key = iterator.next();
+                            return new AbstractMap.SimpleImmutableEntry<>(key, null) {
+
+                                @Override
+                                public Object getValue() {
+                                    return get(key);
+                                }
+
+                            };
+                        }
+
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.size();
+                }
+
+            };
+        }
+
     }
 
 }
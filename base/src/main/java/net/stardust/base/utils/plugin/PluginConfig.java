@@ -2,9 +2,12 @@ package net.stardust.base.utils.plugin;
 
 import net.stardust.base.BasePlugin;
 import net.stardust.base.command.BaseCommand;
+import net.stardust.base.command.CompletionListener;
+import net.stardust.base.command.StardustCommand;
 import net.stardust.base.events.BaseListener;
 import net.stardust.base.utils.Throwables;
 import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.PluginCommand;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.plugin.PluginManager;
@@ -51,7 +54,12 @@ public final class PluginConfig {
     }
 
     public void registerCommand(String name, CommandExecutor executor) {
-        plugin.getCommand(name).setExecutor(executor);
+        PluginCommand command = plugin.getCommand(name);
+        command.setExecutor(executor);
+        if(executor instanceof StardustCommand<?> stardustCommand) {
+            command.setTabCompleter(stardustCommand);
+            CompletionListener.register(command, stardustCommand);
+        }
     }
 
     public void registerAllCommands() {
@@ -76,6 +84,7 @@ public final class PluginConfig {
     public void registerAll() {
         Reflections reflections = getBaseReflections();
         registerAllEvents(reflections);
+        registerEvents(new CompletionListener());
         registerAllCommands(reflections);
     }
 
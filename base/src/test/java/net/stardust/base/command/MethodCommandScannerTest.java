@@ -3,10 +3,12 @@ package net.stardust.base.command;
 import static org.junit.jupiter.api.Assertions.*;
 
 import br.sergio.utils.Pair;
+import org.bukkit.command.CommandSender;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.List;
 
@@ -88,8 +90,43 @@ public class MethodCommandScannerTest {
         assertEquals(546L, args[1]);
     }
 
+    @Test
+    @DisplayName("Should resolve subcommands in any case and invoke the compiled entry")
+    public void resolveTest() throws Throwable {
+        Pair<CommandEndpoint, Object[]> result = scanner.resolve(new String[] {"SUB1", "Sub2", "sub3", "hi", "7"});
+        assertNotNull(result);
+        CommandEndpoint endpoint = result.getMale();
+        assertEquals("d", endpoint.getMethod().getName());
+        assertEquals(3, endpoint.getDepth());
+
+        TestSubject subject = new TestSubject();
+        endpoint.invoke(subject, result.getFemale());
+        assertEquals("hi 7", subject.last);
+    }
+
+    @Test
+    @DisplayName("Should not fall back to shallower subcommands when the deepest match fails to parse")
+    public void deepestTest() {
+        assertNull(scanner.find(new String[] {"sub1", "sub2", "sub3", "hello", "not a number"}));
+        assertNull(scanner.find(new String[] {"sub1", "sub2", "sub3"}));
+    }
+
+    @Test
+    @DisplayName("Should complete subcommands and parameter values of the last word")
+    public void completeTest() {
+        CommandSender sender = (CommandSender) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {CommandSender.class}, (proxy, method, args) -> null);
+        assertEquals(List.of("sub1"), scanner.complete(new String[] {"S"}, sender, false, 100));
+        assertEquals(List.of("sub2"), scanner.complete(new String[] {"sub1", ""}, sender, false, 100));
+        assertEquals(List.of("false", "true"), scanner.complete(new String[] {"5", ""}, sender, false, 100));
+        assertEquals(List.of("true"), scanner.complete(new String[] {"5", "T"}, sender, false, 100));
+        assertEquals(List.of(), scanner.complete(new String[] {"sub1", "sub2", "sub3", ""}, sender, false, 100));
+    }
+
     private static class TestSubject {
 
+        private String last;
+
         // empty method
         @CommandEntry
         public void a() {
@@ -111,7 +148,7 @@ public class MethodCommandScannerTest {
         // subcommand and argument method
         @CommandEntry("sub1 sub2 sub3")
         public void d(String arg1, long arg2) {
-
+            last = arg1 + " " + arg2;
         }
 
         // this method should not be scanned
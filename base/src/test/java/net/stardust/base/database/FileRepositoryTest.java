@@ -0,0 +1,292 @@
+package net.stardust.base.database;
+
+import net.stardust.base.BasePlugin;
+import net.stardust.base.database.repositories.FileRepository;
+import net.stardust.base.database.repositories.RepositoryLog;
+import net.stardust.base.model.user.User;
+import net.stardust.base.utils.security.PasswordException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+public class FileRepositoryTest {
+
+    @Mock
+    private BasePlugin plugin;
+
+    @Mock
+    private Logger logger;
+
+    @TempDir
+    File dataFolder;
+
+    private ExecutorService virtual;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        virtual = Executors.newVirtualThreadPerTaskExecutor();
+
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getLogger()).thenReturn(logger);
+        when(plugin.getVirtual()).thenReturn(virtual);
+        when(plugin.getId()).thenReturn(BasePlugin.class.getSimpleName());
+    }
+
+    @AfterEach
+    void tearDown() {
+        virtual.close();
+    }
+
+    @Test
+    @DisplayName("Should restore saved, updated and deleted entities after reopening the repository")
+    void test1() throws PasswordException {
+        var repository = new FileRepository<>(plugin, UUID.class, User.class);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(createUser("user" + i));
+        }
+        assertEquals(Repository.SaveResult.SUCCESS, repository.saveAll(users));
+
+        User updated = users.get(0);
+        updated.setName("renamed");
+        assertEquals(Repository.SaveResult.SUCCESS, repository.save(updated, true));
+        assertTrue(repository.delete(users.get(1).getEntityId()));
+        repository.close();
+
+        var reopened = new FileRepository<>(plugin, UUID.class, User.class);
+        assertEquals(9, reopened.findAll().size());
+        assertEquals("renamed", reopened.findById(updated.getEntityId()).getName());
+        assertFalse(reopened.existsById(users.get(1).getEntityId()));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should not apply a saveAll partially when there is a duplicate")
+    void test2() throws PasswordException {
+        var repository = new FileRepository<>(plugin, UUID.class, User.class);
+        User existing = createUser("existing");
+        repository.save(existing);
+
+        User fresh = createUser("fresh");
+        assertEquals(Repository.SaveResult.DUPLICATE, repository.saveAll(List.of(fresh, existing)));
+        assertFalse(repository.existsById(fresh.getEntityId()));
+        repository.close();
+    }
+
+    @Test
+    @DisplayName("Should replay the log records in order and stop at a torn record")
+    void test3() throws IOException, ClassNotFoundException, PasswordException {
+        RepositoryLog<UUID, User> log = new RepositoryLog<>(dataFolder, "User", 1 << 20);
+        User first = createUser("first");
+        User second = createUser("second");
+        log.append(log.encode(List.of(first, second), List.of()));
+        log.append(log.encode(List.of(), List.of(first.getEntityId())));
+        log.close();
+
+        File segment = Objects.requireNonNull(dataFolder.listFiles((dir, name) -> name.endsWith(".log")))[0];
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(raf.length());
+            raf.writeInt(1000);
+        }
+
+        Map<UUID, User> map = new HashMap<>();
+        assertEquals(3, new RepositoryLog<UUID, User>(dataFolder, "User", 1 << 20).replay(map));
+        assertEquals(Set.of(second.getEntityId()), map.keySet());
+    }
+
+    @Test
+    @DisplayName("Should truncate a torn record and keep replaying the segments written after it")
+    void test7() throws IOException, ClassNotFoundException, PasswordException {
+        RepositoryLog<UUID, User> log = new RepositoryLog<>(dataFolder, "User", 1 << 20);
+        User first = createUser("first");
+        log.append(log.encode(List.of(first), List.of()));
+        log.close();
+
+        File torn = Objects.requireNonNull(dataFolder.listFiles((dir, name) -> name.endsWith(".log")))[0];
+        long valid = torn.length();
+        try (RandomAccessFile raf = new RandomAccessFile(torn, "rw")) {
+            raf.seek(raf.length());
+            raf.writeInt(1000);
+            raf.writeInt(0);
+        }
+
+        // restarted before replaying: new writes go to the next segment
+        RepositoryLog<UUID, User> restarted = new RepositoryLog<>(dataFolder, "User", 1 << 20);
+        User second = createUser("second");
+        restarted.append(restarted.encode(List.of(second), List.of()));
+        restarted.close();
+
+        Map<UUID, User> map = new HashMap<>();
+        assertEquals(2, new RepositoryLog<UUID, User>(dataFolder, "User", 1 << 20).replay(map));
+        assertEquals(Set.of(first.getEntityId(), second.getEntityId()), map.keySet());
+        assertEquals(valid, torn.length());
+    }
+
+    @Test
+    @DisplayName("Should answer equality, prefix and range queries through the indexes")
+    void test4() throws PasswordException {
+        var repository = new FileRepository<>(plugin, UUID.class, User.class);
+        repository.saveAll(List.of(createUser("alpha"), createUser("alphabet"), createUser("beta")));
+
+        assertEquals(1, repository.findBy(new Query().equal("name", "beta")).size());
+        assertEquals(2, repository.findBy(new Query().prefix("name", "alpha")).size());
+        assertEquals(2, repository.findBy(new Query().range("name", "alphabet", "beta")).size());
+        assertEquals(1, repository.findBy(new Query().prefix("name", "alpha").limit(1)).size());
+
+        User beta = repository.findBy(new Query().equal("name", "beta")).getFirst();
+        User renamed = repository.findById(beta.getEntityId());
+        renamed.setName("gamma");
+        repository.save(renamed, true);
+
+        assertTrue(repository.findBy(new Query().equal("name", "beta")).isEmpty());
+        assertEquals(1, repository.findBy(new Query().equal("name", "gamma")).size());
+        assertThrows(IllegalArgumentException.class, () -> repository.findBy(new Query().equal("unknown", 1)));
+        repository.close();
+    }
+
+    @Test
+    @DisplayName("Should walk every entity exactly once through cursor pages and streams")
+    void test5() throws PasswordException {
+        var repository = new FileRepository<>(plugin, UUID.class, User.class);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            users.add(createUser("user" + i));
+        }
+        repository.saveAll(users);
+
+        Set<UUID> seen = new HashSet<>();
+        PageRequest request = new PageRequest(null, 10);
+        Page<User> page;
+        int pages = 0;
+        do {
+            page = repository.findPage(request);
+            page.getContent().forEach(user -> assertTrue(seen.add(user.getEntityId())));
+            pages++;
+            if (page.hasNext()) {
+                request = request.next(page);
+            }
+        } while (page.hasNext());
+
+        assertEquals(3, pages);
+        assertEquals(25, seen.size());
+        assertEquals(25, repository.stream(7).count());
+        assertEquals(PageRequest.MAX_SIZE, new PageRequest(null, Integer.MAX_VALUE).getSize());
+        assertThrows(IllegalArgumentException.class, () -> repository.findPage(new PageRequest("cursor", 10)));
+        repository.close();
+    }
+
+    @Test
+    @DisplayName("Should keep the repository contract under concurrent readers, writers and snapshots")
+    void test6() throws Exception {
+        var repository = new FileRepository<>(plugin, UUID.class, User.class) {
+            Map<UUID, User> pointInTime() {
+                return snapshot();
+            }
+        };
+        int threads = 8, rounds = 200;
+        List<User> contended = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            contended.add(createUser("contended" + i));
+        }
+        User first = createUser("pairFirst");
+        User second = createUser("pairSecond");
+
+        AtomicInteger inserted = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (User user : contended) {
+                    if (repository.save(user) == Repository.SaveResult.SUCCESS) {
+                        inserted.incrementAndGet();
+                    }
+                }
+                for (int i = 0; i < rounds; i++) {
+                    User own = createUser("thread" + thread + "-" + i);
+                    assertEquals(Repository.SaveResult.SUCCESS, repository.save(own));
+                    own.setName("updated" + thread + "-" + i);
+                    assertEquals(Repository.SaveResult.SUCCESS, repository.save(own, true));
+                    assertSame(own, repository.findById(own.getEntityId()));
+                    if (i % 2 == 0) {
+                        assertTrue(repository.delete(own.getEntityId()));
+                        assertFalse(repository.existsById(own.getEntityId()));
+                    }
+                }
+                return null;
+            }));
+        }
+        futures.add(pool.submit(() -> {
+            start.await();
+            for (int i = 0; i < rounds; i++) {
+                repository.saveAll(List.of(first, second), true);
+                repository.deleteAll(List.of(first.getEntityId(), second.getEntityId()));
+            }
+            return null;
+        }));
+        futures.add(pool.submit(() -> {
+            start.await();
+            for (int i = 0; i < rounds; i++) {
+                Map<UUID, User> snapshot = repository.pointInTime();
+                if (snapshot.containsKey(first.getEntityId()) != snapshot.containsKey(second.getEntityId())) {
+                    failed.set(true);
+                }
+                repository.findAll().forEach(Objects::requireNonNull);
+                repository.findPage(new PageRequest(null, 50)).getContent().forEach(Objects::requireNonNull);
+            }
+            return null;
+        }));
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertFalse(failed.get(), "A snapshot contained half of a saveAll or deleteAll");
+        assertEquals(contended.size(), inserted.get());
+        int expected = contended.size() + threads * rounds / 2;
+        assertEquals(expected, repository.findAll().size());
+        assertEquals(expected, repository.stream(64).count());
+        repository.close();
+
+        var reopened = new FileRepository<>(plugin, UUID.class, User.class);
+        assertEquals(expected, reopened.findAll().size());
+        assertEquals(threads * rounds / 2, reopened.findBy(new Query().prefix("name", "updated")).size());
+        reopened.close();
+    }
+
+    private User createUser(String name) throws PasswordException {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .registered(System.currentTimeMillis())
+                .name(name)
+                .email(name + "@stardust.net")
+                .password(name)
+                .build();
+    }
+
+}
@@ -17,6 +17,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.*;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -62,7 +63,6 @@ public class JpaRepositoryTest {
                 e.printStackTrace();
             }
         }
-        userRepository.getEntityManager().clear();
 
         rpgPlayerRepository = new JpaRepository<>(plugin, UUID.class, RPGPlayer.class);
     }
@@ -169,7 +169,6 @@ public class JpaRepositoryTest {
         assertEquals(SaveResult.SUCCESS, userRepository.saveAll(users));
         assertEquals(SaveResult.DUPLICATE, userRepository.saveAll(users));
 
-        userRepository.getEntityManager().clear();
 
         List<UUID> ids = users.stream().map(User::getEntityId).toList();
         List<User> retrievedUsers = userRepository.findAll(ids);
@@ -214,7 +213,6 @@ public class JpaRepositoryTest {
 
         assertEquals(SaveResult.SUCCESS, rpgPlayerRepository.save(player));
 
-        rpgPlayerRepository.getEntityManager().clear();
         RPGPlayer retrieved = rpgPlayerRepository.findById(id);
 
         assertNotNull(retrieved);
@@ -244,6 +242,61 @@ public class JpaRepositoryTest {
         assertNotNull(retrievedSkill);
     }
 
+    @Test
+    @DisplayName("Should serve concurrent reads and writes, each in its own unit of work")
+    void test11() throws InterruptedException {
+        int threads = 8;
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                executor.submit(() -> {
+                    try {
+                        for (int j = 0; j < 10; j++) {
+                            User user = getRandomUser();
+                            assertEquals(user, userRepository.findById(user.getEntityId()));
+                            assertEquals(SaveResult.SUCCESS, userRepository.save(createRandomUser()));
+                        }
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                });
+            }
+        }
+        assertTrue(failures.isEmpty(), () -> failures.toString());
+        assertEquals(userAmount + threads * 10, userRepository.findAll().size());
+    }
+
+    @Test
+    @DisplayName("Should serve repeated lookups from the cache and invalidate it on writes")
+    void test12() {
+        User user = getRandomUser();
+        UUID id = user.getEntityId();
+
+        userRepository.findById(id);
+        long hits = userRepository.getCache().getStats().hits();
+        User cached = userRepository.findById(id);
+
+        assertEquals(hits + 1, userRepository.getCache().getStats().hits());
+
+        cached.setName(randomBase64String(32));
+        userRepository.save(cached, true);
+        long misses = userRepository.getCache().getStats().misses();
+
+        assertEquals(cached.getName(), userRepository.findById(id).getName());
+        assertEquals(misses + 1, userRepository.getCache().getStats().misses());
+    }
+
+    @Test
+    @DisplayName("Should find users by equality and prefix queries")
+    void test13() {
+        User user = getRandomUser();
+
+        assertEquals(List.of(user), userRepository.findBy(new Query().equal("name", user.getName())));
+        assertTrue(userRepository.findBy(new Query().prefix("name", user.getName().substring(0, 8)))
+                .contains(user));
+        assertEquals(1, userRepository.findBy(new Query().limit(1)).size());
+    }
+
     private List<User> getRandomUserList() {
         int amount = 5;
         List<User> users = new ArrayList<>(amount);
@@ -0,0 +1,115 @@
+package net.stardust.base.database.lang;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranslationTemplateTest {
+
+    private static final Locale LOCALE = Locale.ENGLISH;
+
+    @Test
+    @DisplayName("Should render an argument in a slot with the style around it")
+    void test1() {
+        TranslationTemplate template = compile("<red>Hello <bold>{0}</bold>!</red>");
+        Component component = template.component("World");
+
+        assertEquals("Hello World!", plain(component));
+        Style style = styles(component).get("World");
+        assertEquals(NamedTextColor.RED, style.color());
+        assertTrue(style.hasDecoration(TextDecoration.BOLD));
+        assertEquals(NamedTextColor.RED, styles(component).get("!").color());
+    }
+
+    @Test
+    @DisplayName("Should insert component arguments as they are and never parse text arguments")
+    void test2() {
+        TranslationTemplate template = compile("<gray>Paid {0} to {1}</gray>");
+        Component component = template.component(Component.text("5 coins", NamedTextColor.GREEN), "<red>Steve");
+
+        assertEquals("Paid 5 coins to <red>Steve", plain(component));
+        Map<String, Style> styles = styles(component);
+        assertEquals(NamedTextColor.GREEN, styles.get("5 coins").color());
+        assertEquals(NamedTextColor.GRAY, styles.get("<red>Steve").color());
+        assertEquals("Paid 5 coins to <red>Steve", template.string("5 coins", "<red>Steve"));
+    }
+
+    @Test
+    @DisplayName("Should render a missing argument as its placeholder")
+    void test3() {
+        TranslationTemplate template = compile("{0} and {1}");
+
+        assertEquals("a and {1}", plain(template.component("a")));
+        assertEquals("1,234 and b", plain(template.component(1234, "b")));
+    }
+
+    @Test
+    @DisplayName("Should format and parse translations with subformats on every render")
+    void test4() {
+        String pattern = "<green>{0,number,integer} coins</green>";
+        TranslationTemplate template = compile(pattern);
+        Object[] args = { 1234.4 };
+        Component expected = MiniMessage.miniMessage().deserialize(new MessageFormat(pattern, LOCALE).format(args));
+
+        assertEquals("1,234 coins", plain(template.component(args)));
+        assertEquals(expected, template.component(args));
+        assertEquals("<green>1,234 coins</green>", template.string(args));
+    }
+
+    @Test
+    @DisplayName("Should keep translations without arguments ready and fall back to the key")
+    void test5() {
+        TranslationTemplate template = compile("<yellow>Welcome</yellow>");
+        assertSame(template.component(), template.component());
+        assertEquals("Welcome", plain(template.component()));
+
+        TranslationTemplate missing = TranslationTemplate.compile("missing.key", LOCALE, null);
+        assertEquals("missing.key", missing.string());
+        assertEquals(Component.text("missing.key"), missing.component());
+    }
+
+    private static TranslationTemplate compile(String pattern) {
+        MessageFormat format = new MessageFormat(pattern, LOCALE);
+        TranslationTemplate template = TranslationTemplate.compile("test.key", LOCALE, format);
+        assertTrue(template.isCompiledFrom(format));
+        return template;
+    }
+
+    private static String plain(Component component) {
+        return PlainTextComponentSerializer.plainText().serialize(component);
+    }
+
+    /**
+     * Maps the content of every text component to its style merged with the
+     * styles of its parents.
+     */
+    private static Map<String, Style> styles(Component component) {
+        Map<String, Style> styles = new LinkedHashMap<>();
+        collect(component, Style.empty(), styles);
+        return styles;
+    }
+
+    private static void collect(Component component, Style parent, Map<String, Style> styles) {
+        Style style = component.style().merge(parent, Style.Merge.Strategy.IF_ABSENT_ON_TARGET);
+        if (component instanceof TextComponent text && !text.content().isEmpty()) {
+            styles.put(text.content(), style);
+        }
+        for (Component child : component.children()) {
+            collect(child, style, styles);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package net.stardust.base.database.repositories;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LeaderboardTest {
+
+    @Test
+    @DisplayName("Should rank ids by score, highest first, ties by id")
+    void test1() {
+        Leaderboard board = new Leaderboard();
+        UUID a = new UUID(0, 1), b = new UUID(0, 2), c = new UUID(0, 3);
+        board.update(a, BigInteger.TEN);
+        board.update(b, BigInteger.TWO);
+        board.update(c, BigInteger.TEN);
+
+        assertEquals(1, board.rankOf(a));
+        assertEquals(2, board.rankOf(c));
+        assertEquals(3, board.rankOf(b));
+        assertEquals(0, board.rankOf(new UUID(0, 4)));
+        assertEquals(List.of(new Leaderboard.Entry(2, c, BigInteger.TEN), new Leaderboard.Entry(3, b, BigInteger.TWO)),
+                board.range(2, 5));
+        assertTrue(board.range(4, 1).isEmpty());
+
+        board.update(b, BigInteger.valueOf(100));
+        board.remove(a);
+        assertEquals(new Leaderboard.Entry(1, b, BigInteger.valueOf(100)), board.entryOf(b));
+        assertEquals(2, board.rankOf(c));
+        assertNull(board.entryOf(a));
+        assertEquals(2, board.size());
+    }
+
+    @Test
+    @DisplayName("Should agree with a sorted list after random updates and removals")
+    void test2() {
+        Leaderboard board = new Leaderboard();
+        Map<UUID, BigInteger> scores = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        for (int i = 0; i < 5000; i++) {
+            UUID id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(5) == 0) {
+                board.remove(id);
+                scores.remove(id);
+            } else {
+                BigInteger score = BigInteger.valueOf(random.nextInt(100));
+                board.update(id, score);
+                scores.put(id, score);
+            }
+        }
+
+        List<UUID> expected = new ArrayList<>(scores.keySet());
+        expected.sort(Comparator.comparing((UUID id) -> scores.get(id)).reversed().thenComparing(Comparator.naturalOrder()));
+        List<UUID> actual = board.range(1, expected.size() + 10).stream().map(Leaderboard.Entry::id).toList();
+
+        assertEquals(expected, actual);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i + 1, board.rankOf(expected.get(i)));
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package net.stardust.base.utils;
+
+import br.sergio.comlib.Communication;
+import br.sergio.comlib.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mockStatic;
+
+public class ThrowablesTest {
+
+    private MockedStatic<Communication> communication;
+
+    @BeforeEach
+    void setUp() {
+        // the reporter thread is never started, so only flush ships
+        communication = mockStatic(Communication.class);
+        Throwables.flush();
+        communication.clearInvocations();
+    }
+
+    @AfterEach
+    void tearDown() {
+        communication.close();
+    }
+
+    @Test
+    @DisplayName("Should merge repeated throwables into one report with their count")
+    void test1() {
+        IllegalStateException repeated = new IllegalStateException("repeated");
+        for (int i = 0; i < 3; i++) {
+            Throwables.send("first", repeated);
+        }
+        Throwables.send("first", new IOException("other"));
+        Throwables.send("second", repeated);
+        Throwables.flush();
+
+        List<ThrowableReport> reports = shipped();
+        assertEquals(3, reports.size());
+        assertEquals("first", reports.get(0).sender());
+        assertSame(repeated, reports.get(0).throwable());
+        assertEquals(3, reports.get(0).count());
+        assertInstanceOf(IOException.class, reports.get(1).throwable());
+        assertEquals(1, reports.get(1).count());
+        assertEquals("second", reports.get(2).sender());
+        assertEquals(1, reports.get(2).count());
+    }
+
+    @Test
+    @DisplayName("Should report the amount of throwables dropped while the queue was full")
+    void test2() {
+        IllegalStateException e = new IllegalStateException("flood");
+        for (int i = 0; i < Throwables.QUEUE_CAPACITY + 5; i++) {
+            Throwables.send("flood", e);
+        }
+        Throwables.flush();
+
+        List<ThrowableReport> reports = shipped();
+        assertEquals(2, reports.size());
+        assertEquals(Throwables.QUEUE_CAPACITY, reports.get(0).count());
+        ThrowableReport dropped = reports.get(1);
+        assertEquals(5, dropped.count());
+        assertTrue(dropped.throwable().getMessage().startsWith("5 throwables dropped"));
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<ThrowableReport> shipped() {
+        ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+        communication.verify(() -> Communication.send(captor.capture()));
+        return (List<ThrowableReport>) captor.getValue().getContent().orElseThrow();
+    }
+
+}
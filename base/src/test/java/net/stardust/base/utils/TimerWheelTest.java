@@ -0,0 +1,57 @@
+package net.stardust.base.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimerWheelTest {
+
+    @Test
+    @DisplayName("Should run tasks in deadline order, including those cascaded from higher levels")
+    void test1() throws InterruptedException {
+        try (TimerWheel wheel = new TimerWheel()) {
+            List<Long> ran = new CopyOnWriteArrayList<>();
+            CountDownLatch latch = new CountDownLatch(4);
+            for (long delay : new long[] { 70, 1, 65, 3 }) {
+                wheel.schedule(delay, () -> {
+                    ran.add(delay);
+                    latch.countDown();
+                }, new IdentityExecutor());
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(List.of(1L, 3L, 65L, 70L), ran);
+        }
+    }
+
+    @Test
+    @DisplayName("Should never run cancelled tasks")
+    void test2() throws InterruptedException {
+        try (TimerWheel wheel = new TimerWheel()) {
+            CountDownLatch cancelled = new CountDownLatch(1), kept = new CountDownLatch(1);
+            TimerWheel.Timeout timeout = wheel.schedule(2, cancelled::countDown, new IdentityExecutor());
+            wheel.schedule(4, kept::countDown, new IdentityExecutor());
+
+            assertTrue(timeout.cancel());
+            assertFalse(timeout.cancel());
+            assertTrue(timeout.isCancelled());
+            assertTrue(kept.await(5, TimeUnit.SECONDS));
+            assertEquals(1, cancelled.getCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should round durations up to ticks")
+    void test3() {
+        assertEquals(0, TimerWheel.toTicks(0, TimeUnit.SECONDS));
+        assertEquals(1, TimerWheel.toTicks(1, TimeUnit.MILLISECONDS));
+        assertEquals(20, TimerWheel.toTicks(1, TimeUnit.SECONDS));
+        assertEquals(21, TimerWheel.toTicks(1001, TimeUnit.MILLISECONDS));
+    }
+
+}
@@ -0,0 +1,78 @@
+package net.stardust.base.utils.codec;
+
+import net.stardust.base.model.economy.wallet.Currency;
+import net.stardust.base.model.economy.wallet.Money;
+import net.stardust.base.model.economy.wallet.PlayerWallet;
+import net.stardust.base.model.user.User;
+import net.stardust.base.utils.Serializer;
+import net.stardust.base.utils.security.PasswordException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip basic values and collections")
+    void test1() throws IOException {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("int", -42);
+        map.put("long", Long.MIN_VALUE);
+        map.put("big", BigInteger.TWO.pow(100).negate());
+        map.put("uuid", UUID.randomUUID());
+        map.put("list", new ArrayList<>(List.of("a", 'b', 3.5, 2.5f, true)));
+        map.put("set", new HashSet<>(Set.of((short) 7, (byte) 8)));
+        map.put("enum", Currency.GOLD);
+        map.put("string", "stardust");
+        map.put("null", null);
+
+        assertEquals(map, BinaryCodec.decode(BinaryCodec.encode(map)));
+        assertNull(BinaryCodec.decode(BinaryCodec.encode(null)));
+        assertArrayEquals(new byte[] {1, 2, 3}, BinaryCodec.decode(BinaryCodec.encode(new byte[] {1, 2, 3}), byte[].class));
+    }
+
+    @Test
+    @DisplayName("Should round-trip model classes through their schemas in less space than Java serialization")
+    void test2() throws IOException, PasswordException {
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .registered(System.currentTimeMillis())
+                .name("user")
+                .email("user@stardust.net")
+                .password("password")
+                .build();
+        PlayerWallet wallet = new PlayerWallet(UUID.randomUUID(), 10, 2000, Long.MAX_VALUE);
+        Money money = new Money(Currency.SILVER, 150);
+
+        for (Object value : List.of(user, wallet, money)) {
+            byte[] encoded = BinaryCodec.encode(value);
+            assertFalse(BinaryCodec.isLegacy(encoded));
+            assertEquals(value, BinaryCodec.decode(encoded));
+            assertTrue(encoded.length < Serializer.serialize(value).length);
+        }
+    }
+
+    @Test
+    @DisplayName("Should read data written by Java serialization and reject unknown data")
+    void test3() throws IOException {
+        Money money = new Money(Currency.BRONZE, 99);
+        HashMap<UUID, Money> map = new HashMap<>(Map.of(UUID.randomUUID(), money));
+
+        assertEquals(money, BinaryCodec.decode(Serializer.serialize(money)));
+        assertEquals(map, BinaryCodec.decode(Serializer.serialize(map)));
+        assertThrows(StreamCorruptedException.class, () -> BinaryCodec.decode(new byte[] {1, 2, 3}));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.register(new FieldSchema<>(1, Entry.class, "value")));
+    }
+
+    static class Entry {
+        String value;
+    }
+
+}
@@ -0,0 +1,112 @@
+package net.stardust.base.utils.message;
+
+import net.kyori.adventure.text.Component;
+import net.stardust.base.BasePlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class MessagerTest {
+
+    @Mock
+    private BasePlugin plugin;
+
+    @Mock
+    private BukkitScheduler scheduler;
+
+    @Mock
+    private Player first;
+
+    @Mock
+    private Player second;
+
+    private MockedStatic<Bukkit> bukkit;
+    private Messager messager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(MessagerTest.class.getName()));
+        when(plugin.getId()).thenReturn("test");
+
+        // every message is queued, as if sent outside the main thread
+        bukkit = mockStatic(Bukkit.class);
+        bukkit.when(Bukkit::isPrimaryThread).thenReturn(false);
+        bukkit.when(Bukkit::getScheduler).thenReturn(scheduler);
+
+        messager = new Messager(plugin);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bukkit.close();
+    }
+
+    @Test
+    @DisplayName("Should keep the queue order between a collection and a recipient inside it")
+    void test1() {
+        Component a = Component.text("a"), b = Component.text("b"), c = Component.text("c");
+        messager.message(first, a);
+        messager.message(List.of(first, second), b);
+        messager.message(first, c);
+        messager.flush();
+
+        InOrder order = inOrder(first);
+        order.verify(first).sendMessage(a);
+        order.verify(first).sendMessage(b);
+        order.verify(first).sendMessage(c);
+        verify(second).sendMessage(b);
+        verify(scheduler, times(1)).runTask(eq(plugin), any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("Should only send the last action bar of each recipient in a tick")
+    void test2() {
+        Component old = Component.text("old"), chat = Component.text("chat"), latest = Component.text("latest"),
+                other = Component.text("other");
+        CompletableFuture<Void> dropped = messager.actionBar(first, old);
+        messager.message(first, chat);
+        messager.actionBar(second, other);
+        CompletableFuture<Void> sent = messager.actionBar(first, latest);
+        messager.flush();
+
+        verify(first, never()).sendActionBar(old);
+        verify(first).sendActionBar(latest);
+        verify(first).sendMessage(chat);
+        verify(second).sendActionBar(other);
+        assertTrue(dropped.isDone() && !dropped.isCompletedExceptionally());
+        assertTrue(sent.isDone() && !sent.isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("Should fail the queued messages and schedule again if scheduling throws")
+    void test3() {
+        when(scheduler.runTask(eq(plugin), any(Runnable.class))).thenThrow(new IllegalStateException("disabled"))
+                .thenReturn(null);
+        CompletableFuture<Void> failed = messager.message(first, Component.text("a"));
+        assertTrue(failed.isCompletedExceptionally());
+
+        CompletableFuture<Void> queued = messager.message(first, Component.text("b"));
+        verify(scheduler, times(2)).runTask(eq(plugin), any(Runnable.class));
+        messager.flush();
+        assertTrue(queued.isDone() && !queued.isCompletedExceptionally());
+    }
+
+}
@@ -1,10 +1,10 @@
 package net.stardust.authentication.commands;
 
-import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +21,7 @@ import net.stardust.base.command.AsyncCommand;
 import net.stardust.base.command.BaseCommand;
 import net.stardust.base.command.CommandEntry;
 import net.stardust.base.database.crud.ChannelStatusCrud;
+import net.stardust.base.database.crud.Crud;
 import net.stardust.base.database.crud.PlayerWalletCrud;
 import net.stardust.base.database.crud.RPGPlayerCrud;
 import net.stardust.base.database.crud.UserCrud;
@@ -103,14 +104,22 @@ public class RegisterCommand extends AsyncCommand<StardustAuthentication> {
         PlayerWallet wallet = new PlayerWallet(uid);
         Request<ChannelStatus> toCh = Request.newRequest(plugin.getId(), "channels", RequestMethod.POST, channel);
         try {
-            if(!userCrud.create(user) || !channelCrud.create(channel) || !rpgCrud.create(rpgPlayer)
-                || !walletCrud.create(wallet) || Communication.send(toCh).getStatus() != ResponseStatus.OK) {
-                    plugin.unauthorize(player, uid, "register.could-not-register");
+            // The user is created first, so a failed or concurrent registration leaves nothing else behind
+            if(!userCrud.createAsync(user).join()) {
+                plugin.unauthorize(player, uid, "register.could-not-register");
+                return;
+            }
+            // The remaining requests only depend on the user, so they are sent in parallel
+            List<Boolean> results = Crud.all(channelCrud.createAsync(channel), rpgCrud.createAsync(rpgPlayer),
+                walletCrud.createAsync(wallet),
+                Crud.async(() -> Communication.send(toCh).getStatus() == ResponseStatus.OK)).join();
+            if(results.contains(false)) {
+                plugin.unauthorize(player, uid, "register.could-not-register");
                 return;
             }
             messager.message(player, Component.translatable("register.success", NamedTextColor.GREEN));
             plugin.authorize(uid);
-        } catch(IOException | NoSuchElementException e) {
+        } catch(CompletionException e) {
             plugin.unauthorize(player, uid, "register.could-not-register");
             logger.log(Level.SEVERE, "Exceção ao registrar jogador", e);
         }
@@ -0,0 +1,37 @@
+package net.stardust.authentication.commands;
+
+import java.util.logging.Level;
+
+import org.bukkit.command.CommandSender;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.stardust.authentication.StardustAuthentication;
+import net.stardust.base.command.AsyncCommand;
+import net.stardust.base.command.BaseCommand;
+import net.stardust.base.command.CommandEntry;
+import net.stardust.base.database.lang.BundleLoadException;
+import net.stardust.base.database.lang.Translation;
+import net.stardust.base.utils.Throwables;
+
+@BaseCommand(value = "translations", opOnly = true)
+public class TranslationsCommand extends AsyncCommand<StardustAuthentication> {
+
+    public TranslationsCommand(StardustAuthentication plugin) {
+        super(plugin);
+    }
+
+    // Lê os bundles de novo, as traduções antigas continuam valendo se falhar
+    @CommandEntry("reload")
+    public void reload() {
+        CommandSender sender = sender();
+        try {
+            Translation.reload();
+            messager.message(sender, Component.text("» Traduções recarregadas", NamedTextColor.GREEN));
+        } catch(BundleLoadException e) {
+            plugin.getLogger().log(Level.SEVERE, "Erro ao recarregar as traduções", Throwables.send(plugin.getId(), e));
+            messager.message(sender, Component.text("» Não foi possível recarregar as traduções", NamedTextColor.RED));
+        }
+    }
+
+}
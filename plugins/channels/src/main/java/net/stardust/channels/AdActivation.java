@@ -19,8 +19,9 @@ import net.stardust.base.database.crud.PlayerWalletCrud;
 import net.stardust.base.model.channel.Ad;
 import net.stardust.base.model.channel.ChannelStatus;
 import net.stardust.base.model.economy.wallet.Currency;
+import net.stardust.base.model.economy.wallet.LedgerRequest;
 import net.stardust.base.model.economy.wallet.Money;
-import net.stardust.base.model.economy.wallet.PlayerWallet;
+import net.stardust.base.model.economy.wallet.WalletDelta;
 import net.stardust.base.utils.StardustThreads;
 import net.stardust.base.utils.message.Messager;
 
@@ -66,15 +67,12 @@ public class AdActivation implements ChannelInventoryActivationClickHandler, Com
             }
             // To turn ad off the player must pay some tax
             PlayerWalletCrud crud = new PlayerWalletCrud();
-            PlayerWallet wallet = crud.getOrThrow(playerId);
             Money tax = ad.getDeactivationPrice();
             Currency currency = tax.getCurrency();
-            Money playerMoney = wallet.getMoney(currency);
             Messager messager = plugin.getMessager();
             BigInteger taxValue = tax.getValue();
-            if(playerMoney.isSubtractionPossible(taxValue)) {
-                playerMoney.subtract(taxValue);
-                crud.update(wallet);
+            // the ledger checks the balance and debits it atomically
+            if(crud.apply(LedgerRequest.of(true, WalletDelta.debit(playerId, currency, taxValue)))) {
                 addCounter(player, playerId);
                 messager.message(player, Component.translatable("channel.ad.paid-off", NamedTextColor.GREEN, 
                     tax.toComponent(), Component.text(noAdTime, NamedTextColor.DARK_GREEN)));
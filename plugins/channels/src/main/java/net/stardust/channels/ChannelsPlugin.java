@@ -38,10 +38,13 @@ import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import net.dv8tion.jda.api.utils.cache.CacheFlag;
 import net.stardust.base.BasePlugin;
 import net.stardust.base.database.crud.ChannelStatusCrud;
+import net.stardust.base.database.crud.CrudCache;
 import net.stardust.base.model.channel.Ad;
 import net.stardust.base.model.channel.Channel;
 import net.stardust.base.model.channel.ChannelStatus;
 import net.stardust.base.model.channel.Global;
+import net.stardust.base.model.economy.wallet.PlayerWallet;
+import net.stardust.base.model.rpg.RPGPlayer;
 import net.stardust.base.utils.StardustThreads;
 import net.stardust.base.utils.Throwables;
 
@@ -89,6 +92,8 @@ public class ChannelsPlugin extends BasePlugin implements Listener, RequestMappe
         } catch (ConnectionException e) {
             Throwables.sendAndThrow(e);
         }
+        log.info("Habilitando cache de carteiras e jogadores RPG");
+        CrudCache.enable(this, PlayerWallet.class, RPGPlayer.class);
         log.info("Carregando dados da config");
         FileConfiguration config = getConfig();
         discordParticipants = Collections.synchronizedSet(new HashSet<>(config
@@ -153,6 +158,8 @@ public class ChannelsPlugin extends BasePlugin implements Listener, RequestMappe
             log.warning("Não foi possível fechar o JDA propriamente");
             Throwables.send(e).printStackTrace();
         }
+        log.info("Desabilitando cache de carteiras e jogadores RPG");
+        CrudCache.disable(this);
         log.info("Chamando super.onDisable()");
         super.onDisable();
         log.info("Cancelando bukkit tasks do plugin");
@@ -3,24 +3,22 @@ package net.stardust.generalcmd;
 import static net.kyori.adventure.text.Component.translatable;
 
 import java.math.BigInteger;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.function.Function;
 
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import lombok.AllArgsConstructor;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.stardust.base.command.BaseCommand;
 import net.stardust.base.command.CommandEntry;
+import net.stardust.base.command.Completion;
+import net.stardust.base.command.CompletionSource;
 import net.stardust.base.command.VirtualCommand;
 import net.stardust.base.database.crud.PlayerWalletCrud;
 import net.stardust.base.database.crud.UserCrud;
@@ -37,6 +35,7 @@ import net.stardust.base.model.economy.transaction.operation.TransferNode;
 import net.stardust.base.model.economy.wallet.Currency;
 import net.stardust.base.model.economy.wallet.Money;
 import net.stardust.base.model.economy.wallet.PlayerWallet;
+import net.stardust.base.model.economy.wallet.RankedWallet;
 import net.stardust.base.model.user.User;
 import net.stardust.base.utils.gameplay.AutomaticMessages;
 import net.stardust.base.utils.StardustThreads;
@@ -61,12 +60,12 @@ public class MoneyCommand extends VirtualCommand<GeneralCommandsPlugin> {
 	}
 
 	@CommandEntry(oneWordFinalString = true)
-	public void getSubCommand(String name) {
+	public void getSubCommand(@Completion(CompletionSource.PLAYERS) String name) {
 		getByName(name);
 	}
 
 	@CommandEntry(value = "get", oneWordFinalString = true)
-	public void get0(String name) {
+	public void get0(@Completion(CompletionSource.PLAYERS) String name) {
 		getByName(name);
 	}
 
@@ -89,15 +88,13 @@ public class MoneyCommand extends VirtualCommand<GeneralCommandsPlugin> {
 	@CommandEntry("rank")
 	public void rank(int pos) {
 		CommandSender sender = sender();
-    	List<PlayerWallet> wallets = walletCrud.getAll();
-    	List<PlayerWallet> bronzeRank = getSortedList(wallets, PlayerWallet::getBronze);
-    	List<PlayerWallet> silverRank = getSortedList(wallets, PlayerWallet::getSilver);
-    	List<PlayerWallet> goldRank = getSortedList(wallets, PlayerWallet::getGold);
+		List<RankedWallet> bronzeTop = pos > 0 ? walletCrud.top(Currency.BRONZE, pos, 1) : List.of();
+		List<RankedWallet> silverTop = pos > 0 ? walletCrud.top(Currency.SILVER, pos, 1) : List.of();
+		List<RankedWallet> goldTop = pos > 0 ? walletCrud.top(Currency.GOLD, pos, 1) : List.of();
     	Component[] messages = new Component[4];
-    	int index = pos - 1;
 		Component dash = Component.text('-');
 		Component posComp = translatable("money.rank.pos", NamedTextColor.AQUA, Component.text(pos, NamedTextColor.GREEN));
-    	if(index >= wallets.size()) {
+    	if(bronzeTop.isEmpty() || silverTop.isEmpty() || goldTop.isEmpty()) {
     		messages[0] = posComp;
     		messages[1] = translatable("money.rank.bronze-pos", NamedTextColor.GOLD, dash.color(NamedTextColor.GOLD));
     		messages[2] = translatable("money.rank.silver-pos", NamedTextColor.GRAY, dash.color(NamedTextColor.GRAY));
@@ -106,18 +103,10 @@ public class MoneyCommand extends VirtualCommand<GeneralCommandsPlugin> {
     		return;
     	}
     	
-    	UUID bronzeId = bronzeRank.get(index).getId();
-    	UUID silverId = silverRank.get(index).getId();
-    	UUID goldId = goldRank.get(index).getId();
-    	
-    	List<User> users = userCrud.getAll();
-    	users.sort((u1, u2) -> u1.getId().compareTo(u2.getId()));
-    	List<UUID> uuids = users.stream().map(User::getId).toList();
-    	
     	ExecutorService executorService = plugin.getCached();
-    	Future<String> bronzePlayer = executorService.submit(new UserFinder(users, uuids, bronzeId));
-    	Future<String> silverPlayer = executorService.submit(new UserFinder(users, uuids, silverId));
-    	Future<String> goldPlayer = executorService.submit(new UserFinder(users, uuids, goldId));
+    	Future<String> bronzePlayer = executorService.submit(nameOf(bronzeTop.getFirst().wallet()));
+    	Future<String> silverPlayer = executorService.submit(nameOf(silverTop.getFirst().wallet()));
+    	Future<String> goldPlayer = executorService.submit(nameOf(goldTop.getFirst().wallet()));
     	
 		try {
 			messages[0] = posComp;
@@ -131,7 +120,7 @@ public class MoneyCommand extends VirtualCommand<GeneralCommandsPlugin> {
 	}
 
 	@CommandEntry("rank")
-	public void rank(String name) {
+	public void rank(@Completion(CompletionSource.PLAYERS) String name) {
 		CommandSender sender = sender();
 		User target = userCrud.byNameOrNull(name);
 		if (target == null) {
@@ -139,27 +128,20 @@ public class MoneyCommand extends VirtualCommand<GeneralCommandsPlugin> {
     		return;
     	}
 
-		PlayerWallet wallet = walletCrud.getOrThrow(target.getId());
-
-		List<PlayerWallet> wallets = walletCrud.getAll();
-    	List<PlayerWallet> bronzeRank = getSortedList(wallets, PlayerWallet::getBronze);
-    	List<PlayerWallet> silverRank = getSortedList(wallets, PlayerWallet::getSilver);
-    	List<PlayerWallet> goldRank = getSortedList(wallets, PlayerWallet::getGold);
-
     	Component[] messages = new Component[4];
     	messages[0] = translatable("money.rank.wallet", NamedTextColor.AQUA, Component
 			.text(target.getName(), NamedTextColor.GREEN));
-    	messages[1] = translatable("money.rank.bronze-pos", NamedTextColor.GOLD, Component.text(Collections
-			.binarySearch(bronzeRank, wallet, getComparator(PlayerWallet::getBronze)) + 1, NamedTextColor.GOLD));
-    	messages[2] = translatable("money.rank.silver-pos", NamedTextColor.GRAY, Component.text(Collections
-			.binarySearch(silverRank, wallet, getComparator(PlayerWallet::getSilver)) + 1, NamedTextColor.GRAY));
-    	messages[3] = translatable("money.rank.gold-pos", NamedTextColor.YELLOW, Component.text(Collections
-			.binarySearch(goldRank, wallet, getComparator(PlayerWallet::getGold)) + 1, NamedTextColor.YELLOW));
+    	messages[1] = translatable("money.rank.bronze-pos", NamedTextColor.GOLD, Component
+			.text(rankOf(Currency.BRONZE, target.getId()), NamedTextColor.GOLD));
+    	messages[2] = translatable("money.rank.silver-pos", NamedTextColor.GRAY, Component
+			.text(rankOf(Currency.SILVER, target.getId()), NamedTextColor.GRAY));
+    	messages[3] = translatable("money.rank.gold-pos", NamedTextColor.YELLOW, Component
+			.text(rankOf(Currency.GOLD, target.getId()), NamedTextColor.YELLOW));
     	messager.message(sender, messages);
 	}
 
 	@CommandEntry(value = "set", opOnly = true, oneWordFinalString = true)
-	public void set(String name, String moneyString) {
+	public void set(@Completion(CompletionSource.PLAYERS) String name, String moneyString) {
 		CommandSender sender = sender();
 		User target = userCrud.byNameOrNull(name);
     	if(target == null) {
@@ -185,7 +167,7 @@ public class MoneyCommand extends VirtualCommand<GeneralCommandsPlugin> {
 	}
 
 	@CommandEntry(value = "pay", types = Player.class, oneWordFinalString = true)
-	public void pay(String name, String moneyString) {
+	public void pay(@Completion(CompletionSource.PLAYERS) String name, String moneyString) {
 		Player sender = sender();
 		User target = userCrud.byNameOrNull(name);
     	if(target == null) {
@@ -253,26 +235,13 @@ public class MoneyCommand extends VirtualCommand<GeneralCommandsPlugin> {
 		messager.message(sender, messages);
 	}
 
-	private Comparator<PlayerWallet> getComparator(Function<PlayerWallet, Money> function) {
-		return Comparator.comparing(function).reversed();
+	private String rankOf(Currency currency, UUID id) {
+		RankedWallet ranked = walletCrud.rankOf(currency, id);
+		return ranked == null ? "-" : String.valueOf(ranked.rank());
+	}
+
+	private Callable<String> nameOf(UUID id) {
+		return () -> userCrud.getOrThrow(id).getName();
 	}
-	
-	private List<PlayerWallet> getSortedList(List<PlayerWallet> original, Function<PlayerWallet, Money> function) {
-        return original.stream().sorted(getComparator(function)).toList();
-    }
-    
-    @AllArgsConstructor
-    private class UserFinder implements Callable<String> {
-    	
-    	private List<User> users;
-    	private List<UUID> uuids;
-    	private UUID wanted;
-    	
-		@Override
-		public String call() throws Exception {
-			return users.get(Collections.binarySearch(uuids, wanted)).getName();
-		}
-    	
-    }
     
 }
@@ -2,6 +2,7 @@ package net.stardust.minigames;
 
 import lombok.Getter;
 import net.stardust.base.BasePlugin;
+import net.stardust.base.command.CompletionSource;
 import net.stardust.base.events.DefaultListener;
 import net.stardust.base.minigame.Minigame;
 import net.stardust.base.minigame.MinigameInfo;
@@ -24,6 +25,7 @@ import java.util.*;
 public class MinigamesPlugin extends BasePlugin {
 
     public static final NamespacedKey MINIGAME_SIGN = new NamespacedKey("stardust", "minigame_sign");
+    public static final String MINIGAMES = "minigames";
 
     private static MinigamesPlugin instance;
 
@@ -90,6 +92,7 @@ public class MinigamesPlugin extends BasePlugin {
             }
             matches.put(key, signs);
             lobbies.put(key, lobby.getSpawnLocation());
+            CompletionSource.named(MINIGAMES).add(key);
             getPluginConfig().registerEvents(new DefaultListener(() -> lobby));
         }
         matches.values().forEach(list -> list.getFirst().getMatch().preMatch());
@@ -3,8 +3,6 @@ package net.stardust.minigames.commands;
 import java.text.DecimalFormatSymbols;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
 import java.util.function.Consumer;
 
 import org.bukkit.Bukkit;
@@ -16,12 +14,15 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.stardust.base.command.BaseCommand;
 import net.stardust.base.command.CommandEntry;
+import net.stardust.base.command.Completion;
+import net.stardust.base.command.CompletionSource;
 import net.stardust.base.command.VirtualCommand;
 import net.stardust.base.database.crud.MinigameDataCrud;
+import net.stardust.base.database.crud.MinigameStatsCrud;
 import net.stardust.base.database.crud.UserCrud;
 import net.stardust.base.database.lang.Translation;
 import net.stardust.base.model.minigame.MinigameData;
-import net.stardust.base.model.minigame.MinigamePlayer;
+import net.stardust.base.model.minigame.MinigameStats;
 import net.stardust.base.model.user.User;
 import net.stardust.base.utils.gameplay.AutomaticMessages;
 import net.stardust.base.utils.StardustThreads;
@@ -30,41 +31,43 @@ import net.stardust.minigames.MinigamesPlugin;
 @BaseCommand("mgdata")
 public class MgDataCommand extends VirtualCommand<MinigamesPlugin> {
 
+    private MinigameStatsCrud statsCrud = new MinigameStatsCrud();
+
     public MgDataCommand(MinigamesPlugin plugin) {
         super(plugin);
     }
 
     @CommandEntry(types = Player.class)
-    public void data(String minigameName) {
+    public void data(@Completion(MinigamesPlugin.MINIGAMES) String minigameName) {
         data(minigameName, (Player) sender());
     }
 
     @CommandEntry
-    public void data(String minigameName, String playerName) {
+    public void data(@Completion(MinigamesPlugin.MINIGAMES) String minigameName,
+            @Completion(CompletionSource.PLAYERS) String playerName) {
         data(minigameName, Bukkit.getOfflinePlayer(playerName));
     }
 
     @CommandEntry
-    public void data(String minigameName, int rankPosition) {
+    public void data(@Completion(MinigamesPlugin.MINIGAMES) String minigameName, int rankPosition) {
         CommandSender sender = sender();
-        foundMinigame(sender, minigameName, data -> {
-            List<MinigamePlayer> players = data.getMinigamePlayers().values().stream()
+        foundMinigame(sender, minigameName, name -> {
+            List<MinigameStats> players = statsCrud.byMinigame(name).stream()
                     .sorted(Comparator.reverseOrder()).toList();
             int index = rankPosition - 1;
-            if(index >= players.size()) {
+            if(index < 0 || index >= players.size()) {
                 sender.sendMessage(AutomaticMessages.notFound("word.position"));
                 return;
             }
-            displayData(sender, data, players.get(index), players);
+            displayData(sender, name, players.get(index), index + 1);
         });
     }
 
     private void data(String minigameName, OfflinePlayer player) {
         CommandSender sender = sender();
-        foundMinigame(sender, minigameName, data -> {
-            Map<UUID, MinigamePlayer> minigamePlayers = data.getMinigamePlayers();
-            MinigamePlayer minigamePlayer = minigamePlayers.get(player.getUniqueId());
-            if(minigamePlayer == null) {
+        foundMinigame(sender, minigameName, name -> {
+            MinigameStats stats = statsCrud.of(name, player.getUniqueId());
+            if(stats == null) {
                 if(StardustThreads.call(plugin, () -> sender.equals(player))) {
                     messager.message(sender, Component.translatable("minigame.no-data-yet", NamedTextColor.RED));
                 } else {
@@ -72,37 +75,33 @@ public class MgDataCommand extends VirtualCommand<MinigamesPlugin> {
                 }
                 return;
             }
-            List<MinigamePlayer> orderedList = minigamePlayers.values().stream()
-                    .sorted(Comparator.reverseOrder()).toList();
-            displayData(sender, data, minigamePlayer, orderedList);
+            long ahead = statsCrud.byMinigame(name).stream()
+                    .filter(other -> other.compareTo(stats) > 0)
+                    .count();
+            displayData(sender, name, stats, (int) ahead + 1);
         });
     }
 
-    private void foundMinigame(CommandSender sender, String minigameName, Consumer<MinigameData> consumer) {
+    private void foundMinigame(CommandSender sender, String minigameName, Consumer<String> consumer) {
         MinigameDataCrud crud = new MinigameDataCrud();
-        List<MinigameData> dataList = crud.getAll();
-        for(MinigameData data : dataList) {
-            if(data.getMinigameName().equalsIgnoreCase(minigameName)) {
-                consumer.accept(data);
-                return;
-            }
-        }
-        messager.message(sender, AutomaticMessages.notFound("word.minigame"));
+        crud.stream()
+                .map(MinigameData::getMinigameName)
+                .filter(name -> name.equalsIgnoreCase(minigameName))
+                .findFirst()
+                .ifPresentOrElse(consumer, () -> messager.message(sender, AutomaticMessages.notFound("word.minigame")));
     }
 
-    private void displayData(CommandSender sender, MinigameData data, MinigamePlayer player,
-                             List<MinigamePlayer> sortedList) {
+    private void displayData(CommandSender sender, String minigameName, MinigameStats player, int position) {
         UserCrud userCrud = new UserCrud();
-        User user = userCrud.getOrThrow(player.getId());
+        User user = userCrud.getOrThrow(player.getPlayer());
         String name = user.getName();
 
-        int position = sortedList.indexOf(player) + 1;
         DecimalFormatSymbols symbols = new DecimalFormatSymbols(Translation.locale(sender));
         char separator = symbols.getDecimalSeparator();
         String ratioString = String.valueOf(player.getRatio()).replace('.', separator);
 
         Component header = Component.translatable("mg-data-display.header", NamedTextColor.BLUE,
-                Component.text(name, NamedTextColor.AQUA), Component.text(data.getMinigameName(),
+                Component.text(name, NamedTextColor.AQUA), Component.text(minigameName,
                         NamedTextColor.DARK_PURPLE));
         Component wins = Component.translatable("mg-data-display.wins", NamedTextColor.GOLD,
                 Component.text(player.getWins(), NamedTextColor.YELLOW));
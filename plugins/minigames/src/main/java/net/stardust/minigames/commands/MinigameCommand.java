@@ -7,6 +7,7 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.stardust.base.command.BaseCommand;
 import net.stardust.base.command.CommandEntry;
+import net.stardust.base.command.Completion;
 import net.stardust.base.command.DirectCommand;
 import net.stardust.base.utils.gameplay.AutomaticMessages;
 import net.stardust.minigames.MinigamesPlugin;
@@ -19,7 +20,7 @@ public class MinigameCommand extends DirectCommand<MinigamesPlugin> {
     }
 
     @CommandEntry
-    public void teleport(String minigameName) {
+    public void teleport(@Completion(MinigamesPlugin.MINIGAMES) String minigameName) {
         Player player = sender();
         Location lobby = plugin.getLobbies().get(minigameName.toLowerCase());
         if(lobby == null) {
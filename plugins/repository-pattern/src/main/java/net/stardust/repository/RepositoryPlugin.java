@@ -8,12 +8,22 @@ import jakarta.persistence.EntityManagerFactory;
 import net.stardust.base.BasePlugin;
 import net.stardust.base.database.*;
 import net.stardust.base.database.crud.Crud;
+import net.stardust.base.database.crud.MinigameStatsCrud;
+import net.stardust.base.database.crud.PlayerWalletCrud;
 import net.stardust.base.model.StardustEntity;
+import net.stardust.base.model.economy.wallet.PlayerWallet;
+import net.stardust.base.model.minigame.MinigameData;
+import net.stardust.base.model.minigame.MinigameStats;
 import net.stardust.base.utils.Throwables;
+import net.stardust.repository.ledger.LeaderboardController;
+import net.stardust.repository.ledger.WalletLeaderboards;
+import net.stardust.repository.ledger.WalletLedger;
+import net.stardust.repository.minigame.StatsCounter;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +31,8 @@ public class RepositoryPlugin extends BasePlugin {
 
 	private List<RequestListener> requestListeners;
 	private List<Repository<?, ?>> repositories;
+	private WalletLedger ledger;
+	private WalletLeaderboards leaderboards;
 
 	@Override
 	public void onLoad() {
@@ -76,6 +88,15 @@ public class RepositoryPlugin extends BasePlugin {
 			log.info("Request listeners fechados com sucesso");
 		}
 
+		if (ledger != null) {
+			try {
+				ledger.close();
+			} catch (IOException e) {
+				log.log(Level.SEVERE, "Falha ao fechar o journal do ledger de carteiras",
+						Throwables.send(getId(), e));
+			}
+		}
+
 		exc = false;
 
 		log.info("Fechando repositórios");
@@ -123,10 +144,15 @@ public class RepositoryPlugin extends BasePlugin {
 			var valueClass = (Class<V>) entity;
 			var keyClass = (Class<K>) valueClass.getAnnotation(BaseEntity.class).value();
 			var repository = RepositoryFactory.getRepository(this, keyClass, valueClass);
+			if (valueClass == PlayerWallet.class) {
+				leaderboards = new WalletLeaderboards((Repository<UUID, PlayerWallet>) repository);
+				repository = (Repository<K, V>) leaderboards;
+			}
 			repositories.add(repository);
 		}
 	}
 
+	@SuppressWarnings("unchecked")
 	private void createRequestListeners() {
 		requestListeners = new ArrayList<>(repositories.size());
 		for (var repository : repositories) {
@@ -140,6 +166,55 @@ public class RepositoryPlugin extends BasePlugin {
 				getLogger().log(Level.SEVERE, "Falha ao ligar o request listener para \"" + id + "\"",
 						Throwables.send(getId(), e));
 			}
+			if (repository.getValueClass() == PlayerWallet.class) {
+				createLedger((Repository<UUID, PlayerWallet>) repository,
+						(RepositoryController<UUID, PlayerWallet>) controller);
+				createLeaderboardListener();
+			}
+			if (repository.getValueClass() == MinigameStats.class) {
+				createStatsCounter((Repository<String, MinigameStats>) repository,
+						(RepositoryController<String, MinigameStats>) controller);
+			}
+		}
+	}
+
+	private void createLedger(Repository<UUID, PlayerWallet> wallets,
+			RepositoryController<UUID, PlayerWallet> controller) {
+		ledger = new WalletLedger(this, wallets, controller);
+		try {
+			var listener = Communication.newRequestListener(PlayerWalletCrud.LEDGER_ID, new MethodMapper(ledger, true));
+			requestListeners.add(listener);
+		} catch (ConnectionException e) {
+			getLogger().log(Level.SEVERE, "Falha ao ligar o request listener para \"" + PlayerWalletCrud.LEDGER_ID
+					+ "\"", Throwables.send(getId(), e));
+		}
+	}
+
+	private void createLeaderboardListener() {
+		try {
+			var mapper = new MethodMapper(new LeaderboardController(leaderboards), true);
+			requestListeners.add(Communication.newRequestListener(PlayerWalletCrud.LEADERBOARD_ID, mapper));
+		} catch (ConnectionException e) {
+			getLogger().log(Level.SEVERE, "Falha ao ligar o request listener para \"" + PlayerWalletCrud.LEADERBOARD_ID
+					+ "\"", Throwables.send(getId(), e));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void createStatsCounter(Repository<String, MinigameStats> stats,
+			RepositoryController<String, MinigameStats> controller) {
+		var counter = new StatsCounter(this, stats, controller);
+		for (var repository : repositories) {
+			if (repository.getValueClass() == MinigameData.class) {
+				counter.migrate((Repository<String, MinigameData>) repository);
+			}
+		}
+		try {
+			var mapper = new MethodMapper(counter, true);
+			requestListeners.add(Communication.newRequestListener(MinigameStatsCrud.COUNTER_ID, mapper));
+		} catch (ConnectionException e) {
+			getLogger().log(Level.SEVERE, "Falha ao ligar o request listener para \"" + MinigameStatsCrud.COUNTER_ID
+					+ "\"", Throwables.send(getId(), e));
 		}
 	}
 
@@ -0,0 +1,67 @@
+package net.stardust.repository.ledger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import br.sergio.comlib.MethodAdapter;
+import br.sergio.comlib.ResponseData;
+import br.sergio.comlib.ResponseStatus;
+import net.stardust.base.database.crud.PlayerWalletCrud;
+import net.stardust.base.database.repositories.Leaderboard;
+import net.stardust.base.model.economy.wallet.LeaderboardQuery;
+import net.stardust.base.model.economy.wallet.RankedWallet;
+
+/**
+ * Answers {@link LeaderboardQuery}s from the {@link WalletLeaderboards},
+ * listening on {@link PlayerWalletCrud#LEADERBOARD_ID}. A GET of a query
+ * for the rank of a wallet answers its {@link RankedWallet}, or NOT_FOUND,
+ * and a GET of a range answers an {@link ArrayList} of the ranked wallets
+ * in it, which is empty past the last rank. Nothing else is accepted.
+ *
+ * @author Sergio Luis
+ */
+public class LeaderboardController extends MethodAdapter {
+
+	private WalletLeaderboards leaderboards;
+
+	public LeaderboardController(WalletLeaderboards leaderboards) {
+		this.leaderboards = leaderboards;
+	}
+
+	@Override
+	public ResponseData get(Object content) {
+		if(!(content instanceof LeaderboardQuery query)) {
+			return new ResponseData(ResponseStatus.BAD_REQUEST);
+		}
+		Leaderboard board = leaderboards.board(query.currency());
+		if(query.wallet() != null) {
+			Leaderboard.Entry entry = board.entryOf(query.wallet());
+			if(entry == null) {
+				return new ResponseData(ResponseStatus.NOT_FOUND);
+			}
+			return new ResponseData(ResponseStatus.OK, new RankedWallet(entry.rank(), entry.id(), entry.score()));
+		}
+		List<Leaderboard.Entry> entries = board.range(query.from(), query.size());
+		ArrayList<RankedWallet> ranked = new ArrayList<>(entries.size());
+		for(Leaderboard.Entry entry : entries) {
+			ranked.add(new RankedWallet(entry.rank(), entry.id(), entry.score()));
+		}
+		return new ResponseData(ResponseStatus.OK, ranked);
+	}
+
+	@Override
+	public ResponseData post(Object content) {
+		return new ResponseData(ResponseStatus.BAD_REQUEST);
+	}
+
+	@Override
+	public ResponseData put(Object content) {
+		return new ResponseData(ResponseStatus.BAD_REQUEST);
+	}
+
+	@Override
+	public ResponseData delete(Object content) {
+		return new ResponseData(ResponseStatus.BAD_REQUEST);
+	}
+
+}
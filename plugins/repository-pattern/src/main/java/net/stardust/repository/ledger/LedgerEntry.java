@@ -0,0 +1,27 @@
+package net.stardust.repository.ledger;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import net.stardust.base.model.StardustEntity;
+import net.stardust.base.model.economy.wallet.WalletDelta;
+
+/**
+ * An applied {@link net.stardust.base.model.economy.wallet.LedgerRequest},
+ * as recorded in the journal of the {@link WalletLedger}.
+ *
+ * @param transaction the transaction id of the request
+ * @param timestamp   when it was applied, in epoch milliseconds
+ * @param deltas      the applied deltas
+ *
+ * @author Sergio Luis
+ */
+public record LedgerEntry(UUID transaction, long timestamp, ArrayList<WalletDelta> deltas)
+		implements StardustEntity<UUID> {
+
+	@Override
+	public UUID getEntityId() {
+		return transaction;
+	}
+
+}
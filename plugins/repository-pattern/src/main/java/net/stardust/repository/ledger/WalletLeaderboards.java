@@ -0,0 +1,226 @@
+package net.stardust.repository.ledger;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.stardust.base.database.Page;
+import net.stardust.base.database.PageRequest;
+import net.stardust.base.database.Query;
+import net.stardust.base.database.Repository;
+import net.stardust.base.database.repositories.Leaderboard;
+import net.stardust.base.model.economy.wallet.Currency;
+import net.stardust.base.model.economy.wallet.PlayerWallet;
+
+/**
+ * {@link Repository} of {@link PlayerWallet}s that keeps a
+ * {@link Leaderboard} per {@link Currency} up to date with every write
+ * made through it, so rankings never need to read every wallet. The
+ * leaderboards are built from the wrapped repository once, when this is
+ * created, and every read and write is delegated to it.
+ *
+ * <p>
+ * Writes lock the stripes of their wallets, in ascending order, around the
+ * delegated write and the leaderboard updates, so concurrent writes to the
+ * same wallet reach the leaderboards in the order they reached the
+ * repository. When a write fails the changed wallets are read back, since
+ * part of it may have been applied.
+ * </p>
+ *
+ * @see LeaderboardController
+ *
+ * @author Sergio Luis
+ */
+public class WalletLeaderboards implements Repository<UUID, PlayerWallet> {
+
+	private static final int STRIPES = 64;
+	private static final int PAGE_SIZE = 1000;
+
+	private Repository<UUID, PlayerWallet> wallets;
+	private Map<Currency, Leaderboard> boards;
+	private ReentrantLock[] stripes;
+
+	public WalletLeaderboards(Repository<UUID, PlayerWallet> wallets) {
+		this.wallets = wallets;
+
+		boards = new EnumMap<>(Currency.class);
+		for(Currency currency : Currency.values()) {
+			boards.put(currency, new Leaderboard());
+		}
+		stripes = new ReentrantLock[STRIPES];
+		for(int i = 0; i < STRIPES; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+		try(var stream = wallets.stream(PAGE_SIZE)) {
+			stream.forEach(this::rank);
+		}
+	}
+
+	/**
+	 * Returns the leaderboard of the currency.
+	 *
+	 * @param currency the currency
+	 * @return the leaderboard
+	 */
+	public Leaderboard board(Currency currency) {
+		return boards.get(currency);
+	}
+
+	private void rank(PlayerWallet wallet) {
+		for(Currency currency : Currency.values()) {
+			boards.get(currency).update(wallet.getId(), wallet.getMoney(currency).getValue());
+		}
+	}
+
+	private void unrank(UUID id) {
+		for(Leaderboard board : boards.values()) {
+			board.remove(id);
+		}
+	}
+
+	private void reload(List<UUID> ids) {
+		// findAll returns the wallets in no particular order and leaves out the missing ones
+		Set<UUID> missing = new HashSet<>(ids);
+		for(PlayerWallet wallet : wallets.findAll(ids)) {
+			if(wallet != null) {
+				rank(wallet);
+				missing.remove(wallet.getEntityId());
+			}
+		}
+		missing.forEach(this::unrank);
+	}
+
+	@Override
+	public List<PlayerWallet> findAll() {
+		return wallets.findAll();
+	}
+
+	@Override
+	public List<PlayerWallet> findAll(List<UUID> list) {
+		return wallets.findAll(list);
+	}
+
+	@Override
+	public PlayerWallet findById(UUID id) {
+		return wallets.findById(id);
+	}
+
+	@Override
+	public List<PlayerWallet> findBy(Query query) {
+		return wallets.findBy(query);
+	}
+
+	@Override
+	public Page<PlayerWallet> findPage(PageRequest request) {
+		return wallets.findPage(request);
+	}
+
+	@Override
+	public boolean existsById(UUID id) {
+		return wallets.existsById(id);
+	}
+
+	@Override
+	public SaveResult save(PlayerWallet data, boolean update) {
+		int[] locked = lock(List.of(data.getId()));
+		try {
+			SaveResult result = wallets.save(data, update);
+			switch(result) {
+				case SUCCESS -> rank(data);
+				case FAIL -> reload(List.of(data.getId()));
+				case DUPLICATE -> {}
+			}
+			return result;
+		} finally {
+			unlock(locked);
+		}
+	}
+
+	@Override
+	public SaveResult saveAll(List<PlayerWallet> list, boolean update) {
+		List<UUID> ids = list.stream().map(PlayerWallet::getId).toList();
+		int[] locked = lock(ids);
+		try {
+			SaveResult result = wallets.saveAll(list, update);
+			switch(result) {
+				case SUCCESS -> list.forEach(this::rank);
+				case FAIL -> reload(ids);
+				case DUPLICATE -> {}
+			}
+			return result;
+		} finally {
+			unlock(locked);
+		}
+	}
+
+	@Override
+	public boolean delete(UUID id) {
+		int[] locked = lock(List.of(id));
+		try {
+			boolean deleted = wallets.delete(id);
+			if(deleted) {
+				unrank(id);
+			} else {
+				reload(List.of(id));
+			}
+			return deleted;
+		} finally {
+			unlock(locked);
+		}
+	}
+
+	@Override
+	public boolean deleteAll(List<UUID> list) {
+		int[] locked = lock(list);
+		try {
+			boolean deleted = wallets.deleteAll(list);
+			if(deleted) {
+				list.forEach(this::unrank);
+			} else {
+				reload(new ArrayList<>(list));
+			}
+			return deleted;
+		} finally {
+			unlock(locked);
+		}
+	}
+
+	@Override
+	public Class<UUID> getKeyClass() {
+		return wallets.getKeyClass();
+	}
+
+	@Override
+	public Class<PlayerWallet> getValueClass() {
+		return wallets.getValueClass();
+	}
+
+	@Override
+	public void close() throws Exception {
+		wallets.close();
+	}
+
+	private int[] lock(List<UUID> ids) {
+		int[] locked = ids.stream()
+				.mapToInt(id -> (id.hashCode() ^ (id.hashCode() >>> 16)) & (STRIPES - 1))
+				.sorted()
+				.distinct()
+				.toArray();
+		for(int stripe : locked) {
+			stripes[stripe].lock();
+		}
+		return locked;
+	}
+
+	private void unlock(int[] locked) {
+		for(int i = locked.length - 1; i >= 0; i--) {
+			stripes[locked[i]].unlock();
+		}
+	}
+
+}
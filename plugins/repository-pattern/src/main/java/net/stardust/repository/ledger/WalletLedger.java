@@ -0,0 +1,306 @@
+package net.stardust.repository.ledger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import br.sergio.comlib.MethodAdapter;
+import br.sergio.comlib.ResponseData;
+import br.sergio.comlib.ResponseStatus;
+import net.stardust.base.BasePlugin;
+import net.stardust.base.database.Repository;
+import net.stardust.base.database.Repository.SaveResult;
+import net.stardust.base.database.RepositoryController;
+import net.stardust.base.database.crud.PlayerWalletCrud;
+import net.stardust.base.database.repositories.RepositoryLog;
+import net.stardust.base.model.economy.wallet.LedgerRequest;
+import net.stardust.base.model.economy.wallet.Money;
+import net.stardust.base.model.economy.wallet.PlayerWallet;
+import net.stardust.base.model.economy.wallet.WalletDelta;
+import net.stardust.base.utils.Throwables;
+
+/**
+ * Applies {@link LedgerRequest}s to the {@link PlayerWallet} repository,
+ * listening on {@link PlayerWalletCrud#LEDGER_ID}.
+ *
+ * <p>
+ * A POST of a request locks the stripes of its wallets in ascending
+ * order, reads them, applies every delta to copies and saves them all at
+ * once, so concurrent requests touching the same wallet are serialized
+ * and a transfer costs the client a single round trip. If a wallet does not
+ * exist the answer is NOT_FOUND, and if funds are required and a debit is
+ * larger than the balance the answer is CONFLICT; nothing is changed in
+ * both cases. Applied requests are answered with CREATED and the new
+ * wallets, and a request whose transaction id was recently applied is
+ * answered with OK without being applied again.
+ * </p>
+ *
+ * <p>
+ * Every applied request is appended to a journal in the "ledger" folder
+ * of the plugin. The journal is append-only and is the audit trail of the
+ * ledger: full segments are sealed and kept, and nothing is ever deleted
+ * from them. It is replayed once on startup into an in-memory index of the
+ * last {@link #HISTORY} entries of each wallet, which is the only bounded
+ * part. A GET of a wallet id answers the indexed entries touching that
+ * wallet, in order, without touching the journal.
+ * </p>
+ *
+ * <p>
+ * Only balance changes made through the ledger are atomic with each other;
+ * wallets saved directly through the {@link RepositoryController} are not
+ * locked.
+ * </p>
+ *
+ * @author Sergio Luis
+ */
+public class WalletLedger extends MethodAdapter implements Closeable {
+
+	public static final String FOLDER = "ledger";
+	public static final long SEGMENT_SIZE = 1 << 20;
+	public static final int HISTORY = 256;
+
+	private static final int STRIPES = 64;
+	private static final int RECENT_TRANSACTIONS = 10_000;
+
+	private BasePlugin plugin;
+	private Repository<UUID, PlayerWallet> wallets;
+	private RepositoryController<UUID, PlayerWallet> controller;
+	private RepositoryLog<UUID, LedgerEntry> journal;
+	private ReentrantLock[] stripes;
+	private Map<UUID, Boolean> recent;
+	private Map<UUID, ArrayDeque<Indexed>> history;
+	private long sequence;
+
+	public WalletLedger(BasePlugin plugin, Repository<UUID, PlayerWallet> wallets,
+			RepositoryController<UUID, PlayerWallet> controller) {
+		this.plugin = plugin;
+		this.wallets = wallets;
+		this.controller = controller;
+
+		File directory = new File(plugin.getDataFolder(), FOLDER);
+		directory.mkdirs();
+		journal = new RepositoryLog<>(directory, "journal", SEGMENT_SIZE);
+		history = new HashMap<>();
+		stripes = new ReentrantLock[STRIPES];
+		for(int i = 0; i < STRIPES; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+		recent = new LinkedHashMap<>() {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+				return size() > RECENT_TRANSACTIONS;
+			}
+
+		};
+		try {
+			journal.replay(new Replay());
+		} catch(IOException e) {
+			plugin.getLogger().log(Level.SEVERE, "Could not replay the ledger journal", e);
+			Throwables.sendAndThrow(plugin.getId(), e);
+		}
+	}
+
+	@Override
+	public ResponseData post(Object content) {
+		if(!(content instanceof LedgerRequest request) || request.deltas().isEmpty()) {
+			return new ResponseData(ResponseStatus.BAD_REQUEST);
+		}
+		try {
+			return apply(request);
+		} catch(Exception e) {
+			plugin.getLogger().log(Level.SEVERE, "Exception while applying the ledger request "
+					+ request.transaction(), Throwables.send(plugin.getId(), e));
+			return new ResponseData(ResponseStatus.INTERNAL_SERVER_ERROR, "Exception: " + e);
+		}
+	}
+
+	@Override
+	public ResponseData get(Object content) {
+		if(!(content instanceof UUID wallet)) {
+			return new ResponseData(ResponseStatus.BAD_REQUEST);
+		}
+		ArrayList<LedgerEntry> entries = new ArrayList<>();
+		synchronized(history) {
+			ArrayDeque<Indexed> indexed = history.get(wallet);
+			if(indexed != null) {
+				indexed.forEach(item -> entries.add(item.entry()));
+			}
+		}
+		return new ResponseData(ResponseStatus.OK, entries);
+	}
+
+	@Override
+	public ResponseData put(Object content) {
+		return new ResponseData(ResponseStatus.BAD_REQUEST);
+	}
+
+	@Override
+	public ResponseData delete(Object content) {
+		return new ResponseData(ResponseStatus.BAD_REQUEST);
+	}
+
+	private ResponseData apply(LedgerRequest request) {
+		List<UUID> ids = request.deltas().stream().map(WalletDelta::wallet).distinct().toList();
+		int[] locked = lock(ids);
+		try {
+			synchronized(recent) {
+				if(recent.containsKey(request.transaction())) {
+					return new ResponseData(ResponseStatus.OK);
+				}
+			}
+			Map<UUID, PlayerWallet> changed = new LinkedHashMap<>();
+			for(UUID id : ids) {
+				PlayerWallet wallet = wallets.findById(id);
+				if(wallet == null) {
+					return new ResponseData(ResponseStatus.NOT_FOUND, id.toString());
+				}
+				// the repository may hand out cached instances, which must stay untouched on failure
+				changed.put(id, wallet.clone());
+			}
+			for(WalletDelta delta : request.deltas()) {
+				Money money = changed.get(delta.wallet()).getMoney(delta.currency());
+				BigInteger balance = delta.absolute() ? delta.amount() : add(money.getValue(), delta.amount());
+				if(balance.signum() < 0 && request.requireFunds()) {
+					return new ResponseData(ResponseStatus.CONFLICT, delta.wallet().toString());
+				}
+				money.setValue(balance);
+			}
+			ArrayList<PlayerWallet> result = new ArrayList<>(changed.values());
+			if(wallets.saveAll(result, true) != SaveResult.SUCCESS) {
+				return new ResponseData(ResponseStatus.INTERNAL_SERVER_ERROR, "Could not save the wallets");
+			}
+			controller.invalidate(ids);
+			record(new LedgerEntry(request.transaction(), System.currentTimeMillis(), request.deltas()));
+			synchronized(recent) {
+				recent.put(request.transaction(), Boolean.TRUE);
+			}
+			return new ResponseData(ResponseStatus.CREATED, result);
+		} finally {
+			unlock(locked);
+		}
+	}
+
+	/**
+	 * Adds with plain longs when both operands are far enough from the
+	 * limits of a long for the sum not to overflow, which covers every
+	 * realistic balance, and with BigInteger otherwise.
+	 */
+	static BigInteger add(BigInteger balance, BigInteger delta) {
+		if(balance.bitLength() < Long.SIZE - 1 && delta.bitLength() < Long.SIZE - 1) {
+			return BigInteger.valueOf(balance.longValue() + delta.longValue());
+		}
+		return balance.add(delta);
+	}
+
+	/**
+	 * The wallets are already saved when this runs, so a journal failure
+	 * is reported but does not undo the request.
+	 */
+	private void record(LedgerEntry entry) {
+		synchronized(journal) {
+			try {
+				journal.append(journal.encode(List.of(entry), List.of()));
+			} catch(IOException e) {
+				plugin.getLogger().log(Level.SEVERE, "Could not journal the ledger entry " + entry.transaction(),
+						Throwables.send(plugin.getId(), e));
+			}
+		}
+		index(entry);
+	}
+
+	private void index(LedgerEntry entry) {
+		synchronized(history) {
+			Indexed indexed = new Indexed(sequence++, entry);
+			for(WalletDelta delta : entry.deltas()) {
+				ArrayDeque<Indexed> entries = history.computeIfAbsent(delta.wallet(), wallet -> new ArrayDeque<>());
+				if(entries.peekLast() == indexed) {
+					continue;
+				}
+				entries.addLast(indexed);
+				if(entries.size() > HISTORY) {
+					entries.removeFirst();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the indexed entries of every wallet, in the order they were
+	 * applied.
+	 *
+	 * @return the indexed entries
+	 */
+	public List<LedgerEntry> entries() {
+		TreeMap<Long, LedgerEntry> entries = new TreeMap<>();
+		synchronized(history) {
+			for(ArrayDeque<Indexed> indexed : history.values()) {
+				indexed.forEach(item -> entries.put(item.sequence(), item.entry()));
+			}
+		}
+		return new ArrayList<>(entries.values());
+	}
+
+	private int[] lock(List<UUID> ids) {
+		int[] locked = ids.stream()
+				.mapToInt(id -> (id.hashCode() ^ (id.hashCode() >>> 16)) & (STRIPES - 1))
+				.sorted()
+				.distinct()
+				.toArray();
+		for(int stripe : locked) {
+			stripes[stripe].lock();
+		}
+		return locked;
+	}
+
+	private void unlock(int[] locked) {
+		for(int i = locked.length - 1; i >= 0; i--) {
+			stripes[locked[i]].unlock();
+		}
+	}
+
+	private record Indexed(long sequence, LedgerEntry entry) {
+	}
+
+	/**
+	 * Indexes the journaled entries as they are replayed, instead of holding
+	 * the whole journal in memory.
+	 */
+	private class Replay extends AbstractMap<UUID, LedgerEntry> {
+
+		@Override
+		public LedgerEntry put(UUID transaction, LedgerEntry entry) {
+			index(entry);
+			// so a request retried across a restart is still recognized
+			recent.put(transaction, Boolean.TRUE);
+			return null;
+		}
+
+		@Override
+		public Set<Map.Entry<UUID, LedgerEntry>> entrySet() {
+			return Set.of();
+		}
+
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized(journal) {
+			journal.close();
+		}
+	}
+
+}
@@ -0,0 +1,183 @@
+package net.stardust.repository.minigame;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import br.sergio.comlib.MethodAdapter;
+import br.sergio.comlib.ResponseData;
+import br.sergio.comlib.ResponseStatus;
+import net.stardust.base.BasePlugin;
+import net.stardust.base.database.Repository;
+import net.stardust.base.database.Repository.SaveResult;
+import net.stardust.base.database.RepositoryController;
+import net.stardust.base.database.crud.MinigameStatsCrud;
+import net.stardust.base.model.minigame.MinigameData;
+import net.stardust.base.model.minigame.MinigamePlayer;
+import net.stardust.base.model.minigame.MinigameStats;
+import net.stardust.base.model.minigame.StatsDelta;
+import net.stardust.base.utils.Throwables;
+
+/**
+ * Applies {@link StatsDelta}s to the {@link MinigameStats} repository,
+ * listening on {@link MinigameStatsCrud#COUNTER_ID}.
+ *
+ * <p>
+ * A POST of a list of deltas locks the stripes of the statistics they
+ * touch, in ascending order, reads only those rows, creates the missing
+ * ones, adds the deltas to copies and saves them all at once, so
+ * concurrent matches of the same players are serialized and cost each
+ * client a single round trip. The answer is CREATED with the new
+ * statistics, or BAD_REQUEST if a delta would make a count negative, in
+ * which case nothing is changed.
+ * </p>
+ *
+ * <p>
+ * Statistics used to be kept inside {@link MinigameData}; when created,
+ * this copies them into rows of their own, skipping players that already
+ * have one, and empties the old maps.
+ * </p>
+ *
+ * @author Sergio Luis
+ */
+public class StatsCounter extends MethodAdapter {
+
+	private static final int STRIPES = 64;
+
+	private BasePlugin plugin;
+	private Repository<String, MinigameStats> stats;
+	private RepositoryController<String, MinigameStats> controller;
+	private ReentrantLock[] stripes;
+
+	public StatsCounter(BasePlugin plugin, Repository<String, MinigameStats> stats,
+			RepositoryController<String, MinigameStats> controller) {
+		this.plugin = plugin;
+		this.stats = stats;
+		this.controller = controller;
+
+		stripes = new ReentrantLock[STRIPES];
+		for(int i = 0; i < STRIPES; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+	}
+
+	@Override
+	public ResponseData post(Object content) {
+		if(!(content instanceof List<?> list) || list.isEmpty()
+				|| !list.stream().allMatch(StatsDelta.class::isInstance)) {
+			return new ResponseData(ResponseStatus.BAD_REQUEST);
+		}
+		List<StatsDelta> deltas = list.stream().map(StatsDelta.class::cast).toList();
+		try {
+			return apply(deltas);
+		} catch(IllegalArgumentException | ArithmeticException e) {
+			return new ResponseData(ResponseStatus.BAD_REQUEST, e.getMessage());
+		} catch(Exception e) {
+			plugin.getLogger().log(Level.SEVERE, "Exception while applying minigame statistics",
+					Throwables.send(plugin.getId(), e));
+			return new ResponseData(ResponseStatus.INTERNAL_SERVER_ERROR, "Exception: " + e);
+		}
+	}
+
+	@Override
+	public ResponseData get(Object content) {
+		return new ResponseData(ResponseStatus.BAD_REQUEST);
+	}
+
+	@Override
+	public ResponseData put(Object content) {
+		return new ResponseData(ResponseStatus.BAD_REQUEST);
+	}
+
+	@Override
+	public ResponseData delete(Object content) {
+		return new ResponseData(ResponseStatus.BAD_REQUEST);
+	}
+
+	private ResponseData apply(List<StatsDelta> deltas) {
+		List<String> ids = deltas.stream().map(StatsDelta::id).distinct().toList();
+		int[] locked = lock(ids);
+		try {
+			Map<String, MinigameStats> changed = new LinkedHashMap<>();
+			// findAll returns the rows in no particular order and leaves out the missing ones
+			for(MinigameStats row : stats.findAll(ids)) {
+				if(row != null) {
+					// the repository may hand out cached instances, which must stay untouched on failure
+					changed.put(row.getEntityId(), row.clone());
+				}
+			}
+			for(StatsDelta delta : deltas) {
+				MinigameStats row = changed.get(delta.id());
+				if(row == null) {
+					row = new MinigameStats(delta.minigame(), delta.player());
+					changed.put(delta.id(), row);
+				}
+				row.apply(delta);
+			}
+			ArrayList<MinigameStats> result = new ArrayList<>(changed.values());
+			if(stats.saveAll(result, true) != SaveResult.SUCCESS) {
+				return new ResponseData(ResponseStatus.INTERNAL_SERVER_ERROR, "Could not save the statistics");
+			}
+			controller.invalidate(ids);
+			return new ResponseData(ResponseStatus.CREATED, result);
+		} finally {
+			unlock(locked);
+		}
+	}
+
+	/**
+	 * Moves the statistics kept inside every {@link MinigameData} into rows
+	 * of their own. Players that already have a row keep it, so running
+	 * this again after a partial migration never counts a match twice.
+	 *
+	 * @param data the minigame data repository
+	 */
+	public void migrate(Repository<String, MinigameData> data) {
+		for(MinigameData minigame : data.findAll()) {
+			Map<UUID, MinigamePlayer> players = minigame.getMinigamePlayers();
+			if(players == null || players.isEmpty()) {
+				continue;
+			}
+			String name = minigame.getMinigameName();
+			List<String> ids = players.keySet().stream().map(player -> MinigameStats.idOf(name, player)).toList();
+			List<MinigameStats> rows = new ArrayList<>();
+			for(MinigamePlayer player : players.values()) {
+				if(!stats.existsById(MinigameStats.idOf(name, player.getId()))) {
+					rows.add(new MinigameStats(name, player.getId(), player.getWins(), player.getLosses()));
+				}
+			}
+			if(!rows.isEmpty() && stats.saveAll(rows, false) != SaveResult.SUCCESS) {
+				plugin.getLogger().severe("Could not migrate the statistics of the minigame " + name);
+				continue;
+			}
+			controller.invalidate(ids);
+			players.clear();
+			if(data.save(minigame, true) != SaveResult.SUCCESS) {
+				plugin.getLogger().severe("Could not empty the old statistics of the minigame " + name);
+			}
+		}
+	}
+
+	private int[] lock(List<String> ids) {
+		int[] locked = ids.stream()
+				.mapToInt(id -> (id.hashCode() ^ (id.hashCode() >>> 16)) & (STRIPES - 1))
+				.sorted()
+				.distinct()
+				.toArray();
+		for(int stripe : locked) {
+			stripes[stripe].lock();
+		}
+		return locked;
+	}
+
+	private void unlock(int[] locked) {
+		for(int i = locked.length - 1; i >= 0; i--) {
+			stripes[locked[i]].unlock();
+		}
+	}
+
+}
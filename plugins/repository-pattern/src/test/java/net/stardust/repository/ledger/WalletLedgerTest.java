@@ -0,0 +1,132 @@
+package net.stardust.repository.ledger;
+
+import net.stardust.base.BasePlugin;
+import net.stardust.base.database.Repository;
+import net.stardust.base.database.Repository.SaveResult;
+import net.stardust.base.database.RepositoryController;
+import net.stardust.base.database.repositories.RepositoryLog;
+import net.stardust.base.model.economy.wallet.Currency;
+import net.stardust.base.model.economy.wallet.LedgerRequest;
+import net.stardust.base.model.economy.wallet.PlayerWallet;
+import net.stardust.base.model.economy.wallet.WalletDelta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+public class WalletLedgerTest {
+
+    @Mock
+    private BasePlugin plugin;
+
+    @Mock
+    private Repository<UUID, PlayerWallet> wallets;
+
+    @Mock
+    private RepositoryController<UUID, PlayerWallet> controller;
+
+    @TempDir
+    File dataFolder;
+
+    private Map<UUID, PlayerWallet> stored;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        stored = new ConcurrentHashMap<>();
+
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(WalletLedgerTest.class.getName()));
+        when(plugin.getId()).thenReturn("test");
+        when(wallets.findById(any())).thenAnswer(invocation -> stored.get(invocation.<UUID>getArgument(0)));
+        when(wallets.saveAll(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            invocation.<List<PlayerWallet>>getArgument(0).forEach(wallet -> stored.put(wallet.getEntityId(), wallet));
+            return SaveResult.SUCCESS;
+        });
+    }
+
+    @Test
+    @DisplayName("Should keep every entry in the journal while only indexing the last ones of each wallet")
+    void test1() throws IOException {
+        UUID id = UUID.randomUUID();
+        stored.put(id, new PlayerWallet(id));
+        int applied = WalletLedger.HISTORY + 10;
+        List<LedgerRequest> requests = new ArrayList<>();
+
+        try (WalletLedger ledger = new WalletLedger(plugin, wallets, controller)) {
+            for (int i = 0; i < applied; i++) {
+                LedgerRequest request = LedgerRequest.of(false, WalletDelta.credit(id, Currency.BRONZE, BigInteger.ONE));
+                requests.add(request);
+                ledger.post(request);
+            }
+            assertEquals(WalletLedger.HISTORY, ledger.entries().size());
+            assertEquals(requests.get(applied - 1).transaction(), ledger.entries().getLast().transaction());
+        }
+
+        Map<UUID, LedgerEntry> journaled = new LinkedHashMap<>();
+        try (RepositoryLog<UUID, LedgerEntry> journal = new RepositoryLog<>(new File(dataFolder, WalletLedger.FOLDER),
+                "journal", WalletLedger.SEGMENT_SIZE)) {
+            assertEquals(applied, journal.replay(journaled));
+        }
+        assertEquals(requests.stream().map(LedgerRequest::transaction).toList(), new ArrayList<>(journaled.keySet()));
+    }
+
+    @Test
+    @DisplayName("Should recognize a transaction older than the index after a restart")
+    void test2() throws IOException {
+        UUID id = UUID.randomUUID();
+        stored.put(id, new PlayerWallet(id));
+        int applied = WalletLedger.HISTORY + 10;
+        LedgerRequest first = LedgerRequest.of(false, WalletDelta.credit(id, Currency.BRONZE, BigInteger.ONE));
+
+        try (WalletLedger ledger = new WalletLedger(plugin, wallets, controller)) {
+            ledger.post(first);
+            for (int i = 1; i < applied; i++) {
+                ledger.post(LedgerRequest.of(false, WalletDelta.credit(id, Currency.BRONZE, BigInteger.ONE)));
+            }
+        }
+
+        try (WalletLedger ledger = new WalletLedger(plugin, wallets, controller)) {
+            assertEquals(WalletLedger.HISTORY, ledger.entries().size());
+            ledger.post(first);
+            assertEquals(BigInteger.valueOf(applied), stored.get(id).getMoney(Currency.BRONZE).getValue());
+        }
+    }
+
+    @Test
+    @DisplayName("Should set a balance under the ledger and journal it, keeping the other currencies")
+    void test3() throws IOException {
+        UUID id = UUID.randomUUID();
+        stored.put(id, new PlayerWallet(id));
+
+        try (WalletLedger ledger = new WalletLedger(plugin, wallets, controller)) {
+            ledger.post(LedgerRequest.of(false, WalletDelta.credit(id, Currency.BRONZE, BigInteger.TEN),
+                    WalletDelta.credit(id, Currency.SILVER, BigInteger.TWO)));
+            ledger.post(LedgerRequest.of(false, WalletDelta.set(id, Currency.BRONZE, BigInteger.valueOf(3))));
+
+            assertEquals(BigInteger.valueOf(3), stored.get(id).getMoney(Currency.BRONZE).getValue());
+            assertEquals(BigInteger.TWO, stored.get(id).getMoney(Currency.SILVER).getValue());
+            assertTrue(ledger.entries().getLast().deltas().getFirst().absolute());
+        }
+        assertThrows(IllegalArgumentException.class, () -> WalletDelta.set(id, Currency.BRONZE, BigInteger.ONE.negate()));
+    }
+
+}
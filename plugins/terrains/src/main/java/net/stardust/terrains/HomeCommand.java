@@ -15,6 +15,8 @@ import net.kyori.adventure.text.format.NamedTextColor;
 import net.stardust.base.Stardust;
 import net.stardust.base.command.BaseCommand;
 import net.stardust.base.command.CommandEntry;
+import net.stardust.base.command.Completion;
+import net.stardust.base.command.CompletionSource;
 import net.stardust.base.command.DirectCommand;
 import net.stardust.base.model.terrain.Home;
 import net.stardust.base.utils.gameplay.AutomaticMessages;
@@ -25,6 +27,7 @@ public class HomeCommand extends DirectCommand<TerrainsPlugin> {
 
     private int limit;
     private String key = "stardust:player_homes";
+    private CompletionSource completions = CompletionSource.named("homes");
     private Set<String> allowedWorlds;
 
     public HomeCommand(TerrainsPlugin plugin) {
@@ -41,10 +44,11 @@ public class HomeCommand extends DirectCommand<TerrainsPlugin> {
 
     @CommandEntry
     @SuppressWarnings("unchecked")
-    public void home(String name) {
+    public void home(@Completion(value = "homes", perSender = true) String name) {
         Player player = sender();
         DataManager<Player> dataManager = new DataManager<>(player);
         Set<Home> homes = dataManager.readObject(key, Set.class);
+        updateCompletions(player, homes);
         if(homes == null) {
             player.sendMessage(miniMessage.deserialize("<red><lang:world.home.dont-have-any>"));
             return;
@@ -66,7 +70,7 @@ public class HomeCommand extends DirectCommand<TerrainsPlugin> {
 
     @CommandEntry("set")
     @SuppressWarnings("unchecked")
-    public void homeSet(String name) {
+    public void homeSet(@Completion(value = "homes", perSender = true) String name) {
         Player player = sender();
         World world = player.getWorld();
         if(TerrainsService.INSTANCE.containsTerrain(world)) {
@@ -88,6 +92,7 @@ public class HomeCommand extends DirectCommand<TerrainsPlugin> {
         }
         DataManager<Player> dataManager = new DataManager<>(player);
         Set<Home> homes = dataManager.readObject(key, Set.class);
+        updateCompletions(player, homes);
         if(homes == null) {
             homes = new HashSet<>();
         }
@@ -106,6 +111,7 @@ public class HomeCommand extends DirectCommand<TerrainsPlugin> {
             player.sendRichMessage("<green><lang:world.home.created-at:'<gold>" + getHomeString(player) + "'>");
         }
         dataManager.writeObject(key, homes);
+        updateCompletions(player, homes);
     }
 
     @CommandEntry("delete")
@@ -115,10 +121,11 @@ public class HomeCommand extends DirectCommand<TerrainsPlugin> {
 
     @CommandEntry("delete")
     @SuppressWarnings("unchecked")
-    public void deleteHome(String name) {
+    public void deleteHome(@Completion(value = "homes", perSender = true) String name) {
         Player player = sender();
         DataManager<Player> dataManager = new DataManager<>(player);
         Set<Home> homes = dataManager.readObject(key, Set.class);
+        updateCompletions(player, homes);
         if(homes == null) {
             player.sendRichMessage("<red><lang:world.home.dont-have-any>");
             return;
@@ -127,6 +134,7 @@ public class HomeCommand extends DirectCommand<TerrainsPlugin> {
         if(home != null) {
             homes.remove(home);
             dataManager.writeObject(key, homes);
+            updateCompletions(player, homes);
             player.sendRichMessage("<green><lang:world.home.removed:'<gold>" + name + "'");
             return;
         }
@@ -144,6 +152,7 @@ public class HomeCommand extends DirectCommand<TerrainsPlugin> {
         Player player = sender();
         DataManager<Player> dataManager = new DataManager<>(player);
         Set<Home> homes = dataManager.readObject(key, Set.class);
+        updateCompletions(player, homes);
         if(homes == null) {
             player.sendMessage(Component.translatable("world.home.dont-have-any", NamedTextColor.RED));
             return;
@@ -168,6 +177,15 @@ public class HomeCommand extends DirectCommand<TerrainsPlugin> {
             .format(loc.getY()), format.format(loc.getZ())) + ")";
     }
 
+    private void updateCompletions(Player player, Set<Home> homes) {
+        CompletionSource source = completions.of(player.getUniqueId());
+        if(homes == null) {
+            source.clear();
+        } else {
+            source.set(homes.stream().map(Home::getName).toList());
+        }
+    }
+
     private Home findHome(String name, Set<Home> homes) {
         for(Home home : homes) {
             if(home.getName().equals(name)) {
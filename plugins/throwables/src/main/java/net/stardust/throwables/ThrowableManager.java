@@ -2,6 +2,7 @@ package net.stardust.throwables;
 
 import br.sergio.comlib.*;
 import net.stardust.base.BasePlugin;
+import net.stardust.base.utils.ThrowableReport;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -10,8 +11,10 @@ import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -64,13 +67,36 @@ public class ThrowableManager extends BasePlugin implements RequestMapper {
         Object obj = content.get();
         if(obj instanceof Throwable t) {
             saveThrowable(request.getSender(), t);
+        } else if(obj instanceof List<?> list) {
+            for(Object element : list) {
+                if(element instanceof ThrowableReport report) {
+                    saveThrowable(report);
+                } else {
+                    throw new MappingException(element.getClass() + " is not a subtype of " + ThrowableReport.class);
+                }
+            }
         } else {
             throw new MappingException(obj.getClass() + " is not a subtype of " + Throwable.class);
         }
         return Response.emptyResponse();
     }
     
+    private void saveThrowable(ThrowableReport report) {
+        saveThrowable(report.sender(), report.throwable(), pw -> {
+            if(report.count() > 1) {
+                SimpleDateFormat format = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss.SSS");
+                pw.println("count=" + report.count());
+                pw.println("first=" + format.format(new Date(report.first())));
+                pw.println("last=" + format.format(new Date(report.last())));
+            }
+        });
+    }
+
     private void saveThrowable(String id, Throwable t) {
+        saveThrowable(id, t, pw -> {});
+    }
+
+    private void saveThrowable(String id, Throwable t, Consumer<PrintWriter> header) {
         File throwablesFolder = new File(getConfig().getString("throwables-folder"));
         if(!throwablesFolder.exists()) {
             throwablesFolder.mkdirs();
@@ -85,6 +111,7 @@ public class ThrowableManager extends BasePlugin implements RequestMapper {
         try(FileWriter fw = new FileWriter(file, StandardCharsets.UTF_8, true); 
             PrintWriter pw = new PrintWriter(fw)) {
             pw.println("id=" + id);
+            header.accept(pw);
             pw.println();
             t.printStackTrace(pw);
             pw.flush();